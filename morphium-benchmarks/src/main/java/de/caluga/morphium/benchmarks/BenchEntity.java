@@ -0,0 +1,65 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.annotations.Embedded;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.Index;
+import de.caluga.morphium.driver.MorphiumId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * entity used by the mapper and driver benchmarks - a typical mix of scalar, embedded and list
+ * fields, shaped like {@link BenchmarkData#document(int)}
+ */
+@Entity(collectionName = "bench_entity")
+public class BenchEntity {
+    @Id
+    public MorphiumId id;
+    @Index
+    public int counter;
+    @Index
+    public String category;
+    public String name;
+    public double value;
+    public boolean active;
+    public Date created;
+    public List<String> tags;
+    public Part part;
+    public List<Part> parts;
+
+    public static BenchEntity create(int i) {
+        BenchEntity e = new BenchEntity();
+        e.counter = i;
+        e.category = BenchmarkData.category(i);
+        e.name = "entity " + i;
+        e.value = i / 7.0;
+        e.active = i % 2 == 0;
+        e.created = new Date(BenchmarkData.EPOCH + i * 1000L);
+        e.tags = List.of("t" + i % 5, "t" + i % 11);
+        e.part = new Part("main", i);
+        e.parts = new ArrayList<>();
+
+        for (int p = 0; p < 3; p++) {
+            e.parts.add(new Part("part" + p, i + p));
+        }
+
+        return e;
+    }
+
+    @Embedded
+    public static class Part {
+        public String label;
+        public int weight;
+
+        public Part() {
+        }
+
+        public Part(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+}
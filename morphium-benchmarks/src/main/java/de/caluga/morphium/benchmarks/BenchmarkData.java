@@ -0,0 +1,66 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic test data shared by the benchmarks - the same index always yields the same
+ * document, so numbers of different revisions are comparable.
+ */
+public final class BenchmarkData {
+    static final long EPOCH = 1_700_000_000_000L;
+    static final int CATEGORIES = 20;
+
+    private BenchmarkData() {
+    }
+
+    static String category(int i) {
+        return "cat" + i % CATEGORIES;
+    }
+
+    /** a document with the fields of {@link BenchEntity}, as stored in mongo */
+    public static Map<String, Object> document(int i) {
+        List<Map<String, Object>> parts = new ArrayList<>();
+
+        for (int p = 0; p < 3; p++) {
+            parts.add(Doc.of("label", "part" + p, "weight", i + p));
+        }
+
+        return new Doc()
+            .add("_id", new MorphiumId())
+            .add("counter", i)
+            .add("category", category(i))
+            .add("name", "entity " + i)
+            .add("value", i / 7.0)
+            .add("active", i % 2 == 0)
+            .add("created", new Date(EPOCH + i * 1000L))
+            .add("tags", List.of("t" + i % 5, "t" + i % 11))
+            .add("part", Doc.of("label", "main", "weight", i))
+            .add("parts", parts);
+    }
+
+    public static List<Map<String, Object>> documents(int count) {
+        List<Map<String, Object>> ret = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(document(i));
+        }
+
+        return ret;
+    }
+
+    public static List<BenchEntity> entities(int count) {
+        List<BenchEntity> ret = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(BenchEntity.create(i));
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,77 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BsonEncoder} / {@link BsonDecoder} for a single document and for a batch of
+ * {@code size} documents embedded in one reply-like document (as in a cursor batch).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BsonCodecBenchmark {
+    @Param({"1", "100"})
+    public int size;
+
+    private Map<String, Object> document;
+    private byte[] encoded;
+    private ByteBuffer target;
+
+    @Setup
+    public void setup() {
+        if (size == 1) {
+            document = BenchmarkData.document(42);
+        } else {
+            List<Map<String, Object>> batch = new ArrayList<>(BenchmarkData.documents(size));
+            document = Map.of("cursor", Map.of("id", 0L, "ns", "bench.bench_entity", "firstBatch", batch), "ok", 1.0);
+        }
+
+        encoded = BsonEncoder.encodeDocument(document);
+        target = ByteBuffer.allocate(encoded.length * 2);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BsonEncoder.encodeDocument(document);
+    }
+
+    /** encoding into a reused buffer, like the pooled wire path */
+    @Benchmark
+    public int encodeIntoBuffer() {
+        target.clear();
+        return BsonEncoder.encodeDocument(document, target);
+    }
+
+    @Benchmark
+    public Map<String, Object> decode() throws UnsupportedEncodingException {
+        return BsonDecoder.decodeDocument(encoded);
+    }
+
+    /** lazy decoding, reading one top level field */
+    @Benchmark
+    public Object decodeLazy() {
+        return BsonDecoder.decodeDocumentLazy(encoded, 0).get(size == 1 ? "name" : "ok");
+    }
+}
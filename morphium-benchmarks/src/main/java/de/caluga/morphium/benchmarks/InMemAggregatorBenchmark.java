@@ -0,0 +1,87 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumDriverException;
+import de.caluga.morphium.driver.commands.AggregateMongoCommand;
+import de.caluga.morphium.driver.inmem.InMemAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation pipelines run by the {@link InMemAggregator} through an aggregate command on a
+ * collection of {@code documents} entities - the same path an application takes with the
+ * InMemoryDriver, including loading the collection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemAggregatorBenchmark {
+    @Param({"10000"})
+    public int documents;
+
+    @Param({"match", "group", "sortLimit", "unwindGroup", "matchGroupSort"})
+    public String pipeline;
+
+    private InMemoryState state;
+    private List<Map<String, Object>> stages;
+
+    static List<Map<String, Object>> pipeline(String name) {
+        Map<String, Object> groupByCategory = Doc.of("$group", Doc.of("_id", "$category", "count", Doc.of("$sum", 1),
+                    "avg", Doc.of("$avg", "$value"), "max", Doc.of("$max", "$counter")));
+        return switch (name) {
+            case "match" -> List.of(Doc.of("$match", Doc.of("category", "cat8", "active", true)),
+                        Doc.of("$project", Doc.of("name", 1, "value", 1)));
+            case "group" -> List.of(groupByCategory);
+            case "sortLimit" -> List.of(Doc.of("$sort", Doc.of("value", -1)), Doc.of("$limit", 10));
+            case "unwindGroup" -> List.of(Doc.of("$unwind", "$parts"),
+                        Doc.of("$project", Doc.of("label", "$parts.label", "weight", "$parts.weight")),
+                        Doc.of("$group", Doc.of("_id", "$label", "weight", Doc.of("$sum", "$weight"))));
+            case "matchGroupSort" -> List.of(Doc.of("$match", Doc.of("counter", Doc.of("$gte", 1000))), groupByCategory,
+                        Doc.of("$sort", Doc.of("count", -1, "_id", 1)));
+            default -> throw new IllegalArgumentException("unknown pipeline " + name);
+        };
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        state = new InMemoryState(documents);
+        stages = pipeline(pipeline);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        state.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> aggregate() throws MorphiumDriverException {
+        AggregateMongoCommand cmd = new AggregateMongoCommand(state.driver)
+            .setDb(InMemoryState.DB)
+            .setColl(state.collection())
+            .setPipeline(stages);
+
+        try {
+            return cmd.execute();
+        } finally {
+            cmd.releaseConnection();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end through {@link de.caluga.morphium.Morphium} on the {@link InMemoryDriver}: mapping,
+ * command creation, index maintenance, query planning and matching. Reads run against a
+ * collection of {@code documents} entities with indexes on {@code counter} and
+ * {@code category}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryDriverBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Filled {
+        @Param({"10000"})
+        public int documents;
+
+        InMemoryState state;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            state = new InMemoryState(documents);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            state.close();
+        }
+    }
+
+    /** an empty collection per iteration, so inserts do not run against an ever growing one */
+    @State(Scope.Benchmark)
+    public static class Empty {
+        InMemoryState state;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            state = new InMemoryState(0);
+            next = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            state.close();
+        }
+    }
+
+    @Benchmark
+    public BenchEntity insertOne(Empty empty) {
+        BenchEntity e = BenchEntity.create(empty.next++);
+        empty.state.morphium.store(e);
+        return e;
+    }
+
+    /** a batch of 100 new entities in one call */
+    @Benchmark
+    public List<BenchEntity> insertBatch(Empty empty) {
+        List<BenchEntity> batch = BenchmarkData.entities(100);
+        empty.state.morphium.storeList(batch);
+        return batch;
+    }
+
+    /** point lookup on an indexed field */
+    @Benchmark
+    public BenchEntity findByIndexedField(Filled filled) {
+        return filled.state.morphium.createQueryFor(BenchEntity.class).f("counter").eq(filled.documents / 2).get();
+    }
+
+    /** indexed range, sorted and limited - 20 results */
+    @Benchmark
+    public List<BenchEntity> findRange(Filled filled) {
+        return filled.state.morphium.createQueryFor(BenchEntity.class)
+            .f("counter").gte(100).f("counter").lt(400)
+            .sort("-value").limit(20).asList();
+    }
+
+    /** predicate on a non indexed field - scans the whole collection */
+    @Benchmark
+    public long countUnindexed(Filled filled) {
+        return filled.state.morphium.createQueryFor(BenchEntity.class).f("value").gt(1000.0).countAll();
+    }
+}
@@ -0,0 +1,44 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+
+/**
+ * A {@link Morphium} instance on a fresh {@link InMemoryDriver}, optionally filled with
+ * {@link BenchEntity} documents - shared setup of the driver level benchmarks.
+ */
+final class InMemoryState {
+    static final String DB = "morphium_bench";
+
+    final Morphium morphium;
+    final InMemoryDriver driver;
+
+    InMemoryState(int documents) {
+        this(documents, false);
+    }
+
+    /**
+     * @param virtualThreads run the writer, async operations and driver pools on virtual threads
+     */
+    InMemoryState(int documents, boolean virtualThreads) {
+        MorphiumConfig cfg = new MorphiumConfig(DB, 10, 10000, 1000);
+        cfg.driverSettings().setDriverName(InMemoryDriver.driverName);
+        cfg.threadPoolSettings().setVirtualThreads(virtualThreads);
+        morphium = new Morphium(cfg);
+        driver = (InMemoryDriver) morphium.getDriver();
+        morphium.ensureIndicesFor(BenchEntity.class);
+
+        if (documents > 0) {
+            morphium.storeList(BenchmarkData.entities(documents));
+        }
+    }
+
+    String collection() {
+        return morphium.getMapper().getCollectionName(BenchEntity.class);
+    }
+
+    void close() {
+        morphium.close();
+    }
+}
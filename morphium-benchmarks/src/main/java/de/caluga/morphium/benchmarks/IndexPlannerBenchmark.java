@@ -0,0 +1,63 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.inmem.IndexDefinition;
+import de.caluga.morphium.driver.inmem.IndexPlanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IndexPlanner#plan} for typical query shapes against the indexes of a collection with
+ * a few single field indexes and one compound index. Runs once per find/update/delete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexPlannerBenchmark {
+    @Param({"id", "eq", "range", "compound", "in", "fullScan"})
+    public String query;
+
+    private List<IndexDefinition> defs;
+    private Map<String, Object> queryMap;
+
+    @Setup
+    public void setup() {
+        defs = List.of(
+            IndexDefinition.fromIndexMap(Doc.of("_id", 1)),
+            IndexDefinition.fromIndexMap(Doc.of("counter", 1)),
+            IndexDefinition.fromIndexMap(Doc.of("name", 1)),
+            IndexDefinition.fromIndexMap(Doc.of("created", -1)),
+            IndexDefinition.fromIndexMap(Doc.of("category", 1, "counter", -1)));
+        queryMap = switch (query) {
+            case "id" -> Doc.of("_id", new MorphiumId());
+            case "eq" -> Doc.of("name", "entity 42");
+            case "range" -> Doc.of("counter", Doc.of("$gte", 100));
+            case "compound" -> Doc.of("category", "cat7", "counter", Doc.of("$gt", 100));
+            case "in" -> Doc.of("counter", Doc.of("$in", List.of(1, 2, 3, 5, 8, 13)));
+            case "fullScan" -> Doc.of("$or", List.of(Doc.of("counter", 1), Doc.of("name", "entity 2")));
+            default -> throw new IllegalArgumentException("unknown query " + query);
+        };
+    }
+
+    @Benchmark
+    public IndexPlanner.IndexPlan plan() {
+        return IndexPlanner.plan(queryMap, defs);
+    }
+}
@@ -0,0 +1,49 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.ObjectMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ObjectMapperImpl#serialize} and {@link ObjectMapperImpl#deserialize} of one
+ * {@link BenchEntity} - scalars, an embedded object and a list of embedded objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectMapperBenchmark {
+    private ObjectMapperImpl mapper;
+    private BenchEntity entity;
+    private Map<String, Object> document;
+
+    @Setup
+    public void setup() {
+        mapper = new ObjectMapperImpl();
+        entity = BenchEntity.create(42);
+        document = mapper.serialize(entity);
+    }
+
+    @Benchmark
+    public Map<String, Object> serialize() {
+        return mapper.serialize(entity);
+    }
+
+    @Benchmark
+    public BenchEntity deserialize() {
+        return mapper.deserialize(BenchEntity.class, document);
+    }
+}
@@ -0,0 +1,88 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.inmem.CompiledQuery;
+import de.caluga.morphium.driver.inmem.QueryHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching {@value #DOCS} documents against a query: {@link CompiledQuery#matches} (compiled
+ * once, as the InMemoryDriver does per operation) versus the interpreting
+ * {@link QueryHelper#matchesQueryInterpreted}. The result is the number of matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryMatcherBenchmark {
+    static final int DOCS = 1000;
+
+    @Param({"eq", "range", "in", "or", "nested", "elemMatch"})
+    public String query;
+
+    private List<Map<String, Object>> docs;
+    private Map<String, Object> queryMap;
+    private CompiledQuery compiled;
+
+    static Map<String, Object> query(String name) {
+        return switch (name) {
+            case "eq" -> Doc.of("category", "cat7");
+            case "range" -> Doc.of("counter", Doc.of("$gte", 100, "$lt", 400), "active", true);
+            case "in" -> Doc.of("category", Doc.of("$in", List.of("cat1", "cat3", "cat5", "cat7")));
+            case "or" -> Doc.of("$or", List.of(Doc.of("counter", Doc.of("$lt", 50)), Doc.of("tags", "t3"),
+                        Doc.of("value", Doc.of("$gt", 120.0))));
+            case "nested" -> Doc.of("part.weight", Doc.of("$gte", 500), "part.label", "main");
+            case "elemMatch" -> Doc.of("parts", Doc.of("$elemMatch", Doc.of("label", "part2", "weight", Doc.of("$lt", 300))));
+            default -> throw new IllegalArgumentException("unknown query " + name);
+        };
+    }
+
+    @Setup
+    public void setup() {
+        docs = BenchmarkData.documents(DOCS);
+        queryMap = query(query);
+        compiled = CompiledQuery.compile(queryMap);
+    }
+
+    @Benchmark
+    public int compiled() {
+        int count = 0;
+
+        for (Map<String, Object> d : docs) {
+            if (compiled.matches(d)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int interpreted() {
+        int count = 0;
+
+        for (Map<String, Object> d : docs) {
+            if (QueryHelper.matchesQueryInterpreted(queryMap, d, null)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,114 @@
+package de.caluga.morphium.benchmarks;
+
+import de.caluga.morphium.async.AsyncCallbackAdapter;
+import de.caluga.morphium.async.AsyncOperationType;
+import de.caluga.morphium.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code threadPoolSettings.virtualThreads} under load: {@code callers} concurrent callers, each
+ * storing one entity through the writer pool and reading it back via {@code asListAsync}, with
+ * the pools on platform and on virtual threads. One invocation is one complete run on an empty
+ * collection.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Pools {
+        @Param({"false", "true"})
+        public boolean virtualThreads;
+
+        @Param({"10000"})
+        public int callers;
+
+        InMemoryState state;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            state = new InMemoryState(0, virtualThreads);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            state.close();
+        }
+    }
+
+    @Benchmark
+    public long concurrentCallers(Pools pools) throws Exception {
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(pools.callers);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < pools.callers; i++) {
+                final int counter = i;
+                callers.submit(() -> {
+                    try {
+                        start.await();
+                        CompletableFuture<Void> stored = new CompletableFuture<>();
+                        pools.state.morphium.store(BenchEntity.create(counter), new AsyncCallbackAdapter<>() {
+                            @Override
+                            public void onOperationSucceeded(AsyncOperationType type, Query<BenchEntity> q, long duration, List<BenchEntity> result, BenchEntity entity, Object... param) {
+                                stored.complete(null);
+                            }
+
+                            @Override
+                            public void onOperationError(AsyncOperationType type, Query<BenchEntity> q, long duration, String error, Throwable t, BenchEntity entity, Object... param) {
+                                stored.completeExceptionally(t != null ? t : new RuntimeException(error));
+                            }
+                        });
+                        stored.get(60, TimeUnit.SECONDS);
+                        List<BenchEntity> read = pools.state.morphium.createQueryFor(BenchEntity.class)
+                                                 .f("counter").eq(counter).asListAsync().get(60, TimeUnit.SECONDS);
+
+                        if (read.size() != 1) {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            start.countDown();
+
+            if (!done.await(120, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("callers did not finish");
+            }
+        }
+
+        if (failed.get() > 0) {
+            throw new IllegalStateException(failed.get() + " of " + pools.callers + " callers failed");
+        }
+
+        return pools.callers;
+    }
+}
@@ -0,0 +1,170 @@
+package de.caluga.morphium;
+
+import de.caluga.morphium.annotations.*;
+import de.caluga.morphium.annotations.encryption.Encrypted;
+import de.caluga.morphium.objectmapping.FieldAccessorRegistry;
+import de.caluga.morphium.objectmapping.GeneratedFieldAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything {@link ObjectMapperImpl} needs to know about one persisted field, resolved once
+ * per class: the mongo name, type information, the mapping annotations and accessors.
+ * <p>
+ * Values are read and written through {@link MethodHandle}s bound to the field - not through
+ * {@link Field#get}/{@link Field#set} plus a field lookup by name and annotation queries for
+ * every field of every document. A {@link GeneratedFieldAccessor} registered for the declaring
+ * class takes precedence. When neither is available (e.g. a final field of a record) the
+ * reflective field is used, with the same results as before.
+ */
+final class MappedField {
+    private static final Logger log = LoggerFactory.getLogger(MappedField.class);
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    // all fields, no annotation filter - passed explicitly, an empty generic varargs array is an unchecked creation
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Annotation>[] ALL_FIELDS = new Class[0];
+
+    /** name of the field in mongo, as returned by {@link AnnotationAndReflectionHelper#getFields} */
+    final String name;
+    final Field field;
+    final Class<?> type;
+    final Type genericType;
+    final boolean id;
+    final boolean readOnly;
+    final boolean ignoreNullFromDB;
+    final Encrypted encrypted;
+    final AdditionalData additionalData;
+    final Reference reference;
+    final Aliases aliases;
+    private final GeneratedFieldAccessor accessor;
+    private final int accessorIndex;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    private MappedField(String name, Field field) {
+        this.name = name;
+        this.field = field;
+        type = field.getType();
+        genericType = field.getGenericType();
+        id = field.isAnnotationPresent(Id.class);
+        readOnly = field.isAnnotationPresent(ReadOnly.class);
+        ignoreNullFromDB = field.isAnnotationPresent(IgnoreNullFromDB.class);
+        encrypted = field.getAnnotation(Encrypted.class);
+        additionalData = field.getAnnotation(AdditionalData.class);
+        reference = field.getAnnotation(Reference.class);
+        aliases = field.getAnnotation(Aliases.class);
+        GeneratedFieldAccessor generated = FieldAccessorRegistry.get(field.getDeclaringClass());
+        accessorIndex = generated == null ? -1 : indexOf(generated.getFieldNames(), field.getName());
+        accessor = accessorIndex < 0 ? null : generated;
+
+        if (accessor != null) {
+            getter = setter = null;
+            return;
+        }
+
+        // the field was made accessible by the helper - unreflecting needs no further access
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        getter = handle(() -> lookup.unreflectGetter(field).asType(GETTER));
+        setter = handle(() -> lookup.unreflectSetter(field).asType(SETTER));
+    }
+
+    /**
+     * the non-static fields of the class in the order of {@link AnnotationAndReflectionHelper#getFields}
+     */
+    static MappedField[] of(AnnotationAndReflectionHelper helper, Class<?> cls) {
+        List<MappedField> ret = new ArrayList<>();
+
+        for (String f : helper.getFields(cls, ALL_FIELDS)) {
+            Field fld = helper.getField(cls, f);
+
+            if (fld == null) {
+                log.error("Field not found: " + f + " in " + cls.getName());
+                continue;
+            }
+
+            if (Modifier.isStatic(fld.getModifiers())) {
+                continue;
+            }
+
+            ret.add(new MappedField(f, fld));
+        }
+
+        return ret.toArray(new MappedField[0]);
+    }
+
+    Object get(Object o) throws IllegalAccessException {
+        if (getter == null && accessor == null) {
+            return field.get(o);
+        }
+
+        try {
+            return accessor != null ? accessor.get(o, accessorIndex) : (Object) getter.invokeExact(o);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Cannot read field " + field.getName() + " of " + o.getClass().getName(), e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * like {@link Field#set}: a value of the wrong type (or null for a primitive) causes an
+     * IllegalArgumentException
+     */
+    void set(Object o, Object value) throws IllegalAccessException {
+        if (setter == null && accessor == null) {
+            field.set(o, value);
+            return;
+        }
+
+        try {
+            if (accessor != null) {
+                accessor.set(o, accessorIndex, value);
+            } else {
+                setter.invokeExact(o, value);
+            }
+        } catch (ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("Cannot set field " + field.getName() + " of type " + type.getName() + " to "
+                + (value == null ? "null" : value.getClass().getName()), e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private interface HandleFactory {
+        MethodHandle create() throws IllegalAccessException;
+    }
+
+    private MethodHandle handle(HandleFactory factory) {
+        try {
+            return factory.create();
+        } catch (IllegalAccessException | RuntimeException e) {
+            log.debug("No method handle for field " + field + " - using reflection", e);
+            return null;
+        }
+    }
+}
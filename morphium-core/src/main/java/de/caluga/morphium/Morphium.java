@@ -16,17 +16,20 @@ import de.caluga.morphium.changestream.ChangeStreamEvent;
 import de.caluga.morphium.changestream.ChangeStreamListener;
 import de.caluga.morphium.config.CollectionCheckSettings.IndexCheck;
 import de.caluga.morphium.driver.*;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
 import de.caluga.morphium.driver.commands.*;
 import de.caluga.morphium.driver.commands.ExplainCommand.ExplainVerbosity;
 import de.caluga.morphium.driver.inmem.InMemoryDriver;
 import de.caluga.morphium.driver.wire.MongoConnection;
 import de.caluga.morphium.driver.wire.SingleMongoConnectDriver;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
 import de.caluga.morphium.driver.wireprotocol.OpCompressed;
 import de.caluga.morphium.encryption.EncryptionKeyProvider;
 import de.caluga.morphium.encryption.ValueEncryptionProvider;
 import de.caluga.morphium.messaging.MorphiumMessaging;
 import de.caluga.morphium.messaging.Msg;
 import de.caluga.morphium.config.MessagingSettings;
+import de.caluga.morphium.config.ThreadPoolSettings;
 import de.caluga.morphium.objectmapping.MorphiumObjectMapper;
 import de.caluga.morphium.query.Query;
 import de.caluga.morphium.query.QueryIterator;
@@ -207,14 +210,18 @@ public class Morphium extends MorphiumBase implements AutoCloseable {
         //         }
         //     }
         // };
+        ThreadPoolSettings threadPoolSettings = getConfig().threadPoolSettings();
+        // with an unbounded queue the pool never grows beyond its core size - in virtual thread
+        // mode the max size is the actual bound
         asyncOperationsThreadPool = new ThreadPoolExecutor(
-                        getConfig().threadPoolSettings().getThreadPoolAsyncOpCoreSize(),
-                        getConfig().threadPoolSettings().getThreadPoolAsyncOpMaxSize(),
-                        getConfig().threadPoolSettings().getThreadPoolAsyncOpKeepAliveTime(),
+                        threadPoolSettings.isVirtualThreads() ? threadPoolSettings.getThreadPoolAsyncOpMaxSize() : threadPoolSettings.getThreadPoolAsyncOpCoreSize(),
+                        threadPoolSettings.getThreadPoolAsyncOpMaxSize(),
+                        threadPoolSettings.getThreadPoolAsyncOpKeepAliveTime(),
                         TimeUnit.MILLISECONDS,
                         new LinkedBlockingQueue<>(),
                         Thread.ofVirtual().name("asyncOp-", 0).factory()
         );
+        asyncOperationsThreadPool.allowCoreThreadTimeOut(threadPoolSettings.isVirtualThreads() && threadPoolSettings.getThreadPoolAsyncOpKeepAliveTime() > 0);
         // new ThreadPoolExecutor(getConfig().getThreadPoolAsyncOpCoreSize(), getConfig().getThreadPoolAsyncOpMaxSize(), getConfig().getThreadPoolAsyncOpKeepAliveTime(),
         //     TimeUnit.MILLISECONDS, queue);
         // asyncOperationsThreadPool.setRejectedExecutionHandler((r, executor)-> {
@@ -414,8 +421,21 @@ public class Morphium extends MorphiumBase implements AutoCloseable {
         morphiumDriver.setMaxWaitTime(getConfig().connectionSettings().getMaxWaitTime());
         morphiumDriver.setIdleSleepTime(getConfig().driverSettings().getIdleSleepTime());
         morphiumDriver.setCompression(getConfig().driverSettings().getCompressionType().getCode());
+        morphiumDriver.setCompressionPolicy(new CompressionPolicy().setMinSize(getConfig().driverSettings().getCompressionMinSize())
+                                            .setLevel(CompressionPolicy.MessageClass.BULK_WRITE, getConfig().driverSettings().getCompressionLevelBulkWrite())
+                                            .setLevel(CompressionPolicy.MessageClass.COMMAND, getConfig().driverSettings().getCompressionLevelCommand()));
+        if (!getConfig().driverSettings().isMetricsEnabled()) {
+            morphiumDriver.setMetrics(null);
+        }
+
         morphiumDriver.setDefaultBatchSize(getConfig().driverSettings().getCursorBatchSize());
         morphiumDriver.setServerSelectionTimeout(getConfig().driverSettings().getServerSelectionTimeout());
+        morphiumDriver.setMultiplexedConnectionsPerHost(getConfig().driverSettings().getMultiplexedConnectionsPerHost());
+        morphiumDriver.setEncodingBufferPool(getConfig().driverSettings().isPooledEncodingBuffers()
+                                             ? BsonBufferPool.shared(getConfig().driverSettings().isDirectEncodingBuffers()) : null);
+        morphiumDriver.setLazyDocumentDecoding(getConfig().driverSettings().isLazyDocumentDecoding());
+        morphiumDriver.setStreamingCursors(getConfig().driverSettings().isStreamingCursors());
+        morphiumDriver.setVirtualThreads(getConfig().threadPoolSettings().isVirtualThreads());
         morphiumDriver.setUseSSL(getConfig().connectionSettings().isUseSSL());
         morphiumDriver.setSslContext(getConfig().connectionSettings().getSslContext());
         morphiumDriver.setSslInvalidHostNameAllowed(getConfig().connectionSettings().isSslInvalidHostNameAllowed());
@@ -2566,6 +2586,41 @@ public class Morphium extends MorphiumBase implements AutoCloseable {
         getWriterForClass(lst.get(0).getClass()).store(lst, collectionName, callback);
     }
 
+    /**
+     * Stores {@code entity} on the async operations pool. This is not non-blocking I/O: the write
+     * (id assignment, versioning, lifecycle callbacks) runs blocking on a thread of that pool - a
+     * virtual thread, so it parks that one instead of the caller's. Only the reads of
+     * {@link Query#asListAsync()} and friends are non-blocking. Runs outside the caller's transaction and
+     * thread-local settings, like the callback variants. For {@code @WriteBuffer} and
+     * {@code @AsyncWrites} entities the future completes once the write was queued.
+     *
+     * @return completes with {@code entity} (its id set) or exceptionally with the error of the write
+     */
+    public <T> CompletableFuture<T> storeAsync(T entity) {
+        return storeAsync(entity, null);
+    }
+
+    /** {@link #storeAsync(Object)} into the given collection, null for the entity's default. */
+    public <T> CompletableFuture<T> storeAsync(T entity, String collection) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (collection == null) {
+                store(entity);
+            } else {
+                store(entity, collection);
+            }
+
+            return entity;
+        }, asyncOperationsThreadPool);
+    }
+
+    /** {@link #storeList(List)} blocking on the async operations pool, like {@link #storeAsync(Object)}. */
+    public <T> CompletableFuture<List<T>> storeListAsync(List<T> lst) {
+        return CompletableFuture.supplyAsync(() -> {
+            storeList(lst);
+            return lst;
+        }, asyncOperationsThreadPool);
+    }
+
     public List<Map<String, Object >> createIndexKeyMapFrom(String[] fldStr) {
         if (fldStr.length == 0) {
             return null;
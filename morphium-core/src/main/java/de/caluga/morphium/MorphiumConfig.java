@@ -1916,7 +1916,7 @@ public class MorphiumConfig {
 
 
     public enum CompressionType {
-        NONE(0), ZLIB(2), SNAPPY(1); //ZSTD(3) - not supported
+        NONE(0), ZLIB(2), SNAPPY(1), ZSTD(3);
         CompressionType(int c) {
             this.code = c;
         }
@@ -101,6 +101,15 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
     private final ConcurrentHashMap < Class<?>, Object > noArgConstructorCache = new ConcurrentHashMap<>();
     private static final Object NO_NOARG_CONSTRUCTOR = new Object();
 
+    /**
+     * Per-class table of the persisted fields with their annotations and accessors, see
+     * {@link MappedField} - built on first use instead of looking up every field by name and
+     * querying its annotations for each document. Depends on the naming rules of the
+     * {@link AnnotationAndReflectionHelper}, so it is cleared when the helper changes.
+     * Instance cache for the same reason as {@link #noArgConstructorCache}.
+     */
+    private final ConcurrentHashMap < Class<?>, MappedField[] > mappedFieldsCache = new ConcurrentHashMap<>();
+
     private final Map < Class<?>, NameProvider > nameProviders;
     private final JSONParser jsonParser = new JSONParser();
 
@@ -188,6 +197,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
     @Override
     public void setAnnotationHelper(AnnotationAndReflectionHelper an) {
         annotationHelper = an;
+        mappedFieldsCache.clear();
     }
 
     @Override
@@ -210,6 +220,19 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
         } else {
             annotationHelper = new AnnotationAndReflectionHelper(true);
         }
+
+        mappedFieldsCache.clear();
+    }
+
+    private MappedField[] getMappedFields(Class<?> cls) {
+        MappedField[] ret = mappedFieldsCache.get(cls);
+
+        if (ret == null) {
+            ret = MappedField.of(annotationHelper, cls);
+            mappedFieldsCache.putIfAbsent(cls, ret);
+        }
+
+        return ret;
     }
 
     /**
@@ -437,11 +460,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
         }
 
         HashMap<String, Object> dbo = new HashMap<>();
-        List<String> flds = annotationHelper.getFields(cls);
-
-        if (flds == null) {
-            throw new IllegalArgumentException("Fields not found? " + cls.getName());
-        }
+        MappedField[] flds = getMappedFields(cls);
 
         String cn = cls.getName();
 
@@ -461,33 +480,22 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
             dbo.put("class_name", cn);
         }
 
-        for (String f : flds) {
-            String fName = f;
+        //static fields are not part of the mapped fields - they are never stored
+        for (MappedField fld : flds) {
+            String fName = fld.name;
 
             try {
-                Field fld = annotationHelper.getField(cls, f);
-
-                if (fld == null) {
-                    log.error("Field not found");
-                    continue;
-                }
-
-                //do not store static fields!
-                if (Modifier.isStatic(fld.getModifiers())) {
-                    continue;
-                }
-
-                if (fld.isAnnotationPresent(ReadOnly.class)) {
+                if (fld.readOnly) {
                     continue; //do not write value
                 }
 
                 Object value = fld.get(o);
 
-                if (fld.isAnnotationPresent(Encrypted.class)) {
+                if (fld.encrypted != null) {
                     if (value == null) continue;
 
                     try {
-                        Encrypted enc = fld.getAnnotation(Encrypted.class);
+                        Encrypted enc = fld.encrypted;
                         ValueEncryptionProvider encP = enc.provider().getDeclaredConstructor().newInstance();
                         byte[] encKey = morphium.getEncryptionKeyProvider().getEncryptionKey(enc.keyName());
                         encP.setEncryptionKey(encKey);
@@ -506,13 +514,13 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     }
                 }
 
-                AdditionalData ad = fld.getAnnotation(AdditionalData.class);
+                AdditionalData ad = fld.additionalData;
 
                 if (ad != null) {
                     if (!ad.readOnly()) {
                         //storing additional data
                         if (value != null) {
-                            dbo.putAll(serializeMap((Map) value, fld.getGenericType()));
+                            dbo.putAll(serializeMap((Map) value, fld.genericType));
                         }
                     }
 
@@ -528,12 +536,12 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
 
                 Object v = null;
 
-                if (fld.isAnnotationPresent(Id.class)) {
+                if (fld.id) {
                     fName = "_id";
                 }
 
-                if (fld.isAnnotationPresent(Reference.class)) {
-                    Reference r = fld.getAnnotation(Reference.class);
+                if (fld.reference != null) {
+                    Reference r = fld.reference;
 
                     //reference handling...
                     //field should point to a certain type - store ObjectID only
@@ -541,7 +549,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                         //no reference to be stored...
                         v = null;
                     } else {
-                        if (Collection.class.isAssignableFrom(fld.getType())) {
+                        if (Collection.class.isAssignableFrom(fld.type)) {
                             //list of references....
                             List<Map<String, Object>> lst = new ArrayList<>();
 
@@ -564,7 +572,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                                 }
                             }
                             v = lst;
-                        } else if (Map.class.isAssignableFrom(fld.getType())) {
+                        } else if (Map.class.isAssignableFrom(fld.type)) {
                             //trying to store references
                             Map<Object, Map<String, Object>> map = new HashMap<>();
                             //noinspection DuplicatedCode
@@ -606,7 +614,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     Class<?> valueClass;
 
                     if (value == null) {
-                        valueClass = fld.getType();
+                        valueClass = fld.type;
                     } else {
                         valueClass = value.getClass();
                     }
@@ -627,7 +635,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                         if (v != null) {
                             if (v instanceof Map) {
                                 //create MongoHashMap<String,Object>-Map
-                                v = serializeMap((Map) v, fld.getGenericType());
+                                v = serializeMap((Map) v, fld.genericType);
                             } else if (v.getClass().isArray()) {
                                 if (!v.getClass().getComponentType().equals(byte.class)) {
                                     int arrayLength = Array.getLength(v);
@@ -637,10 +645,10 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                                         lst.add(Array.get(v, i));
                                     }
 
-                                    v = serializeIterable(lst, fld.getType(), fld.getGenericType());
+                                    v = serializeIterable(lst, fld.type, fld.genericType);
                                 }
                             } else if (v instanceof Iterable) {
-                                v = serializeIterable((Iterable) v, fld.getType(), fld.getGenericType());
+                                v = serializeIterable((Iterable) v, fld.type, fld.genericType);
                             } else if (v instanceof Calendar) {
                                 v = ((Calendar) v).getTime();
                             } else if (v.getClass().equals(MorphiumId.class)) {
@@ -648,7 +656,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                             } else if (customMappers.containsKey(v.getClass())) {
                                 v = customMappers.get(v.getClass()).marshall(v);
                             } else if (v instanceof Enum) {
-                                v = serializeEnum(fld.getType(), ((Enum) v));
+                                v = serializeEnum(fld.type, ((Enum) v));
                             } else if (!mongoTypes.contains(v.getClass()) && Serializable.class.isAssignableFrom(v.getClass())) {
                                 //not a type the driver does understand, but is serializable
                                 //try binary serialization
@@ -660,10 +668,10 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
 
                 if (v == null) {
                     // NEVER store null IDs - MongoDB needs to auto-generate them
-                    if (fld.isAnnotationPresent(Id.class)) {
+                    if (fld.id) {
                         continue;
                     }
-                    if (fld.isAnnotationPresent(IgnoreNullFromDB.class)) {
+                    if (fld.ignoreNullFromDB) {
                         //Do not put null-Values into dbo => not storing null-Values to db
                         continue;
                     }
@@ -671,7 +679,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
 
                 dbo.put(fName, v);
             } catch (IllegalAccessException exc) {
-                log.error("Illegal Access to field " + f);
+                log.error("Illegal Access to field " + fld.name);
             }
         }
 
@@ -1093,25 +1101,16 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                 throw new IllegalArgumentException("Could not instantiate " + cls.getName());
             }
 
-            List<String> flds = annotationHelper.getFields(cls);
+            //static fields are not part of the mapped fields - they are never read
+            MappedField[] flds = getMappedFields(cls);
 
-            for (String f : flds) {
+            for (MappedField fld : flds) {
+                String f = fld.name;
                 Object valueFromDb = objectMap.get(f);
-                Field fld = annotationHelper.getField(cls, f);
-
-                if (fld == null) {
-                    continue;
-                }
-
-                Class<?> fldType = fld.getType();
-
-                if (Modifier.isStatic(fld.getModifiers())) {
-                    //skip static fields
-                    continue;
-                }
+                Class<?> fldType = fld.type;
 
-                if (fld.isAnnotationPresent(Aliases.class) && valueFromDb == null) {
-                    Aliases al = fld.getAnnotation(Aliases.class);
+                if (fld.aliases != null && valueFromDb == null) {
+                    Aliases al = fld.aliases;
 
                     for (String s : al.value()) {
                         if (objectMap.containsKey(s)) {
@@ -1139,7 +1138,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     continue;
                 }
 
-                if (fld.isAnnotationPresent(AdditionalData.class)) {
+                if (fld.additionalData != null) {
                     //this field should store all data that is not put to fields
                     if (!Map.class.isAssignableFrom(fldType)) {
                         log.error("Could not deserialize additional data into fld of type " + fldType);
@@ -1147,12 +1146,13 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     }
 
                     Map<String, Object> data = new HashMap<>();
+                    List<String> fieldNames = annotationHelper.getFields(cls);
 
                     for (Entry<String, Object> entry : objectMap.entrySet()) {
                         String k = entry.getKey();
                         Object v = entry.getValue();
 
-                        if (flds.contains(k)) {
+                        if (fieldNames.contains(k)) {
                             continue;
                         }
 
@@ -1181,11 +1181,11 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     continue;
                 }
 
-                if (fld.isAnnotationPresent(Encrypted.class)) {
+                if (fld.encrypted != null) {
                     if (valueFromDb == null) continue;
 
                     //encrypted field
-                    Encrypted enc = fld.getAnnotation(Encrypted.class);
+                    Encrypted enc = fld.encrypted;
                     Class <? extends ValueEncryptionProvider > encCls = enc.provider();
                     ValueEncryptionProvider ep = encCls.getDeclaredConstructor().newInstance();
                     String key = enc.keyName();
@@ -1215,7 +1215,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                         log.debug("Not a json string, cannot deserialize further");
                     }
 
-                    annotationHelper.setValue(ret, valueFromDb, f);
+                    setValue(ret, fld, valueFromDb);
                     continue;
                 }
 
@@ -1223,7 +1223,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     if (!fldType.isPrimitive() && objectMap.containsKey(f)) {
                         // Field is present in DB as null
                         // Set to null unless field has @IgnoreNullFromDB protection
-                        if (!fld.isAnnotationPresent(IgnoreNullFromDB.class)) {
+                        if (!fld.ignoreNullFromDB) {
                             fld.set(ret, null);
                         }
                         // else: Field present as null in DB but has @IgnoreNullFromDB -> keep default value
@@ -1235,9 +1235,9 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
 
                 Object value = null;
 
-                if (!Collection.class.isAssignableFrom(fldType) && fld.isAnnotationPresent(Reference.class)) {
+                if (!Collection.class.isAssignableFrom(fldType) && fld.reference != null) {
                     //A reference - only id stored
-                    Reference reference = fld.getAnnotation(Reference.class);
+                    Reference reference = fld.reference;
                     MorphiumReference r = null;
 
                     if (morphium == null) {
@@ -1348,7 +1348,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                             }
                         }
                     }
-                } else if (fld.isAnnotationPresent(Id.class)) {
+                } else if (fld.id) {
                     value = objectMap.get("_id");
 
                     if (value != null && !value.getClass().equals(fldType)) {
@@ -1383,7 +1383,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     //                    lst.add(value);
                     //                    morphium.firePostLoad(lst);
                 } else if (Map.class.isAssignableFrom(fldType) && valueFromDb instanceof Map) {
-                    value = fillMap(fld.getGenericType(), (Map<String, Object>) valueFromDb);
+                    value = fillMap(fld.genericType, (Map<String, Object>) valueFromDb);
                 } else if (Collection.class.isAssignableFrom(fldType) || fldType.isArray()) {
                     List<?> collection = null;
 
@@ -1420,7 +1420,7 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                         collection = (List<?>) valueFromDb;
                     }
 
-                    value = fillCollection(fld.getAnnotation(Reference.class), fldType, fld.getGenericType(), collection);
+                    value = fillCollection(fld.reference, fldType, fld.genericType, collection);
                 } else {
                     Class<?> superclass = fldType.getSuperclass();
 
@@ -1448,18 +1448,24 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
                     }
                 }
 
-                annotationHelper.setValue(ret, value, f);
+                setValue(ret, fld, value);
             }
 
             if (entity != null) {
-                flds = annotationHelper.getFields(cls, Id.class);
+                MappedField field = null;
 
-                if (flds.isEmpty()) {
+                for (MappedField m : flds) {
+                    if (m.id) {
+                        field = m;
+                        break;
+                    }
+                }
+
+                if (field == null) {
                     throw new RuntimeException("Error - class does not have an ID field!");
                 }
 
-                Field field = annotationHelper.getField(cls, flds.get(0));
-                Class<?> fieldType = field.getType();
+                Class<?> fieldType = field.type;
                 Object idValue = objectMap.get("_id");
 
                 if (idValue != null) { // Embedded entitiy?
@@ -1516,6 +1522,24 @@ public class ObjectMapperImpl implements MorphiumObjectMapper {
         //recursively fill class
     }
 
+    /**
+     * sets a field of a freshly created object - like {@link AnnotationAndReflectionHelper#setValue},
+     * a value that does not fit the field type is converted
+     */
+    private void setValue(Object o, MappedField fld, Object value) throws IllegalAccessException {
+        try {
+            fld.set(o, value);
+        } catch (Exception e) {
+            if (value != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Setting of value (" + value.getClass().getSimpleName() + ") failed for field " + fld.field.getName() + "- trying type-conversion");
+                }
+
+                fld.set(o, AnnotationAndReflectionHelper.convertType(value, fld.name, fld.type));
+            }
+        }
+    }
+
     public Object fillArray(Class<?> componentType, Collection<?> c) {
         Object arr = Array.newInstance(componentType, c.size());
 
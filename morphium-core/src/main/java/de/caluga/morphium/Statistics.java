@@ -1,5 +1,8 @@
 package de.caluga.morphium;
 
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.metrics.LatencyHistogram;
+
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -36,6 +39,22 @@ public class Statistics extends HashMap<String, Double> {
         }
 
         super.put(StatisticKeys.WRITE_BUFFER_ENTRIES.name(), (double) morphium.getWriteBufferCount());
+        DriverMetrics metrics = morphium.getDriver() != null ? morphium.getDriver().getMetrics() : null;
+
+        if (metrics != null) {
+            for (DriverMetrics.Timer t : DriverMetrics.Timer.values()) {
+                LatencyHistogram h = metrics.getLatency(t);
+
+                if (h.getCount() > 0) {
+                    super.put("X-Latency p50 (us) for: " + t.getMetricName(), (double) h.getValueAtPercentile(50));
+                    super.put("X-Latency p99 (us) for: " + t.getMetricName(), (double) h.getValueAtPercentile(99));
+                    super.put("X-Latency max (us) for: " + t.getMetricName(), (double) h.getMaxMicros());
+                }
+            }
+
+            super.put("X-Bytes sent", (double) metrics.getBytesSent());
+            super.put("X-Bytes received", (double) metrics.getBytesReceived());
+        }
     }
 
 
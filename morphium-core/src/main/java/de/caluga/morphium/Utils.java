@@ -231,29 +231,31 @@ public class Utils {
             }
             b.append("}");
         }
-        if (projection != null) {
-            List<Field> fields = anHelper.getAllFields(type);
-            boolean addProjection = false;
-            if (projection.size() == fields.size()) {
-                for (Field f : fields) {
-                    if (!projection.containsKey(anHelper.getMongoFieldName(type, f.getName()))) {
-                        addProjection = true;
-                        break;
-                    }
-                }
-            } else {
-                addProjection = true;
+        if (projection != null && !isFullProjection(type, projection, anHelper)) {
+            b.append(" project:{");
+            for (Map.Entry<String, Object> s : projection.entrySet()) {
+                b.append(" ").append(s.getKey()).append(":").append(s.getValue());
             }
+            b.append("}");
+        }
+        return b.toString();
+    }
 
-            if (addProjection) {
-                b.append(" project:{");
-                for (Map.Entry<String, Object> s : projection.entrySet()) {
-                    b.append(" ").append(s.getKey()).append(":").append(s.getValue());
-                }
-                b.append("}");
+    /**
+     * true, if the projection lists exactly the fields of the type - it reads complete objects
+     * then and is not part of the cache key
+     */
+    public static boolean isFullProjection(Class type, Map<String, Object> projection, AnnotationAndReflectionHelper anHelper) {
+        List<Field> fields = anHelper.getAllFields(type);
+        if (projection.size() != fields.size()) {
+            return false;
+        }
+        for (Field f : fields) {
+            if (!projection.containsKey(anHelper.getMongoFieldName(type, f.getName()))) {
+                return false;
             }
         }
-        return b.toString();
+        return true;
     }
 
 
@@ -0,0 +1,30 @@
+package de.caluga.morphium;
+
+import java.util.List;
+
+/**
+ * Thrown by a pipelined {@code store(List)} (see
+ * {@link de.caluga.morphium.config.WriterSettings#setVersionedUpdatePipelineDepth(int)}) when one
+ * or more {@link de.caluga.morphium.annotations.Version} entities hit an optimistic-locking
+ * conflict. Unlike the sequential mode, which stops at the first conflict, all conditional updates
+ * were sent: every entity not listed in {@link #getConflicts()} has been stored and its version
+ * incremented.
+ * <p>
+ * The id, expected version and list index of this exception are those of the first conflict.
+ * </p>
+ */
+public class VersionConflictsException extends VersionMismatchException {
+
+    private final List<VersionMismatchException> conflicts;
+
+    public VersionConflictsException(List<VersionMismatchException> conflicts) {
+        super(conflicts.size() + " optimistic locking conflict(s), first: " + conflicts.get(0).getMessage(),
+              conflicts.get(0).getEntityId(), conflicts.get(0).getExpectedVersion(), conflicts.get(0).getListIndex());
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    /** One entry per conflicting entity, in list order. */
+    public List<VersionMismatchException> getConflicts() {
+        return conflicts;
+    }
+}
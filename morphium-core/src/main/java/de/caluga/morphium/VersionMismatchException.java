@@ -21,10 +21,14 @@ public class VersionMismatchException extends RuntimeException {
     }
 
     public VersionMismatchException(Object entityId, long expectedVersion, int listIndex) {
-        super("Optimistic locking conflict for entity id=" + entityId
+        this("Optimistic locking conflict for entity id=" + entityId
             + ": expected version " + expectedVersion
             + " but document was already modified by another writer"
-            + (listIndex >= 0 ? " (list index " + listIndex + ")" : ""));
+            + (listIndex >= 0 ? " (list index " + listIndex + ")" : ""), entityId, expectedVersion, listIndex);
+    }
+
+    protected VersionMismatchException(String message, Object entityId, long expectedVersion, int listIndex) {
+        super(message);
         this.entityId = entityId;
         this.expectedVersion = expectedVersion;
         this.listIndex = listIndex;
@@ -10,6 +10,7 @@ import de.caluga.morphium.query.Query;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -577,10 +578,26 @@ public interface Aggregator<T, R> {
     @SuppressWarnings("unused")
     void aggregate(AsyncOperationCallback<R> callback);
 
+    /** Executes the aggregation without blocking a thread where the driver
+     * {@link de.caluga.morphium.driver.MorphiumDriver#supportsAsyncReplies() supports} it (multiplexed
+     * connections), see {@link Query#asListAsync()}. Otherwise - and in this default implementation -
+     * the blocking {@link #aggregate()} runs on Morphium's async operations pool.
+     * @return completes with the results, or exceptionally with the error of the aggregation */
+    default CompletableFuture<List<R>> aggregateAsync() {
+        return CompletableFuture.supplyAsync(this::aggregate, getMorphium().getAsyncOperationsThreadPool());
+    }
+
     /** Executes the aggregation and returns raw map results.
      * @return list of result maps */
     List<Map<String, Object>> aggregateMap();
 
+    /** Executes the aggregation as raw maps, non-blocking where {@link #aggregateAsync()} is,
+     * else blocking on Morphium's async operations pool.
+     * @return completes with the result maps, or exceptionally with the error of the aggregation */
+    default CompletableFuture<List<Map<String, Object>>> aggregateMapAsync() {
+        return CompletableFuture.supplyAsync(this::aggregateMap, getMorphium().getAsyncOperationsThreadPool());
+    }
+
     /** Executes the aggregation as raw maps asynchronously.
      * @param callback the callback to invoke when done */
     @SuppressWarnings("unused")
@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -400,24 +401,54 @@ public class AggregatorImpl<T, R> implements Aggregator<T, R> {
         try {
             List<Map<String, Object>> r = cmd.execute();
             cmd.releaseConnection();
-            List<R> result = new ArrayList<>();
-
-            if (getResultType().equals(Map.class)) {
-                @SuppressWarnings("unchecked")
-                List<R> castResult = (List<R>) (List<?>) r;
-                result = castResult;
-            } else {
-                for (Map<String, Object> dbObj : r) {
-                    result.add(morphium.getMapper().deserialize(getResultType(), dbObj));
-                }
-            }
-
-            return result;
+            return deserialize(r);
         } finally {
             cmd.releaseConnection();
         }
     }
 
+    private List<R> deserialize(List<Map<String, Object>> r) {
+        if (getResultType().equals(Map.class)) {
+            @SuppressWarnings("unchecked")
+            List<R> castResult = (List<R>) (List<?>) r;
+            return castResult;
+        }
+
+        List<R> result = new ArrayList<>();
+
+        for (Map<String, Object> dbObj : r) {
+            result.add(morphium.getMapper().deserialize(getResultType(), dbObj));
+        }
+
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<R>> aggregateAsync() {
+        if (!isAggregateNonBlocking()) {
+            return Aggregator.super.aggregateAsync();
+        }
+
+        return aggregateMapAsync().thenApply(this::deserialize);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> aggregateMapAsync() {
+        if (!isAggregateNonBlocking()) {
+            return Aggregator.super.aggregateMapAsync();
+        }
+
+        try {
+            return getAggregateCmd().executeAsync(morphium.getAsyncOperationsThreadPool());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean isAggregateNonBlocking() {
+        return morphium.getDriver().supportsAsyncReplies() && !morphium.getDriver().isTransactionInProgress();
+    }
+
     @Override
     public List<Map<String, Object>> aggregateMap() {
         AggregateMongoCommand cmd = getAggregateCmd();
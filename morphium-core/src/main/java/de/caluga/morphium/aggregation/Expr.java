@@ -53,6 +53,11 @@ public abstract class Expr {
     public static Expr parse(Object o) {
         Logger log = LoggerFactory.getLogger(Expr.class);
 
+        if (o instanceof Expr) {
+            // already parsed, e.g. the compiled operands of a CompiledExpr
+            return (Expr) o;
+        }
+
         if (o instanceof Map) {
             String k = (String)((Map) o).keySet().stream().findFirst().get();
 
@@ -3970,6 +3975,10 @@ public abstract class Expr {
     private static class FieldExpr extends Expr {
 
         private final String fieldRef;
+        // split once - the path is resolved for every document an expression is evaluated on
+        private final String[] pth;
+        private final Integer[] indexes;
+        private final String camelCaseName;
 
         public FieldExpr(String fieldRef) {
             if (!fieldRef.startsWith("$")) {
@@ -3977,6 +3986,18 @@ public abstract class Expr {
             }
 
             this.fieldRef = fieldRef;
+            pth = fieldRef.substring(1).split("\\.");
+            indexes = new Integer[pth.length];
+
+            for (int i = 1; i < pth.length; i++) {
+                try {
+                    indexes[i] = Integer.parseInt(pth[i]);
+                } catch (NumberFormatException e) {
+                    //not an index
+                }
+            }
+
+            camelCaseName = new AnnotationAndReflectionHelper(true).convertCamelCase(fieldRef.substring(1));
         }
 
         @Override
@@ -3985,9 +4006,6 @@ public abstract class Expr {
                 return null;
             }
 
-            String p = fieldRef.substring(1);
-            String[] pth = p.split("\\.");
-
             if (context.containsKey(pth[0])) {
                 Object val = context.get(pth[0]);
 
@@ -3996,16 +4014,13 @@ public abstract class Expr {
                         return null;
                     }
 
-                    if (i < pth.length) {
-                        if (val instanceof Map) {
-                            val = ((Map) val).get(pth[i]);
-                        } else if (val instanceof List) {
-                            try {
-                                int idx = Integer.parseInt(pth[i]);
-                                val = ((List) val).get(idx);
-                            } catch (Exception e) {
-                                //wrong index
-                            }
+                    if (val instanceof Map) {
+                        val = ((Map) val).get(pth[i]);
+                    } else if (val instanceof List && indexes[i] != null) {
+                        try {
+                            val = ((List) val).get(indexes[i]);
+                        } catch (Exception e) {
+                            //wrong index
                         }
                     }
                 }
@@ -4013,9 +4028,7 @@ public abstract class Expr {
                 return val;
             }
 
-            AnnotationAndReflectionHelper an = new AnnotationAndReflectionHelper(true);
-            String n = an.convertCamelCase(fieldRef.substring(1));
-            return context.get(n);
+            return context.get(camelCaseName);
         }
 
         @Override
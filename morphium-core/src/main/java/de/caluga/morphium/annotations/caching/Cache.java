@@ -15,8 +15,9 @@ import static java.lang.annotation.ElementType.TYPE;
  * Define the caching configuration of a given MongoDbObject. The options are as follows:
  * timeout: int timout in ms when a cache entry becomes invalid, default -1 means use globalCacheValidTime
  * maxEntries: default -1 means unlimited (Only limited by Memory, uses SoftReferences!)
+ * maxBytes: upper bound of the estimated heap size of all cached results of the type, default -1 means unlimited
  * clearOnWrite: clear cache if one element is written
- * strategy: when using fixed number of entries, define how to remove additional entries
+ * strategy: when using fixed number of entries or bytes, define how to remove additional entries - enforced when adding to the cache
  * readCache: use cache for reading
  * writeCache: use cache for writing (schedule write as background job), default false
  *
@@ -31,6 +32,8 @@ public @interface Cache {
 
     int maxEntries() default -1;
 
+    long maxBytes() default -1;
+
     //    boolean overridable() default false;
 
     ClearStrategy strategy() default ClearStrategy.FIFO;
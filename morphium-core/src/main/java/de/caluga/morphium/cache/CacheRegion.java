@@ -0,0 +1,327 @@
+package de.caluga.morphium.cache;
+
+import de.caluga.morphium.annotations.caching.Cache.ClearStrategy;
+import de.caluga.morphium.cache.jcache.CacheEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * The cached results of one type in {@link MorphiumCacheImpl}, bounded by number of entries
+ * and/or estimated bytes. The bounds are enforced when an entry is added:
+ * <ul>
+ *     <li>FIFO evicts the oldest entry</li>
+ *     <li>LRU is approximated with a clock: a hit only sets a flag on the entry, eviction
+ *     passes over flagged entries once (clearing the flag) and takes the first one not used
+ *     since</li>
+ *     <li>RANDOM evicts a random entry</li>
+ * </ul>
+ * All of them are O(1) amortized. Lookups do not lock, adding and removing does.
+ * <p>
+ * The ids of the objects in each result are indexed, so that the results containing a written
+ * or deleted object can be removed without looking at all of them.
+ */
+final class CacheRegion {
+    private final Map<Object, Node> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ClearStrategy strategy;
+    private final int maxEntries;
+    private final long maxBytes;
+    // guarded by lock: all nodes, oldest (or longest unused) first
+    private Node head;
+    private Node tail;
+    private int count;
+    private long bytes;
+    // guarded by lock, only for RANDOM: nodes by slot
+    private Node[] slots;
+    // guarded by lock: nodes by the ids in their result, nodes with unknown ids under UNKNOWN_IDS
+    private final Map<Object, Set<Node>> byId = new HashMap<>();
+    private static final Object UNKNOWN_IDS = new Object();
+
+    CacheRegion(ClearStrategy strategy, int maxEntries, long maxBytes) {
+        this.strategy = strategy == null ? ClearStrategy.FIFO : strategy;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        slots = this.strategy == ClearStrategy.RANDOM ? new Node[16] : null;
+    }
+
+    static final class Node {
+        final Object key;
+        final CacheEntry<?> entry;
+        final long bytes;
+        /** the result holds objects of the type (not ids or partially read objects) */
+        final boolean objects;
+        /** ids of the objects in the result, null if not known for all of them */
+        final Object[] ids;
+        volatile boolean referenced = true;
+        private Node prev;
+        private Node next;
+        private int slot;
+
+        Node(Object key, CacheEntry<?> entry, long bytes, boolean objects, Object[] ids) {
+            this.key = key;
+            this.entry = entry;
+            this.bytes = bytes;
+            this.objects = objects;
+            this.ids = ids;
+        }
+    }
+
+    /** true, if added entries need a size estimate */
+    boolean isByteBounded() {
+        return maxBytes > 0;
+    }
+
+    CacheEntry<?> get(Object key) {
+        Node n = entries.get(key);
+
+        if (n == null) {
+            return null;
+        }
+
+        n.referenced = true;
+        return n.entry;
+    }
+
+    /**
+     * adds the entry, replacing the one for the same key
+     *
+     * @return the replaced and evicted nodes
+     */
+    List<Node> put(Object key, CacheEntry<?> entry, long size, boolean objects, Object[] ids) {
+        Node n = new Node(key, entry, size, objects, ids);
+        List<Node> removed = new ArrayList<>(2);
+        lock.lock();
+
+        try {
+            Node old = entries.put(key, n);
+
+            if (old != null) {
+                unlink(old);
+                removed.add(old);
+            }
+
+            link(n);
+
+            while (count > 0 && ((maxEntries > 0 && count > maxEntries) || (maxBytes > 0 && bytes > maxBytes))) {
+                Node victim = victim(n);
+                unlink(victim);
+                entries.remove(victim.key, victim);
+                removed.add(victim);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return removed;
+    }
+
+    /**
+     * @return the removed nodes
+     */
+    List<Node> removeIf(Predicate<Node> test) {
+        List<Node> removed = new ArrayList<>();
+
+        for (Node n : entries.values()) {
+            if (test.test(n)) {
+                removed.add(n);
+            }
+        }
+
+        if (removed.isEmpty()) {
+            return removed;
+        }
+
+        lock.lock();
+
+        try {
+            // might have been replaced or evicted meanwhile
+            removed.removeIf(n -> !entries.remove(n.key, n));
+
+            for (Node n : removed) {
+                unlink(n);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return removed;
+    }
+
+    /**
+     * removes all results containing the object with this id, and those the ids are not known of
+     *
+     * @return the removed nodes
+     */
+    List<Node> removeById(Object id) {
+        List<Node> removed = new ArrayList<>();
+        lock.lock();
+
+        try {
+            Set<Node> withId = byId.get(id);
+
+            if (withId != null) {
+                removed.addAll(withId);
+            }
+
+            Set<Node> unknown = byId.get(UNKNOWN_IDS);
+
+            if (unknown != null) {
+                removed.addAll(unknown);
+            }
+
+            for (Node n : removed) {
+                entries.remove(n.key, n);
+                unlink(n);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return removed;
+    }
+
+    List<Node> clear() {
+        return removeIf(n -> true);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    Map<Object, CacheEntry> snapshot() {
+        Map<Object, CacheEntry> ret = new ConcurrentHashMap<>();
+
+        for (Node n : entries.values()) {
+            ret.put(n.key, n.entry);
+        }
+
+        return ret;
+    }
+
+    /**
+     * @param added the entry put() just linked - RANDOM only picks it when it is the last one left
+     */
+    private Node victim(Node added) {
+        switch (strategy) {
+            case RANDOM:
+                if (count == 1) {
+                    return slots[0];
+                }
+
+                // added starts in the last slot, but unlink() may move it into a victim's slot:
+                // draw from all slots but the last, a hit on added takes the last slot instead
+                Node v = slots[ThreadLocalRandom.current().nextInt(count - 1)];
+                return v == added ? slots[count - 1] : v;
+
+            case LRU:
+                // second chance - terminates after at most one round, when all flags are cleared
+                while (head.referenced && head != tail) {
+                    Node n = head;
+                    n.referenced = false;
+                    unlinkFromList(n);
+                    appendToList(n);
+                }
+
+                return head;
+
+            case FIFO:
+            default:
+                return head;
+        }
+    }
+
+    private void link(Node n) {
+        appendToList(n);
+        count++;
+        bytes += n.bytes;
+
+        if (n.ids == null) {
+            byId.computeIfAbsent(UNKNOWN_IDS, k -> new HashSet<>()).add(n);
+        } else {
+            for (Object id : n.ids) {
+                byId.computeIfAbsent(id, k -> new HashSet<>()).add(n);
+            }
+        }
+
+        if (slots != null) {
+            if (count > slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+
+            n.slot = count - 1;
+            slots[n.slot] = n;
+        }
+    }
+
+    private void unlink(Node n) {
+        unlinkFromList(n);
+        count--;
+        bytes -= n.bytes;
+
+        if (n.ids == null) {
+            unindex(UNKNOWN_IDS, n);
+        } else {
+            for (Object id : n.ids) {
+                unindex(id, n);
+            }
+        }
+
+        if (slots != null) {
+            Node last = slots[count];
+            slots[n.slot] = last;
+            last.slot = n.slot;
+            slots[count] = null;
+        }
+    }
+
+    private void unindex(Object id, Node n) {
+        Set<Node> nodes = byId.get(id);
+
+        if (nodes != null && nodes.remove(n) && nodes.isEmpty()) {
+            byId.remove(id);
+        }
+    }
+
+    private void appendToList(Node n) {
+        n.prev = tail;
+        n.next = null;
+
+        if (tail == null) {
+            head = n;
+        } else {
+            tail.next = n;
+        }
+
+        tail = n;
+    }
+
+    private void unlinkFromList(Node n) {
+        if (n.prev == null) {
+            head = n.next;
+        } else {
+            n.prev.next = n.next;
+        }
+
+        if (n.next == null) {
+            tail = n.prev;
+        } else {
+            n.next.prev = n.prev;
+        }
+
+        n.prev = n.next = null;
+    }
+}
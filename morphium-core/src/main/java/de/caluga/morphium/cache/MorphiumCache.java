@@ -75,4 +75,44 @@ public interface MorphiumCache {
 
     CacheManager getCacheManager();
 
+    /**
+     * structural key for the query, used by {@link Query} for all cached reads. The default
+     * implementations of the key based methods below fall back to the string key - override them
+     * to store results by the key itself.
+     */
+    default QueryCacheKey getQueryCacheKey(Query q) {
+        return QueryCacheKey.of(q);
+    }
+
+    default QueryCacheKey getQueryCacheKey(Class type, Map<String, Object> qo, Map<String, Integer> sort, Map<String, Object> project,
+        String collection, int skip, int limit, AnnotationAndReflectionHelper anHelper) {
+        return QueryCacheKey.of(type, qo, sort, project, collection, skip, limit, anHelper);
+    }
+
+    default <T> void addToCache(QueryCacheKey k, Class<? extends T> type, List<T> ret) {
+        addToCache(k.toString(), type, ret);
+    }
+
+    /**
+     * @return the cached result or null, if there is none
+     */
+    default <T> List<T> getFromCache(Class<? extends T> type, QueryCacheKey k) {
+        return getFromCache(type, k.toString());
+    }
+
+    default boolean isCached(Class<?> type, QueryCacheKey k) {
+        return isCached(type, k.toString());
+    }
+
+    /**
+     * called after the documents were written. Like {@link #clearCacheIfNecessary(Class)}, but
+     * an implementation may only remove the results containing one of the documents or matching
+     * one of them now - the default implementation clears the cache of the type.
+     *
+     * @param docs the documents as stored in mongo, with their _id
+     */
+    default void clearCacheIfNecessary(Class<?> cls, List<Map<String, Object>> docs) {
+        clearCacheIfNecessary(cls);
+    }
+
 }
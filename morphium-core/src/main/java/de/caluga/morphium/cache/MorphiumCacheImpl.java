@@ -1,6 +1,10 @@
 package de.caluga.morphium.cache;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +14,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.cache.CacheManager;
 
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,6 +22,7 @@ import de.caluga.morphium.AnnotationAndReflectionHelper;
 import de.caluga.morphium.Utils;
 import de.caluga.morphium.annotations.caching.Cache;
 import de.caluga.morphium.cache.jcache.CacheEntry;
+import de.caluga.morphium.driver.MorphiumId;
 import de.caluga.morphium.query.Query;
 
 /**
@@ -25,12 +31,26 @@ import de.caluga.morphium.query.Query;
  * Time: 10:56
  * <p>
  * The Cache implementation for morphium.
+ * <p>
+ * Results are stored per type in a {@link CacheRegion}, by {@link QueryCacheKey} when read
+ * through a query. The limits of {@link Cache#maxEntries()}, {@link Cache#maxBytes()} and the
+ * {@link Cache#strategy()} are read once per type and enforced when a result is added, the
+ * {@link CacheHousekeeper} only removes expired results.
+ * <p>
+ * With {@link Cache#clearOnWrite()}, a write of some documents only removes the results holding
+ * one of them (by id) and the results of queries matching one of the written documents, see
+ * {@link #clearCacheIfNecessary(Class, List)}.
+ * <p>
+ * String keys are still supported. Looking up a result stored by a {@link QueryCacheKey} with
+ * its string representation works, but needs a scan over the cached keys of the type on a miss.
  */
 public class MorphiumCacheImpl implements MorphiumCache {
+    /** nesting depth up to which result objects are walked for {@link Cache#maxBytes()} */
+    private static final int MAX_SIZE_DEPTH = 8;
     private final List<CacheListener> cacheListeners;
     private final Logger logger = LoggerFactory.getLogger(MorphiumCacheImpl.class);
     private final CacheHousekeeper cacheHousekeeper;
-    private Map<Class<?>, Map<String, CacheEntry>> cache;
+    private final Map<Class<?>, CacheRegion> regions;
     private final Map<Class<?>, Map<Object, Object>> idCache;
     private AnnotationAndReflectionHelper annotationHelper = new AnnotationAndReflectionHelper(false); // only used to
     // get id's and
@@ -40,7 +60,7 @@ public class MorphiumCacheImpl implements MorphiumCache {
     // never happens
 
     public MorphiumCacheImpl() {
-        cache = new ConcurrentHashMap<>();
+        regions = new ConcurrentHashMap<>();
         idCache = new ConcurrentHashMap<>();
         cacheListeners = new CopyOnWriteArrayList<>();
         cacheHousekeeper = new CacheHousekeeper(this);
@@ -88,45 +108,234 @@ public class MorphiumCacheImpl implements MorphiumCache {
      * @param ret  - list of results
      * @param <T>  - Type of record
      */
-    @SuppressWarnings("unchecked")
     @Override
     public <T> void addToCache(String k, Class<? extends T> type, List<T> ret) {
         if (k == null) {
             return;
         }
 
+        add(k, type, ret, !k.endsWith("idlist") && !k.contains("project:"));
+    }
+
+    @Override
+    public <T> void addToCache(QueryCacheKey k, Class<? extends T> type, List<T> ret) {
+        if (k == null) {
+            return;
+        }
+
+        add(k, type, ret, !k.isIdList() && !k.hasProjection());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void add(Object k, Class<? extends T> type, List<T> ret, boolean objects) {
+        CacheRegion region = getRegion(type);
         CacheEntry<T> co = new CacheEntry(ret, k);
-        co.setKey(k);
         co.setType(type);
 
         for (CacheListener cl : cacheListeners) {
-            co = cl.wouldAddToCache(k, co, getFromCache(type, k) != null);
+            co = cl.wouldAddToCache(k, co, region.get(k) != null);
 
             if (co == null) {
                 return;
             }
         }
 
-        if (!k.endsWith("idlist") && !k.contains("project:")) {
-            // copy from idCache
-            Map<Class<?>, Map<Object, Object>> idCacheClone = idCache; // getIdCache();
+        List<T> result = (List<T>) co.getResult();
+        Object[] ids = new Object[result.size()];
+        boolean idList = isIdList(k);
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idList ? normalizeId(result.get(i)) : idOf(result.get(i));
+
+            if (ids[i] == null) {
+                ids = null;
+                break;
+            }
+        }
+
+        if (objects) {
+            // copy to idCache
+            Map<Object, Object> idc = idCache.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+
+            for (T record : result) {
+                Object id = idOf(record);
+
+                if (id != null) {
+                    idc.put(id, record);
+                }
+            }
+        }
+
+        co.setLru(System.currentTimeMillis());
+        removed(type, region.put(k, co, region.isByteBounded() ? estimateSize(result, 0) : 0, objects, ids));
+    }
+
+    /**
+     * the id of a cached object or document, null if it has none
+     */
+    private Object idOf(Object o) {
+        if (o == null) {
+            return null;
+        }
+
+        if (o instanceof Map<?, ?> m) {
+            return normalizeId(m.get("_id"));
+        }
+
+        try {
+            return normalizeId(annotationHelper.getId(o));
+        } catch (IllegalArgumentException e) {
+            // no @Id
+            return null;
+        }
+    }
+
+    /** ids of written documents are ObjectIds, those of objects MorphiumIds */
+    private static Object normalizeId(Object id) {
+        if (id instanceof ObjectId oid) {
+            return new MorphiumId(oid.toByteArray());
+        }
+
+        return id;
+    }
+
+    private CacheRegion getRegion(Class<?> type) {
+        return regions.computeIfAbsent(type, t -> {
+            Cache c = annotationHelper.getAnnotationFromHierarchy(t, Cache.class);
+
+            if (c == null) {
+                return new CacheRegion(null, -1, -1);
+            }
+
+            return new CacheRegion(c.strategy(), c.maxEntries(), c.maxBytes());
+        });
+    }
+
+    /**
+     * removes the objects of removed results from the id cache
+     */
+    private void removed(Class<?> type, List<CacheRegion.Node> nodes) {
+        for (CacheRegion.Node n : nodes) {
+            if (!n.objects) {
+                continue;
+            }
+
+            if (n.ids != null) {
+                for (Object id : n.ids) {
+                    removeEntryFromIdCache(type, id);
+                }
+
+                continue;
+            }
+
+            for (Object o : (List<?>) n.entry.getResult()) {
+                Object id = idOf(o);
+
+                if (id != null) {
+                    removeEntryFromIdCache(type, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * removes all results of the type that were added more than validTime ms ago
+     *
+     * @return number of removed results
+     */
+    int removeExpired(Class<?> type, long validTime) {
+        CacheRegion region = regions.get(type);
+
+        if (region == null) {
+            return 0;
+        }
+
+        long oldest = System.currentTimeMillis() - validTime;
+        List<CacheRegion.Node> expired = region.removeIf(n -> n.entry.getCreated() < oldest || n.entry.getResult() == null);
+        removed(type, expired);
+        return expired.size();
+    }
+
+    Set<Class<?>> getCachedResultTypes() {
+        return regions.keySet();
+    }
+
+    /**
+     * rough estimate of the heap used by a cached value, for {@link Cache#maxBytes()}
+     */
+    long estimateSize(Object o, int depth) {
+        if (o == null) {
+            return 0;
+        }
+
+        if (o instanceof String s) {
+            return 40 + s.length();
+        }
+
+        if (o instanceof byte[] b) {
+            return 16 + b.length;
+        }
+
+        if (o instanceof Number || o instanceof Boolean || o instanceof Character || o instanceof Enum || o instanceof Date) {
+            return 24;
+        }
+
+        if (depth >= MAX_SIZE_DEPTH) {
+            return 16;
+        }
+
+        if (o instanceof Map<?, ?> m) {
+            long sz = 48;
+
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                sz += 32 + estimateSize(e.getKey(), depth + 1) + estimateSize(e.getValue(), depth + 1);
+            }
+
+            return sz;
+        }
+
+        if (o instanceof Collection<?> c) {
+            long sz = 40;
+
+            for (Object e : c) {
+                sz += 8 + estimateSize(e, depth + 1);
+            }
+
+            return sz;
+        }
+
+        if (o instanceof Object[] a) {
+            long sz = 16;
+
+            for (Object e : a) {
+                sz += 8 + estimateSize(e, depth + 1);
+            }
+
+            return sz;
+        }
+
+        if (!annotationHelper.isEntity(o)) {
+            return 24;
+        }
+
+        long sz = 16;
 
-            for (T record : ret) {
-                idCacheClone.putIfAbsent(type, new ConcurrentHashMap<>());
-                idCacheClone.get(type).put(annotationHelper.getId(record), record);
+        for (Field f : annotationHelper.getAllFields(o.getClass())) {
+            if (Modifier.isStatic(f.getModifiers())) {
+                continue;
             }
 
-            // setIdCache(idCacheClone);
+            sz += 8;
+
+            try {
+                f.setAccessible(true);
+                sz += estimateSize(f.get(o), depth + 1);
+            } catch (Exception e) {
+                // inaccessible - only the reference is counted
+            }
         }
 
-        CacheEntry<T> e = new CacheEntry(ret, k);
-        e.setLru(System.currentTimeMillis());
-        // Map<Class<?>, Map<String, CacheEntry>> cl = (Map<Class<?>, Map<String,
-        // CacheEntry>>) (((HashMap) cache).clone());
-        cache.putIfAbsent(type, new ConcurrentHashMap<>());
-        cache.get(type).put(k, e);
-        // atomar execution of this operand - no synchronization needed
-        // cache = cl;
+        return sz;
     }
 
     @Override
@@ -140,24 +349,74 @@ public class MorphiumCacheImpl implements MorphiumCache {
         }
     }
 
-    @SuppressWarnings("CommentedOutCode")
+    /**
+     * removes the results containing one of the documents, and those of queries matching one of
+     * them now - evaluated with the {@link QueryCacheKey#matches compiled filter}. Results cached
+     * by string key can not be evaluated and are removed as well.
+     */
     @Override
-    public boolean isCached(Class<?> type, String k) {
-        // Cache c = annotationHelper.getAnnotationFromHierarchy(type, Cache.class);
-        // ///type.getAnnotation(Cache.class);
-        // if (c != null) {
-        // if (!c.readCache()) return false;
-        // } else {
-        // return false;
-        // }
-        Map<Class<?>, Map<String, CacheEntry>> snapshotCache = cache;
+    public void clearCacheIfNecessary(Class<?> cls, List<Map<String, Object>> docs) {
+        Cache c = annotationHelper.getAnnotationFromHierarchy(cls, Cache.class);
 
-        try {
-            return snapshotCache.get(type) != null && snapshotCache.get(type).get(k) != null
-                && snapshotCache.get(type).get(k).getResult() != null;
-        } catch (Exception e) {
-            return false;
+        if (c == null || !c.clearOnWrite()) {
+            return;
         }
+
+        for (CacheListener cl : cacheListeners) {
+            if (!cl.wouldClearCache(cls)) {
+                logger.info("Not clearing cache due to veto of cache listener " + cl.getClass().getName());
+                return;
+            }
+        }
+
+        CacheRegion region = regions.get(cls);
+        List<CacheRegion.Node> removed = new ArrayList<>();
+
+        for (Map<String, Object> doc : docs) {
+            Object id = normalizeId(doc.get("_id"));
+
+            if (id != null) {
+                removeEntryFromIdCache(cls, id);
+
+                if (region != null) {
+                    removed.addAll(region.removeById(id));
+                }
+            }
+        }
+
+        if (region == null) {
+            return;
+        }
+
+        removed.addAll(region.removeIf(n -> {
+            if (!(n.key instanceof QueryCacheKey k)) {
+                return true;
+            }
+
+            try {
+                for (Map<String, Object> doc : docs) {
+                    if (k.matches(doc)) {
+                        return true;
+                    }
+                }
+            } catch (Exception e) {
+                logger.debug("Could not evaluate cached query {} - removing it", k, e);
+                return true;
+            }
+
+            return false;
+        }));
+        removed(cls, removed);
+    }
+
+    @Override
+    public boolean isCached(Class<?> type, String k) {
+        return getFromCache(type, k) != null;
+    }
+
+    @Override
+    public boolean isCached(Class<?> type, QueryCacheKey k) {
+        return getFromCache(type, k) != null;
     }
 
     /**
@@ -173,38 +432,58 @@ public class MorphiumCacheImpl implements MorphiumCache {
     @Override
     @SuppressWarnings("unchecked")
     public <T> List<T> getFromCache(Class<? extends T> type, String k) {
-        Map<Class<?>, Map<String, CacheEntry>> snapshotCache = cache;
+        CacheRegion region = regions.get(type);
 
-        if (snapshotCache.get(type) == null || snapshotCache.get(type).get(k) == null) {
+        if (region == null || k == null) {
             return null;
         }
 
-        try {
-            final CacheEntry CacheEntry = snapshotCache.get(type).get(k);
-            CacheEntry.setLru(System.currentTimeMillis());
-            return (List<T>) CacheEntry.getResult();
-        } catch (Exception e) {
-            // can happen, when cache is cleared in thw wron moment
+        CacheEntry<?> e = region.get(k);
+
+        if (e == null) {
+            // might have been stored by its QueryCacheKey
+            for (Object key : region.snapshot().keySet()) {
+                if (key instanceof QueryCacheKey && k.equals(key.toString())) {
+                    e = region.get(key);
+                    break;
+                }
+            }
         }
 
-        return null;
+        return e == null ? null : (List<T>) e.getResult();
     }
 
+    @Override
     @SuppressWarnings("unchecked")
-    public Map<Class<?>, Map<String, CacheEntry>> getCache() {
-        return cache; // (Map<Class<?>, Map<String, CacheEntry>>) (((ConcurrentHashMap)
-        // cache).clone());
+    public <T> List<T> getFromCache(Class<? extends T> type, QueryCacheKey k) {
+        CacheRegion region = regions.get(type);
+
+        if (region == null || k == null) {
+            return null;
+        }
+
+        CacheEntry<?> e = region.get(k);
+        return e == null ? null : (List<T>) e.getResult();
     }
 
-    public void setCache(Map<Class<?>, Map<String, CacheEntry>> cache) {
-        this.cache = cache;
+    /**
+     * @return a copy of all cached results by type and key
+     */
+    public Map<Class<?>, Map<Object, CacheEntry>> getCache() {
+        Map<Class<?>, Map<Object, CacheEntry>> ret = new HashMap<>();
+
+        for (Map.Entry<Class<?>, CacheRegion> e : regions.entrySet()) {
+            ret.put(e.getKey(), e.getValue().snapshot());
+        }
+
+        return ret;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public <T> T getFromIDCache(Class<? extends T> type, Object id) {
         if (idCache.get(type) != null && id!=null) {
-            return (T) idCache.get(type).get(id);
+            return (T) idCache.get(type).get(normalizeId(id));
         }
 
         return null;
@@ -220,7 +499,6 @@ public class MorphiumCacheImpl implements MorphiumCache {
         cacheHousekeeper.setDefaultValidCacheTime(type);
     }
 
-    @SuppressWarnings("StringBufferMayBeStringBuilder")
     @Override
     public String getCacheKey(Class type, Map<String, Object> qo, Map<String, Integer> sort,
         Map<String, Object> projection, String collection, int skip, int limit) {
@@ -249,15 +527,13 @@ public class MorphiumCacheImpl implements MorphiumCache {
             }
         }
 
-        if (cache.get(cls) != null) {
-            cache.get(cls).clear();
+        if (regions.get(cls) != null) {
+            regions.get(cls).clear();
         }
 
         if (idCache.get(cls) != null) {
             idCache.get(cls).clear();
         }
-
-        // clearCacheFor(cls);
     }
 
     @Override
@@ -267,7 +543,7 @@ public class MorphiumCacheImpl implements MorphiumCache {
 
     @Override
     public void resetCache() {
-        setCache(new ConcurrentHashMap<>());
+        regions.clear();
     }
 
     @Override
@@ -278,16 +554,16 @@ public class MorphiumCacheImpl implements MorphiumCache {
 
     @Override
     public void removeEntryFromIdCache(Class cls, Object id) {
-        if (idCache.get(cls) != null) {
-            idCache.get(cls).remove(id);
+        if (idCache.get(cls) != null && id != null) {
+            idCache.get(cls).remove(normalizeId(id));
         }
     }
 
-    @SuppressWarnings({ "unchecked", "CommentedOutCode" })
+    @SuppressWarnings("unchecked")
     @Override
     public void removeEntryFromCache(Class cls, Object id) {
-        // Map<Class<?>, Map<String, CacheEntry>> c = getCache();
-        // Map<Class<?>, Map<Object, Object>> idc = getIdCache();
+        id = normalizeId(id);
+
         if (idCache.get(cls) != null && idCache.get(cls).get(id) != null) {
             for (CacheListener cl : cacheListeners) {
                 CacheEntry e = new CacheEntry(idCache.get(cls).get(id), id);
@@ -299,45 +575,27 @@ public class MorphiumCacheImpl implements MorphiumCache {
             }
         }
 
-        idCache.get(cls).remove(id);
-        ArrayList<String> toRemove = new ArrayList<>();
-
-        for (String key : cache.get(cls).keySet()) {
-            if (cache.get(cls).get(key) != null) {
-                for (Object el : (List) cache.get(cls).get(key).getResult()) {
-                    Object lid = annotationHelper.getId(el);
-
-                    if (lid == null) {
-                        logger.error("Null id in CACHE?");
-                        toRemove.add(key);
-                    }
-
-                    if (lid != null && lid.equals(id)) {
-                        toRemove.add(key);
-                    }
-                }
-            } else {
-                logger.error("Null element in CACHE?");
-            }
-        }
+        removeEntryFromIdCache(cls, id);
+        CacheRegion region = regions.get(cls);
 
-        for (String k : toRemove) {
-            cache.get(cls).remove(k);
+        if (region != null) {
+            removed(cls, region.removeById(id));
         }
+    }
 
-        // setCache(c);
-        // setIdCache(idc);
+    private static boolean isIdList(Object key) {
+        return key instanceof QueryCacheKey k ? k.isIdList() : key.toString().endsWith("idlist");
     }
 
     @Override
     public Map<String, Integer> getSizes() {
         Map<String, Integer> ret = new HashMap<>();
 
-        for (Class type : cache.keySet()) {
-            idCache.putIfAbsent(type, new ConcurrentHashMap<>());
-            cache.putIfAbsent(type, new ConcurrentHashMap<>());
-            ret.put("resultCache|" + type.getName(), cache.get(type).size());
-            ret.put("idCache|" + type.getName(), idCache.get(type).size());
+        for (Map.Entry<Class<?>, CacheRegion> e : regions.entrySet()) {
+            Class<?> type = e.getKey();
+            Map<Object, Object> ids = idCache.get(type);
+            ret.put("resultCache|" + type.getName(), e.getValue().size());
+            ret.put("idCache|" + type.getName(), ids == null ? 0 : ids.size());
         }
 
         return ret;
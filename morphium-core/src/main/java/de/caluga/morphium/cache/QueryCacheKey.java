@@ -0,0 +1,310 @@
+package de.caluga.morphium.cache;
+
+import de.caluga.morphium.AnnotationAndReflectionHelper;
+import de.caluga.morphium.Utils;
+import de.caluga.morphium.driver.inmem.CompiledQuery;
+import de.caluga.morphium.query.Query;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Structural cache key of a query: type, collection, filter, sort, projection, skip and limit.
+ * The maps are copied into an immutable, order preserving form when the key is created and the
+ * hash is computed once - looking up a cached result costs one hash lookup and, on a hit, one
+ * structural comparison, instead of rendering the whole query into a string first.
+ * <p>
+ * Two keys are equal if the queries are equal value by value, in the same order - like the
+ * string key of {@link Utils#getCacheKey}, but without treating different values with the same
+ * string representation (e.g. {@code "1"} and {@code 1}) as equal. {@link #toString()} renders
+ * exactly that string key, cache implementations only supporting string keys get it through the
+ * default methods of {@link MorphiumCache}.
+ */
+public final class QueryCacheKey {
+    private final Class<?> type;
+    private final String collection;
+    private final Object query;
+    private final Object sort;
+    private final Object projection;
+    private final int skip;
+    private final int limit;
+    private final boolean idList;
+    private final int hash;
+    private String string;
+    private volatile CompiledQuery compiled;
+
+    private QueryCacheKey(Class<?> type, String collection, Object query, Object sort, Object projection, int skip, int limit,
+        boolean idList) {
+        this.type = type;
+        this.collection = collection;
+        this.query = query;
+        this.sort = sort;
+        this.projection = projection;
+        this.skip = skip;
+        this.limit = limit;
+        this.idList = idList;
+        int h = Objects.hashCode(type);
+        h = 31 * h + Objects.hashCode(collection);
+        h = 31 * h + Objects.hashCode(query);
+        h = 31 * h + Objects.hashCode(sort);
+        h = 31 * h + Objects.hashCode(projection);
+        h = 31 * h + skip;
+        h = 31 * h + limit;
+        hash = 31 * h + (idList ? 1 : 0);
+    }
+
+    /**
+     * @param projection only part of the key if it does not select all fields of the type, see
+     *                   {@link Utils#isFullProjection}
+     */
+    public static QueryCacheKey of(Class<?> type, Map<String, Object> query, Map<String, ?> sort, Map<String, Object> projection,
+        String collection, int skip, int limit, AnnotationAndReflectionHelper anHelper) {
+        Object proj = projection == null || Utils.isFullProjection(type, projection, anHelper) ? null : freeze(projection);
+        return new QueryCacheKey(type, collection, freeze(query), sort == null ? null : freeze(sort), proj, skip, limit, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static QueryCacheKey of(Query<?> q) {
+        return of(q.getType(), q.toQueryObject(), q.getSort(), q.getFieldListForQuery(), q.getCollectionName(), q.getSkip(),
+                q.getLimit(), q.getARHelper());
+    }
+
+    /**
+     * the key for the ids matching the query (e.g. {@code Query.idList()}) - different from the
+     * key for the documents themselves
+     */
+    public QueryCacheKey forIdList() {
+        return idList ? this : new QueryCacheKey(type, collection, query, sort, projection, skip, limit, true);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    /** the result is a list of ids, not of objects */
+    public boolean isIdList() {
+        return idList;
+    }
+
+    /** the result objects are not complete, only some fields were read */
+    public boolean hasProjection() {
+        return projection != null;
+    }
+
+    /**
+     * true, if the filter of the query matches the document - evaluated like the InMemoryDriver
+     * does, with a {@link CompiledQuery} compiled on first use
+     *
+     * @param doc the document as stored in mongo
+     */
+    @SuppressWarnings("unchecked")
+    public boolean matches(Map<String, Object> doc) {
+        CompiledQuery q = compiled;
+
+        if (q == null) {
+            q = CompiledQuery.compile((Map<String, Object>) thaw(query));
+            compiled = q;
+        }
+
+        return q.matches(doc);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof QueryCacheKey k) || hash != k.hash) {
+            return false;
+        }
+
+        return skip == k.skip && limit == k.limit && idList == k.idList && type == k.type && Objects.equals(collection, k.collection)
+            && Objects.equals(query, k.query) && Objects.equals(sort, k.sort) && Objects.equals(projection, k.projection);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /** the string key {@link Utils#getCacheKey} creates for the same query */
+    @Override
+    public String toString() {
+        if (string != null) {
+            return string;
+        }
+
+        StringBuilder b = new StringBuilder();
+        render(b, query);
+        b.append(" c:").append(collection);
+        b.append(" l:").append(limit);
+        b.append(" s:").append(skip);
+
+        if (sort != null) {
+            b.append(" sort:{");
+            appendEntries(b, (FrozenMap) sort);
+            b.append("}");
+        }
+
+        if (projection != null) {
+            b.append(" project:{");
+            appendEntries(b, (FrozenMap) projection);
+            b.append("}");
+        }
+
+        if (idList) {
+            b.append(" idlist");
+        }
+
+        string = b.toString();
+        return string;
+    }
+
+    private static void appendEntries(StringBuilder b, FrozenMap m) {
+        for (int i = 0; i < m.keysAndValues.size(); i += 2) {
+            b.append(" ").append(m.keysAndValues.get(i)).append(":");
+            render(b, m.keysAndValues.get(i + 1));
+        }
+    }
+
+    /** like the toString() of maps and collections */
+    private static void render(StringBuilder b, Object v) {
+        if (v instanceof FrozenMap m) {
+            b.append("{");
+
+            for (int i = 0; i < m.keysAndValues.size(); i += 2) {
+                if (i > 0) {
+                    b.append(", ");
+                }
+
+                b.append(m.keysAndValues.get(i)).append("=");
+                render(b, m.keysAndValues.get(i + 1));
+            }
+
+            b.append("}");
+        } else if (v instanceof FrozenList l) {
+            b.append("[");
+
+            for (int i = 0; i < l.values.size(); i++) {
+                if (i > 0) {
+                    b.append(", ");
+                }
+
+                render(b, l.values.get(i));
+            }
+
+            b.append("]");
+        } else if (v instanceof FrozenPattern p) {
+            b.append(p.pattern);
+        } else {
+            b.append(v);
+        }
+    }
+
+    /**
+     * an immutable copy of the value that compares by content - maps keep their order, patterns
+     * and arrays (which only compare by identity) are replaced by their content
+     */
+    static Object freeze(Object v) {
+        if (v instanceof Map<?, ?> m) {
+            Object[] kv = new Object[m.size() * 2];
+            int i = 0;
+
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                kv[i++] = e.getKey();
+                kv[i++] = freeze(e.getValue());
+            }
+
+            return new FrozenMap(Arrays.asList(kv));
+        }
+
+        if (v instanceof Collection<?> c) {
+            List<Object> values = new ArrayList<>(c.size());
+
+            for (Object o : c) {
+                values.add(freeze(o));
+            }
+
+            return new FrozenList(values);
+        }
+
+        if (v instanceof Object[] a) {
+            return freeze(Arrays.asList(a));
+        }
+
+        if (v instanceof Pattern p) {
+            return new FrozenPattern(p.pattern(), p.flags());
+        }
+
+        if (v instanceof Date d) {
+            return new Date(d.getTime());
+        }
+
+        if (v instanceof byte[] b) {
+            return ByteBuffer.wrap(b.clone());
+        }
+
+        return v;
+    }
+
+    /**
+     * a mutable copy of the frozen value, like the one it was created from
+     */
+    private static Object thaw(Object v) {
+        if (v instanceof FrozenMap m) {
+            Map<Object, Object> ret = new LinkedHashMap<>();
+
+            for (int i = 0; i < m.keysAndValues.size(); i += 2) {
+                ret.put(m.keysAndValues.get(i), thaw(m.keysAndValues.get(i + 1)));
+            }
+
+            return ret;
+        }
+
+        if (v instanceof FrozenList l) {
+            List<Object> ret = new ArrayList<>(l.values.size());
+
+            for (Object o : l.values) {
+                ret.add(thaw(o));
+            }
+
+            return ret;
+        }
+
+        if (v instanceof FrozenPattern p) {
+            return Pattern.compile(p.pattern, p.flags);
+        }
+
+        if (v instanceof Date d) {
+            return new Date(d.getTime());
+        }
+
+        if (v instanceof ByteBuffer b) {
+            return b.array().clone();
+        }
+
+        return v;
+    }
+
+    private record FrozenMap(List<Object> keysAndValues) {
+    }
+
+    private record FrozenList(List<Object> values) {
+    }
+
+    private record FrozenPattern(String pattern, int flags) {
+    }
+}
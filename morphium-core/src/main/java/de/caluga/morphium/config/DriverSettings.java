@@ -14,6 +14,15 @@ import java.util.List;
 public class DriverSettings extends Settings {
 
     private MorphiumConfig.CompressionType compressionType = MorphiumConfig.CompressionType.NONE;
+    // messages smaller than this (bytes) are sent uncompressed - compressing a small getMore
+    // or hello only costs CPU
+    private int compressionMinSize = 1024;
+    // compression level for insert/update/delete and for all other commands, 0: compressor default
+    private int compressionLevelBulkWrite = 0;
+    private int compressionLevelCommand = 1;
+    // latency histograms per command and host, connection wait and bytes on the wire
+    // (driver.getMetrics()) - recording is allocation free, false turns it off entirely
+    private boolean metricsEnabled = true;
     private String uuidRepresentation;
     private boolean retryReads = false;
     private boolean retryWrites = false;
@@ -45,6 +54,18 @@ public class DriverSettings extends Settings {
     private int serverSelectionTimeout = 30000;
     private boolean inMemorySharedDatabases = false;
     private boolean sharedConnectionPool = false;
+    // 0 = classic pool (one in-flight request per connection), >0 = that many shared, pipelined
+    // connections per host with replies demultiplexed by responseTo
+    private int multiplexedConnectionsPerHost = 0;
+    // encode requests straight into pooled buffers and gather them onto the socket instead of
+    // building the message as byte[] copies
+    private boolean pooledEncodingBuffers = false;
+    // with pooledEncodingBuffers: pool direct instead of heap buffers
+    private boolean directEncodingBuffers = false;
+    // decode embedded documents of replies (cursor batches) only when their fields are accessed
+    private boolean lazyDocumentDecoding = false;
+    // iterate cursors by decoding their batches document by document from the socket
+    private boolean streamingCursors = false;
 
     public int getIdleSleepTime() {
         return idleSleepTime;
@@ -70,6 +91,34 @@ public class DriverSettings extends Settings {
         this.compressionType = compressionType;
         return this;
     }
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+    public DriverSettings setCompressionMinSize(int compressionMinSize) {
+        this.compressionMinSize = compressionMinSize;
+        return this;
+    }
+    public int getCompressionLevelBulkWrite() {
+        return compressionLevelBulkWrite;
+    }
+    public DriverSettings setCompressionLevelBulkWrite(int compressionLevelBulkWrite) {
+        this.compressionLevelBulkWrite = compressionLevelBulkWrite;
+        return this;
+    }
+    public int getCompressionLevelCommand() {
+        return compressionLevelCommand;
+    }
+    public DriverSettings setCompressionLevelCommand(int compressionLevelCommand) {
+        this.compressionLevelCommand = compressionLevelCommand;
+        return this;
+    }
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    public DriverSettings setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
     public String getUuidRepresentation() {
         return uuidRepresentation;
     }
@@ -188,4 +237,49 @@ public class DriverSettings extends Settings {
         this.sharedConnectionPool = sharedConnectionPool;
         return this;
     }
+
+    public int getMultiplexedConnectionsPerHost() {
+        return multiplexedConnectionsPerHost;
+    }
+
+    public DriverSettings setMultiplexedConnectionsPerHost(int multiplexedConnectionsPerHost) {
+        this.multiplexedConnectionsPerHost = multiplexedConnectionsPerHost;
+        return this;
+    }
+
+    public boolean isPooledEncodingBuffers() {
+        return pooledEncodingBuffers;
+    }
+
+    public DriverSettings setPooledEncodingBuffers(boolean pooledEncodingBuffers) {
+        this.pooledEncodingBuffers = pooledEncodingBuffers;
+        return this;
+    }
+
+    public boolean isDirectEncodingBuffers() {
+        return directEncodingBuffers;
+    }
+
+    public DriverSettings setDirectEncodingBuffers(boolean directEncodingBuffers) {
+        this.directEncodingBuffers = directEncodingBuffers;
+        return this;
+    }
+
+    public boolean isLazyDocumentDecoding() {
+        return lazyDocumentDecoding;
+    }
+
+    public DriverSettings setLazyDocumentDecoding(boolean lazyDocumentDecoding) {
+        this.lazyDocumentDecoding = lazyDocumentDecoding;
+        return this;
+    }
+
+    public boolean isStreamingCursors() {
+        return streamingCursors;
+    }
+
+    public DriverSettings setStreamingCursors(boolean streamingCursors) {
+        this.streamingCursors = streamingCursors;
+        return this;
+    }
 }
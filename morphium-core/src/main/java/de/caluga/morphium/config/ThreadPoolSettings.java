@@ -2,12 +2,17 @@ package de.caluga.morphium.config;
 
 import de.caluga.morphium.annotations.Embedded;
 
+import java.util.concurrent.ThreadFactory;
+
 @Embedded
 public class ThreadPoolSettings extends Settings {
 
     private int threadPoolAsyncOpCoreSize = 1;
     private int threadPoolAsyncOpMaxSize = 1000;
     private long threadPoolAsyncOpKeepAliveTime = 1000;
+    // run the blocking I/O pools (async ops, writer, messaging, driver housekeeping) on virtual
+    // threads, each pool growing to its max size instead of queueing behind its core threads
+    private boolean virtualThreads = false;
     public int getThreadPoolAsyncOpCoreSize() {
         return threadPoolAsyncOpCoreSize;
     }
@@ -29,4 +34,21 @@ public class ThreadPoolSettings extends Settings {
         this.threadPoolAsyncOpKeepAliveTime = threadPoolAsyncOpKeepAliveTime;
         return this;
     }
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    public ThreadPoolSettings setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Thread factory for one of Morphium's blocking I/O pools: virtual threads if
+     * {@link #isVirtualThreads()}, platform threads otherwise.
+     *
+     * @param namePrefix thread name prefix, a counter is appended
+     */
+    public ThreadFactory threadFactory(String namePrefix) {
+        return virtualThreads ? Thread.ofVirtual().name(namePrefix, 0).factory() : Thread.ofPlatform().name(namePrefix, 0).factory();
+    }
 }
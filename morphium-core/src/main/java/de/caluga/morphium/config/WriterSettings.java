@@ -28,6 +28,9 @@ public class WriterSettings extends Settings {
     // ms for the pause of the main thread
     private int writeBufferTimeGranularity = 100;
     private int threadConnectionMultiplier = 5;
+    // conditional updates of @Version entities in store(List)/storeList kept in flight on one
+    // connection (sent back-to-back, replies read in order) - 0: one round trip at a time
+    private int versionedUpdatePipelineDepth = 0;
 
 
     public MorphiumWriter getWriter() {
@@ -126,4 +129,11 @@ public class WriterSettings extends Settings {
         this.threadConnectionMultiplier = threadConnectionMultiplier;
         return this;
     }
+    public int getVersionedUpdatePipelineDepth() {
+        return versionedUpdatePipelineDepth;
+    }
+    public WriterSettings setVersionedUpdatePipelineDepth(int versionedUpdatePipelineDepth) {
+        this.versionedUpdatePipelineDepth = versionedUpdatePipelineDepth;
+        return this;
+    }
 }
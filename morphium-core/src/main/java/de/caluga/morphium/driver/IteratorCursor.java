@@ -0,0 +1,114 @@
+package de.caluga.morphium.driver;
+
+import de.caluga.morphium.driver.wire.MongoConnection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * cursor over documents produced on demand, e.g. by a streaming in memory aggregation: the
+ * documents are pulled from the iterator in batches of {@link #getBatchSize()} when the current
+ * batch is consumed
+ */
+public class IteratorCursor extends MorphiumCursor {
+    private final Iterator<Map<String, Object>> source;
+    private int pos = 0;
+    private int idx = 0;
+
+    public IteratorCursor(Iterator<Map<String, Object>> source, int batchSize) {
+        this.source = source;
+        setBatchSize(batchSize <= 0 ? 1000 : batchSize);
+        setBatch(new ArrayList<>());
+    }
+
+    private boolean fill() {
+        if (pos < getBatch().size()) {
+            return true;
+        }
+
+        List<Map<String, Object>> b = new ArrayList<>();
+
+        while (b.size() < getBatchSize() && source.hasNext()) {
+            b.add(source.next());
+        }
+
+        setBatch(b);
+        pos = 0;
+        return !b.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        return fill();
+    }
+
+    @Override
+    public synchronized Map<String, Object> next() {
+        if (!fill()) {
+            return null;
+        }
+
+        idx++;
+        return getBatch().get(pos++);
+    }
+
+    /** closes the source, if it holds resources */
+    @Override
+    public void close() {
+        if (source instanceof AutoCloseable c) {
+            try {
+                c.close();
+            } catch (Exception e) {
+                throw new MorphiumDriverException("closing cursor failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public int available() {
+        return getBatch().size() - pos;
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> getAll() throws MorphiumDriverException {
+        List<Map<String, Object>> ret = new ArrayList<>(getBatch().subList(pos, getBatch().size()));
+        source.forEachRemaining(ret::add);
+        idx += ret.size();
+        setBatch(new ArrayList<>());
+        pos = 0;
+        return ret;
+    }
+
+    @Override
+    public synchronized void ahead(int skip) throws MorphiumDriverException {
+        for (int i = 0; i < skip; i++) {
+            if (!hasNext()) {
+                throw new IllegalArgumentException("cannot jump that far");
+            }
+
+            next();
+        }
+    }
+
+    @Override
+    public synchronized void back(int jump) throws MorphiumDriverException {
+        throw new IllegalArgumentException("cannot jump back");
+    }
+
+    @Override
+    public int getCursor() {
+        return idx;
+    }
+
+    @Override
+    public MongoConnection getConnection() {
+        return null;
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+        return this;
+    }
+}
@@ -7,6 +7,8 @@ import de.caluga.morphium.aggregation.Aggregator;
 import de.caluga.morphium.driver.bulk.BulkRequestContext;
 import de.caluga.morphium.driver.commands.WatchCommand;
 import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
 import de.caluga.morphium.driver.wireprotocol.OpCompressed;
 
 import java.io.Closeable;
@@ -180,6 +182,110 @@ public interface MorphiumDriver extends Closeable {
 
     void setMaxConnectionsPerHost(int maxConnectionsPerHost);
 
+    /**
+     * Number of shared, multiplexed connections per host. {@code 0} (default) keeps the classic
+     * model of one in-flight request per pooled connection. With a value {@code > 0} many
+     * requests are pipelined over the same socket and replies are matched by their
+     * {@code responseTo} - see {@link de.caluga.morphium.driver.wire.SingleMongoConnection#setMultiplexed(boolean)}.
+     */
+    default int getMultiplexedConnectionsPerHost() {
+        return 0;
+    }
+
+    default void setMultiplexedConnectionsPerHost(int connectionsPerHost) {
+        // optional - drivers without a connection pool ignore this
+    }
+
+    /**
+     * Buffer pool requests are encoded into before they are written to the wire - see
+     * {@link de.caluga.morphium.driver.wireprotocol.OpMsg#encode}. {@code null} (default)
+     * encodes every message into a fresh byte array.
+     */
+    default de.caluga.morphium.driver.bson.BsonBufferPool getEncodingBufferPool() {
+        return null;
+    }
+
+    default void setEncodingBufferPool(de.caluga.morphium.driver.bson.BsonBufferPool pool) {
+        // optional - drivers that do not talk wire protocol ignore this
+    }
+
+    /**
+     * If true, documents inside replies (cursor batches) are handed out as
+     * {@link de.caluga.morphium.driver.bson.LazyBsonDocument} views that decode a field only
+     * when it is accessed. Default false: replies are decoded completely.
+     */
+    default boolean isLazyDocumentDecoding() {
+        return false;
+    }
+
+    default void setLazyDocumentDecoding(boolean lazy) {
+        // optional - drivers that do not talk wire protocol ignore this
+    }
+
+    /**
+     * If true, iterating a query (asIterable/stream) reads each batch from the socket one
+     * document at a time instead of reading and decoding the whole reply first - memory stays
+     * bounded by the largest document instead of the batch. Only classic (not multiplexed)
+     * socket connections do that. Default false.
+     */
+    default boolean isStreamingCursors() {
+        return false;
+    }
+
+    default void setStreamingCursors(boolean streaming) {
+        // optional - drivers that do not talk wire protocol ignore this
+    }
+
+    /**
+     * If true, the driver's own blocking work (heartbeats, connection creation, housekeeping)
+     * runs on virtual threads. Set from {@code ThreadPoolSettings.isVirtualThreads()} before
+     * {@link #connect()}. Default false.
+     */
+    default boolean isVirtualThreads() {
+        return false;
+    }
+
+    default void setVirtualThreads(boolean virtualThreads) {
+        // optional - drivers without threads of their own ignore this
+    }
+
+    /**
+     * Which outgoing messages are compressed with {@link #getCompression()}, and at which level.
+     * Set from {@code DriverSettings} (compressionMinSize, compressionLevel*) before
+     * {@link #connect()}.
+     */
+    default CompressionPolicy getCompressionPolicy() {
+        return null;
+    }
+
+    default void setCompressionPolicy(CompressionPolicy policy) {
+        // optional - drivers that do not talk wire protocol ignore this
+    }
+
+    /**
+     * Latency histograms per command and host, connection wait times and bytes on the wire - or
+     * null if the driver does not record them (see {@code DriverSettings.metricsEnabled}).
+     * Exporters are registered with {@link DriverMetrics#addExporter}.
+     */
+    default DriverMetrics getMetrics() {
+        return null;
+    }
+
+    default void setMetrics(DriverMetrics metrics) {
+        // optional - drivers that do not talk wire protocol record no metrics
+    }
+
+    /**
+     * True if the driver's connections can hand out a reply as a future, with no thread waiting
+     * for it ({@link de.caluga.morphium.driver.wire.MongoConnection#sendCommandAsync}) - that takes
+     * a reader that routes replies to their requests, i.e. multiplexed connections. The
+     * {@code ...Async} read methods of Query and Aggregator use this instead of running the
+     * blocking call on a pool thread. Default false.
+     */
+    default boolean supportsAsyncReplies() {
+        return false;
+    }
+
     void setCredentials(String db, String login, String pwd);
 
     boolean isCapped(String db, String coll) throws MorphiumDriverException;
@@ -345,6 +451,6 @@ public interface MorphiumDriver extends Closeable {
         THREADS_WAITING_FOR_CONNECTION,
     }
     enum CompressionType {
-        NONE, ZLIB, SNAPPY,
+        NONE, ZLIB, SNAPPY, ZSTD,
     }
 }
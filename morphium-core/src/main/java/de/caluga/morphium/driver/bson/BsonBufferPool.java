@@ -0,0 +1,109 @@
+package de.caluga.morphium.driver.bson;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of reusable encoding buffers, one free list per power-of-two size class. Buffers are
+ * handed out little endian with position 0 and limit = capacity; the capacity may exceed the
+ * requested size. Requests above {@link #MAX_POOLED_SIZE} are served unpooled, and the pool
+ * never keeps more than {@code maxRetainedBytes} - a release beyond that simply drops the buffer.
+ * <p>
+ * Direct buffers save the copy into the socket's native buffer on channel writes, but are
+ * expensive to allocate - only worth it with a pool in front.
+ */
+public class BsonBufferPool {
+
+    public static final int MIN_POOLED_SIZE = 256;
+    // 16MB BSON limit + room for the message framing
+    public static final int MAX_POOLED_SIZE = 32 * 1024 * 1024;
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+
+    private static final BsonBufferPool HEAP = new BsonBufferPool(false, 64L * 1024 * 1024);
+    private static final BsonBufferPool DIRECT = new BsonBufferPool(true, 64L * 1024 * 1024);
+
+    private final boolean direct;
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final Queue<ByteBuffer>[] free;
+
+    @SuppressWarnings("unchecked")
+    public BsonBufferPool(boolean direct, long maxRetainedBytes) {
+        this.direct = direct;
+        this.maxRetainedBytes = maxRetainedBytes;
+        free = new Queue[Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) - MIN_SHIFT + 1];
+
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /** The shared pool of heap or direct buffers. */
+    public static BsonBufferPool shared(boolean direct) {
+        return direct ? DIRECT : HEAP;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /** Bytes currently held in the free lists. */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public ByteBuffer acquire(int minSize) {
+        int sizeClass = sizeClass(minSize);
+
+        if (sizeClass < 0) {
+            return allocate(minSize);
+        }
+
+        ByteBuffer b = free[sizeClass].poll();
+
+        if (b == null) {
+            return allocate(MIN_POOLED_SIZE << sizeClass);
+        }
+
+        retainedBytes.addAndGet(-b.capacity());
+        return b.clear().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void release(ByteBuffer b) {
+        if (b == null || b.isDirect() != direct || Integer.bitCount(b.capacity()) != 1) {
+            return;
+        }
+
+        int sizeClass = sizeClass(b.capacity());
+
+        if (sizeClass < 0 || retainedBytes.addAndGet(b.capacity()) > maxRetainedBytes) {
+            if (sizeClass >= 0) {
+                retainedBytes.addAndGet(-b.capacity());
+            }
+
+            return;
+        }
+
+        free[sizeClass].offer(b);
+    }
+
+    private ByteBuffer allocate(int size) {
+        return (direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Index of the smallest size class holding {@code size} bytes, -1 if too large to pool. */
+    private static int sizeClass(int size) {
+        if (size > MAX_POOLED_SIZE) {
+            return -1;
+        }
+
+        if (size <= MIN_POOLED_SIZE) {
+            return 0;
+        }
+
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+}
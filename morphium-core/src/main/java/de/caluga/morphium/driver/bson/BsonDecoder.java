@@ -24,6 +24,16 @@ public class BsonDecoder {
     }
 
     public static int decodeDocumentIn(Map<String, Object> ret, byte[] in, int startIndex) throws UnsupportedEncodingException {
+        return decodeDocumentIn(ret, in, startIndex, false);
+    }
+
+    /**
+     * decodes the document at startIndex into ret. With lazyNested, embedded documents (also
+     * inside arrays) are not decoded but returned as {@link LazyBsonDocument} views on in -
+     * the caller must not reuse the array while the result is in use.
+     * @return size of the document in bytes
+     */
+    public static int decodeDocumentIn(Map<String, Object> ret, byte[] in, int startIndex, boolean lazyNested) throws UnsupportedEncodingException {
         int sz = readInt(in, startIndex);
 
         if (sz > in.length) {
@@ -31,226 +41,268 @@ public class BsonDecoder {
         }
 
         for (int idx = startIndex + 4; startIndex - 4 - idx < sz;) {
-            String name;
             byte type = in[idx++];
 
             if (type == 0) {
                 break; //end of document
             }
 
-            int l = 0;
+            int l = cStringLength(in, idx);
+            String name = new String(in, idx, l, StandardCharsets.UTF_8);
+            idx += l + 1; //trailling 0
+            ret.put(name, readValue(type, in, idx, lazyNested));
+            idx += valueLength(type, in, idx);
+        }
+
+        return sz;
+    }
+
+    /**
+     * a view on the document at offset that only decodes the fields actually accessed, see
+     * {@link LazyBsonDocument}
+     */
+    public static Map<String, Object> decodeDocumentLazy(byte[] in, int offset) {
+        return new LazyBsonDocument(in, offset);
+    }
+
+    static int cStringLength(byte[] in, int idx) {
+        int l = 0;
+
+        while (in[idx + l] != 0) {
+            l++;
+        }
+
+        return l;
+    }
 
-            while (in[idx + l] != 0) {
-                l++;
+    /**
+     * number of bytes the value of the given type at idx occupies - used to skip values
+     * without decoding them
+     */
+    static int valueLength(byte type, byte[] in, int idx) {
+        switch (type) {
+            case 0x01:
+            case 0x09:
+            case 0x11:
+            case 0x12:
+                return 8;
+
+            case 0x02:
+            case 0x0d:
+                return readInt(in, idx) + 4;
+
+            case 0x03:
+            case 0x04:
+            case 0x0f:
+                return readInt(in, idx);
+
+            case 0x05:
+                return readInt(in, idx) + 5;
+
+            case 0x07:
+                return 12;
+
+            case 0x08:
+                return 1;
+
+            case 0x0a:
+            case (byte) 0xff:
+            case 0x7f:
+                return 0;
+
+            case 0x0b: {
+                int l = cStringLength(in, idx) + 1;
+                return l + cStringLength(in, idx + l) + 1;
             }
 
-            name = new String(in, idx, l, StandardCharsets.UTF_8);
-            idx += l + 1; //trailling 0
-            Object value;
-
-            switch (type) {
-                case 0x01:
-                    //double
-                    long lng = readLong(in, idx);
-                    value = Double.longBitsToDouble(lng);
-                    idx += 8;
-                    break;
-
-                case 0x02:
-                    //string
-                    int strlen = readInt(in, idx);
-                    value = new String(in, idx + 4, strlen - 1, StandardCharsets.UTF_8);
-                    idx += strlen + 4;
-                    break;
-
-                case 0x03:
-                    //document
-                    Doc doc = Doc.of();
-                    int len = decodeDocumentIn(doc, in, idx);
-                    value = doc;
-                    idx += len;
-                    break;
-
-                case 0x04:
-                    //array
-                    doc = Doc.of();
-                    len = decodeDocumentIn(doc, in, idx);
-                    List<Object> lst = new ArrayList<>();
-
-                    for (int i = 0; i < doc.size(); i++) {
-                        lst.add(doc.get("" + i));
-                    }
-
-                    value = lst;
-                    idx += len;
-                    break;
-
-                case 0x05:
-                    int boblen = readInt(in, idx);
-                    byte subtype = in[idx + 4];
-
-                    if (subtype == 0x03) {
-                        //UUID
-                        //Assuming java legacy
-                        UUID u = new UUID(readLong(in, idx + 5), readLong(in, idx + 13));
-                        value = u;
-                    } else if (subtype == 0x04) {
-                        //UUID Standard rep?
-                        UUID u = new UUID(readLongBigEndian(in, idx + 5), readLongBigEndian(in, idx + 13));
-                        value = u;
-                    } else {
-                        byte[] bobdata = new byte[boblen];
-                        System.arraycopy(in, idx + 5, bobdata, 0, boblen);
-                        value = bobdata;
-                    }
-
-                    idx += boblen + 5;
-                    break;
-
-                case 0x0e:
-
-                //deprecated
-                case 0x0c:
-
-                //pointer - deprecated
-                case 0x06:
-                    //undefined / deprecated
-                    throw new RuntimeException("deprecated type detected!");
-
-                case 0x07:
-                    //MongoId
-                    value = new MorphiumId(in, idx);
-                    idx += 12;
-                    break;
-
-                case 0x08:
-                    //boolean
-                    value = in[idx] == 0x01;
-                    idx++;
-                    break;
-
-                case 0x09:
-                    //Datetime
-                    lng = readLong(in, idx);
-                    idx += 8;
-                    value = new Date(lng);
-                    break;
-
-                case 0x0a:
-                    //null
-                    value = null;
-                    break;
-
-                case 0x0b:
-                    //regex
-                    l = 0;
-
-                    while (in[idx + l] != 0) {
-                        l++;
-                    }
-
-                    String pattern = new String(in, idx, l, StandardCharsets.UTF_8);
-                    idx += l + 1;
-                    l = 0;
-
-                    while (in[idx + l] != 0) {
-                        l++;
-                    }
-
-                    String opts = new String(in, idx, l, StandardCharsets.UTF_8);
-                    idx += l + 1;
-                    int flags = 0;
-
-                    if (opts.contains("i")) {
-                        flags = flags | Pattern.CASE_INSENSITIVE;
-                    }
-
-                    if (opts.contains("m")) {
-                        flags = flags | Pattern.MULTILINE;
-                    }
-
-                    if (opts.contains("l")) {
-                        flags = flags | Pattern.LITERAL;
-                    }
-
-                    if (opts.contains("s")) {
-                        flags = flags | Pattern.DOTALL;
-                    }
-
-                    if (opts.contains("u")) {
-                        flags = flags | Pattern.UNICODE_CASE;
-                    }
-
-                    value = Pattern.compile(pattern, flags);
-                    break;
-
-                case 0x0d:
-                        //javascript
-                        strlen = readInt(in, idx);
-                        String code = new String(in, idx + 4, strlen - 1, StandardCharsets.UTF_8);
-                        value = new MongoJSScript(code);
-                        idx += strlen + 4;
-                        break;
-
-                    case 0x0f:
-                            //javascript w/ scope
-                            //first 4 bytes the whole length
-                            strlen = readInt(in, idx + 4);
-                            code = new String(in, idx + 8, strlen - 1, StandardCharsets.UTF_8);
-                            Doc scope = Doc.of();
-                            int doclen = decodeDocumentIn(scope, in, idx + 8 + strlen);
-                            value = new MongoJSScript(code, scope);
-                            idx += doclen + 8 + strlen;
-                            break;
-
-                        case 0x10:
-                                //32 bit int
-                                value = readInt(in, idx);
-                                idx += 4;
-                                break;
-
-                            case 0x11:
-
-                                //timestamp - internal
-                                //                    throw new RuntimeException("Got internaltimestamp");
-                                case 0x12:
-                                        //64 bit long
-                                        value = readLong(in, idx);
-                                        idx += 8;
-                                        break;
-
-                                    case 0x13: {
-                                            //decimal128: low 64 bits little-endian first, then high (IEEE 754-2008 BID)
-                                            long decLow = readLong(in, idx);
-                                            long decHigh = readLong(in, idx + 8);
-                                            org.bson.types.Decimal128 dec = org.bson.types.Decimal128.fromIEEE754BIDEncoding(decHigh, decLow);
-                                            try {
-                                                value = dec.bigDecimalValue();
-                                            } catch (ArithmeticException e) {
-                                                value = dec;   //NaN/Infinity have no BigDecimal representation
-                                            }
-                                            idx += 16;
-                                            break;
-                                        }
-
-                                    case (byte) 0xff:
-                                            //min key
-                                            value = new MongoMinKey();
-                                            break;
-
-                                        case 0x7f:
-                                                //max key
-                                                value = new MongoMaxKey();
-                                                break;
-
-                                            default:
-                                                    throw new RuntimeException("unknown data type: " + in[idx]);
-                                                }
-
-            ret.put(name, value);
+            case 0x10:
+                return 4;
+
+            case 0x13:
+                return 16;
+
+            case 0x0e:
+            case 0x0c:
+            case 0x06:
+                throw new RuntimeException("deprecated type detected!");
+
+            default:
+                throw new RuntimeException("unknown data type: " + type);
         }
+    }
 
-        return sz;
+    /**
+     * decodes a single value of the given type at idx. With lazy, embedded documents become
+     * {@link LazyBsonDocument} views instead of decoded Docs.
+     */
+    static Object readValue(byte type, byte[] in, int idx, boolean lazy) throws UnsupportedEncodingException {
+        switch (type) {
+            case 0x01:
+                //double
+                return Double.longBitsToDouble(readLong(in, idx));
+
+            case 0x02:
+                //string
+                int strlen = readInt(in, idx);
+                return new String(in, idx + 4, strlen - 1, StandardCharsets.UTF_8);
+
+            case 0x03:
+
+                //document
+                if (lazy) {
+                    return new LazyBsonDocument(in, idx);
+                }
+
+                Doc doc = Doc.of();
+                decodeDocumentIn(doc, in, idx);
+                return doc;
+
+            case 0x04:
+                //array
+                return readArray(in, idx, lazy);
+
+            case 0x05:
+                int boblen = readInt(in, idx);
+                byte subtype = in[idx + 4];
+
+                if (subtype == 0x03) {
+                    //UUID
+                    //Assuming java legacy
+                    return new UUID(readLong(in, idx + 5), readLong(in, idx + 13));
+                } else if (subtype == 0x04) {
+                    //UUID Standard rep?
+                    return new UUID(readLongBigEndian(in, idx + 5), readLongBigEndian(in, idx + 13));
+                }
+
+                byte[] bobdata = new byte[boblen];
+                System.arraycopy(in, idx + 5, bobdata, 0, boblen);
+                return bobdata;
+
+            case 0x0e:
+
+            //deprecated
+            case 0x0c:
+
+            //pointer - deprecated
+            case 0x06:
+                //undefined / deprecated
+                throw new RuntimeException("deprecated type detected!");
+
+            case 0x07:
+                //MongoId
+                return new MorphiumId(in, idx);
+
+            case 0x08:
+                //boolean
+                return in[idx] == 0x01;
+
+            case 0x09:
+                //Datetime
+                return new Date(readLong(in, idx));
+
+            case 0x0a:
+                //null
+                return null;
+
+            case 0x0b:
+                //regex
+                int l = cStringLength(in, idx);
+                String pattern = new String(in, idx, l, StandardCharsets.UTF_8);
+                idx += l + 1;
+                l = cStringLength(in, idx);
+                String opts = new String(in, idx, l, StandardCharsets.UTF_8);
+                int flags = 0;
+
+                if (opts.contains("i")) {
+                    flags = flags | Pattern.CASE_INSENSITIVE;
+                }
+
+                if (opts.contains("m")) {
+                    flags = flags | Pattern.MULTILINE;
+                }
+
+                if (opts.contains("l")) {
+                    flags = flags | Pattern.LITERAL;
+                }
+
+                if (opts.contains("s")) {
+                    flags = flags | Pattern.DOTALL;
+                }
+
+                if (opts.contains("u")) {
+                    flags = flags | Pattern.UNICODE_CASE;
+                }
+
+                return Pattern.compile(pattern, flags);
+
+            case 0x0d:
+                //javascript
+                strlen = readInt(in, idx);
+                return new MongoJSScript(new String(in, idx + 4, strlen - 1, StandardCharsets.UTF_8));
+
+            case 0x0f:
+                //javascript w/ scope
+                //first 4 bytes the whole length
+                strlen = readInt(in, idx + 4);
+                String code = new String(in, idx + 8, strlen - 1, StandardCharsets.UTF_8);
+                Doc scope = Doc.of();
+                decodeDocumentIn(scope, in, idx + 8 + strlen);
+                return new MongoJSScript(code, scope);
+
+            case 0x10:
+                //32 bit int
+                return readInt(in, idx);
+
+            case 0x11:
+
+            //timestamp - internal
+            case 0x12:
+                //64 bit long
+                return readLong(in, idx);
+
+            case 0x13: {
+                //decimal128: low 64 bits little-endian first, then high (IEEE 754-2008 BID)
+                long decLow = readLong(in, idx);
+                long decHigh = readLong(in, idx + 8);
+                org.bson.types.Decimal128 dec = org.bson.types.Decimal128.fromIEEE754BIDEncoding(decHigh, decLow);
+
+                try {
+                    return dec.bigDecimalValue();
+                } catch (ArithmeticException e) {
+                    return dec;   //NaN/Infinity have no BigDecimal representation
+                }
+            }
+
+            case (byte) 0xff:
+                //min key
+                return new MongoMinKey();
+
+            case 0x7f:
+                //max key
+                return new MongoMaxKey();
+
+            default:
+                throw new RuntimeException("unknown data type: " + type);
+        }
+    }
+
+    private static List<Object> readArray(byte[] in, int startIndex, boolean lazy) throws UnsupportedEncodingException {
+        // element names are "0", "1", ... in order - no need to look at them
+        List<Object> lst = new ArrayList<>();
+
+        for (int idx = startIndex + 4;;) {
+            byte type = in[idx++];
+
+            if (type == 0) {
+                break;
+            }
+
+            idx += cStringLength(in, idx) + 1;
+            lst.add(readValue(type, in, idx, lazy));
+            idx += valueLength(type, in, idx);
+        }
+
+        return lst;
     }
 
     public static int readInt(byte[] bytes, int idx) {
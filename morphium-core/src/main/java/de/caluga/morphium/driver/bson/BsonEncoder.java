@@ -5,9 +5,10 @@ import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.MorphiumId;
 import org.bson.types.ObjectId;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.lang.reflect.Array;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -17,15 +18,46 @@ import java.util.regex.Pattern;
  * Time: 22:44
  * <p>
  * encoding BSON for sending data do mongodb
+ * <p>
+ * Three modes: the default constructor writes into an internal, growing array
+ * ({@link #getBytes()}), {@link #BsonEncoder(ByteBuffer)} writes straight into a caller
+ * supplied (e.g. pooled, possibly direct) buffer, and {@link #documentSize(Map)} only counts.
+ * Embedded documents and arrays are written in place - their length is patched in afterwards
+ * instead of encoding them into a temporary array first.
  */
 @SuppressWarnings("WeakerAccess")
 public class BsonEncoder {
-    private final ByteArrayOutputStream out;
+    // null: counting only (documentSize)
+    private ByteBuffer buf;
+    private final boolean growable;
+    // buffer position this encoder started writing at
+    private final int origin;
+    // bytes written (or counted) so far
+    private int size;
     private UUIDRepresentation uuidRepresentation = UUIDRepresentation.STANDARD;
 
     public BsonEncoder() {
+        this(ByteBuffer.allocate(256), true);
+    }
+
+    /**
+     * Encodes straight into the given buffer, starting at its position. The buffer is switched
+     * to little endian byte order and has to be large enough (see {@link #documentSize(Map)}) -
+     * it does not grow, an undersized buffer fails with a {@link BufferOverflowException}.
+     */
+    public BsonEncoder(ByteBuffer target) {
+        this(target, false);
+    }
+
+    private BsonEncoder(ByteBuffer target, boolean growable) {
+        buf = target;
+        this.growable = growable;
 
-        out = new ByteArrayOutputStream();
+        if (target != null) {
+            target.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        origin = target == null ? 0 : target.position();
     }
 
     public static byte[] encodeDocument(Map<String, Object> m) {
@@ -39,12 +71,9 @@ public class BsonEncoder {
      * allocate its whole size twice just to be measured).
      */
     public static int documentSize(Map<String, Object> m) {
-        BsonEncoder enc = new BsonEncoder();
-        for (Map.Entry<String, Object> e : m.entrySet()) {
-            enc.encodeObject(e.getKey(), e.getValue());
-        }
-        // body + 4 bytes length prefix + 1 byte terminator
-        return enc.out.size() + 5;
+        BsonEncoder enc = new BsonEncoder(null, false);
+        enc.writeDocument(m);
+        return enc.size;
     }
 
     /**
@@ -62,24 +91,33 @@ public class BsonEncoder {
     }
 
     public static byte[] encodeDocument(Map<String, Object> m, UUIDRepresentation representation) {
-        // Use a single encoder for all fields — avoids N allocations for N fields
+        // Use a single encoder for the whole document, embedded documents included
         BsonEncoder enc = new BsonEncoder();
         enc.setUuidRepresentation(representation);
-        for (Map.Entry<String, Object> e : m.entrySet()) {
-            enc.encodeObject(e.getKey(), e.getValue());
-        }
-        byte[] body = enc.getBytes();
-
-        // Prepend 4-byte length (body + 4 bytes length + 1 byte terminator) + append terminator
-        byte[] result = new byte[body.length + 5];
-        int size = result.length;
-        result[0] = (byte) (size & 0xff);
-        result[1] = (byte) ((size >> 8) & 0xff);
-        result[2] = (byte) ((size >> 16) & 0xff);
-        result[3] = (byte) ((size >> 24) & 0xff);
-        System.arraycopy(body, 0, result, 4, body.length);
-        result[result.length - 1] = 0x00;
-        return result;
+        enc.writeDocument(m);
+        return enc.getBytes();
+    }
+
+    /**
+     * Encodes the document into {@code target} at its current position, without any
+     * intermediate array. Size the buffer with {@link #documentSize(Map)}.
+     *
+     * @return number of bytes written
+     */
+    public static int encodeDocument(Map<String, Object> m, ByteBuffer target) {
+        return encodeDocument(m, UUIDRepresentation.STANDARD, target);
+    }
+
+    public static int encodeDocument(Map<String, Object> m, UUIDRepresentation representation, ByteBuffer target) {
+        BsonEncoder enc = new BsonEncoder(target);
+        enc.setUuidRepresentation(representation);
+        enc.writeDocument(m);
+        return enc.size;
+    }
+
+    /** Number of bytes written so far. */
+    public int size() {
+        return size;
     }
 
     public UUIDRepresentation getUuidRepresentation() {
@@ -93,32 +131,117 @@ public class BsonEncoder {
 
     @SuppressWarnings("UnusedReturnValue")
     private BsonEncoder string(String s) {
+        if (buf == null) {
+            size += 4 + utf8Length(s) + 1;
+            return this;
+        }
+
         byte[] b = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         writeInt(b.length + 1);
         writeBytes(b);
-        out.write((byte) 0);
+        writeByte(0);
         return this;
     }
 
     @SuppressWarnings("UnusedReturnValue")
     private BsonEncoder cString(String s) {
+        if (buf == null) {
+            size += utf8Length(s) + 1;
+            return this;
+        }
+
         byte[] b = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         writeBytes(b);
-        out.write((byte) 0);
+        writeByte(0);
         return this;
     }
 
+    /** Encoded length of {@code s} as String.getBytes(UTF_8) would produce it - lone surrogates become '?'. */
+    private static int utf8Length(String s) {
+        int len = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+                len++;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                len++;
+            } else {
+                len += 3;
+            }
+        }
+
+        return len;
+    }
+
     public byte[] getBytes() {
-        //        ByteArrayOutputStream n = new ByteArrayOutputStream();
-        ////        int sz = out.size() + 5; //4 + terminating 0
-        ////        for (int i = 0; i < 4; i++) n.write((byte) ((sz >> ((7 - i) * 8)) & 0xff));
-        //        try {
-        //            n.write(out.toByteArray());
-        //        } catch (IOException e) {
-        //        }
-        //        n.write(0x00);
-        //        return n.toByteArray();
-        return out.toByteArray();
+        if (buf == null) {
+            throw new IllegalStateException("counting encoder has no bytes");
+        }
+
+        byte[] ret = new byte[size];
+        buf.get(origin, ret);
+        return ret;
+    }
+
+    /** Writes a complete document: length, fields, terminator. */
+    private void writeDocument(Map<String, Object> m) {
+        int start = size;
+        writeInt(0); // length, patched below
+
+        for (Map.Entry<String, Object> e : m.entrySet()) {
+            encodeObject(e.getKey(), e.getValue());
+        }
+
+        writeByte(0);
+        patchLength(start);
+    }
+
+    /**
+     * Embedded document or array, written in place. Embedded values always used the standard
+     * UUID representation (they were encoded with {@link #encodeDocument(Map)}) - kept that way.
+     */
+    private void writeEmbedded(Map<String, Object> m) {
+        UUIDRepresentation outer = uuidRepresentation;
+        uuidRepresentation = UUIDRepresentation.STANDARD;
+
+        try {
+            writeDocument(m);
+        } finally {
+            uuidRepresentation = outer;
+        }
+    }
+
+    private void writeEmbeddedArray(Iterable<?> values) {
+        UUIDRepresentation outer = uuidRepresentation;
+        uuidRepresentation = UUIDRepresentation.STANDARD;
+
+        try {
+            int start = size;
+            writeInt(0);
+            int cnt = 0;
+
+            for (Object o : values) {
+                encodeObject(String.valueOf(cnt++), o);
+            }
+
+            writeByte(0);
+            patchLength(start);
+        } finally {
+            uuidRepresentation = outer;
+        }
+    }
+
+    private void patchLength(int start) {
+        if (buf != null) {
+            buf.putInt(origin + start, size - start);
+        }
     }
 
     @SuppressWarnings({"UnusedReturnValue", "deprecation"})
@@ -196,32 +319,23 @@ public class BsonEncoder {
             writeByte(4);
             cString(n);
 
-            Doc doc = Doc.of();
-            int cnt = 0;
-            //noinspection ConstantConditions
-            for (Object o : (Collection) v) {
-                //cString(""+(cnt++));
-                //                encodeObject("" + (cnt++), o);
-                doc.put("" + (cnt++), o);
-            }
-
-            writeBytes(BsonEncoder.encodeDocument(doc));
+            writeEmbeddedArray((Collection<?>) v);
         } else if (v.getClass().isArray()) {
             writeByte(4);
             cString(n);
-            Doc doc = Doc.of();
             int arrayLength = Array.getLength(v);
-            List lst = new ArrayList(arrayLength);
+            List<Object> lst = new ArrayList<>(arrayLength);
             for (int i = 0; i < arrayLength; i++) {
-                doc.put("" + i, Array.get(v, i));
+                lst.add(Array.get(v, i));
             }
-            writeBytes(BsonEncoder.encodeDocument(doc));
+            writeEmbeddedArray(lst);
         } else if (v instanceof Map || Map.class.isAssignableFrom(v.getClass())) {
 
             writeByte(3);
             cString(n);
-            @SuppressWarnings({"unchecked", "ConstantConditions"}) byte[] b = BsonEncoder.encodeDocument((Map) v);
-            writeBytes(b);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> m = (Map<String, Object>) v;
+            writeEmbedded(m);
         } else if (v instanceof MongoBob) {
             //binary data
             writeByte(5);
@@ -359,7 +473,7 @@ public class BsonEncoder {
             // Matches LocalDateTimeMapper format: {sec: epochSecond, n: nano}
             writeByte(3);
             cString(n);
-            writeBytes(BsonEncoder.encodeDocument(Doc.of("sec", ldt.toEpochSecond(java.time.ZoneOffset.UTC), "n", ldt.getNano())));
+            writeEmbedded(Doc.of("sec", ldt.toEpochSecond(java.time.ZoneOffset.UTC), "n", ldt.getNano()));
         } else if (v instanceof java.time.LocalDate ld) {
             // Matches LocalDateMapper format: epoch day as Long
             writeByte(0x12);
@@ -374,35 +488,68 @@ public class BsonEncoder {
             // Matches InstantMapper format: {type: "instant", seconds: epochSecond, nanos: nano}
             writeByte(3);
             cString(n);
-            writeBytes(BsonEncoder.encodeDocument(Doc.of("type", "instant", "seconds", inst.getEpochSecond(), "nanos", inst.getNano())));
+            writeEmbedded(Doc.of("type", "instant", "seconds", inst.getEpochSecond(), "nanos", inst.getNano()));
         } else {
             throw new RuntimeException("Unhandled Data type: " + v.getClass().getName());
         }
         return this;
     }
 
+    /** Makes room for {@code n} more bytes - only the internal buffer grows, a target buffer must fit. */
+    private void ensure(int n) {
+        if (buf.remaining() >= n) {
+            return;
+        }
+
+        if (!growable) {
+            throw new BufferOverflowException();
+        }
+
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n)).order(ByteOrder.LITTLE_ENDIAN);
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+
     private void writeBytes(byte[] data) {
-        try {
-            out.write(data);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        size += data.length;
+
+        if (buf != null) {
+            ensure(data.length);
+            buf.put(data);
         }
     }
 
     private void writeInt(int val) {
-        for (int i = 3; i >= 0; i--) writeByte((byte) ((val >> ((7 - i) * 8)) & 0xff));
+        size += 4;
+
+        if (buf != null) {
+            ensure(4);
+            buf.putInt(val);
+        }
     }
 
     private void writeLong(long lng) {
-        for (int i = 7; i >= 0; i--) writeByte((byte) ((lng >> ((7 - i) * 8)) & 0xff));
+        size += 8;
+
+        if (buf != null) {
+            ensure(8);
+            buf.putLong(lng);
+        }
     }
 
     private void writeLongBigEndian(long lng) {
-        for (int i = 0; i <= 7; i++) writeByte((byte) ((lng >> ((7 - i) * 8)) & 0xff));
+        writeLong(Long.reverseBytes(lng));
     }
 
     private BsonEncoder writeByte(int v) {
-        out.write((byte) v);
+        size++;
+
+        if (buf != null) {
+            ensure(1);
+            buf.put((byte) v);
+        }
+
         return this;
     }
 
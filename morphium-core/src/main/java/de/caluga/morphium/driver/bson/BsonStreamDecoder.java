@@ -0,0 +1,289 @@
+package de.caluga.morphium.driver.bson;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import de.caluga.morphium.driver.Doc;
+
+/**
+ * Reads BSON element by element straight from a stream, never more than a given number of
+ * bytes - the rest of the current wire message. Only single values are held in memory: a
+ * document is read into an array of exactly its size and decoded from there, so walking a
+ * huge array of documents needs as much memory as its largest element.
+ * <p>
+ * The caller drives the structure: {@link #readInt()} for a length prefix, then
+ * {@link #readType()} / {@link #readName()} and {@link #readValue} or {@link #skipValue} per
+ * element, until {@code readType()} returns 0.
+ */
+public class BsonStreamDecoder {
+    private final InputStream in;
+    private final byte[] buf;
+    private int pos = 0;
+    private int limit = 0;
+    // bytes of the message not yet pulled from the stream
+    private long remaining;
+    private final boolean lazyDocuments;
+
+    /**
+     * @param remaining     number of bytes that belong to the current message - the stream is
+     *                      never read beyond that
+     * @param lazyDocuments decode documents to {@link LazyBsonDocument} views (on their own
+     *                      array) instead of Docs
+     */
+    public BsonStreamDecoder(InputStream in, long remaining, boolean lazyDocuments) {
+        this.in = in;
+        this.remaining = remaining;
+        this.lazyDocuments = lazyDocuments;
+        buf = new byte[(int) Math.min(8192, Math.max(remaining, 16))];
+    }
+
+    /** bytes of the message not read yet */
+    public long available() {
+        return remaining + limit - pos;
+    }
+
+    public byte readByte() throws IOException {
+        if (pos == limit) {
+            fill(1);
+        }
+
+        return buf[pos++];
+    }
+
+    public int readInt() throws IOException {
+        if (limit - pos < 4) {
+            fill(4);
+        }
+
+        int ret = BsonDecoder.readInt(buf, pos);
+        pos += 4;
+        return ret;
+    }
+
+    /** type of the next element, 0 at the end of the enclosing document */
+    public byte readType() throws IOException {
+        return readByte();
+    }
+
+    public String readName() throws IOException {
+        return new String(readCString(), StandardCharsets.UTF_8);
+    }
+
+    /** skips an element name - array indexes are of no interest */
+    public void skipName() throws IOException {
+        while (readByte() != 0) {
+            // just consume
+        }
+    }
+
+    /** reads the complete length prefixed document at the current position */
+    public Map<String, Object> readDocument() throws IOException {
+        byte[] doc = readDocumentBytes();
+
+        if (lazyDocuments) {
+            return new LazyBsonDocument(doc, 0);
+        }
+
+        Doc ret = Doc.of();
+        BsonDecoder.decodeDocumentIn(ret, doc, 0);
+        return ret;
+    }
+
+    /** value of an element whose type and name were just read */
+    public Object readValue(byte type) throws IOException {
+        byte[] value = readValueBytes(type);
+        return BsonDecoder.readValue(type, value, 0, lazyDocuments);
+    }
+
+    public void skipValue(byte type) throws IOException {
+        switch (type) {
+            case 0x02:
+            case 0x0d:
+                skip(readInt());
+                break;
+
+            case 0x03:
+            case 0x04:
+            case 0x0f:
+                skip(readInt() - 4);
+                break;
+
+            case 0x05:
+                skip(readInt() + 1);
+                break;
+
+            case 0x0b:
+                readCString();
+                readCString();
+                break;
+
+            default:
+                skip(fixedLength(type));
+        }
+    }
+
+    /** reads and drops everything up to the end of the message */
+    public void skipRemaining() throws IOException {
+        pos = limit;
+
+        while (remaining > 0) {
+            int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+
+            if (n < 0) {
+                throw new EOFException("stream ended " + remaining + " bytes before the end of the message");
+            }
+
+            remaining -= n;
+        }
+    }
+
+    public void skip(long n) throws IOException {
+        int inBuffer = (int) Math.min(n, limit - pos);
+        pos += inBuffer;
+        n -= inBuffer;
+
+        while (n > 0) {
+            fill(1);
+            int chunk = (int) Math.min(n, limit - pos);
+            pos += chunk;
+            n -= chunk;
+        }
+    }
+
+    private byte[] readValueBytes(byte type) throws IOException {
+        switch (type) {
+            case 0x02:
+            case 0x0d:
+                return readCounted(0);
+
+            case 0x03:
+            case 0x04:
+            case 0x0f:
+                return readDocumentBytes();
+
+            case 0x05:
+                // the subtype byte sits between length and payload
+                return readCounted(1);
+
+            case 0x0b: {
+                byte[] pattern = readCString();
+                byte[] opts = readCString();
+                byte[] ret = new byte[pattern.length + opts.length + 2];
+                System.arraycopy(pattern, 0, ret, 0, pattern.length);
+                System.arraycopy(opts, 0, ret, pattern.length + 1, opts.length);
+                return ret;
+            }
+
+            default:
+                byte[] ret = new byte[fixedLength(type)];
+                readFully(ret, 0, ret.length);
+                return ret;
+        }
+    }
+
+    /** a document (or array, code with scope) - its int32 length includes the prefix */
+    private byte[] readDocumentBytes() throws IOException {
+        int len = readInt();
+
+        if (len < 5 || len - 4 > available()) {
+            throw new IOException("invalid document length " + len + ", " + available() + " bytes left in message");
+        }
+
+        byte[] ret = new byte[len];
+        putInt(len, ret);
+        readFully(ret, 4, len - 4);
+        return ret;
+    }
+
+    /** string or binary - the int32 length counts the bytes after the prefix (plus extra) */
+    private byte[] readCounted(int extra) throws IOException {
+        int len = readInt();
+
+        if (len < 0 || len + extra > available()) {
+            throw new IOException("invalid value length " + len + ", " + available() + " bytes left in message");
+        }
+
+        byte[] ret = new byte[4 + len + extra];
+        putInt(len, ret);
+        readFully(ret, 4, len + extra);
+        return ret;
+    }
+
+    private static void putInt(int v, byte[] target) {
+        target[0] = (byte) v;
+        target[1] = (byte)(v >>> 8);
+        target[2] = (byte)(v >>> 16);
+        target[3] = (byte)(v >>> 24);
+    }
+
+    private byte[] readCString() throws IOException {
+        byte[] ret = new byte[32];
+        int l = 0;
+
+        for (byte b = readByte(); b != 0; b = readByte()) {
+            if (l == ret.length) {
+                ret = Arrays.copyOf(ret, l * 2);
+            }
+
+            ret[l++] = b;
+        }
+
+        return Arrays.copyOf(ret, l);
+    }
+
+    private static int fixedLength(byte type) {
+        // everything that is not length prefixed has a fixed size
+        return BsonDecoder.valueLength(type, null, 0);
+    }
+
+    private void readFully(byte[] target, int off, int len) throws IOException {
+        int fromBuffer = Math.min(len, limit - pos);
+        System.arraycopy(buf, pos, target, off, fromBuffer);
+        pos += fromBuffer;
+        off += fromBuffer;
+        len -= fromBuffer;
+
+        while (len > 0) {
+            if (len > remaining) {
+                throw new EOFException("value exceeds the message: " + len + " bytes needed, " + remaining + " left");
+            }
+
+            int n = in.read(target, off, len);
+
+            if (n < 0) {
+                throw new EOFException("stream ended " + len + " bytes before the end of the value");
+            }
+
+            remaining -= n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** makes sure at least min bytes are buffered */
+    private void fill(int min) throws IOException {
+        int have = limit - pos;
+        System.arraycopy(buf, pos, buf, 0, have);
+        pos = 0;
+        limit = have;
+
+        while (limit < min) {
+            if (remaining <= 0) {
+                throw new EOFException("read beyond the end of the message");
+            }
+
+            int n = in.read(buf, limit, (int) Math.min(buf.length - limit, remaining));
+
+            if (n < 0) {
+                throw new EOFException("stream ended " + remaining + " bytes before the end of the message");
+            }
+
+            remaining -= n;
+            limit += n;
+        }
+    }
+}
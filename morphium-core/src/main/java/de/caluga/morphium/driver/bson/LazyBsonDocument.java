@@ -0,0 +1,228 @@
+package de.caluga.morphium.driver.bson;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only-until-written view on a BSON document inside a received byte array - the
+ * equivalent of the java driver's RawBsonDocument.
+ * <p>
+ * Nothing is decoded up front. The first lookup scans the field names once (values are
+ * skipped by their length), a value is decoded when it is accessed for the first time and then
+ * cached. Embedded documents are lazy views themselves, so mapping a few fields of a large
+ * document decodes just those fields.
+ * <p>
+ * {@link #get}, {@link #containsKey} and {@link #size} stay lazy. Everything else -
+ * iteration, equals, any modification - decodes the whole document into a
+ * {@link LinkedHashMap} once and works on that from then on.
+ * <p>
+ * The view keeps a reference to the byte array: whoever hands it out must not reuse that array
+ * while the document is in use.
+ */
+public class LazyBsonDocument extends AbstractMap<String, Object> {
+    // beyond this many fields, lookups by name go through a hash index instead of a scan
+    private static final int LINEAR_LOOKUP_LIMIT = 8;
+
+    private byte[] bytes;
+    private final int offset;
+    private final int bsonSize;
+
+    private String[] names;
+    private byte[] types;
+    private int[] valueOffsets;
+    private Map<String, Integer> positions;
+    private Object[] values;
+    private boolean[] decoded;
+
+    private LinkedHashMap<String, Object> materialized;
+
+    public LazyBsonDocument(byte[] bytes, int offset) {
+        int sz = BsonDecoder.readInt(bytes, offset);
+
+        if (sz < 5 || offset + sz > bytes.length) {
+            throw new RuntimeException("error - size differs! read " + sz + " at " + offset + " but buffer is " + bytes.length);
+        }
+
+        this.bytes = bytes;
+        this.offset = offset;
+        this.bsonSize = sz;
+    }
+
+    /** size of the underlying BSON document in bytes */
+    public int getBsonSize() {
+        return bsonSize;
+    }
+
+    /** true once the document was fully decoded - by iteration or a modification */
+    public synchronized boolean isMaterialized() {
+        return materialized != null;
+    }
+
+    @Override
+    public synchronized Object get(Object key) {
+        if (materialized != null) {
+            return materialized.get(key);
+        }
+
+        int pos = indexOf(key);
+        return pos < 0 ? null : valueAt(pos);
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        if (materialized != null) {
+            return materialized.containsKey(key);
+        }
+
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        if (materialized != null) {
+            return materialized.size();
+        }
+
+        buildIndex();
+        return names.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public synchronized Object put(String key, Object value) {
+        return materialize().put(key, value);
+    }
+
+    @Override
+    public synchronized Object remove(Object key) {
+        return materialize().remove(key);
+    }
+
+    @Override
+    public synchronized void putAll(Map<? extends String, ? extends Object> m) {
+        materialize().putAll(m);
+    }
+
+    @Override
+    public synchronized void clear() {
+        materialize().clear();
+    }
+
+    @Override
+    public synchronized Set<Entry<String, Object>> entrySet() {
+        return materialize().entrySet();
+    }
+
+    private LinkedHashMap<String, Object> materialize() {
+        if (materialized == null) {
+            buildIndex();
+            LinkedHashMap<String, Object> m = new LinkedHashMap<>();
+
+            for (int i = 0; i < names.length; i++) {
+                m.put(names[i], valueAt(i));
+            }
+
+            materialized = m;
+            // the decoded copy is the document now - drop the index and the array reference
+            bytes = null;
+            names = null;
+            types = null;
+            valueOffsets = null;
+            positions = null;
+            values = null;
+            decoded = null;
+        }
+
+        return materialized;
+    }
+
+    private int indexOf(Object key) {
+        buildIndex();
+
+        if (positions != null) {
+            Integer pos = positions.get(key);
+            return pos == null ? -1 : pos;
+        }
+
+        // backwards: on duplicate names the last one wins, as with a decoded Doc
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private Object valueAt(int pos) {
+        if (!decoded[pos]) {
+            try {
+                values[pos] = BsonDecoder.readValue(types[pos], bytes, valueOffsets[pos], true);
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+
+            decoded[pos] = true;
+        }
+
+        return values[pos];
+    }
+
+    private void buildIndex() {
+        if (names != null) {
+            return;
+        }
+
+        int count = 0;
+        String[] n = new String[8];
+        byte[] t = new byte[8];
+        int[] o = new int[8];
+
+        for (int idx = offset + 4;;) {
+            byte type = bytes[idx++];
+
+            if (type == 0) {
+                break;
+            }
+
+            int l = BsonDecoder.cStringLength(bytes, idx);
+
+            if (count == n.length) {
+                n = Arrays.copyOf(n, count * 2);
+                t = Arrays.copyOf(t, count * 2);
+                o = Arrays.copyOf(o, count * 2);
+            }
+
+            n[count] = new String(bytes, idx, l, StandardCharsets.UTF_8);
+            t[count] = type;
+            idx += l + 1;
+            o[count] = idx;
+            idx += BsonDecoder.valueLength(type, bytes, idx);
+            count++;
+        }
+
+        if (count > LINEAR_LOOKUP_LIMIT) {
+            positions = new HashMap<>(count * 2);
+
+            for (int i = 0; i < count; i++) {
+                positions.put(n[i], i);
+            }
+        }
+
+        types = t;
+        valueOffsets = o;
+        values = new Object[count];
+        decoded = new boolean[count];
+        names = Arrays.copyOf(n, count);
+    }
+}
@@ -7,6 +7,8 @@ import de.caluga.morphium.driver.commands.ExplainCommand.ExplainVerbosity;
 import de.caluga.morphium.driver.wire.MongoConnection;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class CountMongoCommand extends MongoCommand<CountMongoCommand> implements SingleResultCommand {
     private Map<String, Object> query;
@@ -156,6 +158,24 @@ public class CountMongoCommand extends MongoCommand<CountMongoCommand> implement
         return (int) ret.get("n");
     }
 
+    /**
+     * {@link #getCount()} without a thread waiting for the server, see
+     * {@link ReadMongoCommand#executeAsync(Executor)}. Not in a transaction - the count would have to
+     * be read as an id list. The connection is released when the future completes.
+     */
+    public CompletableFuture<Integer> getCountAsync(Executor executor) {
+        CompletableFuture<Map<String, Object>> reply;
+
+        try {
+            reply = getConnection().sendCommandAsync(this);
+        } catch (MorphiumDriverException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+
+        return reply.thenApplyAsync(r -> r == null || r.get("n") == null ? 0 : ((Number) r.get("n")).intValue(), executor)
+               .whenComplete((r, e) -> releaseConnection());
+    }
+
     @Override
     public int executeAsync() throws MorphiumDriverException {
         if (getConnection().getDriver().isTransactionInProgress()) {
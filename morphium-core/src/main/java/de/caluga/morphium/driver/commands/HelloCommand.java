@@ -119,6 +119,7 @@ public class HelloCommand extends MongoCommand<HelloCommand> {
         List<String> compressors = new ArrayList<>();
         compressors.add("snappy");
         compressors.add("zlib");
+        compressors.add("zstd");
         ret.put("compression", compressors);
         return ret;
     }
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public abstract class ReadMongoCommand<T extends MongoCommand> extends MongoCommand<T> implements MultiResultCommand, Iterable<Map<String, Object>> {
 
@@ -56,6 +58,77 @@ public abstract class ReadMongoCommand<T extends MongoCommand> extends MongoComm
         }, driver.getRetriesOnNetworkError(), driver.getSleepBetweenErrorRetries());
     }
 
+    /**
+     * Like {@link #execute()}, but no thread waits for the server: the command and the getMores of
+     * its cursor are chained on the reply futures of the connection
+     * ({@link MongoConnection#sendCommandAsync}), the calling thread only writes the request.
+     * Continuations run on {@code executor}, never on the connection's reader. Unlike execute(),
+     * network errors are not retried. The connection is released when the future completes.
+     *
+     * @throws UnsupportedOperationException if the connection does not
+     *         {@link MongoConnection#supportsAsyncReplies() support} async replies
+     */
+    public CompletableFuture<List<Map<String, Object>>> executeAsync(Executor executor) {
+        MongoConnection connection = getConnection();
+        if (connection == null) throw new IllegalArgumentException("you need to set the connection!");
+        setMetaData("server", connection.getConnectedTo());
+        long start = System.currentTimeMillis();
+        List<Map<String, Object>> ret = new ArrayList<>();
+        CompletableFuture<List<Map<String, Object>>> result;
+
+        try {
+            result = connection.sendCommandAsync(this).thenComposeAsync(reply -> readBatches(connection, reply, ret, executor), executor);
+        } catch (MorphiumDriverException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.whenComplete((r, e) -> {
+            setMetaData("duration", System.currentTimeMillis() - start);
+            releaseConnection();
+        });
+    }
+
+    /** Collects the batch of a reply and, while the cursor is open, requests the next one. */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<List<Map<String, Object>>> readBatches(MongoConnection connection, Map<String, Object> reply,
+            List<Map<String, Object>> ret, Executor executor) {
+        Map<String, Object> cursor = (Map<String, Object>) reply.get("cursor");
+
+        if (cursor == null) {
+            // same as getAnswerFor: a results list or the reply itself
+            if (reply.get("results") instanceof List) {
+                ret.addAll((List<Map<String, Object>>) reply.get("results"));
+            } else {
+                ret.add(reply);
+            }
+
+            return CompletableFuture.completedFuture(ret);
+        }
+
+        Object batch = cursor.get("firstBatch") != null ? cursor.get("firstBatch") : cursor.get("nextBatch");
+
+        if (batch != null) {
+            ret.addAll((List<Map<String, Object>>) batch);
+        }
+
+        long cursorId = cursor.get("id") instanceof Number n ? n.longValue() : 0;
+
+        if (cursorId == 0) {
+            return CompletableFuture.completedFuture(ret);
+        }
+
+        String ns = (String) cursor.get("ns");
+        int dot = ns.indexOf('.');
+        GetMoreMongoCommand more = new GetMoreMongoCommand(connection).setCursorId(cursorId).setBatchSize(connection.getDriver().getDefaultBatchSize());
+        more.setDb(ns.substring(0, dot)).setColl(ns.substring(dot + 1));
+
+        try {
+            return connection.sendCommandAsync(more).thenComposeAsync(r -> readBatches(connection, r, ret, executor), executor);
+        } catch (MorphiumDriverException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Override
     public MorphiumCursor executeIterable(int batchsize) throws MorphiumDriverException {
         MongoConnection connection = getConnection();
@@ -65,7 +138,7 @@ public abstract class ReadMongoCommand<T extends MongoCommand> extends MongoComm
         setMetaData("server", connection.getConnectedTo());
         long start = System.currentTimeMillis();
         int msg = connection.sendCommand(this);
-        MorphiumCursor crs = connection.getAnswerFor(msg, batchsize);
+        MorphiumCursor crs = connection.getStreamingAnswerFor(msg, batchsize);
         long dur = System.currentTimeMillis() - start;
         setMetaData("duration", dur);
         return crs;
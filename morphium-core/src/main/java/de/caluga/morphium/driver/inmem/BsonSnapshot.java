@@ -0,0 +1,333 @@
+package de.caluga.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary dump of one database of an {@link InMemoryDriver}, the faster alternative to the gzipped
+ * JSON dump: the documents are stored as the BSON the driver speaks anyway, so writing and reading
+ * need neither a JSON serializer nor a parser and all types (dates, ids, binary data, int vs long)
+ * survive as they are.
+ *
+ * <p>Layout: the magic {@code MORPHBSN}, a version, a BSON header document with the database name
+ * and the number of collections, and per collection a BSON header document (name, document count,
+ * compressor, index definitions, capped settings) followed by its documents in blocks of about
+ * {@value #BLOCK_SIZE} bytes. A block is framed as
+ * {@code [document count][uncompressed length][length][bytes][CRC32]} and compressed on its own
+ * with one of the {@link OpCompressed} compressors (snappy, zlib or none), so reading the file is
+ * sequential I/O while the blocks are decompressed and decoded in parallel.
+ */
+final class BsonSnapshot {
+    static final byte[] MAGIC = "MORPHBSN".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private BsonSnapshot() {
+    }
+
+    /** one collection of a snapshot that was read */
+    record Collection(String name, List<Map<String, Object>> documents, List<Map<String, Object>> indexes,
+                      Map<String, Object> capped) {
+    }
+
+    record Snapshot(String db, long created, List<Collection> collections) {
+    }
+
+    /** true if {@code head} starts with the magic of a snapshot file */
+    static boolean isSnapshot(byte[] head) {
+        return head.length >= MAGIC.length && Arrays.equals(MAGIC, 0, MAGIC.length, head, 0, MAGIC.length);
+    }
+
+    /**
+     * @param data       the documents by collection, the lists must not change meanwhile
+     * @param indexes    index definitions by collection, as the driver keeps them
+     * @param capped     size and max of the capped collections
+     * @param compressor one of the {@code OpCompressed.COMPRESSOR_*} ids except zstd
+     */
+    static void write(OutputStream target, String db, Map<String, List<Map<String, Object>>> data,
+                      Map<String, List<Map<String, Object>>> indexes, Map<String, Map<String, Integer>> capped,
+                      int compressor) throws IOException {
+        checkCompressor(compressor);
+        DataOutputStream out = new DataOutputStream(target);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.write(BsonEncoder.encodeDocument(Doc.of("db", db, "created", System.currentTimeMillis(), "collections", data.size())));
+        ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + 64 * 1024);
+
+        for (Map.Entry<String, List<Map<String, Object>>> e : data.entrySet()) {
+            List<Map<String, Object>> docs = e.getValue();
+            Doc header = Doc.of("coll", e.getKey(), "count", docs.size(), "compressor", compressor);
+            header.put("indexes", indexes == null || indexes.get(e.getKey()) == null ? List.of() : new ArrayList<>(indexes.get(e.getKey())));
+
+            if (capped != null && capped.get(e.getKey()) != null) {
+                header.put("capped", Doc.of("size", capped.get(e.getKey()).get("size"), "max", capped.get(e.getKey()).get("max")));
+            }
+
+            out.write(BsonEncoder.encodeDocument(header));
+            int count = 0;
+
+            for (Map<String, Object> doc : docs) {
+                block.write(BsonEncoder.encodeDocument(doc));
+                count++;
+
+                if (block.size() >= BLOCK_SIZE) {
+                    writeBlock(out, block, count, compressor);
+                    count = 0;
+                }
+            }
+
+            if (count > 0 || docs.isEmpty()) {
+                writeBlock(out, block, count, compressor);
+            }
+        }
+
+        out.flush();
+    }
+
+    /** a collection has at least one block, an empty collection one without documents */
+    private static void writeBlock(DataOutputStream out, ByteArrayOutputStream block, int count, int compressor) throws IOException {
+        byte[] raw = block.toByteArray();
+        block.reset();
+        byte[] bytes = compress(raw, compressor);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(count);
+        out.writeInt(raw.length);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Reads a snapshot: the file is read sequentially by the calling thread, decompressing and
+     * decoding the blocks runs on {@code pool}.
+     *
+     * @return completes with the decoded snapshot, or exceptionally with an {@link IOException} of
+     *         a damaged block
+     */
+    @SuppressWarnings("unchecked")
+    static CompletableFuture<Snapshot> read(InputStream source, Executor pool) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+
+        if (!isSnapshot(magic)) {
+            throw new IOException("not a morphium BSON snapshot");
+        }
+
+        int version = in.readInt();
+
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+
+        Map<String, Object> header = readDocument(in);
+        String db = (String) header.get("db");
+        int collections = ((Number) header.get("collections")).intValue();
+        List<String> names = new ArrayList<>();
+        List<Map<String, Object>> headers = new ArrayList<>();
+        List<List<CompletableFuture<List<Map<String, Object>>>>> blocks = new ArrayList<>();
+
+        for (int c = 0; c < collections; c++) {
+            Map<String, Object> collHeader = readDocument(in);
+            int compressor = ((Number) collHeader.get("compressor")).intValue();
+
+            if (compressor != OpCompressed.COMPRESSOR_NOOP && compressor != OpCompressed.COMPRESSOR_SNAPPY
+                    && compressor != OpCompressed.COMPRESSOR_ZLIB) {
+                throw new IOException("unsupported compressor " + compressor + " in collection " + collHeader.get("coll"));
+            }
+            long remaining = ((Number) collHeader.get("count")).longValue();
+            List<CompletableFuture<List<Map<String, Object>>>> collBlocks = new ArrayList<>();
+
+            // an empty collection still has its (empty) block
+            do {
+                int count = in.readInt();
+                int rawLength = in.readInt();
+                int length = in.readInt();
+
+                if (count < 0 || count > remaining || rawLength < 0 || length < 0) {
+                    throw new IOException("damaged block in collection " + collHeader.get("coll"));
+                }
+
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                int checksum = in.readInt();
+                remaining -= count;
+                collBlocks.add(CompletableFuture.supplyAsync(() -> decodeBlock(bytes, checksum, compressor, rawLength, count), pool));
+            } while (remaining > 0);
+
+            names.add((String) collHeader.get("coll"));
+            headers.add(collHeader);
+            blocks.add(collBlocks);
+        }
+
+        CompletableFuture<?>[] all = blocks.stream().flatMap(List::stream).toArray(CompletableFuture[]::new);
+        long created = ((Number) header.get("created")).longValue();
+        return CompletableFuture.allOf(all).thenApply(v -> {
+            List<Collection> ret = new ArrayList<>();
+
+            for (int c = 0; c < names.size(); c++) {
+                List<Map<String, Object>> docs = new ArrayList<>(((Number) headers.get(c).get("count")).intValue());
+
+                for (CompletableFuture<List<Map<String, Object>>> b : blocks.get(c)) {
+                    docs.addAll(b.join());
+                }
+
+                ret.add(new Collection(names.get(c), docs, (List<Map<String, Object>>) headers.get(c).get("indexes"),
+                                       (Map<String, Object>) headers.get(c).get("capped")));
+            }
+
+            return new Snapshot(db, created, ret);
+        });
+    }
+
+    private static List<Map<String, Object>> decodeBlock(byte[] bytes, int checksum, int compressor, int rawLength, int count) {
+        try {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("checksum mismatch");
+            }
+
+            byte[] raw = uncompress(bytes, compressor, rawLength);
+            List<Map<String, Object>> docs = new ArrayList<>(count);
+            int idx = 0;
+
+            for (int i = 0; i < count; i++) {
+                Doc doc = new Doc();
+                idx += BsonDecoder.decodeDocumentIn(doc, raw, idx);
+                docs.add(doc);
+            }
+
+            if (idx != raw.length) {
+                throw new IOException("block holds " + raw.length + " bytes, its documents " + idx);
+            }
+
+            return docs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("damaged snapshot block: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new UncheckedIOException("damaged snapshot block: " + e, new IOException(e));
+        }
+    }
+
+    /** the cause of a failed {@link #read} as the IOException it is */
+    static IOException unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof UncheckedIOException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+
+        return t instanceof IOException ? (IOException) t : new IOException(t);
+    }
+
+    private static Map<String, Object> readDocument(DataInputStream in) throws IOException {
+        byte[] len = new byte[4];
+        in.readFully(len);
+        int size = BsonDecoder.readInt(len, 0);
+
+        if (size < 5 || size > 256 * 1024 * 1024) {
+            throw new IOException("invalid document length " + size);
+        }
+
+        byte[] bson = new byte[size];
+        System.arraycopy(len, 0, bson, 0, 4);
+        in.readFully(bson, 4, size - 4);
+        return BsonDecoder.decodeDocument(bson);
+    }
+
+    static void checkCompressor(int compressor) {
+        if (compressor != OpCompressed.COMPRESSOR_NOOP && compressor != OpCompressed.COMPRESSOR_SNAPPY
+                && compressor != OpCompressed.COMPRESSOR_ZLIB) {
+            throw new IllegalArgumentException("unsupported snapshot compressor " + compressor);
+        }
+    }
+
+    private static byte[] compress(byte[] raw, int compressor) throws IOException {
+        if (raw.length == 0 || compressor == OpCompressed.COMPRESSOR_NOOP) {
+            return raw;
+        }
+
+        if (compressor == OpCompressed.COMPRESSOR_SNAPPY) {
+            return Snappy.compress(raw);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] buf = new byte[64 * 1024];
+
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] uncompress(byte[] bytes, int compressor, int rawLength) throws IOException {
+        if (rawLength == 0 || compressor == OpCompressed.COMPRESSOR_NOOP) {
+            return bytes;
+        }
+
+        if (compressor == OpCompressed.COMPRESSOR_SNAPPY) {
+            return Snappy.uncompress(bytes);
+        }
+
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(bytes);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+
+            while (n < rawLength && !inflater.finished()) {
+                int r = inflater.inflate(raw, n, rawLength - n);
+
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+
+                n += r;
+            }
+
+            if (n != rawLength) {
+                throw new IOException("block inflated to " + n + " of " + rawLength + " bytes");
+            }
+
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package de.caluga.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Disk extension of the change-stream replay buffer of an {@link InMemoryDriver}, attached with
+ * {@link InMemoryDriver#setChangeStreamLog(ChangeStreamLog)}. Events the in-memory buffer evicts
+ * because of its count limit or byte budget are appended here instead of being dropped, so a
+ * change stream - typically a PoppyDB secondary after a long outage - can still resume from a token
+ * older than the heap window and catch up incrementally instead of running a full initial sync.
+ *
+ * <p>The events are kept in segment files {@code changes-<n>.log} as {@code [length][BSON]}
+ * records and read back through memory mappings. Retention is per segment: the oldest segment is
+ * deleted once all segments together exceed {@code maxBytes}, or once its newest event is older
+ * than {@code maxAgeMs}. Events of a deleted segment are lost for resuming like evicted events
+ * without this log - the driver learns the highest such token and fails resumes across it.
+ *
+ * <p>Resume tokens are only meaningful within the lifetime of one driver, so the log does not
+ * survive a restart: segments found in the directory are removed when it is opened, and all
+ * segments when it is closed.
+ */
+public final class ChangeStreamLog implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamLog.class);
+    static final String SEGMENT_PREFIX = "changes-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private final File directory;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final long segmentBytes;
+    // guarded by this
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private FileChannel channel;
+    private long nextSegment;
+    private long totalBytes;
+    private long discardedUpTo;
+    private boolean closed;
+    private volatile LongConsumer discardListener;
+
+    private static final class Segment {
+        private final long id;
+        private final File file;
+        private long size;
+        private long count;
+        private long minToken = Long.MAX_VALUE;
+        private long maxToken = Long.MIN_VALUE;
+        private long oldestCreatedAt;
+        private long newestCreatedAt;
+
+        private Segment(long id, File file) {
+            this.id = id;
+            this.file = file;
+        }
+    }
+
+    /** an event read back from the log */
+    record Entry(long token, String db, String collection, Map<String, Object> event, long createdAt) {
+    }
+
+    /** where a {@link #replay} stopped, to continue from there */
+    record Position(long segment, long offset) {
+    }
+
+    /** decides per entry whether the replay goes on */
+    @FunctionalInterface
+    interface EntryVisitor {
+        boolean visit(Entry entry);
+    }
+
+    /**
+     * @param directory the segment files, created if missing
+     * @param maxBytes  total size of the segments to keep, at least one segment is kept
+     * @param maxAgeMs  age of the newest event of a segment after which it is removed, 0 to keep
+     *                  segments regardless of their age
+     */
+    public ChangeStreamLog(File directory, long maxBytes, long maxAgeMs) throws IOException {
+        this(directory, maxBytes, maxAgeMs, Math.max(64 * 1024, Math.min(DEFAULT_SEGMENT_BYTES, maxBytes / 4)));
+    }
+
+    ChangeStreamLog(File directory, long maxBytes, long maxAgeMs, long segmentBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be > 0");
+        }
+
+        if (maxAgeMs < 0) {
+            throw new IllegalArgumentException("maxAgeMs must not be negative");
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        this.segmentBytes = segmentBytes;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create change stream log directory " + directory.getAbsolutePath());
+        }
+
+        File[] stale = directory.listFiles((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+
+        if (stale != null && stale.length > 0) {
+            log.info("Removing {} change stream log segments of a previous run from {}", stale.length, directory.getAbsolutePath());
+
+            for (File f : stale) {
+                if (!f.delete()) {
+                    log.warn("Could not remove change stream log segment {}", f.getAbsolutePath());
+                }
+            }
+        }
+
+        openSegment();
+    }
+
+    /** called with the highest token of every segment removed by retention */
+    void setDiscardListener(LongConsumer listener) {
+        this.discardListener = listener;
+    }
+
+    private void openSegment() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+
+        Segment s = new Segment(nextSegment, new File(directory, SEGMENT_PREFIX + nextSegment + SEGMENT_SUFFIX));
+        nextSegment++;
+        channel = FileChannel.open(s.file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.addLast(s);
+    }
+
+    /**
+     * Appends an event evicted from the in-memory buffer. Not forced to disk - the log only has to
+     * outlive the heap window, not the process.
+     *
+     * @return false if the event could not be written and is lost for resuming
+     */
+    boolean append(long token, String db, String collection, Map<String, Object> event, long createdAt) {
+        byte[] bson;
+
+        try {
+            Doc rec = Doc.of("t", token, "db", db, "ts", createdAt, "e", event);
+
+            if (collection != null) {
+                rec.put("c", collection);
+            }
+
+            bson = BsonEncoder.encodeDocument(rec);
+        } catch (RuntimeException e) {
+            log.warn("Change event {} cannot be written to the change stream log: {}", token, e.toString());
+            return false;
+        }
+
+        List<Long> discarded = new ArrayList<>();
+
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+
+            try {
+                Segment s = segments.getLast();
+
+                if (s.size > 0 && s.size + bson.length + 4 > segmentBytes) {
+                    openSegment();
+                    s = segments.getLast();
+                }
+
+                ByteBuffer frame = ByteBuffer.allocate(4 + bson.length).order(ByteOrder.LITTLE_ENDIAN);
+                frame.putInt(bson.length).put(bson).flip();
+
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+
+                s.size += 4 + bson.length;
+                s.count++;
+                s.minToken = Math.min(s.minToken, token);
+                s.maxToken = Math.max(s.maxToken, token);
+                s.oldestCreatedAt = s.count == 1 ? createdAt : Math.min(s.oldestCreatedAt, createdAt);
+                s.newestCreatedAt = Math.max(s.newestCreatedAt, createdAt);
+                totalBytes += 4 + bson.length;
+            } catch (IOException e) {
+                log.warn("Writing to the change stream log {} failed: {}", directory.getAbsolutePath(), e.toString());
+                return false;
+            }
+
+            applyRetention(discarded);
+        }
+
+        notifyDiscarded(discarded);
+        return true;
+    }
+
+    // under the monitor; the active segment is always kept
+    private void applyRetention(List<Long> discarded) {
+        long now = System.currentTimeMillis();
+
+        while (segments.size() > 1) {
+            Segment oldest = segments.getFirst();
+            boolean overSize = totalBytes > maxBytes;
+            boolean tooOld = maxAgeMs > 0 && oldest.newestCreatedAt < now - maxAgeMs;
+
+            if (!overSize && !tooOld) {
+                break;
+            }
+
+            segments.removeFirst();
+            totalBytes -= oldest.size;
+
+            if (oldest.count > 0) {
+                discardedUpTo = Math.max(discardedUpTo, oldest.maxToken);
+                discarded.add(oldest.maxToken);
+            }
+
+            if (!oldest.file.delete()) {
+                log.warn("Could not remove change stream log segment {}", oldest.file.getAbsolutePath());
+            }
+        }
+    }
+
+    private void notifyDiscarded(List<Long> discarded) {
+        LongConsumer l = discardListener;
+
+        if (l != null) {
+            discarded.forEach(l::accept);
+        }
+    }
+
+    /** lowest token still in the log, {@code Long.MAX_VALUE} if it is empty */
+    synchronized long oldestToken() {
+        long min = Long.MAX_VALUE;
+
+        for (Segment s : segments) {
+            min = Math.min(min, s.minToken);
+        }
+
+        return min;
+    }
+
+    /** highest token of a segment removed by retention, 0 if none was */
+    public synchronized long getDiscardedUpTo() {
+        return discardedUpTo;
+    }
+
+    public synchronized long getBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getEvents() {
+        long n = 0;
+
+        for (Segment s : segments) {
+            n += s.count;
+        }
+
+        return n;
+    }
+
+    /** creation time of the oldest event still in the log, 0 if it is empty */
+    public synchronized long getOldestEventTime() {
+        for (Segment s : segments) {
+            if (s.count > 0) {
+                return s.oldestCreatedAt;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Reads the events appended so far, in the order they were appended, starting at
+     * {@code from} (null for the oldest segment). Segments whose events are all at or below
+     * {@code afterToken} are skipped without reading them, so does every single event at or below
+     * it. Segments removed by retention meanwhile are skipped as well - the discard listener has
+     * reported them.
+     *
+     * @return where the replay ended, to pick up what was appended since; null if the visitor
+     *         stopped it
+     */
+    Position replay(Position from, long afterToken, EntryVisitor visitor) throws IOException {
+        List<Segment> snapshot;
+        List<Long> sizes = new ArrayList<>();
+
+        synchronized (this) {
+            snapshot = new ArrayList<>(segments);
+
+            for (Segment s : snapshot) {
+                sizes.add(s.size);
+            }
+        }
+
+        Position end = from == null ? new Position(snapshot.isEmpty() ? 0 : snapshot.get(0).id, 0) : from;
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            Segment s = snapshot.get(i);
+            long size = sizes.get(i);
+
+            if (from != null && s.id < from.segment()) {
+                continue;
+            }
+
+            long offset = from != null && s.id == from.segment() ? from.offset() : 0;
+            end = new Position(s.id, size);
+
+            if (offset >= size || (offset == 0 && s.maxToken <= afterToken && i < snapshot.size() - 1)) {
+                continue;
+            }
+
+            MappedByteBuffer buf;
+
+            try (FileChannel ch = FileChannel.open(s.file.toPath(), StandardOpenOption.READ)) {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, offset, size - offset);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            while (buf.remaining() >= 4) {
+                int len = buf.getInt();
+                byte[] bson = new byte[len];
+                buf.get(bson);
+                Map<String, Object> rec = BsonDecoder.decodeDocument(bson);
+                long token = ((Number) rec.get("t")).longValue();
+
+                if (token <= afterToken) {
+                    continue;
+                }
+
+                @SuppressWarnings("unchecked")
+                Entry entry = new Entry(token, (String) rec.get("db"), (String) rec.get("c"), (Map<String, Object>) rec.get("e"),
+                                        ((Number) rec.get("ts")).longValue());
+
+                if (!visitor.visit(entry)) {
+                    return null;
+                }
+            }
+        }
+
+        return end;
+    }
+
+    /** removes every event, for a driver whose token sequence starts over */
+    synchronized void clear() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        channel.close();
+        channel = null;
+
+        for (Segment s : segments) {
+            if (!s.file.delete()) {
+                log.warn("Could not remove change stream log segment {}", s.file.getAbsolutePath());
+            }
+        }
+
+        segments.clear();
+        totalBytes = 0;
+        discardedUpTo = 0;
+        openSegment();
+    }
+
+    /** closes the log and removes its segments */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Closing change stream log segment failed: {}", e.toString());
+        }
+
+        for (Segment s : segments) {
+            if (!s.file.delete()) {
+                log.warn("Could not remove change stream log segment {}", s.file.getAbsolutePath());
+            }
+        }
+
+        segments.clear();
+        totalBytes = 0;
+    }
+}
@@ -11,6 +11,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Set;
 import java.util.TreeMap;
 
 /**
@@ -22,6 +23,16 @@ import java.util.TreeMap;
  * method of one instance (from different threads without external locking) are not safe, including
  * pure reads racing a mutation.
  *
+ * <p>The one exception is the driver's optimistic {@code _id} lookup: it calls
+ * {@link #equalityLookup} without any lock under a stamp of the collection's
+ * {@link CollectionLock} and discards the result (or the exception) unless the stamp is still
+ * valid afterwards, i.e. no writer ran meanwhile. Such a lookup only reads a hash bucket and copies
+ * it, so a racing writer can make it fail or return garbage, but not loop or corrupt the store.
+ *
+ * <p>Document writers under a {@link CollectionLock#documentWriteLock} run concurrently with
+ * each other. They only change fields {@link #indexesAnyOf} denies, so they only read here:
+ * {@link #equalityLookup}, and {@link #onUpdate} with unchanged keys.
+ *
  * <p><b>Structure trade-off:</b> each index keeps both a {@code HashMap<IndexKey, ArrayList<...>>}
  * for O(1) equality lookups and a {@code TreeMap<IndexKey, ArrayList<...>>} (ordered by
  * {@link IndexKey#comparator(IndexDefinition)}) for range/ordered scans. Both maps are kept
@@ -170,6 +181,30 @@ public class CollectionIndexStore {
         return Collections.unmodifiableMap(out);
     }
 
+    /**
+     * True if changing the top-level fields {@code topLevelFields} of a document may change an
+     * index entry: some index covers one of them (or everything, {@code $**}), or has a partial
+     * filter, which may refer to any field.
+     */
+    public boolean indexesAnyOf(Set<String> topLevelFields) {
+        for (IndexEntry entry : indexesByName.values()) {
+            if (entry.definition.partialFilterExpression() != null) {
+                return true;
+            }
+
+            for (String field : entry.definition.fields()) {
+                int dot = field.indexOf('.');
+                String topLevel = dot < 0 ? field : field.substring(0, dot);
+
+                if (topLevel.startsWith("$") || topLevelFields.contains(topLevel)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Adds {@code doc} to every index. Validate-then-apply across all indexes: unique keys are
      * checked first, and only if every check passes is {@code doc} actually inserted into any
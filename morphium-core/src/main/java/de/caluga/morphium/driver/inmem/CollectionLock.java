@@ -0,0 +1,344 @@
+package de.caluga.morphium.driver.inmem;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lock of one collection of the {@link InMemoryDriver}: a {@link ReentrantReadWriteLock} whose
+ * write side also advances a sequence, so short reads can run without taking the read lock at all
+ * and validate afterwards that no writer was active meanwhile - the optimistic read of
+ * {@link java.util.concurrent.locks.StampedLock}. StampedLock itself does not fit here: the driver
+ * re-enters its collection locks (internal finds under the write lock, {@code snapshot()} under
+ * the read or write lock), and StampedLock is not reentrant.
+ *
+ * <p>The sequence is odd while a writer holds the lock. Only the outermost lock/unlock of a
+ * reentrant writer advances it, so a stamp taken while no writer holds the lock is valid exactly
+ * as long as no write lock was taken since.
+ *
+ * <p>Usage, as with StampedLock: take a stamp with {@link #tryOptimisticRead()} (0 = a writer is
+ * active, use the read lock), read into local variables only, then {@link #validate(long)} before
+ * using anything that was read. A read that fails validation, or throws because it saw a
+ * half-done mutation, is discarded and repeated under the read lock.
+ *
+ * <p>Writers that change a single document without touching anything shared - no index key, no
+ * document list - can take a {@link #documentWriteLock} instead of the write lock. Document
+ * writers hold the read side of the underlying lock, so they exclude the write lock like readers
+ * do, plus one of {@value #STRIPES} stripe locks chosen by the document's {@code _id}: writers of
+ * different documents run concurrently. Readers and document writers exclude each other in turn
+ * (each side is shared, the two sides are not, first come first served), since a reader may look
+ * at any document. Optimistic reads fail while a document writer is active, same as with the
+ * write lock.
+ */
+final class CollectionLock implements ReadWriteLock {
+    static final int STRIPES = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong sequence = new AtomicLong(2);
+    private final Modes modes = new Modes();
+    private final ThreadLocal<int[]> documentWriteHolds = ThreadLocal.withInitial(() -> new int[1]);
+    private final Lock readLock = new ReadLock();
+    private final Lock writeLock = new WriteLock();
+    private final Lock[] documentWriteLocks = new Lock[STRIPES];
+
+    CollectionLock() {
+        for (int i = 0; i < STRIPES; i++) {
+            documentWriteLocks[i] = new DocumentWriteLock();
+        }
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * The lock for writing the document with the given {@code _id} key - equal keys always map to
+     * the same stripe. The caller must not change anything but that one document.
+     */
+    Lock documentWriteLock(Object idKey) {
+        return documentWriteLocks[Math.floorMod(idKey.hashCode(), STRIPES)];
+    }
+
+    /** a stamp for an optimistic read, 0 while a writer holds the lock */
+    long tryOptimisticRead() {
+        long s = sequence.get();
+        return (s & 1) == 0 && modes.documentWriters() == 0 ? s : 0;
+    }
+
+    /** true if no writer took the lock since {@code stamp} was issued */
+    boolean validate(long stamp) {
+        // the reads of the optimistic section must not be reordered after the sequence check
+        VarHandle.acquireFence();
+        return stamp != 0 && sequence.get() == stamp;
+    }
+
+    private void acquired() {
+        if (lock.getWriteHoldCount() == 1) {
+            sequence.incrementAndGet();
+        }
+    }
+
+    private final class WriteLock implements Lock {
+        private final Lock delegate = lock.writeLock();
+
+        @Override
+        public void lock() {
+            delegate.lock();
+            acquired();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            delegate.lockInterruptibly();
+            acquired();
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (!delegate.tryLock()) {
+                return false;
+            }
+
+            acquired();
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            if (!delegate.tryLock(time, unit)) {
+                return false;
+            }
+
+            acquired();
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            if (lock.getWriteHoldCount() == 1) {
+                sequence.incrementAndGet();
+            }
+
+            delegate.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return delegate.newCondition();
+        }
+    }
+
+    private final class ReadLock implements Lock {
+        private final Lock delegate = lock.readLock();
+
+        @Override
+        public void lock() {
+            delegate.lock();
+
+            try {
+                modes.acquireShared(readerMode());
+            } catch (RuntimeException e) {
+                delegate.unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            delegate.lockInterruptibly();
+
+            try {
+                modes.acquireSharedInterruptibly(readerMode());
+            } catch (InterruptedException | RuntimeException e) {
+                delegate.unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (!delegate.tryLock()) {
+                return false;
+            }
+
+            boolean acquired;
+
+            try {
+                acquired = modes.tryAcquireShared(readerMode()) >= 0;
+            } catch (RuntimeException e) {
+                delegate.unlock();
+                throw e;
+            }
+
+            if (!acquired) {
+                delegate.unlock();
+            }
+
+            return acquired;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+
+            if (!delegate.tryLock(time, unit)) {
+                return false;
+            }
+
+            boolean acquired;
+
+            try {
+                acquired = modes.tryAcquireSharedNanos(readerMode(), deadline - System.nanoTime());
+            } catch (InterruptedException | RuntimeException e) {
+                delegate.unlock();
+                throw e;
+            }
+
+            if (!acquired) {
+                delegate.unlock();
+            }
+
+            return acquired;
+        }
+
+        @Override
+        public void unlock() {
+            modes.releaseShared(Modes.READER);
+            delegate.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return delegate.newCondition();
+        }
+
+        /**
+         * {@link Modes#READER} for the outermost read lock. A nested one must not queue behind a
+         * document writer that waits for this thread's outer read lock to go away - and a
+         * document writer asking for the read lock would wait for itself.
+         */
+        private int readerMode() {
+            if (lock.getReadHoldCount() == 1) {
+                return Modes.READER;
+            }
+
+            if (documentWriteHolds.get()[0] > 0) {
+                throw new IllegalStateException("read lock requested while holding a document write lock");
+            }
+
+            return Modes.REENTRANT_READER;
+        }
+    }
+
+    private final class DocumentWriteLock implements Lock {
+        private final ReentrantLock stripe = new ReentrantLock();
+
+        @Override
+        public void lock() {
+            lock.readLock().lock();
+            int[] holds = documentWriteHolds.get();
+
+            try {
+                if (lock.getReadHoldCount() > holds[0] + 1) {
+                    throw new IllegalStateException("document write lock requested while holding the read lock");
+                }
+
+                modes.acquireShared(holds[0] > 0 ? Modes.REENTRANT_DOCUMENT_WRITER : Modes.DOCUMENT_WRITER);
+            } catch (RuntimeException e) {
+                lock.readLock().unlock();
+                throw e;
+            }
+
+            holds[0]++;
+            // stamps taken before are invalid from here, see tryOptimisticRead for those taken after
+            sequence.addAndGet(2);
+            stripe.lock();
+        }
+
+        @Override
+        public void lockInterruptibly() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean tryLock() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unlock() {
+            stripe.unlock();
+            documentWriteHolds.get()[0]--;
+            modes.releaseShared(Modes.DOCUMENT_WRITER);
+            lock.readLock().unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Readers vs. document writers: the state counts the holders, positive for readers and
+     * negative for document writers. Fair - a new holder queues behind anyone already waiting,
+     * unless it re-enters.
+     */
+    private static final class Modes extends AbstractQueuedSynchronizer {
+        static final int READER = 1;
+        static final int DOCUMENT_WRITER = -1;
+        static final int REENTRANT_READER = 2;
+        static final int REENTRANT_DOCUMENT_WRITER = -2;
+
+        int documentWriters() {
+            return Math.max(0, -getState());
+        }
+
+        @Override
+        protected int tryAcquireShared(int mode) {
+            int delta = Integer.signum(mode);
+            boolean reentrant = Math.abs(mode) == 2;
+
+            while (true) {
+                int state = getState();
+
+                if (state != 0 && Integer.signum(state) != delta || !reentrant && hasQueuedPredecessors()) {
+                    return -1;
+                }
+
+                if (compareAndSetState(state, state + delta)) {
+                    return 1;
+                }
+            }
+        }
+
+        @Override
+        protected boolean tryReleaseShared(int mode) {
+            while (true) {
+                int state = getState();
+                int next = state - mode;
+
+                if (compareAndSetState(state, next)) {
+                    return next == 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package de.caluga.morphium.driver.inmem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.caluga.morphium.aggregation.Expr;
+
+/**
+ * Compiles an aggregation expression ONCE into a tree of already resolved nodes, so that evaluating
+ * it against many documents ($project, $addFields, $group, $replaceRoot, $expr in $match) does not
+ * repeat per-document work {@code Expr.parse(expression).evaluate(doc)} does on every call: finding
+ * the operator factory via reflection for every operator of the tree and re-evaluating sub
+ * expressions that consist of literals only.
+ *
+ * <p>The operators themselves are not re-implemented - each operator node is built by
+ * {@link Expr#parse} exactly once, with its operands being compiled nodes. So the result of
+ * {@link #evaluate(Map)} is the result of the interpreted expression. Operators whose operands are
+ * all constant are evaluated at compile time and replaced by their value, unless the operator is
+ * not deterministic ({@code $rand}, {@code $sampleRate}, {@code $function}, {@code $accumulator}),
+ * fails on the constant operands (then it fails per document like before) or yields a mutable
+ * value (lists, documents, dates), which must not be shared between result documents.
+ *
+ * <p>{@link Expr} instances passed to {@link #compile} are opaque: they are evaluated as they are.
+ */
+public final class CompiledExpr extends Expr {
+    private static final Set<String> NON_DETERMINISTIC = Set.of("$rand", "$sampleRate", "$function", "$accumulator");
+
+    private final Object source;
+    private final Expr delegate;
+    private final boolean constant;
+    private final Object value;
+
+    private CompiledExpr(Object source, Expr delegate, boolean constant, Object value) {
+        this.source = source;
+        this.delegate = delegate;
+        this.constant = constant;
+        this.value = value;
+    }
+
+    private static CompiledExpr evaluated(Object source, Expr delegate) {
+        return new CompiledExpr(source, delegate, false, null);
+    }
+
+    private static CompiledExpr constant(Object source, Object value) {
+        return new CompiledExpr(source, null, true, value);
+    }
+
+    /**
+     * @param expression the expression in query form ({@code "$field"}, {@code {$add: [...]}},
+     *                   document and array literals, plain values) or an {@link Expr}
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledExpr compile(Object expression) {
+        if (expression instanceof CompiledExpr) {
+            return (CompiledExpr) expression;
+        }
+
+        if (expression instanceof Expr) {
+            return evaluated(expression, (Expr) expression);
+        }
+
+        if (expression instanceof String && ((String) expression).startsWith("$")) {
+            return evaluated(expression, Expr.field((String) expression));
+        }
+
+        if (expression instanceof List) {
+            List<Expr> elements = new ArrayList<>();
+
+            for (Object o : (List<Object>) expression) {
+                elements.add(compile(o));
+            }
+
+            return evaluated(expression, Expr.parse(elements));
+        }
+
+        if (!(expression instanceof Map)) {
+            return constant(expression, expression);
+        }
+
+        if (((Map<?, ?>) expression).isEmpty()) {
+            // rejected by Expr.parse
+            return evaluated(expression, Expr.parse(expression));
+        }
+
+        Map<String, Object> map = (Map<String, Object>) expression;
+        String op = map.keySet().iterator().next();
+
+        if (!op.startsWith("$")) {
+            // document literal, every value is an expression
+            return evaluated(expression, Expr.parse(compileValues(map)));
+        }
+
+        if (!op.equals("$" + op.replaceAll("\\$", ""))) {
+            // Expr.parse looks the operand up with the normalized key - not worth mirroring
+            return evaluated(expression, Expr.parse(expression));
+        }
+
+        Object operand = map.get(op);
+        Object compiledOperand;
+        boolean constantOperands;
+
+        if (operand instanceof List) {
+            List<Expr> l = new ArrayList<>();
+            constantOperands = true;
+
+            for (Object o : (List<Object>) operand) {
+                CompiledExpr c = compile(o);
+                constantOperands &= c.constant;
+                l.add(c);
+            }
+
+            compiledOperand = l;
+        } else if (operand instanceof Map) {
+            Map<String, Object> m = compileValues((Map<String, Object>) operand);
+            constantOperands = m.values().stream().allMatch(c -> ((CompiledExpr) c).constant);
+            compiledOperand = m;
+        } else {
+            CompiledExpr c = compile(operand);
+            constantOperands = c.constant;
+            compiledOperand = c;
+        }
+
+        Map<String, Object> opMap = new LinkedHashMap<>();
+        opMap.put(op, compiledOperand);
+        Expr opExpr = Expr.parse(opMap);
+
+        if (constantOperands && !NON_DETERMINISTIC.contains(op)) {
+            try {
+                Object v = opExpr.evaluate(new HashMap<>());
+
+                if (v == null || v instanceof Number || v instanceof String || v instanceof Boolean) {
+                    return constant(expression, v);
+                }
+            } catch (RuntimeException e) {
+                // not folded, evaluating it per document reports the error
+            }
+        }
+
+        return evaluated(expression, opExpr);
+    }
+
+    private static Map<String, Object> compileValues(Map<String, Object> map) {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            ret.put(e.getKey(), compile(e.getValue()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return true if the expression does not depend on the document and was evaluated at compile time
+     */
+    public boolean isConstant() {
+        return constant;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> context) {
+        return constant ? value : delegate.evaluate(context);
+    }
+
+    @Override
+    public Object toQueryObject() {
+        return source instanceof Expr ? ((Expr) source).toQueryObject() : source;
+    }
+}
@@ -295,7 +295,7 @@ public final class CompiledQuery {
             }
 
             case "$expr": {
-                Expr expr = Expr.parse(value);
+                Expr expr = CompiledExpr.compile(value);
                 return new KeyedNode(Kind.HARD, doc -> {
                     Object result = expr.evaluate(doc);
                     if (result instanceof Expr) {
@@ -7,9 +7,9 @@ import de.caluga.morphium.aggregation.internal.UntranslatedRefWarner;
 import de.caluga.morphium.async.AsyncOperationCallback;
 import de.caluga.morphium.async.AsyncOperationType;
 import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.IteratorCursor;
 import de.caluga.morphium.driver.MorphiumCursor;
 import de.caluga.morphium.driver.MorphiumDriverException;
-import de.caluga.morphium.driver.SingleBatchCursor;
 import de.caluga.morphium.driver.commands.AggregateMongoCommand;
 import de.caluga.morphium.driver.commands.ExplainCommand.ExplainVerbosity;
 import de.caluga.morphium.ObjectMapperImpl;
@@ -18,7 +18,11 @@ import de.caluga.morphium.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("CommentedOutCode")
@@ -33,8 +37,16 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
     private boolean useDisk = false;
     private boolean explain = false;
     private Collation collation;
+    /** documents a streaming stage is run on at once */
+    private static final int STREAM_CHUNK = 128;
+    /** hash partitions of a {@code $group} spilled to disk */
+    private static final int SPILL_PARTITIONS = 16;
+    private static final Set<String> STREAMING_STAGES = Set.of("$match", "$project", "$addFields", "$set", "$unset", "$unwind", "$replaceRoot",
+            "$replaceWith");
     private final UntranslatedRefWarner refWarner = new UntranslatedRefWarner();
     private final FieldNameTranslation fieldNames;
+    /** expressions of the stages, compiled on first use - keyed by identity of the stage value */
+    private final Map<Object, CompiledExpr> compiledExpressions = Collections.synchronizedMap(new IdentityHashMap<>());
 
     public InMemAggregator(Morphium morphium, Class <? extends T > type, Class <? extends R > resultType) {
         this.morphium = morphium;
@@ -82,7 +94,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
             }
             @Override
             public MorphiumCursor executeIterable(int batchsize) throws MorphiumDriverException {
-                return new SingleBatchCursor(aggregateMap());
+                return new IteratorCursor(streamAggregation(), batchsize);
             }
         };
     }
@@ -188,14 +200,14 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
             Object value = e.getValue();
             if (value instanceof Expr) {
                 if (translate) {
-                    value = Expr.parse(fieldNames.translateRefs(((Expr) value).toQueryObject()));
+                    value = CompiledExpr.compile(fieldNames.translateRefs(((Expr) value).toQueryObject()));
                 }
             } else {
                 if (translate) {
                     value = fieldNames.translateRefs(value);
                 }
                 // Convert raw aggregation expressions to Expr objects
-                value = Expr.parse(value);
+                value = CompiledExpr.compile(value);
             }
 
             ret.put(translate ? tf(e.getKey()) : e.getKey(), value);
@@ -1074,8 +1086,16 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
         return ex;
     }
 
-    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> execStep(Map<String, Object> step, List<Map<String, Object >> data) {
+        return execStep(step, data, true);
+    }
+
+    /**
+     * @param parallel false to run the stage on the calling thread, regardless of the size of the
+     *                 input
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> execStep(Map<String, Object> step, List<Map<String, Object >> data, boolean parallel) {
         if (step.keySet().size() != 1) {
             throw new IllegalArgumentException("Pipeline start wrong");
         }
@@ -1213,10 +1233,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                         } else if (value instanceof Expr) {
                             obj.put(k, ((Expr) value).evaluate(obj));
                         } else if (value instanceof Map) {
-                            // Convert aggregation expression Map to Expr and evaluate
-                            //noinspection unchecked
-                            Expr expr = Expr.parse(value);
-                            obj.put(k, expr.evaluate(obj));
+                            obj.put(k, compiled(value).evaluate(obj));
                         }
                     }
                 }
@@ -1233,66 +1250,18 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
             case "$group":
                 @SuppressWarnings("unchecked")
                 Map<String, Object> group = (Map<String, Object>) step.get(stage);
+                if (parallel && runsParallel(data.size())) {
+                    ret = groupPartitioned(step, group, data);
+                    break;
+                }
+
                 Map<Object, Map<String, Object>> res = new HashMap<>();
 
                 for (Map<String, Object> obj : data) {
                     Map<String, Object> o = new HashMap<>(obj);
-                    Object id = group.get("_id");
-
-                    if (id instanceof Map) {
-                        //deal with combined Group IDs
-                        //and expressions in IDs
-                        if (((Map <?, ? >) id).keySet().toArray()[0].toString().startsWith("$")) {
-                            //expr?
-                            var expr = Expr.parse(id);
-                            var result = expr.evaluate(obj);
-                            res.putIfAbsent(result, new HashMap<>());
-                            res.get(result).putIfAbsent("_id", result);
-                            id = result;
-                        } else {
-                            log.info("ID is combined...");
-                            Map newIdMap = new HashMap<>();
-
-                            for (var e : ((Map <?, ? >) id).entrySet()) {
-                                var k = e.getKey();
-
-                                try {
-                                    var kEx = Expr.parse(e.getKey());
-                                    k = kEx.evaluate(o);
-
-                                    while (k instanceof Expr) {
-                                        k = ((Expr) k).evaluate(o);
-                                    }
-                                } catch (Exception ex) {
-                                }
-
-                                var v = e.getValue();
-
-                                try {
-                                    var vEy = Expr.parse(e.getValue());
-                                    v = vEy.evaluate(o);
-
-                                    while (v instanceof Expr) {
-                                        v = ((Expr) v).evaluate(o);
-                                    }
-                                } catch (Exception ex) {
-                                }
-
-                                newIdMap.put(k, v);
-                            }
-
-                            id = newIdMap;
-                            res.putIfAbsent(id, new HashMap<>());
-                            res.get(id).putIfAbsent("_id", newIdMap);
-                        }
-                    } else {
-                        if (id != null && id.toString().startsWith("$")) {
-                            id = o.get(id.toString().substring(1));
-                        }
-
-                        res.putIfAbsent(id, new HashMap<>());
-                        res.get(id).putIfAbsent("_id", id);
-                    }
+                    Object id = groupKey(group.get("_id"), o);
+                    res.putIfAbsent(id, new HashMap<>());
+                    res.get(id).putIfAbsent("_id", id);
 
                     for (String fld : group.keySet()) {
                         if (fld.equals("_id")) {
@@ -1525,8 +1494,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                                         Map<String, Object> opMap = (Map<String, Object>) opValue;
 
                                         try {
-                                            Expr expr = Expr.parse(opMap);
-                                            res.get(id).put(fld, expr.evaluate(o));
+                                            res.get(id).put(fld, compiled(opMap).evaluate(o));
                                         } catch (Exception e) {
                                             // Previously this silently dropped the field and only logged
                                             // "unknown accumulator" (log.error ran unconditionally, even on
@@ -1608,8 +1576,8 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                     } else {
                         ret.addAll(data);
                     }
-                } else {
-                    ret.addAll(data.subList(idx, data.size() - idx));
+                } else if (idx < data.size()) {
+                    ret.addAll(data.subList(idx, data.size()));
                 }
 
                 break;
@@ -1656,7 +1624,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                     }
 
                     if (lst == null) {
-                        break;
+                        continue;
                     }
 
                     for (Object value : lst) {
@@ -1686,23 +1654,23 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
             case "$sort":
                 @SuppressWarnings("unchecked")
                 Map<String, Object> keysToSortBy = (Map<String, Object>) step.get(stage);
-                List<Map<String, Object>> sortedList = new ArrayList<>(data);
-                sortedList.sort((o1, o2) -> {
-                    for (String k : keysToSortBy.keySet()) {
-                        @SuppressWarnings("unchecked")
-                        int i = ((Comparable) o1.get(k)).compareTo(o2.get(k));
+                List<Map<String, Object>> sortedList;
+                Comparator<Map<String, Object>> sortOrder = sortOrder(keysToSortBy);
 
-                        if (i != 0) {
-                            if (keysToSortBy.get(k).equals(-1)) {
-                                i = -i;
-                            }
+                if (parallel && runsParallel(data.size())) {
+                    // parallel merge sort, stable like List.sort
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object>[] toSort = data.toArray(new Map[0]);
+                    inAggregationPool(() -> {
+                        Arrays.parallelSort(toSort, sortOrder);
+                        return null;
+                    });
+                    sortedList = new ArrayList<>(Arrays.asList(toSort));
+                } else {
+                    sortedList = new ArrayList<>(data);
+                    sortedList.sort(sortOrder);
+                }
 
-                            //TextIndex ignored, will be handeled like normal sort
-                            return i;
-                        }
-                    }
-                    return 0;
-                });
                 ret = sortedList;
                 break;
 
@@ -1738,8 +1706,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                                 if (varExpr instanceof Expr) {
                                     varValue = ((Expr) varExpr).evaluate(doc);
                                 } else if (varExpr instanceof Map) {
-                                    Expr expr = Expr.parse((Map<String, Object>) varExpr);
-                                    varValue = expr.evaluate(doc);
+                                    varValue = compiled(varExpr).evaluate(doc);
                                 } else if (varExpr instanceof String strValue) {
                                     if (strValue.startsWith("$$")) {
                                         varValue = letContext.get(strValue);
@@ -2013,19 +1980,10 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                     newRoot = step.get(stage);
                 }
 
-                if (newRoot instanceof String) {
-                    if (newRoot.toString().startsWith("$")) {
-                        //fieldRef
-                        for (Map<String, Object> doc : data) {
-                            //noinspection unchecked
-                            ret.add((Map<String, Object>) Expr.field(newRoot.toString()).evaluate(doc));
-                        }
-                    } else {
-                        throw new IllegalArgumentException("cannot replace root with single value");
-                    }
+                if (newRoot instanceof String && !newRoot.toString().startsWith("$")) {
+                    throw new IllegalArgumentException("cannot replace root with single value");
                 } else {
-                    //parse expr!!!!!
-                    Expr expr = Expr.parse(newRoot);
+                    Expr expr = compiled(newRoot);
 
                     for (Map<String, Object> doc : data) {
                         //noinspection unchecked
@@ -2108,8 +2066,9 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                         buckets.put(evaluatedDefaultBucket, new ArrayList<>());
                     }
 
-                    // Assign documents to buckets
-                    for (Map<String, Object> doc : data) {
+                    // Find the appropriate bucket, null if the document is in none
+                    Object defaultKey = evaluatedDefaultBucket;
+                    Function<Map<String, Object>, Object> bucketOf = doc -> {
                         Object groupValue;
 
                         if (groupByObj instanceof Expr) {
@@ -2124,50 +2083,55 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                             groupValue = groupByObj;
                         }
 
-                        // Find the appropriate bucket
-                        boolean assigned = false;
                         for (int i = 0; i < evaluatedBoundaries.size() - 1; i++) {
                             Object lowerBound = evaluatedBoundaries.get(i);
                             Object upperBound = evaluatedBoundaries.get(i + 1);
 
                             if (compareValues(groupValue, lowerBound) >= 0 &&
                                     compareValues(groupValue, upperBound) < 0) {
-                                buckets.get(lowerBound).add(doc);
-                                assigned = true;
-                                break;
+                                return lowerBound;
                             }
                         }
 
-                        // Assign to default bucket if no match
-                        if (!assigned && evaluatedDefaultBucket != null) {
-                            buckets.get(evaluatedDefaultBucket).add(doc);
+                        // default bucket if no match
+                        return defaultKey;
+                    };
+                    boolean inParallel = parallel && runsParallel(data.size());
+                    List<Object> bucketKeys = inParallel ? inAggregationPool(() -> data.parallelStream().map(bucketOf).collect(Collectors.toList()))
+                                              : data.stream().map(bucketOf).collect(Collectors.toList());
+
+                    // Assign documents to buckets, in input order
+                    for (int i = 0; i < bucketKeys.size(); i++) {
+                        if (bucketKeys.get(i) != null) {
+                            buckets.get(bucketKeys.get(i)).add(data.get(i));
                         }
                     }
 
                     // Generate bucket results
-                    ret = new ArrayList<>();
-                    for (Map.Entry<Object, List<Map<String, Object>>> bucketEntry : buckets.entrySet()) {
-                        if (!bucketEntry.getValue().isEmpty()) {
-                            Map<String, Object> bucketResult = new HashMap<>();
-                            bucketResult.put("_id", bucketEntry.getKey());
-
-                            // Apply output specifications
-                            if (outputSpec != null) {
-                                for (Map.Entry<String, Object> outputEntry : outputSpec.entrySet()) {
-                                    String outputField = outputEntry.getKey();
-                                    Object outputExpr = outputEntry.getValue();
-
-                                    Object result = computeGroupValue(outputExpr, bucketEntry.getValue());
-                                    bucketResult.put(outputField, result);
-                                }
-                            } else {
-                                // Default: add count field when no output specification is provided
-                                bucketResult.put("count", bucketEntry.getValue().size());
+                    Function<Map.Entry<Object, List<Map<String, Object>>>, Map<String, Object>> bucketResultOf = bucketEntry -> {
+                        Map<String, Object> bucketResult = new HashMap<>();
+                        bucketResult.put("_id", bucketEntry.getKey());
+
+                        // Apply output specifications
+                        if (outputSpec != null) {
+                            for (Map.Entry<String, Object> outputEntry : outputSpec.entrySet()) {
+                                String outputField = outputEntry.getKey();
+                                Object outputExpr = outputEntry.getValue();
+
+                                Object result = computeGroupValue(outputExpr, bucketEntry.getValue());
+                                bucketResult.put(outputField, result);
                             }
-
-                            ret.add(bucketResult);
+                        } else {
+                            // Default: add count field when no output specification is provided
+                            bucketResult.put("count", bucketEntry.getValue().size());
                         }
-                    }
+
+                        return bucketResult;
+                    };
+                    List<Map.Entry<Object, List<Map<String, Object>>>> filled = buckets.entrySet().stream().filter(e -> !e.getValue().isEmpty())
+                        .collect(Collectors.toList());
+                    ret = inParallel ? inAggregationPool(() -> filled.parallelStream().map(bucketResultOf).collect(Collectors.toList()))
+                          : filled.stream().map(bucketResultOf).collect(Collectors.toList());
                 }
                 break;
 
@@ -2267,25 +2231,20 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                 break;
 
             case "$sortByCount":
-                op = step.get(stage);
-                Map<Object, Integer> counts = new HashMap<>();
+                Object countBy = step.get(stage);
+                Map<Object, Integer> counts;
+
+                // Count occurrences - in parallel, with partial counts per thread merged
+                if (parallel && runsParallel(data.size())) {
+                    counts = inAggregationPool(() -> data.parallelStream().collect(HashMap::new,
+                                (m, doc) -> m.merge(sortByCountValue(countBy, doc), 1, Integer::sum),
+                                (a, b) -> b.forEach((k, v) -> a.merge(k, v, Integer::sum))));
+                } else {
+                    counts = new HashMap<>();
 
-                // Count occurrences
-                for (Map<String, Object> doc : data) {
-                    Object value;
-                    if (op instanceof Expr) {
-                        value = ((Expr) op).evaluate(doc);
-                    } else if (op instanceof String) {
-                        String fieldName = op.toString();
-                        if (fieldName.startsWith("$")) {
-                            fieldName = fieldName.substring(1);
-                        }
-                        value = doc.get(fieldName);
-                    } else {
-                        value = op;
+                    for (Map<String, Object> doc : data) {
+                        counts.merge(sortByCountValue(countBy, doc), 1, Integer::sum);
                     }
-
-                    counts.put(value, counts.getOrDefault(value, 0) + 1);
                 }
 
                 // Sort by count (descending)
@@ -2479,14 +2438,37 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
     }
 
     private List<Map<String, Object>> doAggregation() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        Iterator<Map<String, Object>> it = streamAggregation();
+
+        try {
+            it.forEachRemaining(result::add);
+        } finally {
+            closeStage(it);
+        }
+
+        return result;
+    }
+
+    /**
+     * The pipeline as a chain of iterators, each pulling the documents it needs from the one
+     * before: {@code $match}, {@code $project}, {@code $addFields}/{@code $set}, {@code $unset},
+     * {@code $unwind} and {@code $replaceRoot}/{@code $replaceWith} run {@link #execStep} on chunks
+     * of {@link #STREAM_CHUNK} documents, {@code $skip} and {@code $limit} count - a limit stops
+     * pulling once it is reached. All other stages need their whole input and collect it first.
+     * <p>
+     * Nothing but the initial find runs before the first document is requested.
+     */
+    private Iterator<Map<String, Object>> streamAggregation() {
         if (getMorphium() == null) {
             throw new IllegalStateException("Morphium not set");
         }
 
         Query<?> q;
+        boolean mapQuery = Map.class.equals(getSearchType()) || getMorphium().getARHelper().getAnnotationFromHierarchy(getSearchType(), Entity.class) == null;
         // Special handling for Map-based aggregations: there is no @Entity, so creating a typed Query would fail.
         // Use a map query and bind it to the explicit collection name instead.
-        if (Map.class.equals(getSearchType()) || getMorphium().getARHelper().getAnnotationFromHierarchy(getSearchType(), Entity.class) == null) {
+        if (mapQuery) {
             q = getMorphium().createMapQuery(getCollectionName());
         } else {
             q = getMorphium().createQueryFor(getSearchType());
@@ -2495,17 +2477,727 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
             }
         }
 
+        List<Map<String, Object>> pipeline = getPipeline();
+        int pushed = pushDownLeadingStages(q, pipeline, mapQuery);
         @SuppressWarnings("unchecked")
-        List<Map<String, Object>> result = (List<Map<String, Object>>) (List<?>) q.asMapList();
+        Iterator<Map<String, Object>> result = new ConsumingIterator((List<Map<String, Object>>) (List<?>) q.asMapList());
 
-        for (Map<String, Object> step : getPipeline()) {
-            //evaluate each step
-            result = execStep(step, result);
+        for (Map<String, Object> step : pipeline.subList(pushed, pipeline.size())) {
+            result = stageIterator(step, result);
         }
 
         return result;
     }
 
+    private Iterator<Map<String, Object>> stageIterator(Map<String, Object> step, Iterator<Map<String, Object>> upstream) {
+        String stage = step.size() == 1 ? step.keySet().iterator().next() : null;
+        Object op = stage == null ? null : step.get(stage);
+
+        if (("$limit".equals(stage) || "$skip".equals(stage)) && op instanceof Number n && n.longValue() >= 0) {
+            return new SkipLimitIterator(upstream, "$skip".equals(stage) ? n.longValue() : 0, "$limit".equals(stage) ? n.longValue() : -1);
+        }
+
+        if (stage != null && STREAMING_STAGES.contains(stage)) {
+            return new ChunkedStageIterator(step, upstream);
+        }
+
+        return new BlockingStageIterator(step, upstream);
+    }
+
+    /**
+     * the expression of a stage compiled once, see {@link CompiledExpr}
+     */
+    private CompiledExpr compiled(Object expression) {
+        CompiledExpr c = compiledExpressions.get(expression);
+
+        if (c == null) {
+            c = CompiledExpr.compile(expression);
+            compiledExpressions.put(expression, c);
+        }
+
+        return c;
+    }
+
+    /**
+     * the value a {@code $group} stage groups the document by - the evaluated {@code _id}
+     * expression, a map for combined ids
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object groupKey(Object id, Map<String, Object> o) {
+        if (id instanceof Map) {
+            //deal with combined Group IDs
+            //and expressions in IDs
+            if (((Map <?, ? >) id).keySet().toArray()[0].toString().startsWith("$")) {
+                //expr?
+                return compiled(id).evaluate(o);
+            }
+
+            log.debug("ID is combined...");
+            Map newIdMap = new HashMap<>();
+
+            for (var e : ((Map <?, ? >) id).entrySet()) {
+                var k = e.getKey();
+
+                try {
+                    var kEx = compiled(e.getKey());
+                    k = kEx.evaluate(o);
+
+                    while (k instanceof Expr) {
+                        k = ((Expr) k).evaluate(o);
+                    }
+                } catch (Exception ex) {
+                }
+
+                var v = e.getValue();
+
+                try {
+                    var vEy = compiled(e.getValue());
+                    v = vEy.evaluate(o);
+
+                    while (v instanceof Expr) {
+                        v = ((Expr) v).evaluate(o);
+                    }
+                } catch (Exception ex) {
+                }
+
+                newIdMap.put(k, v);
+            }
+
+            return newIdMap;
+        }
+
+        if (id != null && id.toString().startsWith("$")) {
+            return o.get(id.toString().substring(1));
+        }
+
+        return id;
+    }
+
+    private Object sortByCountValue(Object op, Map<String, Object> doc) {
+        if (op instanceof Expr) {
+            return ((Expr) op).evaluate(doc);
+        }
+
+        if (op instanceof String) {
+            String fieldName = op.toString();
+
+            if (fieldName.startsWith("$")) {
+                fieldName = fieldName.substring(1);
+            }
+
+            return doc.get(fieldName);
+        }
+
+        return op;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Comparator<Map<String, Object>> sortOrder(Map<String, Object> keysToSortBy) {
+        return (o1, o2) -> {
+            for (String k : keysToSortBy.keySet()) {
+                int i = ((Comparable) o1.get(k)).compareTo(o2.get(k));
+
+                if (i != 0) {
+                    if (keysToSortBy.get(k).equals(-1)) {
+                        i = -i;
+                    }
+
+                    //TextIndex ignored, will be handeled like normal sort
+                    return i;
+                }
+            }
+            return 0;
+        };
+    }
+
+    private InMemoryDriver inMemoryDriver() {
+        return morphium != null && morphium.getDriver() instanceof InMemoryDriver d ? d : null;
+    }
+
+    /**
+     * true, if a stage with this many input documents runs on the aggregation pool of the driver,
+     * see {@link InMemoryDriver#setAggregationParallelThreshold(int)}
+     */
+    private boolean runsParallel(int docs) {
+        InMemoryDriver d = inMemoryDriver();
+        return d != null && d.getAggregationParallelism() > 1 && d.getAggregationParallelThreshold() > 0 && docs >= d.getAggregationParallelThreshold();
+    }
+
+    /** runs the task in the aggregation pool - parallel streams and sorts started by it use that pool */
+    private <V> V inAggregationPool(Callable<V> task) {
+        return inMemoryDriver().getAggregationPool().invoke(ForkJoinTask.adapt(task));
+    }
+
+    /**
+     * {@code $group} on partitions of the input: the documents are partitioned by the hash of their
+     * group key, so that every group is complete in one partition and the partitions are grouped in
+     * parallel with the sequential implementation - no accumulator needs to be merged and all of
+     * them behave exactly like on one thread.
+     */
+    private List<Map<String, Object>> groupPartitioned(Map<String, Object> step, Map<String, Object> group, List<Map<String, Object>> data) {
+        Object id = group.get("_id");
+        int parts = inMemoryDriver().getAggregationParallelism();
+        return inAggregationPool(() -> {
+            int[] partitionOf = data.parallelStream().mapToInt(d -> Math.floorMod(Objects.hashCode(groupKey(id, d)), parts)).toArray();
+            List<List<Map<String, Object>>> partitions = new ArrayList<>(parts);
+
+            for (int i = 0; i < parts; i++) {
+                partitions.add(new ArrayList<>());
+            }
+
+            for (int i = 0; i < partitionOf.length; i++) {
+                partitions.get(partitionOf[i]).add(data.get(i));
+            }
+
+            return partitions.parallelStream().filter(p -> !p.isEmpty()).flatMap(p -> execStep(step, p, false).stream())
+                   .collect(Collectors.toList());
+        });
+    }
+
+    /** releases what a stage iterator holds, e.g. spill files of stages that were not read to the end */
+    private void closeStage(Iterator<Map<String, Object>> it) {
+        if (it instanceof AutoCloseable c) {
+            try {
+                c.close();
+            } catch (Exception e) {
+                log.warn("Could not close aggregation stage", e);
+            }
+        }
+    }
+
+    /**
+     * {@code $sort} with allowDiskUse: whenever the buffered input exceeds the memory limit of the
+     * driver, it is sorted and written to a {@link SpillFile} as a run. The runs are merged while
+     * the output is read - only one document per run is on the heap then. Stable like the in
+     * memory sort: on equal keys, earlier runs come first.
+     */
+    @SuppressWarnings("unchecked")
+    private Iterator<Map<String, Object>> externalSort(Map<String, Object> step, Iterator<Map<String, Object>> upstream, InMemoryDriver d) {
+        Comparator<Map<String, Object>> order = sortOrder((Map<String, Object>) step.get("$sort"));
+        List<SpillFile> runs = new ArrayList<>();
+
+        try {
+            List<Map<String, Object>> buffer = new ArrayList<>();
+            long bytes = 0;
+
+            while (upstream.hasNext()) {
+                Map<String, Object> doc = upstream.next();
+                buffer.add(doc);
+                bytes += SpillFile.estimateSize(doc);
+
+                if (bytes > d.getAggregationMemoryLimit()) {
+                    SpillFile run = new SpillFile(d.getAggregationSpillDirectory());
+                    runs.add(run);
+
+                    for (Map<String, Object> sorted : execStep(step, buffer)) {
+                        run.write(sorted);
+                    }
+
+                    buffer = new ArrayList<>();
+                    bytes = 0;
+                }
+            }
+
+            List<Map<String, Object>> last = execStep(step, buffer);
+
+            if (runs.isEmpty()) {
+                return last.iterator();
+            }
+
+            log.debug("$sort spilled {} runs to disk", runs.size());
+            List<Iterator<Map<String, Object>>> sources = new ArrayList<>();
+
+            for (SpillFile run : runs) {
+                sources.add(run.read());
+            }
+
+            sources.add(last.iterator());
+            return new MergingIterator(sources, order, runs);
+        } catch (IOException e) {
+            runs.forEach(SpillFile::close);
+            throw new MorphiumDriverException("spilling $sort to disk failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // the stage iterator is not set yet, nobody else would close them
+            runs.forEach(SpillFile::close);
+            throw e;
+        }
+    }
+
+    /**
+     * {@code $group} with allowDiskUse: once the buffered input exceeds the memory limit of the
+     * driver, it is written to {@link #SPILL_PARTITIONS} {@link SpillFile}s by the hash of the group
+     * key, and so is all following input. Every group is complete in one partition - the
+     * partitions are then grouped one after the other, with only one of them on the heap.
+     */
+    @SuppressWarnings("unchecked")
+    private Iterator<Map<String, Object>> externalGroup(Map<String, Object> step, Iterator<Map<String, Object>> upstream, InMemoryDriver d) {
+        Object id = ((Map<String, Object>) step.get("$group")).get("_id");
+        List<SpillFile> partitions = new ArrayList<>();
+
+        try {
+            List<Map<String, Object>> buffer = new ArrayList<>();
+            long bytes = 0;
+
+            while (upstream.hasNext()) {
+                Map<String, Object> doc = upstream.next();
+                buffer.add(doc);
+                bytes += SpillFile.estimateSize(doc);
+
+                if (bytes > d.getAggregationMemoryLimit()) {
+                    spillPartitioned(buffer, id, partitions, d);
+                    buffer.clear();
+                    bytes = 0;
+                }
+            }
+
+            if (partitions.isEmpty()) {
+                return execStep(step, buffer).iterator();
+            }
+
+            spillPartitioned(buffer, id, partitions, d);
+            log.debug("$group spilled to {} partitions on disk", partitions.size());
+            return new PartitionGroupIterator(step, partitions);
+        } catch (IOException e) {
+            partitions.forEach(SpillFile::close);
+            throw new MorphiumDriverException("spilling $group to disk failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // the stage iterator is not set yet, nobody else would close them
+            partitions.forEach(SpillFile::close);
+            throw e;
+        }
+    }
+
+    private void spillPartitioned(List<Map<String, Object>> docs, Object id, List<SpillFile> partitions, InMemoryDriver d) throws IOException {
+        while (partitions.size() < SPILL_PARTITIONS) {
+            partitions.add(new SpillFile(d.getAggregationSpillDirectory()));
+        }
+
+        for (Map<String, Object> doc : docs) {
+            partitions.get(Math.floorMod(Objects.hashCode(groupKey(id, doc)), SPILL_PARTITIONS)).write(doc);
+        }
+    }
+
+    /** k-way merge of sorted sources */
+    private static final class MergingIterator implements Iterator<Map<String, Object>>, AutoCloseable {
+        private final List<Iterator<Map<String, Object>>> sources;
+        private final List<SpillFile> files;
+        // source index and current document of every source not exhausted
+        private final PriorityQueue<Map.Entry<Integer, Map<String, Object>>> heads;
+
+        MergingIterator(List<Iterator<Map<String, Object>>> sources, Comparator<Map<String, Object>> order, List<SpillFile> files) {
+            this.sources = sources;
+            this.files = files;
+            Comparator<Map.Entry<Integer, Map<String, Object>>> byDoc = (a, b) -> order.compare(a.getValue(), b.getValue());
+            heads = new PriorityQueue<>(Math.max(1, sources.size()), byDoc.thenComparing(Map.Entry::getKey));
+
+            for (int i = 0; i < sources.size(); i++) {
+                advance(i);
+            }
+        }
+
+        private void advance(int source) {
+            if (sources.get(source).hasNext()) {
+                heads.add(new AbstractMap.SimpleImmutableEntry<>(source, sources.get(source).next()));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            Map.Entry<Integer, Map<String, Object>> head = heads.poll();
+
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+
+            advance(head.getKey());
+            return head.getValue();
+        }
+
+        @Override
+        public void close() {
+            files.forEach(SpillFile::close);
+        }
+    }
+
+    /** groups the spilled partitions one by one */
+    private final class PartitionGroupIterator implements Iterator<Map<String, Object>>, AutoCloseable {
+        private final Map<String, Object> step;
+        private final List<SpillFile> partitions;
+        private int next = 0;
+        private Iterator<Map<String, Object>> out = Collections.emptyIterator();
+
+        PartitionGroupIterator(Map<String, Object> step, List<SpillFile> partitions) {
+            this.step = step;
+            this.partitions = partitions;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!out.hasNext() && next < partitions.size()) {
+                SpillFile partition = partitions.get(next++);
+                List<Map<String, Object>> docs = new ArrayList<>();
+
+                try {
+                    partition.read().forEachRemaining(docs::add);
+                } catch (IOException e) {
+                    throw new MorphiumDriverException("reading spilled $group partition failed: " + e.getMessage(), e);
+                } finally {
+                    partition.close();
+                }
+
+                out = execStep(step, docs).iterator();
+            }
+
+            return out.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return out.next();
+        }
+
+        @Override
+        public void close() {
+            partitions.forEach(SpillFile::close);
+        }
+    }
+
+    /** the documents read by the initial find, references are dropped as they are handed out */
+    private static final class ConsumingIterator implements Iterator<Map<String, Object>> {
+        private final List<Map<String, Object>> docs;
+        private int idx = 0;
+
+        ConsumingIterator(List<Map<String, Object>> docs) {
+            this.docs = docs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return idx < docs.size();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Map<String, Object> ret = docs.get(idx);
+            docs.set(idx++, null);
+            return ret;
+        }
+    }
+
+    private final class SkipLimitIterator implements Iterator<Map<String, Object>>, AutoCloseable {
+        private final Iterator<Map<String, Object>> upstream;
+        private long skip;
+        private long remaining;
+
+        /**
+         * @param limit -1 for no limit
+         */
+        SkipLimitIterator(Iterator<Map<String, Object>> upstream, long skip, long limit) {
+            this.upstream = upstream;
+            this.skip = skip;
+            this.remaining = limit;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (remaining == 0) {
+                return false;
+            }
+
+            while (skip > 0 && upstream.hasNext()) {
+                upstream.next();
+                skip--;
+            }
+
+            return upstream.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (remaining > 0) {
+                remaining--;
+            }
+
+            return upstream.next();
+        }
+
+        @Override
+        public void close() {
+            closeStage(upstream);
+        }
+    }
+
+    /** runs a stage working document by document on chunks of its input */
+    private final class ChunkedStageIterator implements Iterator<Map<String, Object>>, AutoCloseable {
+        private final Map<String, Object> step;
+        private final Iterator<Map<String, Object>> upstream;
+        private Iterator<Map<String, Object>> out = Collections.emptyIterator();
+
+        ChunkedStageIterator(Map<String, Object> step, Iterator<Map<String, Object>> upstream) {
+            this.step = step;
+            this.upstream = upstream;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!out.hasNext()) {
+                if (!upstream.hasNext()) {
+                    return false;
+                }
+
+                List<Map<String, Object>> chunk = new ArrayList<>(STREAM_CHUNK);
+
+                while (chunk.size() < STREAM_CHUNK && upstream.hasNext()) {
+                    chunk.add(upstream.next());
+                }
+
+                out = execStep(step, chunk).iterator();
+            }
+
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closeStage(upstream);
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return out.next();
+        }
+    }
+
+    /** runs a stage needing all of its input, on first access */
+    private final class BlockingStageIterator implements Iterator<Map<String, Object>>, AutoCloseable {
+        private final Map<String, Object> step;
+        private final Iterator<Map<String, Object>> upstream;
+        private Iterator<Map<String, Object>> out;
+
+        BlockingStageIterator(Map<String, Object> step, Iterator<Map<String, Object>> upstream) {
+            this.step = step;
+            this.upstream = upstream;
+        }
+
+        private Iterator<Map<String, Object>> out() {
+            if (out == null) {
+                InMemoryDriver d = inMemoryDriver();
+
+                if (useDisk && d != null && step.size() == 1 && step.containsKey("$sort")) {
+                    out = externalSort(step, upstream, d);
+                } else if (useDisk && d != null && step.size() == 1 && step.containsKey("$group")) {
+                    out = externalGroup(step, upstream, d);
+                } else {
+                    List<Map<String, Object>> data = new ArrayList<>();
+                    upstream.forEachRemaining(data::add);
+                    out = execStep(step, data).iterator();
+                }
+            }
+
+            return out;
+        }
+
+        @Override
+        public void close() {
+            closeStage(out);
+            closeStage(upstream);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return out().hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            return out().next();
+        }
+    }
+
+    /**
+     * Moves the leading {@code $match}, {@code $sort}, {@code $skip}, {@code $limit} and
+     * {@code $project} stages into the query the pipeline starts with: the driver evaluates them
+     * while reading the collection (using its indexes) instead of the pipeline copying all
+     * documents first and filtering them afterwards.
+     * <p>
+     * Only stages in the order a find command applies them are taken - matches, then a sort, skips,
+     * limits and one projection. Anything else ends the pushdown, e.g. a {@code $match} after a
+     * {@code $sort} or a {@code $skip} after a {@code $limit}. Not pushed are {@code $text} and geo
+     * filters, sorts by anything but 1/-1, projections other than plain inclusion or exclusion of
+     * top level fields, and everything as soon as a collation is set - the find does not get it.
+     *
+     * @return number of stages taken from the start of the pipeline
+     */
+    @SuppressWarnings("unchecked")
+    private int pushDownLeadingStages(Query<?> q, List<Map<String, Object>> pipeline, boolean mapQuery) {
+        if (collation != null) {
+            return 0;
+        }
+
+        List<Map<String, Object>> filters = new ArrayList<>();
+        Map<String, Object> sort = null;
+        int skip = 0;
+        int limit = 0;
+        Map<String, Object> projection = null;
+        int pushed = 0;
+
+        for (Map<String, Object> step : pipeline) {
+            if (step.size() != 1 || projection != null) {
+                break;
+            }
+
+            String stage = step.keySet().iterator().next();
+            Object op = step.get(stage);
+
+            if (stage.equals("$match") && sort == null && skip == 0 && limit == 0 && op instanceof Map && isPushableFilter(op)) {
+                filters.add((Map<String, Object>) op);
+            } else if (stage.equals("$sort") && sort == null && skip == 0 && limit == 0 && op instanceof Map && isPushableSort((Map<String, Object>) op)) {
+                sort = new LinkedHashMap<>((Map<String, Object>) op);
+            } else if (stage.equals("$skip") && limit == 0 && op instanceof Number n && n.intValue() >= 0) {
+                skip += n.intValue();
+            } else if (stage.equals("$limit") && op instanceof Number n && n.intValue() > 0) {
+                limit = limit == 0 ? n.intValue() : Math.min(limit, n.intValue());
+            } else if (stage.equals("$project") && mapQuery && op instanceof Map) {
+                projection = pushableProjection((Map<String, Object>) op);
+
+                if (projection == null) {
+                    break;
+                }
+            } else {
+                break;
+            }
+
+            pushed++;
+        }
+
+        if (pushed == 0) {
+            return 0;
+        }
+
+        if (filters.size() == 1) {
+            q.rawQuery(filters.get(0));
+        } else if (filters.size() > 1) {
+            q.rawQuery(Doc.of("$and", filters));
+        }
+
+        if (sort != null) {
+            q.setSort(sort);
+        }
+
+        if (skip > 0) {
+            q.skip(skip);
+        }
+
+        if (limit > 0) {
+            q.limit(limit);
+        }
+
+        if (projection != null) {
+            q.setFieldList(projection);
+        }
+
+        return pushed;
+    }
+
+    /** filters the driver evaluates like {@code $match} does: no text search, no geo queries, no expression objects */
+    private boolean isPushableFilter(Object filter) {
+        if (filter instanceof Map<?, ?> m) {
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                String k = String.valueOf(e.getKey());
+
+                if (k.equals("$text") || k.equals("$near") || k.equals("$nearSphere") || k.equals("$geoNear") || !isPushableFilter(e.getValue())) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (filter instanceof Collection<?> c) {
+            for (Object o : c) {
+                if (!isPushableFilter(o)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return !(filter instanceof Expr);
+    }
+
+    private boolean isPushableSort(Map<String, Object> sort) {
+        if (sort.isEmpty()) {
+            return false;
+        }
+
+        for (Object v : sort.values()) {
+            if (!(v instanceof Number n) || (n.intValue() != 1 && n.intValue() != -1)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * the projection as the find command takes it, null if the find would not return the same as
+     * the {@code $project} stage: computed, nested or mixed include / exclude fields
+     */
+    private Map<String, Object> pushableProjection(Map<String, Object> project) {
+        Map<String, Object> ret = new LinkedHashMap<>();
+        Boolean include = null;
+
+        for (Map.Entry<String, Object> e : project.entrySet()) {
+            String k = e.getKey();
+            Object v = e.getValue();
+
+            if (k.startsWith("$") || k.contains(".")) {
+                return null;
+            }
+
+            boolean in;
+
+            if (v instanceof Boolean b) {
+                in = b;
+            } else if (v instanceof Number n && (n.intValue() == 0 || n.intValue() == 1) && n.doubleValue() == n.intValue()) {
+                in = n.intValue() == 1;
+            } else {
+                return null;
+            }
+
+            if (include != null && include != in) {
+                return null;
+            }
+
+            include = in;
+            ret.put(k, in ? 1 : 0);
+        }
+
+        return ret.isEmpty() ? null : ret;
+    }
+
     private Object normalizeGraphValue(Object value) {
         if (value instanceof Number num) {
             return num.doubleValue();
@@ -2656,7 +3348,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
             return ((Expr) value).evaluate(o);
         }
         if (value instanceof Map) {
-            return Expr.parse(value).evaluate(o);
+            return compiled(value).evaluate(o);
         }
         return value;
     }
@@ -2782,7 +3474,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                 // handles both "$field.path" and "$$ROOT" style references
                 bound = Expr.field(s).evaluate(letContext);
             } else if (value instanceof Map) {
-                bound = Expr.parse(value).evaluate(letContext);
+                bound = compiled(value).evaluate(letContext);
             } else {
                 bound = value;
             }
@@ -3002,7 +3694,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
         }
 
         if (value instanceof Map) {
-            return Expr.parse(value).evaluate(ctx);
+            return compiled(value).evaluate(ctx);
         }
 
         return value;
@@ -3185,7 +3877,7 @@ public class InMemAggregator<T, R> implements Aggregator<T, R> {
                 if (fieldValue instanceof Map) {
                     try {
                         Map<String, Object> exprMap = (Map<String, Object>) fieldValue;
-                        Expr fieldExpr = Expr.parse(exprMap);
+                        Expr fieldExpr = compiled(exprMap);
                         Object evaluatedValue = fieldExpr.evaluate(doc);
                         result.put(fieldName, evaluatedValue);
                     } catch (Exception e) {
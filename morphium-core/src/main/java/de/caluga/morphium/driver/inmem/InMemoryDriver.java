@@ -2,6 +2,7 @@ package de.caluga.morphium.driver.inmem;
 
 import de.caluga.morphium.AnnotationAndReflectionHelper;
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -33,12 +34,12 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.text.Collator;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -47,6 +48,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
@@ -82,6 +84,7 @@ import de.caluga.morphium.driver.ReadPreference;
 import de.caluga.morphium.driver.SingleBatchCursor;
 import de.caluga.morphium.driver.WriteConcern;
 import de.caluga.morphium.driver.bson.BsonEncoder;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
 import de.caluga.morphium.driver.bson.MongoTimestamp;
 import de.caluga.morphium.driver.bulk.BulkRequest;
 import de.caluga.morphium.driver.bulk.BulkRequestContext;
@@ -168,8 +171,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
     // If you want sharing between Morphium instances, enable it via
     // `cfg.driverSettings().setInMemorySharedDatabases(true)` which reuses the SAME driver instance.
     private final Map<String, Map<String, List<Map<String, Object>>>> database = new ConcurrentHashMap<>();
-    // ReadWriteLocks per collection for fine-grained concurrency control
-    private final Map<String, java.util.concurrent.locks.ReadWriteLock> collectionLocks = new ConcurrentHashMap<>();
+    // ReadWriteLocks per collection for fine-grained concurrency control, see CollectionLock for
+    // the optimistic reads on top
+    private final Map<String, CollectionLock> collectionLocks = new ConcurrentHashMap<>();
     private int idleSleepTime = 20;
     /**
      * index definitions by db and collection name
@@ -199,6 +203,23 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
      */
     long indexSorts;
 
+    /**
+     * {@code _id} lookups served optimistically without the collection's read lock
+     * ({@link #findByIdOptimistic}), and those that raced a writer and were repeated under the
+     * lock. Not atomic, same as {@link #fullScans}.
+     */
+    long optimisticReads;
+    long optimisticReadRetries;
+    private volatile boolean optimisticReadsEnabled = true;
+
+    /**
+     * Single-document updates run under a {@link CollectionLock#documentWriteLock} instead of the
+     * collection's write lock ({@link #updateDocumentStriped}). Not atomic, same as
+     * {@link #fullScans}.
+     */
+    long stripedWrites;
+    private volatile boolean stripedWritesEnabled = true;
+
     /**
      * Slow-query log threshold in milliseconds (Phase C, Task 6 - "Slow-Query-Metriken"):
      * {@code find}/{@code count}/{@code aggregate} calls whose own execution takes at least this
@@ -231,6 +252,166 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         this.slowQueryThresholdMillis = slowQueryThresholdMillis;
     }
 
+    public boolean isOptimisticReads() {
+        return optimisticReadsEnabled;
+    }
+
+    /** Switches the lock-free {@code _id} lookups of {@link #findByIdOptimistic} on (default) or off. */
+    public void setOptimisticReads(boolean enabled) {
+        this.optimisticReadsEnabled = enabled;
+    }
+
+    public boolean isStripedWrites() {
+        return stripedWritesEnabled;
+    }
+
+    /** Switches the per-document write locks of {@link #updateDocumentStriped} on (default) or off. */
+    public void setStripedWrites(boolean enabled) {
+        this.stripedWritesEnabled = enabled;
+    }
+
+    /**
+     * In-memory aggregation stages ({@code $group}, {@code $sortByCount}, {@code $bucket},
+     * {@code $sort}) with at least this many input documents run in parallel on
+     * {@link #getAggregationPool()}; smaller inputs stay on the calling thread, where the
+     * overhead of splitting and merging would exceed the gain. Defaults to the
+     * {@code morphium.inmem.aggregationParallelThreshold} system property, 0 or less disables
+     * parallel stages.
+     */
+    private volatile int aggregationParallelThreshold = Integer.getInteger("morphium.inmem.aggregationParallelThreshold", 20000);
+    /**
+     * threads of the aggregation pool and number of partitions of a parallel {@code $group},
+     * defaults to the {@code morphium.inmem.aggregationParallelism} system property or the
+     * number of processors
+     */
+    private volatile int aggregationParallelism = Integer.getInteger("morphium.inmem.aggregationParallelism",
+            Runtime.getRuntime().availableProcessors());
+    private ForkJoinPool aggregationPool;
+
+    /**
+     * Heap a blocking aggregation stage may fill with its input before it spills to disk, in
+     * bytes (estimated) - only for aggregations with allowDiskUse, {@code $sort} and {@code $group}
+     * then write sorted runs or hash partitions as BSON files to
+     * {@link #getAggregationSpillDirectory()}. Defaults to 100 MB like the limit of MongoDB, or the
+     * {@code morphium.inmem.aggregationMemoryLimitBytes} system property.
+     */
+    private volatile long aggregationMemoryLimit = Long.getLong("morphium.inmem.aggregationMemoryLimitBytes", 100L * 1024 * 1024);
+    /** null for the temp directory of the JVM */
+    private volatile File aggregationSpillDirectory;
+
+    public long getAggregationMemoryLimit() {
+        return aggregationMemoryLimit;
+    }
+
+    public void setAggregationMemoryLimit(long aggregationMemoryLimit) {
+        this.aggregationMemoryLimit = aggregationMemoryLimit;
+    }
+
+    public File getAggregationSpillDirectory() {
+        return aggregationSpillDirectory;
+    }
+
+    public void setAggregationSpillDirectory(File aggregationSpillDirectory) {
+        this.aggregationSpillDirectory = aggregationSpillDirectory;
+    }
+
+    /**
+     * Log every mutation is appended to, null when not logging. Set it after
+     * {@link #recoverFromCheckpoint(File, File)}, before the first write - the driver does not
+     * close it.
+     */
+    private volatile WriteAheadLog writeAheadLog;
+    private final Object checkpointLock = new Object();
+    // changed by recoverFromCheckpoint(), the next checkpoint has to rewrite them
+    private final Set<String> replayedNamespaces = ConcurrentHashMap.newKeySet();
+    /** file in a checkpoint directory holding the first write-ahead log segment to replay */
+    public static final String CHECKPOINT_MANIFEST = "checkpoint.properties";
+    /** suffix of dump files written as gzipped JSON */
+    public static final String JSON_DUMP_SUFFIX = ".morphium.gz";
+    /** suffix of dump files written as binary BSON snapshots, see {@link #snapshotToFile(String, File)} */
+    public static final String BSON_DUMP_SUFFIX = ".morphium.bson";
+
+    /** file format of {@link #dumpAllToDirectory(File)} and {@link #checkpoint(File)} */
+    public enum DumpFormat {
+        /** gzipped JSON, readable with {@code zcat | jq} */
+        JSON,
+        /** binary BSON snapshot with index definitions, much faster to write and restore */
+        BSON,
+    }
+
+    private volatile DumpFormat dumpFormat = DumpFormat.JSON;
+    /** compression of the blocks of a BSON snapshot, one of the {@code OpCompressed.COMPRESSOR_*} ids */
+    private volatile int dumpCompressor = OpCompressed.COMPRESSOR_SNAPPY;
+
+    public DumpFormat getDumpFormat() {
+        return dumpFormat;
+    }
+
+    public void setDumpFormat(DumpFormat dumpFormat) {
+        this.dumpFormat = dumpFormat == null ? DumpFormat.JSON : dumpFormat;
+    }
+
+    public int getDumpCompressor() {
+        return dumpCompressor;
+    }
+
+    /**
+     * @param dumpCompressor {@code OpCompressed.COMPRESSOR_SNAPPY} (default),
+     *                       {@code COMPRESSOR_ZLIB} or {@code COMPRESSOR_NOOP}
+     */
+    public void setDumpCompressor(int dumpCompressor) {
+        BsonSnapshot.checkCompressor(dumpCompressor);
+        this.dumpCompressor = dumpCompressor;
+    }
+
+    private String dumpSuffix() {
+        return dumpFormat == DumpFormat.BSON ? BSON_DUMP_SUFFIX : JSON_DUMP_SUFFIX;
+    }
+
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        if (writeAheadLog != null) {
+            writeAheadLog.markDirty(replayedNamespaces);
+            replayedNamespaces.clear();
+        }
+
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    public int getAggregationParallelThreshold() {
+        return aggregationParallelThreshold;
+    }
+
+    public void setAggregationParallelThreshold(int aggregationParallelThreshold) {
+        this.aggregationParallelThreshold = aggregationParallelThreshold;
+    }
+
+    public int getAggregationParallelism() {
+        return aggregationParallelism;
+    }
+
+    /** takes effect for the pool created next - the running one is replaced */
+    public synchronized void setAggregationParallelism(int aggregationParallelism) {
+        this.aggregationParallelism = aggregationParallelism;
+
+        if (aggregationPool != null) {
+            aggregationPool.shutdown();
+            aggregationPool = null;
+        }
+    }
+
+    /** the pool parallel aggregation stages run on, created on first use */
+    public synchronized ForkJoinPool getAggregationPool() {
+        if (aggregationPool == null || aggregationPool.isShutdown()) {
+            aggregationPool = new ForkJoinPool(Math.max(1, aggregationParallelism));
+        }
+
+        return aggregationPool;
+    }
+
     /**
      * Read-only snapshot of this driver's query-planning and slow-query counters (Phase C, Task 6).
      * Not atomic across keys - same caveat as the individual counters it reads (see
@@ -241,6 +422,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         stats.put("fullScans", fullScans);
         stats.put("indexHits", indexHits);
         stats.put("indexSorts", indexSorts);
+        stats.put("optimisticReads", optimisticReads);
+        stats.put("optimisticReadRetries", optimisticReadRetries);
+        stats.put("stripedWrites", stripedWrites);
         stats.put("slowQueries", slowQueries);
         stats.put("slowQueriesCollScan", slowQueriesCollScan);
         stats.put("slowQueriesIxscan", slowQueriesIxscan);
@@ -587,7 +771,6 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
     private final Map<String, IdentityHashMap<Map<String, Object>, Long>> cappedDocSizesByCollection = new ConcurrentHashMap<>();
     private final Map<String, AtomicLong> cappedCurrentBytesByCollection = new ConcurrentHashMap<>();
     private final List<WatchMonitor> monitors = new CopyOnWriteArrayList<>();
-    private final BlockingQueue<Runnable> eventQueue = new LinkedBlockingDeque<>();
     private final java.util.concurrent.ConcurrentLinkedQueue<Map<String, Object>> commandResults = new java.util.concurrent.ConcurrentLinkedQueue<>();
     private final java.util.concurrent.ConcurrentHashMap<Integer, Map<String, Object>> commandResultsById = new java.util.concurrent.ConcurrentHashMap<>();
     // Method cache for lock-free command dispatch
@@ -652,18 +835,30 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
     private ScheduledThreadPoolExecutor ttlExec = newTtlExecutor();
     // Executor for dispatching change stream events asynchronously
     // This prevents insert/update/delete operations from blocking on event delivery
-    // SINGLE thread on purpose: mongod guarantees per-cursor event ordering, and a pool
-    // does not preserve submission order — with the former cached pool two back-to-back
-    // events could reach a subscriber swapped (or even concurrently) under CPU load,
-    // see ChangeStreamEventOrderingTest. The queue is unbounded, so writers still never
-    // block; serverMode doesn't use this executor at all (synchronous delivery for
-    // replication ordering and backpressure, see dispatchEvent).
-    // Platform thread on purpose: virtual threads can deadlock the whole JVM here
+    // A pool, but ordered per subscription: the writer appends each event to the pending queue of
+    // every subscription registered for its namespace (under the fan-out lock of the namespace,
+    // so all streams see the writes to one namespace in the same order) and at most one drain
+    // task per subscription runs on the pool at a time - mongod guarantees per-cursor event
+    // ordering, see ChangeStreamEventOrderingTest. Matching and the pipeline run in the drain
+    // task, not on the writer. Writes to different namespaces fan out in parallel, so a database
+    // or cluster wide stream may interleave them differently than another one. A slow callback
+    // therefore only holds up its own stream, independent streams run on separate threads, and
+    // nothing polls: a drain task is only submitted when an idle subscription gets an event.
+    // The queues are unbounded, so writers still never block; serverMode doesn't use this
+    // executor at all (synchronous delivery for replication ordering and backpressure, see
+    // dispatchEvent).
+    // Platform threads on purpose: virtual threads can deadlock the whole JVM here
     // under JDK 21 — dispatchers pinned on the logback appender lock occupy all
     // carriers while the unmounted lock holder never gets scheduled again (#234).
     // Not final: like exec/watchExec/ttlExec it has to be re-creatable, because shutdown() stops it
     // and connect() is allowed to bring the same driver instance back up.
-    private java.util.concurrent.ExecutorService eventDispatcher = newEventDispatcher();
+    private static final int DEFAULT_DISPATCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private volatile int changeStreamDispatchThreads = Integer.getInteger("inmemory.dispatchThreads", DEFAULT_DISPATCH_THREADS);
+    private volatile java.util.concurrent.ExecutorService eventDispatcher = newEventDispatcher(changeStreamDispatchThreads);
+    // fan-out locks by namespace ("db.collection", "db" for database level events)
+    private final Map<String, ReentrantLock> changeStreamFanOutLocks = new ConcurrentHashMap<>();
+    // events a drain task delivers before it yields the thread to other subscriptions
+    private static final int DISPATCH_BATCH = 256;
     private boolean running = true;
     private int expireCheck = 10000;
     private ScheduledFuture<?> expire;
@@ -681,11 +876,35 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                         Thread.ofPlatform().name("inmem-watch-", 0).daemon(true).factory());
     }
 
-    private static java.util.concurrent.ExecutorService newEventDispatcher() {
-        return java.util.concurrent.Executors.newSingleThreadExecutor(
+    private static java.util.concurrent.ExecutorService newEventDispatcher(int threads) {
+        return java.util.concurrent.Executors.newFixedThreadPool(threads,
                         Thread.ofPlatform().name("event-dispatcher-", 0).daemon(true).factory());
     }
 
+    public int getChangeStreamDispatchThreads() {
+        return changeStreamDispatchThreads;
+    }
+
+    /**
+     * Threads delivering change events to client-mode subscriptions (default: number of cores,
+     * at least 2, or the {@code inmemory.dispatchThreads} system property). Each subscription is
+     * served by one thread at a time, so this bounds how many slow consumers can be busy in
+     * parallel. Changing it replaces the pool; queued deliveries finish on the old one.
+     */
+    public void setChangeStreamDispatchThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("changeStreamDispatchThreads must be >= 1");
+        }
+
+        this.changeStreamDispatchThreads = threads;
+        java.util.concurrent.ExecutorService old = eventDispatcher;
+
+        if (!old.isShutdown()) {
+            eventDispatcher = newEventDispatcher(threads);
+            old.shutdown();
+        }
+    }
+
     private static ScheduledThreadPoolExecutor newTtlExecutor() {
         ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1,
                         Thread.ofPlatform().name("inmem-ttl-", 0).daemon(true).factory());
@@ -801,7 +1020,94 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         }
     }
 
+    /** restores a database from a gzipped JSON dump or a BSON snapshot, replacing it */
     public void restore(InputStream in) throws IOException, ParseException {
+        InputStream buffered = new BufferedInputStream(in, 64 * 1024);
+
+        if (!isSnapshot(buffered)) {
+            InMemDumpContainer dump = readDump(buffered);
+            setDatabase(dump.getDb(), dump.getData());
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, aggregationParallelism));
+
+        try {
+            installSnapshot(joinSnapshot(BsonSnapshot.read(buffered, pool)), true, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** peeks at the start of {@code in}, which has to support mark/reset */
+    private static boolean isSnapshot(InputStream in) throws IOException {
+        in.mark(BsonSnapshot.MAGIC.length);
+        byte[] head = in.readNBytes(BsonSnapshot.MAGIC.length);
+        in.reset();
+        return BsonSnapshot.isSnapshot(head);
+    }
+
+    private static BsonSnapshot.Snapshot joinSnapshot(CompletableFuture<BsonSnapshot.Snapshot> snapshot) throws IOException {
+        try {
+            return snapshot.join();
+        } catch (RuntimeException e) {
+            throw BsonSnapshot.unwrap(e);
+        }
+    }
+
+    /**
+     * Puts the collections of a snapshot into the store - replacing the whole database or just
+     * these collections - and restores their capped settings and index definitions. The index
+     * stores are then built right away, in parallel on {@code pool}, instead of on the first query.
+     */
+    @SuppressWarnings("unchecked")
+    private void installSnapshot(BsonSnapshot.Snapshot snapshot, boolean wholeDatabase, ForkJoinPool pool) {
+        String db = snapshot.db();
+        Map<String, List<Map<String, Object>>> data = new ConcurrentHashMap<>();
+
+        for (BsonSnapshot.Collection c : snapshot.collections()) {
+            data.put(c.name(), c.documents());
+        }
+
+        if (wholeDatabase) {
+            database.put(db, data);
+        } else {
+            database.computeIfAbsent(db, k -> new ConcurrentHashMap<>()).putAll(data);
+        }
+
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+
+        for (BsonSnapshot.Collection c : snapshot.collections()) {
+            getIndexesForDB(db).remove(c.name());
+            invalidateIndexStore(db, c.name());
+
+            if (c.capped() != null) {
+                registerCappedCollection(db, c.name(), ((Number) c.capped().get("size")).intValue(),
+                                         c.capped().get("max") == null ? 0 : ((Number) c.capped().get("max")).intValue());
+            }
+
+            builds.add(CompletableFuture.runAsync(() -> {
+                for (Map<String, Object> index : c.indexes()) {
+                    Map<String, Object> keys = new LinkedHashMap<>(index);
+                    Object options = keys.remove("$options");
+                    createIndex(db, c.name(), keys, options instanceof Map ? new LinkedHashMap<>((Map<String, Object>) options) : new LinkedHashMap<>());
+                }
+
+                getIndexStore(db, c.name());
+            }, pool));
+        }
+
+        try {
+            CompletableFuture.allOf(builds.toArray(new CompletableFuture[0])).join();
+        } catch (RuntimeException e) {
+            // the data is restored, a missing index store is built on the next query instead
+            log.warn("Building the indexes of restored database '{}' failed: {}", db, e.toString());
+        }
+    }
+
+    /** parses a dump written by {@link #dumpToFile(String, File)}, without touching the data */
+    @SuppressWarnings("unchecked")
+    private InMemDumpContainer readDump(InputStream in) throws IOException {
         byte[] raw;
 
         try (GZIPInputStream gzin = new GZIPInputStream(in)) {
@@ -881,7 +1187,10 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             data.put(coll.getKey(), docs);
         }
 
-        setDatabase(db, data);
+        InMemDumpContainer ret = new InMemDumpContainer();
+        ret.setDb(db);
+        ret.setData(data);
+        return ret;
     }
 
     /**
@@ -953,7 +1262,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
     }
 
     public void restoreFromFile(File f) throws IOException, ParseException {
-        restore(new FileInputStream(f));
+        try (InputStream in = new FileInputStream(f)) {
+            restore(in);
+        }
     }
 
     public void dumpToFile(Morphium m, String db, File f) throws IOException {
@@ -994,10 +1305,6 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
      * <p>The file is written crash-safely: see {@link #writeDumpAtomically(File, DumpBody)}.
      */
     public void dumpToFile(String db, File f) throws IOException {
-        ObjectMapperImpl mapper = new ObjectMapperImpl();
-        MorphiumTypeMapper<ObjectId> typeMapper = getObjectIdTypeMapper();
-        mapper.registerCustomMapperFor(ObjectId.class, typeMapper);
-
         // Snapshot each collection's document list under its read lock. Collection storage is a
         // plain ArrayList now (was CopyOnWriteArrayList), so the serializer below must walk stable
         // copies rather than the live lists to avoid ConcurrentModificationException.
@@ -1007,6 +1314,15 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             return;
         }
 
+        writeDumpFile(db, snapshot, f);
+    }
+
+    /** writes the given collections of {@code db} as a dump file, the lists must not change meanwhile */
+    private void writeDumpFile(String db, Map<String, List<Map<String, Object>>> snapshot, File f) throws IOException {
+        ObjectMapperImpl mapper = new ObjectMapperImpl();
+        MorphiumTypeMapper<ObjectId> typeMapper = getObjectIdTypeMapper();
+        mapper.registerCustomMapperFor(ObjectId.class, typeMapper);
+
         writeDumpAtomically(f, out -> {
             try (GZIPOutputStream gzip = new GZIPOutputStream(out);
                 OutputStreamWriter wr = new OutputStreamWriter(gzip, StandardCharsets.UTF_8)) {
@@ -1023,6 +1339,47 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         });
     }
 
+    /**
+     * Dump a single database as a binary BSON snapshot (see {@link BsonSnapshot}) including the
+     * index definitions and capped settings of its collections, compressed with
+     * {@link #getDumpCompressor()}. Written crash-safely like {@link #dumpToFile(String, File)};
+     * {@link #restoreFromFile(File)} tells both formats apart by their content.
+     */
+    public void snapshotToFile(String db, File f) throws IOException {
+        Map<String, List<Map<String, Object>>> snapshot = snapshotDatabase(db);
+        if (snapshot == null) {
+            log.debug("Database '{}' not found, skipping snapshot", db);
+            return;
+        }
+
+        writeSnapshotFile(db, snapshot, f);
+    }
+
+    private void writeSnapshotFile(String db, Map<String, List<Map<String, Object>>> snapshot, File f) throws IOException {
+        Map<String, List<Map<String, Object>>> indexes = new HashMap<>();
+        Map<String, List<Map<String, Object>>> live = indicesByDbCollection.get(db);
+
+        for (String coll : snapshot.keySet()) {
+            if (live != null && live.get(coll) != null) {
+                indexes.put(coll, new ArrayList<>(live.get(coll)));
+            }
+        }
+
+        Map<String, Map<String, Integer>> capped = cappedCollections.get(db);
+        int compressor = dumpCompressor;
+        writeDumpAtomically(f, out -> BsonSnapshot.write(new BufferedOutputStream(out, 64 * 1024), db, snapshot, indexes,
+                            capped == null ? null : new HashMap<>(capped), compressor));
+    }
+
+    /** writes collections of {@code db} in the configured {@link #getDumpFormat()} */
+    private void writeDumpFile(String db, Map<String, List<Map<String, Object>>> snapshot, File f, DumpFormat format) throws IOException {
+        if (format == DumpFormat.BSON) {
+            writeSnapshotFile(db, snapshot, f);
+        } else {
+            writeDumpFile(db, snapshot, f);
+        }
+    }
+
     /** The actual serialization of one dump, written into the stream handed to it by
      * {@link #writeDumpAtomically(File, DumpBody)}. */
     @FunctionalInterface
@@ -1102,11 +1459,18 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             throw new IOException("Path is not a directory: " + dir.getAbsolutePath());
         }
 
+        DumpFormat format = dumpFormat;
         int count = 0;
         for (String dbName : listDatabases()) {
-            File dbFile = new File(dir, dbName + ".morphium.gz");
+            File dbFile = new File(dir, dbName + (format == DumpFormat.BSON ? BSON_DUMP_SUFFIX : JSON_DUMP_SUFFIX));
             log.info("Dumping database '{}' to {}", dbName, dbFile.getAbsolutePath());
-            dumpToFile(dbName, dbFile);
+            Map<String, List<Map<String, Object>>> snapshot = snapshotDatabase(dbName);
+            if (snapshot == null) {
+                continue;
+            }
+            writeDumpFile(dbName, snapshot, dbFile, format);
+            // the dump in the other format is outdated now
+            Files.deleteIfExists(new File(dir, dbName + (format == DumpFormat.BSON ? JSON_DUMP_SUFFIX : BSON_DUMP_SUFFIX)).toPath());
             count++;
         }
         return count;
@@ -1158,7 +1522,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
      * remaining dumps are still attempted, and a summary line is ALWAYS emitted - INFO when
      * complete, an unmissable WARN with restored/total counts when partial.
      *
-     * @param dir Directory containing .morphium.gz dump files
+     * @param dir Directory containing .morphium.gz or .morphium.bson dump files
      * @return result with total/restored counts and the list of failed files
      */
     public DirectoryRestoreResult restoreAllFromDirectoryResult(File dir) throws IOException {
@@ -1168,9 +1532,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         }
 
         // A crash mid-dump can leave <db>.morphium.gz.tmp behind (#317). It is never restored -
-        // the filter below only takes .morphium.gz - but it would linger forever for a database
-        // that no longer exists, so startup is where it gets cleaned up.
-        File[] staleTmp = dir.listFiles((d, name) -> name.endsWith(".morphium.gz.tmp"));
+        // only finished dump files are - but it would linger forever for a database that no
+        // longer exists, so startup is where it gets cleaned up.
+        File[] staleTmp = dir.listFiles((d, name) -> name.endsWith(JSON_DUMP_SUFFIX + ".tmp") || name.endsWith(BSON_DUMP_SUFFIX + ".tmp"));
 
         if (staleTmp != null) {
             for (File tmp : staleTmp) {
@@ -1183,38 +1547,90 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             }
         }
 
-        File[] dumpFiles = dir.listFiles((d, name) -> name.endsWith(".morphium.gz"));
-        if (dumpFiles == null || dumpFiles.length == 0) {
+        Collection<File> dumpFiles = listDumpFiles(dir).values();
+        if (dumpFiles.isEmpty()) {
             log.info("No dump files found in {}", dir.getAbsolutePath());
             return new DirectoryRestoreResult(0, 0, List.of());
         }
 
         int restored = 0;
         List<String> failed = new ArrayList<>();
-        for (File dumpFile : dumpFiles) {
-            log.info("Restoring from {}", dumpFile.getAbsolutePath());
-            try {
-                restoreFromFile(dumpFile);
-                restored++;
-            } catch (Exception e) {
-                failed.add(dumpFile.getName());
-                log.error("Failed to restore dump file {} - skipping it and continuing with the remaining dumps",
-                        dumpFile.getAbsolutePath(), e);
+        // BSON snapshots are read one after the other while their blocks are decoded on the pool,
+        // then installed - a cold start is bound by reading the files, not by parsing them
+        Map<File, CompletableFuture<BsonSnapshot.Snapshot>> snapshots = new LinkedHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, aggregationParallelism));
+
+        try {
+            for (File dumpFile : dumpFiles) {
+                log.info("Restoring from {}", dumpFile.getAbsolutePath());
+                try {
+                    if (dumpFile.getName().endsWith(BSON_DUMP_SUFFIX)) {
+                        try (InputStream in = new BufferedInputStream(new FileInputStream(dumpFile), 64 * 1024)) {
+                            snapshots.put(dumpFile, BsonSnapshot.read(in, pool));
+                        }
+                    } else {
+                        restoreFromFile(dumpFile);
+                        restored++;
+                    }
+                } catch (Exception e) {
+                    failed.add(dumpFile.getName());
+                    log.error("Failed to restore dump file {} - skipping it and continuing with the remaining dumps",
+                            dumpFile.getAbsolutePath(), e);
+                }
             }
+
+            for (Map.Entry<File, CompletableFuture<BsonSnapshot.Snapshot>> e : snapshots.entrySet()) {
+                try {
+                    installSnapshot(joinSnapshot(e.getValue()), true, pool);
+                    restored++;
+                } catch (Exception ex) {
+                    failed.add(e.getKey().getName());
+                    log.error("Failed to restore dump file {} - skipping it and continuing with the remaining dumps",
+                            e.getKey().getAbsolutePath(), ex);
+                }
+            }
+        } finally {
+            pool.shutdown();
         }
 
         if (failed.isEmpty()) {
-            log.info("Restored {} of {} databases from {}", restored, dumpFiles.length, dir.getAbsolutePath());
+            log.info("Restored {} of {} databases from {}", restored, dumpFiles.size(), dir.getAbsolutePath());
         } else {
             log.warn("PARTIAL RESTORE: only {} of {} databases restored from {} - failed dump files: {}",
-                    restored, dumpFiles.length, dir.getAbsolutePath(), failed);
+                    restored, dumpFiles.size(), dir.getAbsolutePath(), failed);
         }
-        return new DirectoryRestoreResult(dumpFiles.length, restored, failed);
+        return new DirectoryRestoreResult(dumpFiles.size(), restored, failed);
+    }
+
+    /**
+     * The dump files in {@code dir} by database (or collection) name. A name dumped in both
+     * formats - the format was changed and the dump in the old one could not be removed - is
+     * restored from the newer file.
+     */
+    private Map<String, File> listDumpFiles(File dir) {
+        Map<String, File> ret = new TreeMap<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(JSON_DUMP_SUFFIX) || name.endsWith(BSON_DUMP_SUFFIX));
+
+        for (File f : files == null ? new File[0] : files) {
+            String suffix = f.getName().endsWith(BSON_DUMP_SUFFIX) ? BSON_DUMP_SUFFIX : JSON_DUMP_SUFFIX;
+            String name = f.getName().substring(0, f.getName().length() - suffix.length());
+            File other = ret.get(name);
+
+            if (other == null || other.lastModified() < f.lastModified()) {
+                ret.put(name, f);
+            }
+
+            if (other != null) {
+                log.warn("{} is dumped as {} and {} - restoring the newer {}", name, other.getName(), f.getName(), ret.get(name).getName());
+            }
+        }
+
+        return ret;
     }
 
     /**
      * Restore all databases from a directory.
-     * @param dir Directory containing .morphium.gz dump files
+     * @param dir Directory containing .morphium.gz or .morphium.bson dump files
      * @return Number of databases restored - callers that need to detect a PARTIAL restore
      *         should use {@link #restoreAllFromDirectoryResult(File)} instead
      */
@@ -1222,6 +1638,295 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         return restoreAllFromDirectoryResult(dir).getRestored();
     }
 
+    /**
+     * Incremental checkpoint of the data into {@code dir}, for a driver with a
+     * {@link WriteAheadLog} attached: one dump file {@code <db>/<collection>.morphium.gz} (or
+     * {@code .morphium.bson}, see {@link #setDumpFormat(DumpFormat)}) per collection, and only the collections changed since the previous checkpoint are rewritten
+     * (all of them the first time). The log is continued in a new segment first - the manifest
+     * {@value #CHECKPOINT_MANIFEST} records it as the first segment
+     * {@link #recoverFromCheckpoint(File, File)} has to replay, and older segments are removed.
+     * Writes running meanwhile are in that segment and possibly in the files as well, replaying
+     * them again is harmless.
+     *
+     * @return number of collection files written
+     */
+    public int checkpoint(File dir) throws IOException {
+        WriteAheadLog wal = writeAheadLog;
+
+        if (wal == null) {
+            throw new IllegalStateException("checkpoint needs a write-ahead log - see setWriteAheadLog()");
+        }
+
+        synchronized (checkpointLock) {
+            File manifest = new File(dir, CHECKPOINT_MANIFEST);
+            boolean full = !manifest.exists();
+            WriteAheadLog.Rotation rotation = wal.rotate();
+            Set<String> namespaces = new TreeSet<>();
+
+            if (full) {
+                for (String db : listDatabases()) {
+                    namespaces.add(WriteAheadLog.namespace(db, null));
+                }
+            } else {
+                namespaces.addAll(rotation.namespaces());
+            }
+
+            // a whole database: every collection it has now, and every file it had
+            for (String ns : new ArrayList<>(namespaces)) {
+                if (!ns.endsWith("/")) {
+                    continue;
+                }
+
+                namespaces.remove(ns);
+                String db = ns.substring(0, ns.length() - 1);
+                Map<String, List<Map<String, Object>>> live = getDatabase(db);
+
+                if (live != null) {
+                    for (String coll : live.keySet()) {
+                        namespaces.add(WriteAheadLog.namespace(db, coll));
+                    }
+                }
+
+                for (String coll : listDumpFiles(new File(dir, db)).keySet()) {
+                    namespaces.add(WriteAheadLog.namespace(db, coll));
+                }
+            }
+
+            DumpFormat format = dumpFormat;
+            int written = 0;
+
+            for (String ns : namespaces) {
+                int sep = ns.indexOf('/');
+                String db = ns.substring(0, sep);
+                String coll = ns.substring(sep + 1);
+                File json = new File(new File(dir, db), coll + JSON_DUMP_SUFFIX);
+                File bson = new File(new File(dir, db), coll + BSON_DUMP_SUFFIX);
+
+                if (!exists(db, coll)) {
+                    Files.deleteIfExists(json.toPath());
+                    Files.deleteIfExists(bson.toPath());
+                    continue;
+                }
+
+                Map<String, List<Map<String, Object>>> data = new HashMap<>();
+                data.put(coll, snapshot(db, coll));
+                writeDumpFile(db, data, format == DumpFormat.BSON ? bson : json, format);
+                Files.deleteIfExists((format == DumpFormat.BSON ? json : bson).toPath());
+                written++;
+            }
+
+            Properties p = new Properties();
+            p.setProperty("walSegment", String.valueOf(rotation.segment()));
+            p.setProperty("created", String.valueOf(System.currentTimeMillis()));
+            writeDumpAtomically(manifest, out -> p.store(out, "morphium checkpoint"));
+            wal.deleteSegmentsBefore(rotation.segment());
+            log.info("Checkpoint to {}: {} of {} collection files rewritten{}", dir.getAbsolutePath(), written, namespaces.size(),
+                     full ? " (full)" : "");
+            return written;
+        }
+    }
+
+    /**
+     * Startup counterpart of {@link #checkpoint(File)}: loads the collection files of the checkpoint
+     * in {@code dir} (if there is one) and replays the write-ahead log in {@code walDir} from the
+     * segment the checkpoint was taken at. A record torn by a crash ends the replay of its segment.
+     * Replayed writes are neither logged nor visible in the change stream, so this has to run
+     * before {@link #setWriteAheadLog(WriteAheadLog)}.
+     *
+     * @return the checkpoint files found, restored and failed - callers must treat
+     *         {@code !isComplete()} as a partial restore
+     */
+    public DirectoryRestoreResult recoverFromCheckpoint(File dir, File walDir) throws IOException {
+        if (writeAheadLog != null) {
+            throw new IllegalStateException("recover before attaching the write-ahead log");
+        }
+
+        File manifest = new File(dir, CHECKPOINT_MANIFEST);
+        long firstSegment = 0;
+        int total = 0;
+        int restored = 0;
+        List<String> failed = new ArrayList<>();
+
+        if (manifest.exists()) {
+            Properties p = new Properties();
+
+            try (InputStream in = new FileInputStream(manifest)) {
+                p.load(in);
+            }
+
+            firstSegment = Long.parseLong(p.getProperty("walSegment", "0"));
+            File[] dbDirs = dir.listFiles(File::isDirectory);
+            Map<String, CompletableFuture<BsonSnapshot.Snapshot>> snapshots = new LinkedHashMap<>();
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, aggregationParallelism));
+
+            try {
+                for (File dbDir : dbDirs == null ? new File[0] : dbDirs) {
+                    // left behind by a checkpoint that did not finish, see writeDumpAtomically
+                    File[] stale = dbDir.listFiles((d, name) -> name.endsWith(".tmp"));
+
+                    for (File f : stale == null ? new File[0] : stale) {
+                        Files.deleteIfExists(f.toPath());
+                    }
+
+                    for (File f : listDumpFiles(dbDir).values()) {
+                        total++;
+
+                        try (InputStream in = new BufferedInputStream(new FileInputStream(f), 64 * 1024)) {
+                            if (isSnapshot(in)) {
+                                snapshots.put(dbDir.getName() + "/" + f.getName(), BsonSnapshot.read(in, pool));
+                                continue;
+                            }
+
+                            InMemDumpContainer dump = readDump(in);
+                            database.computeIfAbsent(dump.getDb(), k -> new ConcurrentHashMap<>()).putAll(dump.getData());
+
+                            for (String coll : dump.getData().keySet()) {
+                                invalidateIndexStore(dump.getDb(), coll);
+                            }
+
+                            restored++;
+                        } catch (Exception e) {
+                            failed.add(dbDir.getName() + "/" + f.getName());
+                            log.error("Failed to restore checkpoint file {} - skipping it", f.getAbsolutePath(), e);
+                        }
+                    }
+                }
+
+                for (Map.Entry<String, CompletableFuture<BsonSnapshot.Snapshot>> e : snapshots.entrySet()) {
+                    try {
+                        installSnapshot(joinSnapshot(e.getValue()), false, pool);
+                        restored++;
+                    } catch (Exception ex) {
+                        failed.add(e.getKey());
+                        log.error("Failed to restore checkpoint file {} - skipping it", new File(dir, e.getKey()).getAbsolutePath(), ex);
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        long replayed = 0;
+
+        if (walDir != null && walDir.isDirectory()) {
+            try (ChangeStreamSuppressionScope ignored = suppressChangeStreamEvents();
+                    MemoryGuardBypassScope ignored2 = bypassMemoryGuard()) {
+                replayed = WriteAheadLog.replay(walDir, firstSegment, this::applyWalRecord);
+            }
+        }
+
+        if (failed.isEmpty()) {
+            log.info("Recovered {} checkpoint files from {} and replayed {} write-ahead log records", restored, dir.getAbsolutePath(),
+                     replayed);
+        } else {
+            log.warn("PARTIAL RESTORE: only {} of {} checkpoint files restored from {} - failed: {}", restored, total,
+                     dir.getAbsolutePath(), failed);
+        }
+
+        return new DirectoryRestoreResult(total, restored, failed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyWalRecord(Map<String, Object> rec) {
+        String db = (String) rec.get("db");
+        String coll = (String) rec.get("coll");
+        replayedNamespaces.add(WriteAheadLog.namespace(db, coll));
+
+        if (rec.get("to") != null) {
+            replayedNamespaces.add(WriteAheadLog.namespace(db, (String) rec.get("to")));
+        }
+
+        try {
+            switch (String.valueOf(rec.get("op"))) {
+                case "put":
+                    store(db, coll, List.of((Map<String, Object>) rec.get("doc")), null);
+                    break;
+
+                case "delete":
+                    delete(db, coll, Doc.of("_id", rec.get("id")), null, false, null, null);
+                    break;
+
+                case "drop":
+                    drop(db, coll, null);
+                    break;
+
+                case "dropDatabase":
+                    drop(db, null);
+                    break;
+
+                case "rename":
+                    if (exists(db, coll)) {
+                        runCommand(new RenameCollectionCommand(this).setDb(db).setColl(coll).setTo((String) rec.get("to")));
+                    }
+
+                    break;
+
+                case "collection":
+                    drop(db, coll, null);
+                    getCollection(db, coll);
+                    List<Map<String, Object>> docs = (List<Map<String, Object>>) rec.get("docs");
+
+                    if (!docs.isEmpty()) {
+                        store(db, coll, docs, null);
+                    }
+
+                    break;
+
+                default:
+                    log.warn("Unknown write-ahead log record '{}' ignored", rec.get("op"));
+            }
+        } catch (RuntimeException e) {
+            log.error("Replaying write-ahead log record {} on {}.{} failed", rec.get("op"), db, coll, e);
+        }
+    }
+
+    /*
+     * Write-ahead log records are appended under the collection's write lock, right where the
+     * document list is changed, so the log has exactly the order the writes were applied in - the
+     * change-stream events are built after the lock is released and two writers can overtake each
+     * other there. Writes inside a transaction are not logged, commitTransaction() logs the
+     * collections it replaces. syncWal() then waits for the fsync outside of the lock.
+     */
+
+    private void logWalPut(String db, String coll, Map<String, Object> doc) {
+        WriteAheadLog wal = writeAheadLog;
+
+        if (wal != null && currentTransaction.get() == null) {
+            wal.logPut(db, coll, doc);
+        }
+    }
+
+    private void logWalDelete(String db, String coll, Map<String, Object> doc) {
+        WriteAheadLog wal = writeAheadLog;
+
+        if (wal != null && currentTransaction.get() == null) {
+            wal.logDelete(db, coll, doc.get("_id"));
+        }
+    }
+
+    /** @param coll null for the whole database */
+    private void logWalDrop(String db, String coll) {
+        WriteAheadLog wal = writeAheadLog;
+
+        if (wal == null || currentTransaction.get() != null) {
+            return;
+        }
+
+        if (coll == null) {
+            wal.logDropDatabase(db);
+        } else {
+            wal.logDrop(db, coll);
+        }
+    }
+
+    private void syncWal() {
+        WriteAheadLog wal = writeAheadLog;
+
+        if (wal != null) {
+            wal.sync();
+        }
+    }
+
     private MorphiumTypeMapper<ObjectId> getObjectIdTypeMapper() {
         return new MorphiumTypeMapper<ObjectId>() {
             @Override
@@ -1384,9 +2089,18 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         changeStreamHistoryEvictedForBudget.set(0);
         changeStreamSequence.set(0);
         changeStreamHighestCapacityEvictedToken.set(0);
+        ChangeStreamLog spill = changeStreamLog;
+
+        if (spill != null) {
+            try {
+                spill.clear();
+            } catch (IOException e) {
+                log.warn("Could not clear the change stream log: {}", e.toString());
+            }
+        }
+
         lastDropSequence.clear();
         lastGlobalDropSequence.set(0);
-        eventQueue.clear();
         cursors.clear();
         commandResults.clear();
         currentTransaction.remove();
@@ -1544,7 +2258,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
 
                 // Check if the callback wants to continue after each wait.
                 // However, we must give pending async events a chance to be delivered first,
-                // because event dispatch is asynchronous via eventDispatcher.execute().
+                // because event dispatch is asynchronous via the subscription's drain task.
                 // Without this delay, we could deactivate the subscription BEFORE pending
                 // events are delivered, causing events to be lost.
                 if (!settings.getCb().isContinued()) {
@@ -2317,6 +3031,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                     }
 
                     users.add(doc);
+                    logWalPut(USERS_DB, USERS_COLLECTION, doc);
                     // The user-write paths mutate this list directly, bypassing the generic
                     // write path that maintains CollectionIndexStore. Without this the store
                     // for admin.system.users goes permanently stale once anything has built
@@ -2503,6 +3218,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
 
                     users.removeIf(doc -> id.equals(doc.get("_id")));
                     users.add(replacement);
+                    logWalPut(USERS_DB, USERS_COLLECTION, replacement);
                     // The user-write paths mutate this list directly, bypassing the generic
                     // write path that maintains CollectionIndexStore. Without this the store
                     // for admin.system.users goes permanently stale once anything has built
@@ -2586,6 +3302,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                         if (id.equals(doc.get("_id"))) {
                             removed = doc;
                             it.remove();
+                            logWalDelete(USERS_DB, USERS_COLLECTION, doc);
                             // see createUserInternal: this path bypasses the generic write path
                             // that maintains CollectionIndexStore, so the store must be dropped
                             // or an index-backed find would keep returning the dropped user.
@@ -3162,6 +3879,19 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             replayBuffer.put("windowSeconds", 0L);
         }
 
+        ChangeStreamLog spill = changeStreamLog;
+
+        if (spill != null) {
+            long diskOldest = spill.getOldestEventTime();
+            replayBuffer.put("disk", Doc.of("events", spill.getEvents(), "bytes", spill.getBytes(),
+                                            "discardedUpTo", spill.getDiscardedUpTo()));
+
+            if (diskOldest > 0 && histLast != null) {
+                replayBuffer.put("firstEventTime", new Date(diskOldest));
+                replayBuffer.put("windowSeconds", Math.max(0, (histLast.createdAt - diskOldest) / 1000));
+            }
+        }
+
         m.put("changeStreamReplayBuffer", replayBuffer);
         addResult(ret, m);
         return ret;
@@ -3648,6 +4378,12 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             try {
                 var col = database.get(cmd.getDb()).remove(origin);
                 database.get(cmd.getDb()).put(target, col);
+                WriteAheadLog wal = writeAheadLog;
+
+                if (wal != null) {
+                    wal.logRename(cmd.getDb(), origin, target);
+                }
+
                 if (!origin.equals(target)) {
                     // Carry the origin's capped and TTL bookkeeping over to the new name. The
                     // document list moved wholesale (same object references), so the identity-keyed
@@ -3672,6 +4408,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         } finally {
             firstLock.writeLock().unlock();
         }
+        syncWal();
         int ret = commandNumber.incrementAndGet();
         addResult(ret, prepareResult(Doc.of("ok", 1.0, "msg", "renamed " + origin + " to " + target)));
         return ret;
@@ -4691,6 +5428,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             @SuppressWarnings({ "rawtypes", "unchecked" })
             InMemAggregator<Map<String, Object>, Map<String, Object>> agg = new InMemAggregator(m, (Class) Map.class, (Class) Map.class);
             agg.setCollectionName(cmd.getColl());
+            agg.setUseDisk(Boolean.TRUE.equals(cmd.getAllowDiskUse()));
 
             if (cmd.getPipeline() != null) {
                 agg.getPipeline().addAll(cmd.getPipeline());
@@ -5143,34 +5881,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         }
 
         if (eventDispatcher.isShutdown()) {
-            eventDispatcher = newEventDispatcher();
+            eventDispatcher = newEventDispatcher(changeStreamDispatchThreads);
         }
 
-        // Start per-instance event processor for change streams
-        Runnable eventProcessor = () -> {
-            // Notification of watchers.
-            try {
-                // Process all available events in this execution
-                while (true) {
-                    Runnable r1 = eventQueue.poll();
-
-                    if (r1 == null)
-                        break; // Exit when queue is empty
-
-                    try {
-                        r1.run();
-                    } catch (Exception e) {
-                        // swallow
-                    }
-                }
-            } catch (Throwable e) {
-                log.error("Error", e);
-            }
-        };
-
-        // Start event processor for this instance
-        exec.scheduleWithFixedDelay(eventProcessor, 100, 1, TimeUnit.MILLISECONDS);
-
         scheduleExpire();
     }
 
@@ -5315,6 +6028,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 collectionData.remove(doc);
                 indexStore.onRemove(doc);
                 cappedOnRemove(db, coll, doc);
+                logWalDelete(db, coll, doc);
             }
         } finally {
             lock.writeLock().unlock();
@@ -5400,6 +6114,12 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         queue.add(new TtlQueueEntry(expiryEpochMs, doc.get("_id")));
     }
 
+    /** True if the collection has a TTL index and its field differs between the two images. */
+    private boolean ttlFieldChanged(String db, String collection, Map<String, Object> before, Map<String, Object> after) {
+        TtlIndexInfo ttlInfo = collectionsWithTtlIndex.get(db + "." + collection);
+        return ttlInfo != null && !Objects.equals(before.get(ttlInfo.fieldName), after.get(ttlInfo.fieldName));
+    }
+
     /**
      * True if {@code queue} already holds an entry for exactly this {@code docId}/expiry pair -
      * the double-add guard for {@link #ttlEnqueue}'s bootstrap-on-miss branch. Compares by value
@@ -5782,6 +6502,12 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         return currentTransaction.get() != null;
     }
 
+    /** Answers synchronously - the async methods of Query and Aggregator run on their executor. */
+    @Override
+    public boolean supportsAsyncReplies() {
+        return false;
+    }
+
     @Override
     public MorphiumTransactionContext getTransactionContext() {
         return currentTransaction.get();
@@ -5881,6 +6607,15 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         stopExecutor(watchExec, "watch executor");
         stopExecutor(ttlExec, "ttl executor");
 
+        ForkJoinPool aggPool;
+
+        synchronized (this) {
+            aggPool = aggregationPool;
+            aggregationPool = null;
+        }
+
+        stopExecutor(aggPool, "aggregation pool");
+
         // Shutdown the event dispatcher only if no active subscriptions remain.
         // When multiple Morphium instances share this driver, one closing should not
         // kill event delivery for the others.
@@ -6142,9 +6877,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         return find(db, collection, query, sort, projection, collation, skip, limit, false);
     }
 
-    private java.util.concurrent.locks.ReadWriteLock getCollectionLock(String db, String collection) {
+    private CollectionLock getCollectionLock(String db, String collection) {
         String key = db + "." + collection;
-        return collectionLocks.computeIfAbsent(key, k -> new java.util.concurrent.locks.ReentrantReadWriteLock());
+        return collectionLocks.computeIfAbsent(key, k -> new CollectionLock());
     }
 
     /**
@@ -6230,6 +6965,15 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
     private List<Map<String, Object>> find(String db, String collection, Map<String, Object> query,
                                            Map<String, Object> sort, Map<String, Object> projection, Map<String, Object> collation, int skip,
                                            int limit, boolean internal) throws MorphiumDriverException {
+        if (!internal && (sort == null || sort.isEmpty()) && (projection == null || projection.isEmpty()) && skip <= 0
+                && collation == null) {
+            List<Map<String, Object>> optimistic = findByIdOptimistic(db, collection, query, limit, true);
+
+            if (optimistic != null) {
+                return optimistic;
+            }
+        }
+
         // Only acquire read lock if not called internally (internal calls already hold
         // write lock)
         java.util.concurrent.locks.ReadWriteLock lock = internal ? null : getCollectionLock(db, collection);
@@ -6544,7 +7288,92 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                         o = deepCopyDocWithRetry(o);
                     }
 
-                    // Convert ObjectId after copy
+                    // Convert ObjectId after copy
+                    if (o.get("_id") instanceof ObjectId) {
+                        o.put("_id", new MorphiumId((ObjectId) o.get("_id")));
+                    }
+                }
+
+                ret.add(o);
+
+                if (limit > 0 && ret.size() >= limit) {
+                    break;
+                }
+            }
+
+            long __elapsedMillis = (System.nanoTime() - __slowQueryStartNanos) / 1_000_000;
+            String __stage = partialHitData != null ? "IXSCAN" : "COLLSCAN";
+            long __docsExamined = partialHitData != null ? partialHitData.size() : getCollection(db, collection).size();
+            recordSlowQueryIfNeeded(db, collection, query, __stage, __docsExamined, __elapsedMillis);
+
+            return new ArrayList<>(ret);
+        } finally {
+            if (lock != null) {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * {@code find}/{@code count} for their most common shape - an equality on {@code _id},
+     * optionally with further conditions, as messaging and every read-modify-write by id issue it
+     * - without the collection's read lock: the document is looked up in the {@code _id} index
+     * and copied under an optimistic stamp of the {@link CollectionLock}, and the result is only
+     * used if no writer took the lock meanwhile. Such readers neither wait for nor hold up the
+     * writers of a hot collection.
+     *
+     * <p>Only taken outside transactions and when the collection's index store already exists -
+     * building it needs the lock. Everything read here may be inconsistent until the stamp is
+     * validated, so an exception counts as a failed validation.
+     *
+     * @return the matching documents (copies if {@code copy}), or null if the lookup does not
+     *         apply or raced a writer - the caller then runs its locked path
+     */
+    private List<Map<String, Object>> findByIdOptimistic(String db, String collection, Map<String, Object> query,
+            int limit, boolean copy) {
+        if (!optimisticReadsEnabled || query == null || currentTransaction.get() != null) {
+            return null;
+        }
+
+        Object id = query.get("_id");
+
+        if (id == null || id instanceof Map || id instanceof List || id instanceof Pattern) {
+            return null;
+        }
+
+        for (String key : query.keySet()) {
+            if (key.startsWith("$")) {
+                return null;
+            }
+        }
+
+        long start = System.nanoTime();
+        CollectionLock lock = getCollectionLock(db, collection);
+        long stamp = lock.tryOptimisticRead();
+        OwnedIndexStore store = indexStoreByCollection.get(db + "." + collection);
+
+        if (stamp == 0 || store == null || store.owner() != NO_TRANSACTION) {
+            return null;
+        }
+
+        List<Map<String, Object>> ret = new ArrayList<>();
+        int examined = 0;
+
+        try {
+            QueryHelper.validateQuery(query);
+            List<Map<String, Object>> candidates = store.store().equalityLookup(CollectionIndexStore.ID_INDEX_NAME,
+                                                   IndexKey.of(Collections.singletonList(id)));
+            examined = candidates.size();
+            CompiledQuery compiledQuery = CompiledQuery.compile(query, null);
+
+            for (Map<String, Object> o : candidates) {
+                if (!compiledQuery.matches(o)) {
+                    continue;
+                }
+
+                if (copy) {
+                    o = deepCopyDoc(o);
+
                     if (o.get("_id") instanceof ObjectId) {
                         o.put("_id", new MorphiumId((ObjectId) o.get("_id")));
                     }
@@ -6556,18 +7385,21 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                     break;
                 }
             }
+        } catch (RuntimeException e) {
+            // read a document or bucket in the middle of a write, or an invalid query - either
+            // way the locked path decides
+            ret = null;
+        }
 
-            long __elapsedMillis = (System.nanoTime() - __slowQueryStartNanos) / 1_000_000;
-            String __stage = partialHitData != null ? "IXSCAN" : "COLLSCAN";
-            long __docsExamined = partialHitData != null ? partialHitData.size() : getCollection(db, collection).size();
-            recordSlowQueryIfNeeded(db, collection, query, __stage, __docsExamined, __elapsedMillis);
-
-            return new ArrayList<>(ret);
-        } finally {
-            if (lock != null) {
-                lock.readLock().unlock();
-            }
+        if (ret == null || !lock.validate(stamp)) {
+            optimisticReadRetries++;
+            return null;
         }
+
+        optimisticReads++;
+        indexHits++;
+        recordSlowQueryIfNeeded(db, collection, query, "IXSCAN", examined, (System.nanoTime() - start) / 1_000_000);
+        return ret;
     }
 
     // ---------- Projection helpers (dot-path include/exclude, $slice, $elemMatch)
@@ -7325,6 +8157,14 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
 
     private long countInternal(String db, String collection, Map<String, Object> query, Map<String, Object> collation, ReadPreference rp)
     throws MorphiumDriverException {
+        if (collation == null) {
+            List<Map<String, Object>> optimistic = findByIdOptimistic(db, collection, query, 0, false);
+
+            if (optimistic != null) {
+                return optimistic.size();
+            }
+        }
+
         // Acquire read lock for thread-safe iteration
         java.util.concurrent.locks.ReadWriteLock lock = getCollectionLock(db, collection);
         lock.readLock().lock();
@@ -7603,6 +8443,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             // lifecycle contract).
             for (Map<String, Object> ev : evicted) {
                 indexStore.onRemove(ev);
+                logWalDelete(db, collection, ev);
             }
 
             // Intra-batch unique-key collisions (Phase B1, Task 5): the two pre-checks above only
@@ -7635,6 +8476,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 insertedDocs.add(o);
                 cappedOnInsert(db, collection, o);
                 ttlEnqueue(db, collection, o);
+                logWalPut(db, collection, o);
             }
             objs = insertedDocs;
 
@@ -7753,6 +8595,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 cappedOnInsert(db, collection, o);
                 ttlEnqueue(db, collection, o);
                 pendingNotifications.add(new PendingNotification(db, collection, "insert", o));
+                logWalPut(db, collection, o);
                 inserted++;
                 continue;
             }
@@ -7787,6 +8630,8 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 pendingNotifications.add(new PendingNotification(db, collection, "insert", o));
                 inserted++;
             }
+
+            logWalPut(db, collection, o);
             getCollection(db, collection).add(o);
             cappedOnInsert(db, collection, o);
             ttlEnqueue(db, collection, o);
@@ -7917,6 +8762,13 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                                       Map<String, Object> op, boolean multiple, boolean upsert,
                                       Map<String, Object> collation, Map<String, Object> wc,
                                       List<Map<String, Object>> arrayFilters) throws MorphiumDriverException {
+        Map<String, Object> striped = updateDocumentStriped(db, collection, query, op, multiple, upsert, collation, wc,
+                                      arrayFilters);
+
+        if (striped != null) {
+            return striped;
+        }
+
         // Acquire write lock for this collection to block all reads and other writes
         java.util.concurrent.locks.ReadWriteLock lock = getCollectionLock(db, collection);
         lock.writeLock().lock();
@@ -7936,6 +8788,91 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         return result;
     }
 
+    /**
+     * {@code update} of the one document a plain {@code _id} equality selects, under a
+     * {@link CollectionLock#documentWriteLock} instead of the collection's write lock, so updates
+     * of different documents of one collection run concurrently. Only for operator updates
+     * outside transactions that touch no indexed field (nor {@code _id}, nor anything a partial
+     * index filters on) - they change that one document and nothing shared. The matching runs
+     * under the lock, the update itself is {@link #updateInternal} pinned to the {@code _id}.
+     *
+     * @return the update result, or null if the update does not qualify - the caller then takes
+     *         the write lock
+     */
+    private Map<String, Object> updateDocumentStriped(String db, String collection, Map<String, Object> query,
+            Map<String, Object> op, boolean multiple, boolean upsert, Map<String, Object> collation,
+            Map<String, Object> wc, List<Map<String, Object>> arrayFilters) throws MorphiumDriverException {
+        if (!stripedWritesEnabled || multiple || upsert || collation != null || query == null || op == null
+                || op.isEmpty() || currentTransaction.get() != null) {
+            return null;
+        }
+
+        Object id = query.get("_id");
+
+        if (id == null || id instanceof Map || id instanceof List || id instanceof Pattern) {
+            return null;
+        }
+
+        for (String key : query.keySet()) {
+            if (key.startsWith("$")) {
+                return null;
+            }
+        }
+
+        for (Map.Entry<String, Object> e : op.entrySet()) {
+            // a replacement rewrites every field
+            if (!e.getKey().startsWith("$") || !(e.getValue() instanceof Map)) {
+                return null;
+            }
+        }
+
+        String key = db + "." + collection;
+        OwnedIndexStore store = indexStoreByCollection.get(key);
+
+        if (store == null || store.owner() != NO_TRANSACTION) {
+            return null;
+        }
+
+        Set<String> touched = collectTouchedTopLevelKeys(op);
+        IndexKey idKey = IndexKey.of(Collections.singletonList(id));
+        Lock lock = getCollectionLock(db, collection).documentWriteLock(idKey);
+        List<PendingNotification> pendingNotifications = new ArrayList<>();
+        Map<String, Object> result;
+        lock.lock();
+
+        try {
+            // indexes may have changed before the lock was taken, the store cannot change while held
+            if (indexStoreByCollection.get(key) != store || touched.contains("_id")
+                    || store.store().indexesAnyOf(touched)) {
+                return null;
+            }
+
+            QueryHelper.validateQuery(query);
+            CompiledQuery compiledQuery = CompiledQuery.compile(query, null);
+            boolean matches = false;
+
+            for (Map<String, Object> candidate : store.store().equalityLookup(CollectionIndexStore.ID_INDEX_NAME, idKey)) {
+                matches |= compiledQuery.matches(candidate);
+            }
+
+            if (!matches) {
+                return Doc.of("n", (Object) 0, "nModified", 0, "modified", 0);
+            }
+
+            result = updateInternal(db, collection, Doc.of("_id", id), null, op, false, false, null, wc, arrayFilters,
+                                    query, pendingNotifications);
+            stripedWrites++;
+        } finally {
+            lock.unlock();
+        }
+
+        for (PendingNotification notification : pendingNotifications) {
+            notifyWatchers(notification);
+        }
+
+        return result;
+    }
+
     /**
      * Seeds an upserted document with the equality predicates of a query filter, mirroring
      * MongoDB's upsert behaviour.
@@ -9062,6 +9999,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                     if (!insert && modified.contains(obj.get("_id"))) {
                         pendingNotifications.add(new PendingNotification(db, collection, "replace", obj,
                                                  null, null, original, originalIsExclusiveDeepCopy));
+                        logWalPut(db, collection, obj);
                     }
                     continue;  // Skip to next document, no need to process as update operators
                 }
@@ -9705,10 +10643,13 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                         obj.putAll(original);
                         throw ex;
                     }
-                    // The TTL field's value may have changed with the rest of the document -
-                    // always push a fresh queue entry rather than trying to find/remove the old
-                    // one (see ttlEnqueue's own Javadoc for why that's cheaper).
-                    ttlEnqueue(db, collection, obj);
+                    // A changed TTL field gets a fresh queue entry rather than trying to
+                    // find/remove the old one (see ttlEnqueue's own Javadoc for why that's
+                    // cheaper). An unchanged one is still queued correctly - and document writers
+                    // (updateDocumentStriped) must not touch the shared queue.
+                    if (ttlFieldChanged(db, collection, original, obj)) {
+                        ttlEnqueue(db, collection, obj);
+                    }
                     // These two only read "original"; queuing the notification below is its last
                     // use here, which is what lets the change-stream path take it over verbatim
                     // when it is a full deepClone (originalIsExclusiveDeepCopy - issue #274).
@@ -9716,6 +10657,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                     List<String> removedList = computeRemovedFields(original, obj);
                     pendingNotifications.add(new PendingNotification(db, collection, "update", obj, updatedMap,
                                              removedList, original, originalIsExclusiveDeepCopy));
+                    logWalPut(db, collection, obj);
                 }
             }
             if (insert) {
@@ -9800,6 +10742,9 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
     private void notifyWatchers(String db, String collection, String op, Map doc, Map<String, Object> updatedFields,
                                 List<String> removedFields, Map<String, Object> beforeDocument,
                                 boolean beforeDocumentIsExclusiveCopy) {
+        // the write is logged already (under the collection lock), it is acknowledged once the
+        // log is on disk
+        syncWal();
         // Writes inside a suppressChangeStreamEvents() scope (replication initial sync: wipe +
         // snapshot copy) are never observable via the change stream - neither recorded into the
         // history nor dispatched to live subscribers. See the scope's javadoc for why.
@@ -9861,19 +10806,17 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 break;
             }
 
-            ChangeStreamEventInfo evicted = changeStreamHistory.pollFirst();
+            ChangeStreamEventInfo evicted = evictOldestHistoryEvent(false);
 
             if (evicted == null) {
-                break; // deque already empty
+                break; // deque already empty, or a replay holds the buffer - next write evicts
             }
 
-            accountCapacityEviction(evicted);
-
             if (!overCount) {
                 changeStreamHistoryEvictedForBudget.incrementAndGet();
                 long now = System.currentTimeMillis();
 
-                if (now - lastBudgetEvictWarnAt > 60_000) {
+                if (changeStreamLog == null && now - lastBudgetEvictWarnAt > 60_000) {
                     lastBudgetEvictWarnAt = now;
                     log.warn("Replay buffer byte budget ({} bytes) exceeded - evicting oldest change "
                         + "events; the resume window is shrinking (bulk writes of large documents?)", budget);
@@ -9986,59 +10929,62 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             return;
         }
 
-        // The actual delivery logic — extracted so it can run inline or async
-        Runnable deliveryTask = () -> {
-            log.trace("Dispatching event: db={}, coll={}, op={}", eventInfo.db, eventInfo.collection, eventInfo.event.get("operationType"));
-
-            // Deliver to database-level subscribers
-            var dbSubs = changeStreamSubscribers.get(eventInfo.db);
-            deliverToSubscribers(dbSubs, eventInfo);
-
-            // Deliver to database-level watches registered via PoppyDB (with collection="1")
-            // When aggregate with $changeStream comes through wire protocol, collection is set to "1" for db-level watches
-            var dbAllSubs = changeStreamSubscribers.get(eventInfo.db + ".1");
-            deliverToSubscribers(dbAllSubs, eventInfo);
-
-            // Deliver to collection-level subscribers
-            if (eventInfo.collection != null) {
-                var collSubs = changeStreamSubscribers.get(eventInfo.db + "." + eventInfo.collection);
-                deliverToSubscribers(collSubs, eventInfo);
-            }
-
-            // Deliver to cluster-wide subscribers
-            // These can be registered as "admin" (db only) or "admin.1" (when collection is "1" for all-db watch)
-            if (!"admin".equals(eventInfo.db)) {
-                var adminSubs = changeStreamSubscribers.get("admin");
-                deliverToSubscribers(adminSubs, eventInfo);
-
-                // Also check for "admin.1" which is used when watching all databases
-                var adminAllSubs = changeStreamSubscribers.get("admin.1");
-                deliverToSubscribers(adminAllSubs, eventInfo);
-            }
-        };
-
         if (serverMode) {
             // In server mode (PoppyDB), deliver synchronously to maintain event ordering
             // for replication and to provide backpressure.
-            deliveryTask.run();
+            fanOut(eventInfo, false);
         } else {
-            // In client mode, dispatch async on the single-threaded eventDispatcher.
-            // Synchronous delivery causes deadlocks in messaging: the callback processes
-            // messages which trigger further writes, blocking the original writer thread
-            // indefinitely. The single dispatcher thread with its unbounded queue keeps
-            // the writer free AND preserves submission order — mongod guarantees
-            // per-cursor ordering, and a pool would reorder under load (see the
-            // eventDispatcher field's javadoc / ChangeStreamEventOrderingTest).
+            // In client mode, hand the event to the pending queues of the subscriptions, their
+            // drain tasks deliver it on the eventDispatcher pool. Synchronous delivery causes
+            // deadlocks in messaging: the callback processes messages which trigger further
+            // writes, blocking the original writer thread indefinitely. The lock of the namespace
+            // only covers the queue appends, it gives every stream the same order of concurrent
+            // writes to it - per stream the drain preserves it (see the eventDispatcher field's
+            // javadoc / ChangeStreamEventOrderingTest).
+            String namespace = eventInfo.collection == null ? eventInfo.db : eventInfo.db + "." + eventInfo.collection;
+            ReentrantLock fanOutLock = changeStreamFanOutLocks.computeIfAbsent(namespace, k -> new ReentrantLock());
+            fanOutLock.lock();
+
             try {
-                eventDispatcher.execute(deliveryTask);
-            } catch (java.util.concurrent.RejectedExecutionException e) {
-                log.warn("InMemoryDriver executor REJECTED event dispatch for {}.{} op={} — events will be lost!",
-                         eventInfo.db, eventInfo.collection, eventInfo.event.get("operationType"));
+                fanOut(eventInfo, true);
+            } finally {
+                fanOutLock.unlock();
             }
         }
     }
 
-    private void deliverToSubscribers(List<ChangeStreamSubscription> subscriptions, ChangeStreamEventInfo eventInfo) {
+    private void fanOut(ChangeStreamEventInfo eventInfo, boolean async) {
+        log.trace("Dispatching event: db={}, coll={}, op={}", eventInfo.db, eventInfo.collection, eventInfo.event.get("operationType"));
+
+        // Deliver to database-level subscribers
+        var dbSubs = changeStreamSubscribers.get(eventInfo.db);
+        deliverToSubscribers(dbSubs, eventInfo, async);
+
+        // Deliver to database-level watches registered via PoppyDB (with collection="1")
+        // When aggregate with $changeStream comes through wire protocol, collection is set to "1" for db-level watches
+        var dbAllSubs = changeStreamSubscribers.get(eventInfo.db + ".1");
+        deliverToSubscribers(dbAllSubs, eventInfo, async);
+
+        // Deliver to collection-level subscribers
+        if (eventInfo.collection != null) {
+            var collSubs = changeStreamSubscribers.get(eventInfo.db + "." + eventInfo.collection);
+            deliverToSubscribers(collSubs, eventInfo, async);
+        }
+
+        // Deliver to cluster-wide subscribers
+        // These can be registered as "admin" (db only) or "admin.1" (when collection is "1" for all-db watch)
+        if (!"admin".equals(eventInfo.db)) {
+            var adminSubs = changeStreamSubscribers.get("admin");
+            deliverToSubscribers(adminSubs, eventInfo, async);
+
+            // Also check for "admin.1" which is used when watching all databases
+            var adminAllSubs = changeStreamSubscribers.get("admin.1");
+            deliverToSubscribers(adminAllSubs, eventInfo, async);
+        }
+    }
+
+    private void deliverToSubscribers(List<ChangeStreamSubscription> subscriptions, ChangeStreamEventInfo eventInfo,
+            boolean async) {
         if (subscriptions == null || subscriptions.isEmpty()) {
             return;
         }
@@ -10048,6 +10994,12 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 continue;
             }
 
+            if (async) {
+                // matched by the drain task, off the writer's thread
+                subscription.enqueue(eventInfo);
+                continue;
+            }
+
             if (!subscription.matches(eventInfo)) {
                 continue;
             }
@@ -10117,10 +11069,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         }
         this.changeStreamHistoryLimit = limit;
         while (changeStreamHistorySize.get() > limit) {
-            ChangeStreamEventInfo evicted = changeStreamHistory.pollFirst();
-            if (evicted != null) {
-                accountCapacityEviction(evicted);
-            } else {
+            if (evictOldestHistoryEvent(true) == null) {
                 break; // deque already empty
             }
         }
@@ -10141,13 +11090,10 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         this.changeStreamHistoryByteBudget = bytes;
 
         while (bytes > 0 && changeStreamHistoryBytes.get() > bytes && changeStreamHistorySize.get() > 1) {
-            ChangeStreamEventInfo evicted = changeStreamHistory.pollFirst();
-
-            if (evicted == null) {
+            if (evictOldestHistoryEvent(true) == null) {
                 break; // deque already empty
             }
 
-            accountCapacityEviction(evicted);
             changeStreamHistoryEvictedForBudget.incrementAndGet();
         }
     }
@@ -10236,10 +11182,23 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             return true;  // fully caught up, nothing to replay
         }
         ChangeStreamEventInfo oldest = changeStreamHistory.peekFirst();
-        if (oldest == null) {
+        ChangeStreamLog spill = changeStreamLog;
+        long oldestToken = oldest == null ? Long.MAX_VALUE : oldest.token;
+
+        if (spill != null) {
+            // evicted to disk: the window reaches back to the oldest event still logged, unless
+            // a write failed or retention removed a segment after the token
+            if (changeStreamHighestCapacityEvictedToken.get() > resumeToken) {
+                return false;
+            }
+
+            oldestToken = Math.min(oldestToken, spill.oldestToken());
+        }
+
+        if (oldestToken == Long.MAX_VALUE) {
             return false; // nothing buffered but events exist after the token — window lost
         }
-        return oldest.token <= resumeToken + 1;
+        return oldestToken <= resumeToken + 1;
     }
 
     /**
@@ -10289,6 +11248,89 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         this.testReplayPauseRelease = release;
     }
 
+    /**
+     * Disk extension of the replay buffer, null when evicted events are simply dropped. Events the
+     * count limit or byte budget evicts are appended to it, and resumes older than the heap window
+     * are replayed from it. Writes serialize on {@link #changeStreamSpillLock} with the
+     * in-memory part of a replay, so an event is never missed while it moves from heap to disk.
+     */
+    private volatile ChangeStreamLog changeStreamLog;
+    private final ReentrantLock changeStreamSpillLock = new ReentrantLock();
+
+    public ChangeStreamLog getChangeStreamLog() {
+        return changeStreamLog;
+    }
+
+    /**
+     * Attach (or detach, with null) the disk log for evicted change events. The driver does not
+     * close it. Events of a log that is replaced count as evicted - a resume into them fails.
+     */
+    public void setChangeStreamLog(ChangeStreamLog log) {
+        changeStreamSpillLock.lock();
+
+        try {
+            ChangeStreamLog old = this.changeStreamLog;
+
+            if (old != null) {
+                old.setDiscardListener(null);
+
+                if (old.getEvents() > 0) {
+                    changeStreamHighestCapacityEvictedToken.accumulateAndGet(changeStreamSequence.get(), Math::max);
+                }
+            }
+
+            if (log != null) {
+                log.setDiscardListener(token -> changeStreamHighestCapacityEvictedToken.accumulateAndGet(token, Math::max));
+            }
+
+            this.changeStreamLog = log;
+        } finally {
+            changeStreamSpillLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest event of the replay buffer - into the disk log if one is attached,
+     * otherwise it is lost for resuming. With a log, the move waits for a running replay to leave
+     * the in-memory part unless {@code wait} is false, then nothing is evicted this time (the
+     * next write catches up).
+     *
+     * @return the evicted event, null if the buffer was empty or the replay lock was busy
+     */
+    private ChangeStreamEventInfo evictOldestHistoryEvent(boolean wait) {
+        ChangeStreamLog spill = changeStreamLog;
+
+        if (spill == null) {
+            ChangeStreamEventInfo evicted = changeStreamHistory.pollFirst();
+            accountCapacityEviction(evicted);
+            return evicted;
+        }
+
+        if (wait) {
+            changeStreamSpillLock.lock();
+        } else if (!changeStreamSpillLock.tryLock()) {
+            return null;
+        }
+
+        try {
+            ChangeStreamEventInfo evicted = changeStreamHistory.pollFirst();
+
+            if (evicted == null) {
+                return null;
+            }
+
+            accountHistoryRemoval(evicted);
+
+            if (!spill.append(evicted.token, evicted.db, evicted.collection, evicted.event, evicted.createdAt)) {
+                changeStreamHighestCapacityEvictedToken.accumulateAndGet(evicted.token, Math::max);
+            }
+
+            return evicted;
+        } finally {
+            changeStreamSpillLock.unlock();
+        }
+    }
+
     private void awaitReplayPauseIfArmed() {
         CountDownLatch reached = testReplayPauseReached;
         CountDownLatch release = testReplayPauseRelease;
@@ -10329,7 +11371,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         // writers can append in inverted order (see notifyWatchers) - a set plus a post-loop
         // sweep tolerates those legitimate inversions, an in-order check would not.
         Set<Long> seenWindowTokens = new HashSet<>();
-        long maxSeen = effectiveMinToken;
+        long[] maxSeen = {effectiveMinToken};
 
         try {
             // A token beyond this driver's own sequence is from a foreign or reset sequence
@@ -10343,25 +11385,39 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                 return;
             }
 
-            for (ChangeStreamEventInfo info : changeStreamHistory) {
-                if (info.token <= effectiveMinToken) {
-                    continue;
-                }
-
-                seenWindowTokens.add(info.token);
+            ChangeStreamLog spill = changeStreamLog;
+            ChangeStreamLog.Position logPosition = null;
+            boolean replaying = true;
 
-                if (info.token > maxSeen) {
-                    maxSeen = info.token;
-                }
+            if (spill != null) {
+                // the bulk of a long outage comes from disk without blocking the eviction
+                logPosition = replayFromLog(spill, null, subscription, effectiveMinToken, seenWindowTokens, maxSeen);
+                replaying = logPosition != null;
+            }
 
-                if (!subscription.matches(info)) {
-                    continue;
+            if (replaying) {
+                // events evicted meanwhile are on disk after logPosition; holding the lock
+                // until the heap buffer is done keeps any event from moving past the iterator
+                if (spill != null) {
+                    changeStreamSpillLock.lock();
                 }
 
-                subscription.deliverDirect(info);
+                try {
+                    if (spill != null) {
+                        replaying = replayFromLog(spill, logPosition, subscription, effectiveMinToken, seenWindowTokens, maxSeen) != null;
+                    }
 
-                if (!subscription.isActive()) {
-                    break;
+                    if (replaying) {
+                        for (ChangeStreamEventInfo info : changeStreamHistory) {
+                            if (!replayEvent(subscription, info, effectiveMinToken, seenWindowTokens, maxSeen)) {
+                                break;
+                            }
+                        }
+                    }
+                } finally {
+                    if (spill != null) {
+                        changeStreamSpillLock.unlock();
+                    }
                 }
             }
         } finally {
@@ -10380,7 +11436,47 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         // Runs AFTER the staging flush so that live events which reached the consumer while
         // the replay was running count as delivered in the completeness check below.
         verifyReplayWindow(subscription, startingToken, effectiveMinToken, newestAtStart,
-                seenWindowTokens, maxSeen);
+                seenWindowTokens, maxSeen[0]);
+    }
+
+    /** one buffered event of a replay; false once the subscription stopped */
+    private boolean replayEvent(ChangeStreamSubscription subscription, ChangeStreamEventInfo info, long effectiveMinToken,
+            Set<Long> seenWindowTokens, long[] maxSeen) {
+        if (info.token <= effectiveMinToken) {
+            return true;
+        }
+
+        seenWindowTokens.add(info.token);
+
+        if (info.token > maxSeen[0]) {
+            maxSeen[0] = info.token;
+        }
+
+        if (!subscription.matches(info)) {
+            return true;
+        }
+
+        subscription.deliverDirect(info);
+        return subscription.isActive();
+    }
+
+    /**
+     * Replays the events evicted to the disk log, from {@code from} on (null for all of them).
+     * A read error leaves the tokens unseen, so {@link #verifyReplayWindow} fails the resume.
+     *
+     * @return where the log ended, null if the subscription stopped or the log could not be read
+     */
+    private ChangeStreamLog.Position replayFromLog(ChangeStreamLog spill, ChangeStreamLog.Position from,
+            ChangeStreamSubscription subscription, long effectiveMinToken, Set<Long> seenWindowTokens, long[] maxSeen) {
+        try {
+            return spill.replay(from, effectiveMinToken, e -> replayEvent(subscription,
+                                new ChangeStreamEventInfo(e.token(), e.db(), e.collection(), Collections.unmodifiableMap(e.event()), e.createdAt()),
+                                effectiveMinToken, seenWindowTokens, maxSeen));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Replaying change events from the disk log failed: {}", e.toString());
+            subscription.failHistoryLost("the change stream log could not be read: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -10858,8 +11954,10 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
         private final boolean insertOnlyMatchPipeline;
         private String namespaceKey;
         private final long cursorId;
-        // Deliver inline to keep latency low for messaging-heavy workloads
-        private final java.util.concurrent.ExecutorService subscriptionExecutor = null;
+        // Client-mode live delivery: dispatchEvent appends here, one drain task at a time
+        // delivers in order on the eventDispatcher pool - see the eventDispatcher field
+        private final java.util.concurrent.ConcurrentLinkedQueue<ChangeStreamEventInfo> pending = new java.util.concurrent.ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
         // Duplicate suppression for RESUMED watches only: the subscription is registered before
         // replayHistory runs (the reverse order would lose the gap between history snapshot and
         // live stream), so an event written in that window arrives twice - once live, once from
@@ -11089,13 +12187,67 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             }
 
             active = false;
+            pending.clear();
+            monitor.signalAll();
+        }
+
+        /** Client-mode live dispatch: queue the event and make sure a drain task is on its way. */
+        private void enqueue(ChangeStreamEventInfo info) {
+            if (!active) {
+                return;
+            }
+
+            pending.offer(info);
+            scheduleDrain();
+        }
 
-            // Shutdown this subscription's executor
-            if (subscriptionExecutor != null && !subscriptionExecutor.isShutdown()) {
-                subscriptionExecutor.shutdown();
+        private void scheduleDrain() {
+            if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
             }
 
-            monitor.signalAll();
+            try {
+                eventDispatcher.execute(this::drain);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                draining.set(false);
+                log.warn("InMemoryDriver executor REJECTED event dispatch for {} — {} events will be lost!",
+                         namespaceKey, pending.size());
+                pending.clear();
+            }
+        }
+
+        /**
+         * Delivers up to {@link #DISPATCH_BATCH} queued events, then hands the thread back - if
+         * more are queued (or arrived while draining), the next drain task is already submitted.
+         */
+        private void drain() {
+            try {
+                for (int i = 0; i < DISPATCH_BATCH && active; i++) {
+                    ChangeStreamEventInfo info = pending.poll();
+
+                    if (info == null) {
+                        break;
+                    }
+
+                    if (!matches(info)) {
+                        continue;
+                    }
+
+                    try {
+                        deliver(info);
+                    } catch (RuntimeException e) {
+                        log.error("Error delivering change stream event to {}", namespaceKey, e);
+                    }
+                }
+
+                if (!active) {
+                    pending.clear();
+                    unregisterSubscription(this);
+                }
+            } finally {
+                draining.set(false);
+                scheduleDrain();
+            }
         }
 
         /** Live-dispatch entry: holds the #319 ordering barrier while a replay is running. */
@@ -11404,6 +12556,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             // of synchronous change-stream dispatch.
             for (Map<String, Object> doc : deletedDocs) {
                 pendingNotifications.add(new PendingNotification(db, collection, "delete", doc, null, null, doc));
+                logWalDelete(db, collection, doc);
             }
 
             result = Doc.of("n", deleted, "ok", 1.0);
@@ -11515,6 +12668,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             collectionsWithTtlIndex.remove(db + "." + collection);
             invalidateTtlQueue(db, collection);
             cappedDrop(db, collection);
+            logWalDrop(db, collection);
         } finally {
             // The collection is gone: drop its persistent index store outright rather than
             // leaving a dead entry around forever. The next getIndexStore() call for this
@@ -11561,6 +12715,7 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             throw new MorphiumDriverException("dropDatabase not supported inside a transaction");
         }
         database.remove(db);
+        logWalDrop(db, null);
 
         if (indicesByDbCollection.containsKey(db)) {
             indicesByDbCollection.remove(db);
@@ -12517,9 +13672,16 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
                     }
                     collectionsWithTtlIndex.remove(dbName + "." + collName);
                     invalidateTtlQueue(dbName, collName);
+                    logWalDrop(dbName, collName);
                 } else {
                     database.putIfAbsent(dbName, new ConcurrentHashMap<>());
                     database.get(dbName).put(collName, snapDb.get(collName));
+                    WriteAheadLog wal = writeAheadLog;
+
+                    if (wal != null) {
+                        // the writes inside the transaction were not logged, the committed state is
+                        wal.logCollection(dbName, collName, snapDb.get(collName));
+                    }
                 }
             } finally {
                 // The transaction replaced (or removed) this collection's whole document list, so
@@ -12548,6 +13710,8 @@ public class InMemoryDriver implements MorphiumDriver, MongoConnection {
             }
             invalidateIndexStoreForKey(key);
         }
+
+        syncWal();
     }
 
     /**
@@ -0,0 +1,143 @@
+package de.caluga.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import de.caluga.morphium.driver.bson.BsonStreamDecoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Temporary file of documents an {@link InMemAggregator} stage running with allowDiskUse moves
+ * out of the heap - a sorted run of an external {@code $sort} or a hash partition of an external
+ * {@code $group}. The documents are written as plain BSON one after the other and read back in
+ * the same order. The file is deleted when it is closed or all documents were read - not on exit
+ * of the JVM, every registered file would stay in the JDK's list until then.
+ */
+final class SpillFile implements AutoCloseable {
+    private final File file;
+    private OutputStream out;
+    private InputStream in;
+    private long count;
+
+    SpillFile(File dir) throws IOException {
+        file = File.createTempFile("morphium-agg-", ".bson", dir);
+        out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+    }
+
+    void write(Map<String, Object> doc) throws IOException {
+        out.write(BsonEncoder.encodeDocument(doc));
+        count++;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * finishes writing - the documents in the order they were written
+     */
+    Iterator<Map<String, Object>> read() throws IOException {
+        out.close();
+        out = null;
+        in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        BsonStreamDecoder decoder = new BsonStreamDecoder(in, file.length(), false);
+        return new Iterator<>() {
+            private long remaining = count;
+
+            @Override
+            public boolean hasNext() {
+                if (remaining == 0) {
+                    close();
+                }
+
+                return remaining > 0;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    remaining--;
+                    return decoder.readDocument();
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException("reading aggregation spill file failed", e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+
+            if (in != null) {
+                in.close();
+            }
+        } catch (IOException ignored) {
+            // deleted anyway
+        }
+
+        out = null;
+        in = null;
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * rough heap size of a document, for the memory limit of spilling stages - object headers,
+     * references and the size of strings and arrays, not exact
+     */
+    static long estimateSize(Object o) {
+        if (o == null) {
+            return 0;
+        }
+
+        if (o instanceof String s) {
+            return 40 + 2L * s.length();
+        }
+
+        if (o instanceof byte[] b) {
+            return 16 + b.length;
+        }
+
+        if (o instanceof Map<?, ?> m) {
+            long sz = 48;
+
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                sz += 32 + estimateSize(e.getKey()) + estimateSize(e.getValue());
+            }
+
+            return sz;
+        }
+
+        if (o instanceof Collection<?> c) {
+            long sz = 40;
+
+            for (Object v : c) {
+                sz += 8 + estimateSize(v);
+            }
+
+            return sz;
+        }
+
+        return 24;
+    }
+}
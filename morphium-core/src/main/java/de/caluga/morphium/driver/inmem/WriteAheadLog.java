@@ -0,0 +1,467 @@
+package de.caluga.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumDriverException;
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutations of an {@link InMemoryDriver}, attached with
+ * {@link InMemoryDriver#setWriteAheadLog(WriteAheadLog)}. Together with
+ * {@link InMemoryDriver#checkpoint(File)} it replaces periodic full dumps: a write is durable once
+ * its record is in the log, and a checkpoint only rewrites the collections changed since the
+ * previous one.
+ *
+ * <p>The log is a sequence of segment files {@code wal-<n>.log} in its directory. Every record is
+ * framed as {@code [length][BSON document][CRC32]} and describes the resulting state (the whole
+ * document after an insert/update, the id of a deleted document, a dropped or renamed collection),
+ * so replaying a record that is already contained in the checkpoint is harmless. A record that was
+ * torn by a crash fails its length or checksum check and ends the replay of its segment.
+ *
+ * <p>Group commit: records are queued by the writing threads and written by one committer thread,
+ * which forces everything queued so far with a single fsync. With a commit interval of 0 a write
+ * returns only after its record was forced - concurrent writers share that fsync. With an
+ * interval greater than 0 the committer forces at most once per interval and writes do not wait,
+ * so at most that many milliseconds of writes are lost on a crash.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    static final String SEGMENT_PREFIX = "wal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private final File directory;
+    private final long commitIntervalMs;
+    // appends and the bookkeeping below
+    private final Object lock = new Object();
+    // held by whoever writes to or replaces the segment channel: the committer and rotate()
+    private final Object channelLock = new Object();
+    private final Thread committer;
+
+    private ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+    private Set<String> dirty = new HashSet<>();
+    private FileChannel channel;
+    private long segment;
+    private long appended;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * @param directory        the segment files, created if missing
+     * @param commitIntervalMs 0 to return from every write only after it was forced to disk,
+     *                         otherwise the maximum time between two fsyncs
+     */
+    public WriteAheadLog(File directory, long commitIntervalMs) throws IOException {
+        if (commitIntervalMs < 0) {
+            throw new IllegalArgumentException("commitIntervalMs must not be negative");
+        }
+
+        this.directory = directory;
+        this.commitIntervalMs = commitIntervalMs;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create write-ahead log directory " + directory.getAbsolutePath());
+        }
+
+        // never append to an existing segment - its tail may be torn
+        segment = segments(directory).isEmpty() ? 1 : segments(directory).lastKey() + 1;
+        channel = open(segment);
+        committer = new Thread(this::commitLoop, "morphium-wal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getCommitIntervalMs() {
+        return commitIntervalMs;
+    }
+
+    /** the segment new records are appended to */
+    public long getSegment() {
+        synchronized (lock) {
+            return segment;
+        }
+    }
+
+    private FileChannel open(long n) throws IOException {
+        return FileChannel.open(segmentFile(directory, n).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.APPEND);
+    }
+
+    static File segmentFile(File dir, long n) {
+        return new File(dir, SEGMENT_PREFIX + n + SEGMENT_SUFFIX);
+    }
+
+    /** segment number to file, in order */
+    static TreeMap<Long, File> segments(File dir) {
+        TreeMap<Long, File> ret = new TreeMap<>();
+        File[] files = dir.listFiles((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+
+        if (files != null) {
+            for (File f : files) {
+                String n = f.getName().substring(SEGMENT_PREFIX.length(), f.getName().length() - SEGMENT_SUFFIX.length());
+
+                try {
+                    ret.put(Long.parseLong(n), f);
+                } catch (NumberFormatException e) {
+                    // not ours
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    static String namespace(String db, String coll) {
+        return coll == null ? db + "/" : db + "/" + coll;
+    }
+
+    void logPut(String db, String coll, Map<String, Object> doc) {
+        append(Doc.of("op", "put", "db", db, "coll", coll, "doc", doc), namespace(db, coll));
+    }
+
+    void logDelete(String db, String coll, Object id) {
+        append(Doc.of("op", "delete", "db", db, "coll", coll, "id", id), namespace(db, coll));
+    }
+
+    void logDrop(String db, String coll) {
+        append(Doc.of("op", "drop", "db", db, "coll", coll), namespace(db, coll));
+    }
+
+    void logDropDatabase(String db) {
+        append(Doc.of("op", "dropDatabase", "db", db), namespace(db, null));
+    }
+
+    void logRename(String db, String from, String to) {
+        append(Doc.of("op", "rename", "db", db, "coll", from, "to", to), namespace(db, from), namespace(db, to));
+    }
+
+    /** the whole content of a collection, e.g. after a transaction replaced it */
+    void logCollection(String db, String coll, List<Map<String, Object>> docs) {
+        append(Doc.of("op", "collection", "db", db, "coll", coll, "docs", docs), namespace(db, coll));
+    }
+
+    /**
+     * queues the record and marks the namespaces dirty for the next checkpoint - called under the
+     * collection lock, so it never waits for the disk and never fails: a failed log is reported by
+     * {@link #sync()}
+     */
+    private void append(Map<String, Object> record, String... namespaces) {
+        byte[] bson;
+
+        try {
+            bson = BsonEncoder.encodeDocument(record);
+        } catch (RuntimeException e) {
+            log.error("Cannot write {} of {} to the write-ahead log - writes are rejected from now on", record.get("op"),
+                      record.get("coll"), e);
+
+            synchronized (lock) {
+                failure = new IOException("cannot encode record: " + e.getMessage(), e);
+                lock.notifyAll();
+            }
+
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bson);
+        ByteBuffer frame = ByteBuffer.allocate(bson.length + 8);
+        frame.putInt(bson.length).put(bson).putInt((int) crc.getValue()).flip();
+
+        synchronized (lock) {
+            if (failure != null || closed) {
+                log.debug("Write-ahead log {} not usable, record dropped", directory.getAbsolutePath());
+                return;
+            }
+
+            pending.add(frame);
+            dirty.addAll(List.of(namespaces));
+            appended++;
+            lock.notifyAll();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new MorphiumDriverException("write-ahead log failed: " + failure.getMessage(), failure);
+        }
+
+        if (closed) {
+            throw new MorphiumDriverException("write-ahead log is closed");
+        }
+    }
+
+    /**
+     * with a commit interval of 0 waits until everything logged so far was forced to disk,
+     * otherwise returns immediately
+     *
+     * @throws MorphiumDriverException if writing the log failed - the write was applied in memory
+     *                                 but is not durable
+     */
+    void sync() {
+        synchronized (lock) {
+            if (failure != null) {
+                checkUsable();
+            }
+
+            if (commitIntervalMs > 0) {
+                return;
+            }
+
+            long seq = appended;
+
+            while (durable < seq) {
+                if (failure != null) {
+                    checkUsable();
+                }
+
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MorphiumDriverException("interrupted waiting for the write-ahead log");
+                }
+            }
+        }
+    }
+
+    private void commitLoop() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (pending.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                }
+
+                if (commitIntervalMs > 0) {
+                    // let writes accumulate, closing forces the rest
+                    long deadline = System.currentTimeMillis() + commitIntervalMs;
+
+                    synchronized (lock) {
+                        long left;
+
+                        while (!closed && (left = deadline - System.currentTimeMillis()) > 0) {
+                            lock.wait(left);
+                        }
+                    }
+                }
+
+                synchronized (channelLock) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Writing the write-ahead log in {} failed - writes are rejected from now on", directory.getAbsolutePath(), e);
+
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** writes and forces everything queued so far - caller holds {@link #channelLock} */
+    private void flush() throws IOException {
+        ArrayDeque<ByteBuffer> batch;
+        long upTo;
+        FileChannel ch;
+
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayDeque<>();
+            upTo = appended;
+            ch = channel;
+        }
+
+        if (!batch.isEmpty()) {
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+
+            for (ByteBuffer b : buffers) {
+                remaining += b.remaining();
+            }
+
+            while (remaining > 0) {
+                remaining -= ch.write(buffers);
+            }
+
+            ch.force(false);
+        }
+
+        synchronized (lock) {
+            durable = Math.max(durable, upTo);
+            lock.notifyAll();
+        }
+    }
+
+    /** namespaces the next checkpoint has to rewrite although they were not logged here */
+    void markDirty(Collection<String> namespaces) {
+        synchronized (lock) {
+            dirty.addAll(namespaces);
+        }
+    }
+
+    /**
+     * Starts a checkpoint: forces the current segment, continues in a new one and resets the dirty
+     * namespaces. Everything logged before is in the older segments, everything after in the new
+     * one and later.
+     */
+    Rotation rotate() throws IOException {
+        synchronized (channelLock) {
+            flush();
+
+            synchronized (lock) {
+                checkUsable();
+                FileChannel next = open(segment + 1);
+                channel.close();
+                channel = next;
+                segment++;
+                Set<String> changed = dirty;
+                dirty = new HashSet<>();
+                return new Rotation(segment, changed);
+            }
+        }
+    }
+
+    /**
+     * @param segment    the first segment to replay after the checkpoint
+     * @param namespaces {@code db/collection} of every collection changed before the rotation,
+     *                   {@code db/} for a dropped database
+     */
+    record Rotation(long segment, Set<String> namespaces) {
+    }
+
+    /** removes the segments a checkpoint made obsolete */
+    void deleteSegmentsBefore(long first) {
+        for (Map.Entry<Long, File> e : segments(directory).headMap(first).entrySet()) {
+            if (!e.getValue().delete()) {
+                log.warn("Could not remove obsolete write-ahead log segment {}", e.getValue().getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Reads the records of all segments in {@code dir} starting with segment {@code from}, in the
+     * order they were written.
+     *
+     * @return number of records replayed
+     */
+    static long replay(File dir, long from, Consumer<Map<String, Object>> apply) throws IOException {
+        long count = 0;
+
+        for (Map.Entry<Long, File> e : segments(dir).tailMap(from).entrySet()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(e.getValue()), 64 * 1024))) {
+                while (true) {
+                    Map<String, Object> record = readRecord(in, e.getValue());
+
+                    if (record == null) {
+                        break;
+                    }
+
+                    apply.accept(record);
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static Map<String, Object> readRecord(DataInputStream in, File f) throws IOException {
+        int len;
+
+        try {
+            len = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        try {
+            if (len <= 0 || len > 1024 * 1024 * 1024) {
+                throw new IOException("invalid record length " + len);
+            }
+
+            byte[] bson = new byte[len];
+            in.readFully(bson);
+            int checksum = in.readInt();
+            CRC32 crc = new CRC32();
+            crc.update(bson);
+
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("checksum mismatch");
+            }
+
+            return BsonDecoder.decodeDocument(bson);
+        } catch (EOFException e) {
+            log.warn("Write-ahead log segment {} ends with an incomplete record - written during a crash, ignored", f.getName());
+            return null;
+        } catch (IOException e) {
+            log.warn("Write-ahead log segment {} has a damaged record ({}) - ignoring the rest of the segment", f.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /** forces all queued records and closes the current segment */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (channelLock) {
+            try {
+                flush();
+                channel.close();
+            } catch (IOException e) {
+                log.error("Closing the write-ahead log in {} failed", directory.getAbsolutePath(), e);
+
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
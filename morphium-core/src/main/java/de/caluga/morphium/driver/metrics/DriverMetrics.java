@@ -0,0 +1,170 @@
+package de.caluga.morphium.driver.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per host latency histograms and byte counters of a driver, see
+ * {@link de.caluga.morphium.driver.MorphiumDriver#getMetrics()}. Command latency is measured on
+ * the connection from writing the request to reading its reply, so it includes the network round
+ * trip and server time but not encoding of the request or decoding of the reply documents.
+ * {@link Timer#CONNECTION_WAIT} is the time a caller waited for a pooled connection.
+ *
+ * <p>The driver's counters ({@code getDriverStats()}) stay as they are - these metrics add the
+ * distribution of latencies and the traffic on the wire.
+ */
+public class DriverMetrics {
+    private static final Logger log = LoggerFactory.getLogger(DriverMetrics.class);
+
+    /** What is timed. */
+    public enum Timer {
+        FIND("find"),
+        INSERT("insert"),
+        UPDATE("update"),
+        DELETE("delete"),
+        AGGREGATE("aggregate"),
+        GET_MORE("getMore"),
+        /** every other command (count, findAndModify, createIndexes, ...) */
+        COMMAND("command"),
+        /** time spent waiting for a connection from the pool */
+        CONNECTION_WAIT("connectionWait");
+
+        private final String metricName;
+
+        Timer(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /** name to use as tag value / metric name suffix */
+        public String getMetricName() {
+            return metricName;
+        }
+
+        /** The timer for a command by its name, the first key of the command document. */
+        public static Timer forCommand(String commandName) {
+            if (commandName == null) {
+                return COMMAND;
+            }
+
+            switch (commandName) {
+                case "find":
+                    return FIND;
+
+                case "insert":
+                    return INSERT;
+
+                case "update":
+                    return UPDATE;
+
+                case "delete":
+                    return DELETE;
+
+                case "aggregate":
+                    return AGGREGATE;
+
+                case "getMore":
+                    return GET_MORE;
+
+                default:
+                    return COMMAND;
+            }
+        }
+    }
+
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+    private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+
+    /** The metrics of a host ({@code host:port}), created on first use. */
+    public HostMetrics forHost(String host) {
+        HostMetrics m = hosts.get(host);
+
+        if (m != null) {
+            return m;
+        }
+
+        synchronized (this) {
+            m = hosts.get(host);
+
+            if (m == null) {
+                m = new HostMetrics(host);
+                hosts.put(host, m);
+
+                for (MetricsExporter e : exporters) {
+                    notifyExporter(e, m);
+                }
+            }
+
+            return m;
+        }
+    }
+
+    public Collection<HostMetrics> getHosts() {
+        return Collections.unmodifiableCollection(hosts.values());
+    }
+
+    /** The latencies of the given timer over all hosts - a copy, not updated any more. */
+    public LatencyHistogram getLatency(Timer timer) {
+        LatencyHistogram ret = new LatencyHistogram();
+
+        for (HostMetrics m : hosts.values()) {
+            ret.add(m.getLatency(timer));
+        }
+
+        return ret;
+    }
+
+    public long getBytesSent() {
+        return hosts.values().stream().mapToLong(HostMetrics::getBytesSent).sum();
+    }
+
+    public long getBytesReceived() {
+        return hosts.values().stream().mapToLong(HostMetrics::getBytesReceived).sum();
+    }
+
+    public synchronized void addExporter(MetricsExporter exporter) {
+        exporters.add(exporter);
+
+        for (HostMetrics m : hosts.values()) {
+            notifyExporter(exporter, m);
+        }
+    }
+
+    public void removeExporter(MetricsExporter exporter) {
+        if (exporters.remove(exporter)) {
+            exporter.close();
+        }
+    }
+
+    public List<MetricsExporter> getExporters() {
+        return new ArrayList<>(exporters);
+    }
+
+    /** Closes and removes all exporters - called when the driver is closed. */
+    public void close() {
+        for (MetricsExporter e : getExporters()) {
+            removeExporter(e);
+        }
+    }
+
+    public void reset() {
+        for (HostMetrics m : hosts.values()) {
+            m.reset();
+        }
+    }
+
+    private void notifyExporter(MetricsExporter e, HostMetrics m) {
+        try {
+            e.hostAdded(m);
+        } catch (Exception ex) {
+            log.warn("Metrics exporter {} failed for host {}", e.getClass().getName(), m.getHost(), ex);
+        }
+    }
+}
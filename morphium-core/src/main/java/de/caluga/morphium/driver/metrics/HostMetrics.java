@@ -0,0 +1,89 @@
+package de.caluga.morphium.driver.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import de.caluga.morphium.driver.metrics.DriverMetrics.Timer;
+
+/**
+ * Latencies and wire traffic of one host: a {@link LatencyHistogram} per {@link Timer} and
+ * request/response byte counters. Connections hold on to their host's instance, recording is
+ * allocation free.
+ */
+public class HostMetrics {
+    private final String host;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Timer.values().length];
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+
+    public HostMetrics(String host) {
+        this.host = host;
+
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public LatencyHistogram getLatency(Timer timer) {
+        return latencies[timer.ordinal()];
+    }
+
+    public void recordLatency(Timer timer, long nanos) {
+        latencies[timer.ordinal()].recordNanos(nanos);
+    }
+
+    public void recordSent(int bytes) {
+        messagesSent.increment();
+        bytesSent.add(bytes);
+    }
+
+    public void recordReceived(int bytes) {
+        messagesReceived.increment();
+        bytesReceived.add(bytes);
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : latencies) {
+            h.reset();
+        }
+
+        bytesSent.reset();
+        bytesReceived.reset();
+        messagesSent.reset();
+        messagesReceived.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder(host).append(": sent=").append(getBytesSent()).append("B received=").append(getBytesReceived()).append("B");
+
+        for (Timer t : Timer.values()) {
+            if (getLatency(t).getCount() > 0) {
+                b.append("\n  ").append(t).append(": ").append(getLatency(t));
+            }
+        }
+
+        return b.toString();
+    }
+}
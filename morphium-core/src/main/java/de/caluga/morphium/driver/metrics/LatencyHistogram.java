@@ -0,0 +1,165 @@
+package de.caluga.morphium.driver.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: every power of two is split into
+ * {@value #HALF} linear sub-buckets, so any recorded value is reported within ~3% of its true
+ * value, from 1µs up to {@link #getHighestTrackableMicros()} (~19h, larger values are clamped).
+ * The buckets are a fixed {@link AtomicLongArray} - {@link #record(long)} is a handful of atomic
+ * increments and never allocates, it is safe to call on every request.
+ *
+ * <p>Counts are cumulative since creation or the last {@link #reset()}. Readers may run
+ * concurrently with writers; a percentile computed while values are being recorded is accurate
+ * to within the values that arrived during the scan.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    private static final int MAX_MSB = 36;
+    private static final long HIGHEST_TRACKABLE = (1L << (MAX_MSB + 1)) - 1;
+    private static final int BUCKETS = indexOf(HIGHEST_TRACKABLE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    static int indexOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF + (int) (micros >>> shift) - HALF;
+    }
+
+    /** Highest value that falls into the given bucket. */
+    static long highestValueIn(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+
+        int i = index - SUB_COUNT;
+        int shift = i / HALF + 1;
+        long sub = i % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public static long getHighestTrackableMicros() {
+        return HIGHEST_TRACKABLE;
+    }
+
+    /** Records one latency in nanoseconds, as measured with {@link System#nanoTime()}. */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /** Records one latency in microseconds. */
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        } else if (micros > HIGHEST_TRACKABLE) {
+            micros = HIGHEST_TRACKABLE;
+        }
+
+        counts.incrementAndGet(indexOf(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max = maxMicros.get();
+
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalMicros() {
+        return totalMicros.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long c = count.get();
+        return c == 0 ? 0 : (double) totalMicros.get() / c;
+    }
+
+    public double getTotal(TimeUnit unit) {
+        return (double) TimeUnit.MICROSECONDS.toNanos(totalMicros.get()) / unit.toNanos(1);
+    }
+
+    /**
+     * @param percentile 0..100, e.g. 99.9
+     * @return the value (µs) at or below which the given share of the recorded latencies lies,
+     *         0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), maxMicros.get());
+            }
+        }
+
+        return maxMicros.get();
+    }
+
+    /** Adds all values recorded in {@code other} to this histogram. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+
+        count.addAndGet(other.count.get());
+        totalMicros.addAndGet(other.totalMicros.get());
+        long otherMax = other.maxMicros.get();
+        long max = maxMicros.get();
+
+        while (otherMax > max && !maxMicros.compareAndSet(max, otherMax)) {
+            max = maxMicros.get();
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + " mean=" + Math.round(getMeanMicros()) + "us p50=" + getValueAtPercentile(50)
+               + "us p99=" + getValueAtPercentile(99) + "us max=" + getMaxMicros() + "us";
+    }
+}
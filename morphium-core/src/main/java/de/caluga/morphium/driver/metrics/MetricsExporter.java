@@ -0,0 +1,18 @@
+package de.caluga.morphium.driver.metrics;
+
+/**
+ * Hands the driver's metrics to a monitoring system. Register implementations with
+ * {@link DriverMetrics#addExporter}; {@link #hostAdded} is called once for every host known at
+ * that time and then for every host the driver connects to later. Exporters read the
+ * {@link HostMetrics} whenever their backend polls - nothing is pushed from the request path.
+ *
+ * <p>The Spring Boot and Quarkus integrations ship a Micrometer exporter.
+ */
+public interface MetricsExporter {
+
+    void hostAdded(HostMetrics host);
+
+    /** Called when the exporter is removed or the driver is closed. */
+    default void close() {
+    }
+}
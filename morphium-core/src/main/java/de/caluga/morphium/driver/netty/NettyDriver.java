@@ -0,0 +1,81 @@
+package de.caluga.morphium.driver.netty;
+
+import de.caluga.morphium.annotations.Driver;
+import de.caluga.morphium.driver.MorphiumDriverException;
+import de.caluga.morphium.driver.wire.PooledDriver;
+import de.caluga.morphium.driver.wire.SingleMongoConnection;
+
+/**
+ * {@link PooledDriver} with a non-blocking netty transport: every host is served by a few
+ * multiplexed {@link NettyMongoConnection}s on one shared event loop. Concurrent requests are
+ * pipelined over these channels and matched to their replies by responseTo, so thousands of
+ * outstanding queries neither need a socket each nor a thread per socket for I/O. Topology
+ * discovery and the heartbeat use the regular (small) connection pool.
+ * <p>
+ * Select it with {@code cfg.driverSettings().setDriverName(NettyDriver.driverName)}. Netty is an
+ * optional dependency of morphium - {@code io.netty:netty-all} has to be on the classpath.
+ */
+@Driver(name = "NettyDriver", description = "Pooled driver with non-blocking netty transport")
+public class NettyDriver extends PooledDriver {
+
+    public static final String driverName = "NettyDriver";
+    public static final int DEFAULT_CONNECTIONS_PER_HOST = 2;
+
+    private NettyTransport transport;
+    private int eventLoopThreads = 0;
+
+    public NettyDriver() {
+        super();
+        super.setMultiplexedConnectionsPerHost(DEFAULT_CONNECTIONS_PER_HOST);
+    }
+
+    @Override
+    public String getName() {
+        return driverName;
+    }
+
+    /** Multiplexing is what this driver is about: 0 (the settings default) means the driver default. */
+    @Override
+    public void setMultiplexedConnectionsPerHost(int connectionsPerHost) {
+        super.setMultiplexedConnectionsPerHost(connectionsPerHost > 0 ? connectionsPerHost : DEFAULT_CONNECTIONS_PER_HOST);
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /** Number of event loop threads shared by all connections - 0 uses netty's default. Set before connecting. */
+    public NettyDriver setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = Math.max(0, eventLoopThreads);
+        return this;
+    }
+
+    @Override
+    protected SingleMongoConnection createMultiplexedConnection() throws MorphiumDriverException {
+        return transport().newConnection();
+    }
+
+    private synchronized NettyTransport transport() throws MorphiumDriverException {
+        if (transport == null) {
+            try {
+                transport = new NettyTransport(eventLoopThreads);
+            } catch (NoClassDefFoundError e) {
+                throw new MorphiumDriverException("NettyDriver needs io.netty:netty-all on the classpath", e);
+            }
+        }
+
+        return transport;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        synchronized (this) {
+            if (transport != null) {
+                transport.shutdown();
+                transport = null;
+            }
+        }
+    }
+}
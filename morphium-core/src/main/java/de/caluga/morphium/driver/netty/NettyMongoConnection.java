@@ -0,0 +1,232 @@
+package de.caluga.morphium.driver.netty;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.driver.MorphiumDriver;
+import de.caluga.morphium.driver.MorphiumDriverException;
+import de.caluga.morphium.driver.MorphiumDriverNetworkException;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
+import de.caluga.morphium.driver.wire.DriverBase;
+import de.caluga.morphium.driver.wire.SingleMongoConnection;
+import de.caluga.morphium.driver.wireprotocol.OpMsg;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.Future;
+
+/**
+ * Multiplexed connection on a netty channel. Requests are encoded and written by the event
+ * loop, replies are decoded there and handed to the waiting callers by their responseTo - no
+ * thread per socket, neither for writing nor for reading. Everything above the transport
+ * (handshake, auth, reply slots, watch) is inherited from {@link SingleMongoConnection}.
+ */
+public class NettyMongoConnection extends SingleMongoConnection {
+
+    private final Logger log = LoggerFactory.getLogger(NettyMongoConnection.class);
+    private final EventLoopGroup group;
+    private volatile Channel channel;
+
+    public NettyMongoConnection(EventLoopGroup group) {
+        this.group = group;
+        super.setMultiplexed(true);
+    }
+
+    /** A netty connection has no reader thread to hand the stream to - it is always multiplexed. */
+    @Override
+    public SingleMongoConnection setMultiplexed(boolean multiplexed) {
+        if (!multiplexed) {
+            throw new IllegalArgumentException("NettyMongoConnection only supports multiplexed mode");
+        }
+
+        return this;
+    }
+
+    @Override
+    protected int openTransport(MorphiumDriver drv, String host, int port) throws IOException {
+        int timeout = drv.getConnectionTimeout();
+
+        if (timeout <= 0) {
+            timeout = 1000;
+        }
+
+        SslHandler ssl = drv.isUseSSL() ? createSslHandler(drv, host, port) : null;
+        Bootstrap bootstrap = new Bootstrap()
+        .group(group)
+        .channel(NioSocketChannel.class)
+        .option(ChannelOption.TCP_NODELAY, true)
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeout)
+        .handler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(SocketChannel ch) {
+                if (ssl != null) {
+                    ch.pipeline().addLast("ssl", ssl);
+                }
+
+                ch.pipeline().addLast("decoder", new WireProtocolDecoder(drv.isLazyDocumentDecoding()));
+                ch.pipeline().addLast("encoder", new CountingEncoder());
+                ch.pipeline().addLast("replies", new ReplyHandler());
+            }
+        });
+        ChannelFuture connected = bootstrap.connect(host, port);
+
+        if (!connected.awaitUninterruptibly(timeout + 1000L) || !connected.isSuccess()) {
+            connected.channel().close();
+            throw new IOException("Could not connect to " + host + ":" + port, connected.cause());
+        }
+
+        Channel ch = connected.channel();
+
+        if (ssl != null) {
+            Future<Channel> handshake = ssl.handshakeFuture();
+
+            if (!handshake.awaitUninterruptibly(timeout) || !handshake.isSuccess()) {
+                ch.close();
+                throw new IOException("TLS handshake with " + host + ":" + port + " failed", handshake.cause());
+            }
+
+            extractX509SubjectDn(ssl.engine().getSession());
+            log.debug("SSL connection established to {}:{}", host, port);
+        }
+
+        channel = ch;
+        return ((InetSocketAddress) ch.localAddress()).getPort();
+    }
+
+    private SslHandler createSslHandler(MorphiumDriver drv, String host, int port) throws IOException {
+        SSLContext sslContext = drv instanceof DriverBase db ? db.getSslContext() : null;
+
+        if (sslContext == null) {
+            try {
+                sslContext = SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("Failed to get default SSLContext", e);
+            }
+        }
+
+        SSLEngine engine = sslContext.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+
+        // Enable hostname verification unless explicitly disabled
+        if (!(drv instanceof DriverBase db && db.isSslInvalidHostNameAllowed())) {
+            SSLParameters params = engine.getSSLParameters();
+            params.setEndpointIdentificationAlgorithm("HTTPS");
+            engine.setSSLParameters(params);
+        }
+
+        return new SslHandler(engine);
+    }
+
+    @Override
+    protected boolean isTransportOpen() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    @Override
+    protected void startReplyReader(String host, int port) throws MorphiumDriverException {
+        // nothing to start - the ReplyHandler in the channel pipeline delivers the replies
+    }
+
+    /**
+     * Does not block: the message is queued on the channel and encoded by the event loop. A
+     * failed write fails all requests in flight on this connection - including this one, whose
+     * reply slot is already registered.
+     */
+    @Override
+    protected void writeMessage(WireProtocolMessage msg) throws IOException {
+        Channel ch = channel;
+
+        if (ch == null || !ch.isActive()) {
+            throw new IOException("channel closed");
+        }
+
+        ch.writeAndFlush(msg).addListener(f -> {
+            if (!f.isSuccess()) {
+                connectionLost(f.cause());
+            }
+        });
+    }
+
+    /**
+     * Pooled encoding buffers are wrapped into one composite buffer - the event loop gathers
+     * them onto the socket as they are - and go back to the pool once the write completed.
+     */
+    @Override
+    protected void writeBuffers(ByteBuffer[] segments, BsonBufferPool pool) throws IOException {
+        Channel ch = channel;
+
+        if (ch == null || !ch.isActive()) {
+            OpMsg.release(segments, pool);
+            throw new IOException("channel closed");
+        }
+
+        recordBytesSent(segments);
+        ch.writeAndFlush(Unpooled.wrappedBuffer(segments)).addListener(f -> {
+            OpMsg.release(segments, pool);
+
+            if (!f.isSuccess()) {
+                connectionLost(f.cause());
+            }
+        });
+    }
+
+    @Override
+    protected void closeTransport() {
+        Channel ch = channel;
+        channel = null;
+
+        if (ch != null) {
+            // may run on the event loop itself (connection lost) - never wait for the close here
+            ch.close();
+        }
+    }
+
+    /** Messages are encoded on the event loop - their size on the wire is only known here. */
+    private final class CountingEncoder extends WireProtocolEncoder {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, WireProtocolMessage msg, ByteBuf out) throws Exception {
+            int start = out.writerIndex();
+            super.encode(ctx, msg, out);
+            recordBytesSent(out.writerIndex() - start);
+        }
+    }
+
+    private final class ReplyHandler extends SimpleChannelInboundHandler<WireProtocolMessage> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WireProtocolMessage msg) throws Exception {
+            deliverReply(msg);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            connectionLost(new MorphiumDriverNetworkException("Connection closed by server"));
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            connectionLost(cause);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package de.caluga.morphium.driver.netty;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+/**
+ * The event loop shared by all connections of one {@link NettyDriver}. Kept out of the driver
+ * class itself so that the driver can be found (and skipped) by the classpath scan for
+ * {@code @Driver} classes when netty is not on the classpath.
+ */
+final class NettyTransport {
+
+    private final EventLoopGroup group;
+
+    @SuppressWarnings("deprecation")
+    NettyTransport(int threads) {
+        group = new NioEventLoopGroup(threads, Thread.ofPlatform().name("morphium-netty-", 0).daemon().factory());
+    }
+
+    NettyMongoConnection newConnection() {
+        return new NettyMongoConnection(group);
+    }
+
+    void shutdown() {
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+    }
+}
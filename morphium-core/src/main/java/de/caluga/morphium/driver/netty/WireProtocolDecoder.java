@@ -0,0 +1,138 @@
+package de.caluga.morphium.driver.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.driver.wireprotocol.OpMsg;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage.OpCode;
+
+import java.util.List;
+
+/**
+ * Netty decoder for MongoDB wire protocol messages.
+ * Converts ByteBuf to WireProtocolMessage objects - used by the client side (NettyDriver) as
+ * well as by PoppyDB, which adds its server specific error handling on top.
+ *
+ * Wire protocol format:
+ * - 4 bytes: message length (including header)
+ * - 4 bytes: request ID
+ * - 4 bytes: response to
+ * - 4 bytes: opcode
+ * - N bytes: payload (length - 16)
+ */
+public class WireProtocolDecoder extends ByteToMessageDecoder {
+
+    // logs under the concrete decoder's name - server and client decode errors stay apart
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_MESSAGE_SIZE = 48 * 1024 * 1024; // 48MB max message
+    private final boolean lazyDocuments;
+
+    public WireProtocolDecoder() {
+        this(false);
+    }
+
+    /**
+     * @param lazyDocuments parse OP_MSG with {@link OpMsg#setLazyDocuments lazy} embedded
+     *                      documents. They keep pointing into the payload array, so every
+     *                      message is copied out of the netty buffer then.
+     */
+    public WireProtocolDecoder(boolean lazyDocuments) {
+        this.lazyDocuments = lazyDocuments;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        // Need at least the header to determine message size
+        if (in.readableBytes() < HEADER_SIZE) {
+            return;
+        }
+
+        // Mark the current position in case we need to reset
+        in.markReaderIndex();
+
+        // Read message size (first 4 bytes, little-endian)
+        int messageSize = in.readIntLE();
+
+        // Validate message size
+        if (messageSize < HEADER_SIZE || messageSize > MAX_MESSAGE_SIZE) {
+            log.error("Invalid message size: {} — closing connection (stream is corrupted)", messageSize);
+            // Stream is corrupted beyond recovery — we don't know where the next message starts
+            ctx.close();
+            return;
+        }
+
+        // Check if we have the full message
+        // We already read 4 bytes (size), so we need messageSize - 4 more bytes
+        if (in.readableBytes() < messageSize - 4) {
+            // Reset to beginning and wait for more data
+            in.resetReaderIndex();
+            return;
+        }
+
+        // Read header fields
+        int requestId = in.readIntLE();
+        int responseTo = in.readIntLE();
+        int opCode = in.readIntLE();
+
+        // Read payload (always consume the bytes to keep the stream in sync)
+        int payloadSize = messageSize - HEADER_SIZE;
+
+        // Zero-copy fast-path: if the ByteBuf is backed by a heap array, we can pass
+        // the backing array + offset directly to parsePayload() and avoid allocating
+        // a temporary byte[]. For direct/pooled buffers we fall back to the copy path.
+        byte[] payload;
+        int payloadOffset;
+        if (in.hasArray() && !lazyDocuments) {
+            payload = in.array();
+            payloadOffset = in.arrayOffset() + in.readerIndex();
+            in.skipBytes(payloadSize);
+        } else {
+            payload = new byte[payloadSize];
+            in.readBytes(payload);
+            payloadOffset = 0;
+        }
+
+        // Find the opcode handler
+        OpCode code = OpCode.findByCode(opCode);
+        if (code == null) {
+            log.error("Unknown opcode: {} (requestId={}, size={}) — skipping message", opCode, requestId, messageSize);
+            // Bytes already consumed above, stream stays in sync — don't close the connection
+            return;
+        }
+
+        // Create message instance
+        try {
+            WireProtocolMessage message = code.handler.getDeclaredConstructor().newInstance();
+            message.setSize(messageSize);
+            message.setMessageId(requestId);
+            message.setResponseTo(responseTo);
+
+            if (lazyDocuments && message instanceof OpMsg msg) {
+                msg.setLazyDocuments(true);
+            }
+
+            message.parsePayload(payload, payloadOffset);
+
+            log.debug("Decoded {} message, id={}, size={}", code.name(), requestId, messageSize);
+            out.add(message);
+        } catch (Exception e) {
+            log.error("Failed to parse {} message (requestId={}, size={}): {} — rejecting",
+                    code.name(), requestId, messageSize, e.getMessage());
+            // Bytes already consumed, stream stays in sync — don't close the connection
+            onUnparseableMessage(ctx, code, requestId, responseTo, e);
+        }
+    }
+
+    /**
+     * Called for a complete message that could not be parsed. Its bytes are consumed, the
+     * stream is still in sync. Does nothing by default - the server answers the request with
+     * an error here, so the client does not wait for a reply that never comes.
+     */
+    protected void onUnparseableMessage(ChannelHandlerContext ctx, OpCode code, int requestId, int responseTo, Exception e) {
+    }
+}
@@ -0,0 +1,60 @@
+package de.caluga.morphium.driver.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
+
+/**
+ * Netty encoder for MongoDB wire protocol messages.
+ * Converts WireProtocolMessage objects to ByteBuf - shared by the NettyDriver and PoppyDB.
+ * With a compressor set, messages are sent as OP_COMPRESSED as far as the
+ * {@link CompressionPolicy} allows.
+ */
+public class WireProtocolEncoder extends MessageToByteEncoder<WireProtocolMessage> {
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+    private final int compressorId;
+    private final CompressionPolicy compressionPolicy;
+
+    public WireProtocolEncoder() {
+        this(OpCompressed.COMPRESSOR_NOOP);
+    }
+
+    public WireProtocolEncoder(int compressorId) {
+        this(compressorId, new CompressionPolicy());
+    }
+
+    public WireProtocolEncoder(int compressorId, CompressionPolicy compressionPolicy) {
+        this.compressorId = compressorId;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, WireProtocolMessage msg, ByteBuf out) throws Exception {
+        byte[] bytes = null;
+
+        if (compressorId != OpCompressed.COMPRESSOR_NOOP && !(msg instanceof OpCompressed)) {
+            byte[] originalPayload = msg.getPayload();
+            OpCompressed compressed = compressionPolicy.compress(msg, originalPayload, compressorId);
+
+            if (compressed != null) {
+                bytes = compressed.bytes();
+                log.debug("Encoding compressed message: {} bytes (uncompressed: {})", bytes.length, originalPayload.length);
+            }
+        }
+
+        if (bytes == null) {
+            bytes = msg.bytes();
+            log.debug("Encoding message: {} bytes, id={}, responseTo={}",
+                    bytes.length, msg.getMessageId(), msg.getResponseTo());
+        }
+
+        out.writeBytes(bytes);
+    }
+}
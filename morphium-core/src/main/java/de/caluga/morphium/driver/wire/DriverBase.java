@@ -2,8 +2,11 @@ package de.caluga.morphium.driver.wire;
 
 import de.caluga.morphium.MorphiumConfig.CompressionType;
 import de.caluga.morphium.driver.*;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
 import de.caluga.morphium.driver.bson.BsonEncoder;
 import de.caluga.morphium.driver.bson.UUIDRepresentation;
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
 import de.caluga.morphium.driver.commands.ListCollectionsCommand;
 import de.caluga.morphium.driver.commands.ListDatabasesCommand;
 import de.caluga.morphium.driver.commands.WatchCommand;
@@ -63,6 +66,12 @@ public abstract class DriverBase implements MorphiumDriver {
     private int readTimeout = 30000;
     private int compressionType = 0;
     private int localThreshold = -1;
+    private volatile BsonBufferPool encodingBufferPool;
+    private volatile boolean lazyDocumentDecoding = false;
+    private volatile boolean streamingCursors = false;
+    private volatile boolean virtualThreads = false;
+    private volatile CompressionPolicy compressionPolicy = new CompressionPolicy();
+    private volatile DriverMetrics metrics = new DriverMetrics();
 
     private ThreadLocal<MorphiumTransactionContext> transactionContext = new ThreadLocal<>();
 
@@ -113,6 +122,81 @@ public abstract class DriverBase implements MorphiumDriver {
         return this;
     }
 
+    @Override
+    public BsonBufferPool getEncodingBufferPool() {
+        return encodingBufferPool;
+    }
+
+    @Override
+    public void setEncodingBufferPool(BsonBufferPool pool) {
+        this.encodingBufferPool = pool;
+    }
+
+    @Override
+    public boolean isLazyDocumentDecoding() {
+        return lazyDocumentDecoding;
+    }
+
+    @Override
+    public void setLazyDocumentDecoding(boolean lazy) {
+        this.lazyDocumentDecoding = lazy;
+    }
+
+    @Override
+    public boolean isStreamingCursors() {
+        return streamingCursors;
+    }
+
+    @Override
+    public void setStreamingCursors(boolean streaming) {
+        this.streamingCursors = streaming;
+    }
+
+    @Override
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    @Override
+    public void setCompressionPolicy(CompressionPolicy policy) {
+        this.compressionPolicy = policy != null ? policy : new CompressionPolicy();
+    }
+
+    @Override
+    public DriverMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** null switches recording off - connections opened afterwards record nothing. */
+    @Override
+    public void setMetrics(DriverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Records how long a caller waited for a connection to {@code host} ({@code host:port}). */
+    protected void recordConnectionWait(String host, long startNanos) {
+        DriverMetrics m = metrics;
+
+        if (m != null && host != null) {
+            m.forHost(host).recordLatency(DriverMetrics.Timer.CONNECTION_WAIT, System.nanoTime() - startNanos);
+        }
+    }
+
+    /** Builder for the driver's own threads, virtual or platform depending on {@link #isVirtualThreads()}. */
+    protected Thread.Builder threadBuilder() {
+        return virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+    }
+
     @Override
     public List<String> listCollections(String db, String regex) throws MorphiumDriverException {
         MongoConnection primaryConnection = getPrimaryConnection(null);
@@ -1,8 +1,10 @@
 package de.caluga.morphium.driver.wire;
 
 import de.caluga.morphium.driver.wire.PooledDriver.ConnectionContainer;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -14,6 +16,8 @@ public class Host {
     private final String hostName;
     private final int port;
     private final BlockingQueue<ConnectionContainer> connectionPool = new LinkedBlockingQueue<>();
+    // shared connections in multiplexed mode - never borrowed exclusively, so not part of the pool
+    private final List<SingleMongoConnection> multiplexedConnections = new CopyOnWriteArrayList<>();
     private final AtomicInteger waitCounter = new AtomicInteger(0);
     private final AtomicInteger failures = new AtomicInteger(0);
     private final AtomicInteger borrowedConnections = new AtomicInteger(0);
@@ -87,6 +91,10 @@ public class Host {
         return connectionPool;
     }
 
+    public List<SingleMongoConnection> getMultiplexedConnections() {
+        return multiplexedConnections;
+    }
+
     public int getWaitCounter() {
         return waitCounter.get();
     }
@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import de.caluga.morphium.driver.MorphiumCursor;
 import de.caluga.morphium.driver.MorphiumDriver;
@@ -66,6 +67,14 @@ public interface MongoConnection extends Closeable {
 
     MorphiumCursor getAnswerFor(int queryId, int batchsize) throws MorphiumDriverException;
 
+    /**
+     * cursor for iterating the answer one document at a time - connections that can decode
+     * it straight from the network (see {@link MorphiumDriver#isStreamingCursors()}) do so
+     */
+    default MorphiumCursor getStreamingAnswerFor(int queryId, int batchsize) throws MorphiumDriverException {
+        return getAnswerFor(queryId, batchsize);
+    }
+
     List<Map<String, Object>> readAnswerFor(MorphiumCursor crs) throws MorphiumDriverException;
 
     //    Map<String, Object> getSingleDocAndKillCursor(OpMsg msg) throws MorphiumDriverException;
@@ -74,4 +83,22 @@ public interface MongoConnection extends Closeable {
 
     //    int sendCommand(Map<String, Object> cmd) throws MorphiumDriverException;
     int sendCommand(MongoCommand cmd) throws MorphiumDriverException;
+
+    /** True if {@link #sendCommandAsync} is available on this connection. Default false. */
+    default boolean supportsAsyncReplies() {
+        return false;
+    }
+
+    /**
+     * Sends the command and returns its reply without a thread waiting for it: the future is
+     * completed by the thread reading the connection (reader thread or event loop) - anything
+     * that takes time must be chained with an {@code ...Async} method. An error reply
+     * ({@code ok:0}) or no reply within the driver's max wait time completes it exceptionally.
+     *
+     * @return the first document of the reply
+     * @throws UnsupportedOperationException if {@link #supportsAsyncReplies()} is false
+     */
+    default CompletableFuture<Map<String, Object>> sendCommandAsync(MongoCommand cmd) throws MorphiumDriverException {
+        throw new UnsupportedOperationException("replies on this connection can only be read blocking");
+    }
 }
@@ -136,6 +136,8 @@ public class PooledDriver extends DriverBase {
     private final AtomicInteger successfulHellosThisCycle = new AtomicInteger(0);
 
     private int serverSelectionTimeout = 2000;
+    // >0: borrowConnection hands out shared, multiplexed connections (see borrowMultiplexedConnection)
+    private volatile int multiplexedConnectionsPerHost = 0;
 
     // Stats caching
     private volatile StatsSnapshot cachedStats = null;
@@ -169,6 +171,29 @@ public class PooledDriver extends DriverBase {
         this.serverSelectionTimeout = timeoutInMS;
     }
 
+    @Override
+    public int getMultiplexedConnectionsPerHost() {
+        return multiplexedConnectionsPerHost;
+    }
+
+    @Override
+    public void setMultiplexedConnectionsPerHost(int connectionsPerHost) {
+        this.multiplexedConnectionsPerHost = Math.max(0, connectionsPerHost);
+    }
+
+    /** Multiplexed connections complete a reply future from their reader thread. */
+    @Override
+    public boolean supportsAsyncReplies() {
+        return multiplexedConnectionsPerHost > 0;
+    }
+
+    @Override
+    public void setVirtualThreads(boolean virtualThreads) {
+        super.setVirtualThreads(virtualThreads);
+        // only threads started from now on - set before connect() like the other settings
+        executor.setThreadFactory(threadBuilder().name("MCon-", 0).factory());
+    }
+
     @Override
     public void connect(String replSet) throws MorphiumDriverException {
         // creating min connections for each host
@@ -779,7 +804,7 @@ public class PooledDriver extends DriverBase {
                 hostThreads.remove(hst, runningCheck);
             }
 
-            Thread t = Thread.ofPlatform().name("HeartbeatCheck-" + hst).unstarted(() -> {
+            Thread t = threadBuilder().name("HeartbeatCheck-" + hst).unstarted(() -> {
 
                 try {
                     ConnectionContainer container = null;
@@ -966,7 +991,7 @@ public class PooledDriver extends DriverBase {
 
         // thread to create new connections instantly if a thread is waiting
         // this thread pauses until waitCounterCondition.signalAll() is called
-        connectionWaiter = Thread.ofPlatform().name("ConnectionWaiter").start(() -> {
+        connectionWaiter = threadBuilder().name("ConnectionWaiter").start(() -> {
             long lastHeartbeatHealthCheck = 0;
             while (running) {
                 try {
@@ -1010,7 +1035,7 @@ public class PooledDriver extends DriverBase {
                                 final String host = normalizedHst;
 
                                 for (int i = 0; i < parallelCreators; i++) {
-                                    Thread.ofPlatform().name("ConnectionCreator-" + i).start(() -> {
+                                    threadBuilder().name("ConnectionCreator-" + i).start(() -> {
                                         try {
                                             // Each creator can create multiple connections
                                             while (running && hosts.containsKey(host)
@@ -1317,6 +1342,13 @@ public class PooledDriver extends DriverBase {
         if (h == null) {
             throw new MorphiumDriverException("No such host: " + host);
         }
+
+        if (multiplexedConnectionsPerHost > 0) {
+            return borrowMultiplexedConnection(h, host);
+        }
+
+        long waitStart = System.nanoTime();
+
         try {
             ConnectionContainer bc = null;
             BlockingQueue<ConnectionContainer> queue = h.getConnectionPool();
@@ -1389,6 +1421,9 @@ public class PooledDriver extends DriverBase {
                 break;
             }
 
+            // timeouts included - they are the tail of the distribution
+            recordConnectionWait(host, waitStart);
+
             if (bc == null) {
                 log.error("Connection timeout");
                 log.error("Connections to {}: {}", host, getTotalConnectionsToHost(host));
@@ -1429,6 +1464,74 @@ public class PooledDriver extends DriverBase {
         }
     }
 
+    /**
+     * Creates a new, not yet connected connection for the multiplexed pool. Drivers with a
+     * different transport override this (see {@code NettyDriver}) - pooling, topology and
+     * heartbeat stay the same.
+     */
+    protected SingleMongoConnection createMultiplexedConnection() throws MorphiumDriverException {
+        return new SingleMongoConnection().setMultiplexed(true);
+    }
+
+    /**
+     * Multiplexed mode: instead of taking a connection out of the pool exclusively, the caller
+     * gets the least loaded of the host's shared connections. Requests on it are pipelined and
+     * matched to their replies by responseTo, so there is nothing to wait for and nothing to
+     * give back - {@link #releaseConnection} is a no-op for these connections. The regular pool
+     * stays in place for the heartbeat.
+     */
+    private MongoConnection borrowMultiplexedConnection(Host h, String host) throws MorphiumDriverException {
+        List<SingleMongoConnection> shared = h.getMultiplexedConnections();
+
+        for (SingleMongoConnection c : shared) {
+            if (!c.isConnected()) {
+                shared.remove(c);
+            }
+        }
+
+        if (shared.size() < multiplexedConnectionsPerHost) {
+            synchronized (h) {
+                if (shared.size() < multiplexedConnectionsPerHost) {
+                    SingleMongoConnection con = createMultiplexedConnection();
+
+                    if (getAuthDb() != null) {
+                        con.setCredentials(getAuthDb(), getUser(), getPassword());
+                    }
+
+                    try {
+                        con.connect(this, getHost(host), getPortFromHost(host));
+                    } catch (MorphiumDriverException e) {
+                        try {
+                            con.close();
+                        } catch (Exception ignored) {
+                        }
+
+                        throw e;
+                    }
+
+                    shared.add(con);
+                    stats.get(DriverStatsKey.CONNECTIONS_OPENED).incrementAndGet();
+                    markStatsDirty();
+                }
+            }
+        }
+
+        SingleMongoConnection best = null;
+
+        for (SingleMongoConnection c : shared) {
+            if (c.isConnected() && (best == null || c.getInFlight() < best.getInFlight())) {
+                best = c;
+            }
+        }
+
+        if (best == null) {
+            throw new MorphiumDriverException("Could not get multiplexed connection to " + host);
+        }
+
+        stats.get(DriverStatsKey.CONNECTIONS_BORROWED).incrementAndGet();
+        return best;
+    }
+
     @Override
     public MongoConnection getReadConnection(ReadPreference rp) {
         try {
@@ -1724,6 +1827,14 @@ public class PooledDriver extends DriverBase {
     public void closeConnection(MongoConnection con) {
         releaseConnection(con);
 
+        if (con instanceof SingleMongoConnection smc && smc.isMultiplexed()) {
+            for (Host h : hosts.values()) {
+                h.getMultiplexedConnections().remove(smc);
+            }
+
+            return;
+        }
+
         for (Host h : hosts.values()) {
             for (ConnectionContainer c : new ArrayList<>(h.getConnectionPool())) { // avoid concurrendModification
                 if (c.getCon() == con) {
@@ -1744,6 +1855,12 @@ public class PooledDriver extends DriverBase {
             return;
         }
 
+        if (con instanceof SingleMongoConnection smc && smc.isMultiplexed()) {
+            // shared connection - never left the host's multiplexed list, nothing to return
+            stats.get(DriverStatsKey.CONNECTIONS_RELEASED).incrementAndGet();
+            return;
+        }
+
         if (!running) {
             // Shutting down - just remove from borrowed connections map.
             // Don't call con.close() here because it would call back to closeConnection()
@@ -2133,8 +2250,21 @@ public class PooledDriver extends DriverBase {
             }
 
             h.getConnectionPool().clear();
+
+            for (var c : new ArrayList<>(h.getMultiplexedConnections())) {
+                try {
+                    c.close();
+                } catch (Exception ex) {
+                }
+            }
+
+            h.getMultiplexedConnections().clear();
         }
         hosts.clear();
+
+        if (getMetrics() != null) {
+            getMetrics().close();
+        }
     }
 
     protected void killCursors(String db, String coll, long... ids) throws MorphiumDriverException {
@@ -2367,6 +2497,7 @@ public class PooledDriver extends DriverBase {
             ret.put(host + ".borrowed_map_size", borrowedMapByHost.getOrDefault(host, 0));
             ret.put(host + ".pending_creations", h.getPendingConnectionCreations());
             ret.put(host + ".wait_counter", h.getWaitCounter());
+            ret.put(host + ".multiplexed", h.getMultiplexedConnections().size());
             
             // Always report counter drift for monitoring (even when 0)
             int counter = h.getBorrowedConnections();
@@ -91,7 +91,7 @@ public class SingleMongoConnectDriver extends DriverBase {
 
     private ScheduledThreadPoolExecutor createExecutor() {
         return new ScheduledThreadPoolExecutor(5, r -> {
-            Thread ret = new Thread(r);
+            Thread ret = threadBuilder().unstarted(r);
             ret.setName("SCCon_" + (stats.get(DriverStatsKey.THREADS_CREATED).incrementAndGet()));
             ret.setDaemon(true);
             return ret;
@@ -131,6 +131,7 @@ public class SingleMongoConnectDriver extends DriverBase {
 
     public MongoConnection getConnection() throws MorphiumDriverException {
         long waitUntil = System.currentTimeMillis() + getMaxWaitTime() * 5; //just to be sure - single connection!
+        long waitStart = System.nanoTime();
 
         while (true) {
             // atomically claim the single connection - a plain check-then-set here
@@ -151,6 +152,7 @@ public class SingleMongoConnectDriver extends DriverBase {
 
             if (con != null && con.isConnected()) {
                 incStat(DriverStatsKey.CONNECTIONS_BORROWED);
+                recordConnectionWait(con.getConnectedTo(), waitStart);
                 return new ConnectionWrapper(con);
             }
 
@@ -622,6 +624,10 @@ public class SingleMongoConnectDriver extends DriverBase {
         executor.shutdownNow();
 
         connectionInUse.set(false);
+
+        if (getMetrics() != null) {
+            getMetrics().close();
+        }
     }
 
     @Override
@@ -8,6 +8,10 @@ import de.caluga.morphium.driver.commands.MongoCommand;
 import de.caluga.morphium.driver.commands.WatchCommand;
 import de.caluga.morphium.driver.commands.auth.SaslAuthCommand;
 import de.caluga.morphium.driver.commands.auth.X509AuthCommand;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.metrics.HostMetrics;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
 import de.caluga.morphium.driver.wireprotocol.OpCompressed;
 import de.caluga.morphium.driver.wireprotocol.OpMsg;
 import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
@@ -17,16 +21,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static de.caluga.morphium.driver.MorphiumDriver.DriverStatsKey.*;
 
@@ -59,6 +73,47 @@ public class SingleMongoConnection implements MongoConnection {
     // connection exceeds it.
     static final int WATCH_READ_GRACE_MS = 10_000;
 
+    // Multiplexed mode (see setMultiplexed): any number of threads write requests back-to-back,
+    // a single reader thread hands every reply to the slot registered under its responseTo.
+    // Replies can no longer be read by the wrong caller, so the out-of-sync/poisoning rules
+    // above do not apply - a timed-out request just drops its slot and the late reply is
+    // discarded by the reader.
+    private volatile boolean multiplexed = false;
+    private final Map<Integer, ReplySlot> replySlots = new ConcurrentHashMap<>();
+    // requestId this thread sent last on this connection - what readNextMessage() waits for
+    // in multiplexed mode (watch/tail send one request and read "the next" reply)
+    private final ThreadLocal<Integer> lastSentRequest = new ThreadLocal<>();
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private Thread readerThread;
+    // Serializes writes (and, unmultiplexed, the write + read of one request). A lock instead
+    // of a monitor: a virtual thread blocked in socket I/O while holding a monitor pins its
+    // carrier thread, with a ReentrantLock it unmounts.
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private long lastSlotSweep = System.currentTimeMillis();
+
+    private static final class ReplySlot {
+        private final CompletableFuture<OpMsg> reply = new CompletableFuture<>();
+        private final long created = System.currentTimeMillis();
+        private final long sentNanos = System.nanoTime();
+        private final DriverMetrics.Timer timer;
+        // a caller is blocked in awaitReply - its own timeout drops the slot
+        private volatile boolean awaited;
+
+        private ReplySlot(DriverMetrics.Timer timer) {
+            this.timer = timer;
+        }
+    }
+
+    // Metrics of the host this connection talks to, null if the driver records none. Request
+    // to reply latency of unmultiplexed requests is tracked in a ring indexed by requestID -
+    // arrays instead of a map keep recording allocation free. Replies arrive in request order
+    // and a pipeline deeper than the ring only loses the samples that were overwritten.
+    private static final int LATENCY_SLOTS = 256;
+    private volatile HostMetrics hostMetrics;
+    private int[] sentIds;
+    private long[] sentNanos;
+    private DriverMetrics.Timer[] sentTimers;
+
     //    private List<OpMsg> replies = Collections.synchronizedList(new ArrayList<>());
     // private Thread readerThread = null;
     // private Map<Integer, OpMsg> incoming = new HashMap<>();
@@ -97,36 +152,58 @@ public class SingleMongoConnection implements MongoConnection {
         this.password = password;
     }
 
+    /**
+     * Switches this connection to multiplexed mode - must be called before {@link #connect}.
+     * <p>
+     * In multiplexed mode the connection is meant to be shared: any number of threads may send
+     * requests concurrently, each waits only for the reply carrying its own requestId. A
+     * dedicated reader thread demultiplexes the replies by {@code responseTo}, so a handful of
+     * sockets per host serve hundreds of concurrent callers instead of one socket per
+     * in-flight request.
+     */
+    public SingleMongoConnection setMultiplexed(boolean multiplexed) {
+        if (isTransportOpen()) {
+            throw new IllegalStateException("multiplexed mode must be set before connecting");
+        }
+
+        this.multiplexed = multiplexed;
+        return this;
+    }
+
+    public boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    /** Number of requests currently waiting for their reply - only tracked in multiplexed mode. */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
     @Override
     public HelloResult connect(MorphiumDriver drv, String host, int port) throws MorphiumDriverException {
         driver = drv;
 
+        if (drv.getMetrics() != null) {
+            // same key as getConnectedTo() and PooledDriver's host keys
+            hostMetrics = drv.getMetrics().forHost(host.toLowerCase() + ":" + port);
+            sentIds = new int[LATENCY_SLOTS];
+            sentNanos = new long[LATENCY_SLOTS];
+            sentTimers = new DriverMetrics.Timer[LATENCY_SLOTS];
+        }
+
         try {
             //            log.info("Connecting to " + host + ":" + port);
-            if (drv.isUseSSL()) {
-                s = createSslSocket(drv, host, port);
-            } else {
-                s = new Socket();
-                int timeout = drv.getConnectionTimeout();
-                if (timeout <= 0) {
-                    timeout = 1000;
-                }
-                s.connect(new InetSocketAddress(host, port), timeout);
-            }
-            s.setKeepAlive(true);
-            int readTimeout = drv.getReadTimeout();
-            if (readTimeout > 0) {
-                s.setSoTimeout(readTimeout);
-            }
-            out = s.getOutputStream();
-            in = s.getInputStream();
+            // Cache the source port for later use (needed for cleanup even after socket close)
+            cachedSourcePort = openTransport(drv, host, port);
         } catch (IOException e) {
             throw new MorphiumDriverException("Connection failed: " + host + ":" + port, e);
         }
 
-        // startReaderThread();
-        // Cache the source port for later use (needed for cleanup even after socket close)
-        cachedSourcePort = s.getLocalPort();
+        if (multiplexed) {
+            // before the handshake: hello and auth already go through the reply slots
+            startReplyReader(host, port);
+        }
+
         // The handshake against a freshly connected host must answer quickly. Using
         // maxWaitTime here would make connects to half-dead hosts (TCP accepted, mongod
         // frozen) hang for up to a minute - stalling startup and the heartbeat.
@@ -139,16 +216,199 @@ public class SingleMongoConnection implements MongoConnection {
         return hello;
     }
 
+    /**
+     * Opens the connection to the server and returns the local (source) port. The default
+     * transport is a blocking socket; subclasses replace it together with
+     * {@link #isTransportOpen}, {@link #writeMessage}, {@link #startReplyReader} and
+     * {@link #closeTransport}. A replacing transport only supports multiplexed mode - replies
+     * have to be handed to {@link #deliverReply}.
+     */
+    protected int openTransport(MorphiumDriver drv, String host, int port) throws IOException {
+        if (drv.isUseSSL()) {
+            s = createSslSocket(drv, host, port);
+        } else {
+            // with pooled encoding buffers the socket is channel backed - writeBuffers gathers
+            // the message segments onto it in a single write
+            s = drv.getEncodingBufferPool() != null ? SocketChannel.open().socket() : new Socket();
+            int timeout = drv.getConnectionTimeout();
+            if (timeout <= 0) {
+                timeout = 1000;
+            }
+            s.connect(new InetSocketAddress(host, port), timeout);
+        }
+        s.setKeepAlive(true);
+        int readTimeout = drv.getReadTimeout();
+        if (readTimeout > 0) {
+            s.setSoTimeout(readTimeout);
+        }
+        out = s.getOutputStream();
+        in = s.getInputStream();
+        return s.getLocalPort();
+    }
+
+    /**
+     * Writes one message encoded into pooled buffers ({@link OpMsg#encode}) and gives the
+     * buffers back to the pool. A channel backed socket gets them in one gathering write,
+     * anything else (TLS) gets them coalesced into a single pooled array first - several small
+     * writes per request would run into Nagle/delayed-ACK stalls.
+     */
+    protected void writeBuffers(ByteBuffer[] segments, BsonBufferPool pool) throws IOException {
+        try {
+            SocketChannel ch = s.getChannel();
+            recordBytesSent(segments);
+
+            if (ch != null) {
+                long remaining = 0;
+
+                for (ByteBuffer b : segments) {
+                    remaining += b.remaining();
+                }
+
+                while (remaining > 0) {
+                    remaining -= ch.write(segments);
+                }
+
+                return;
+            }
+
+            if (segments.length == 1 && segments[0].hasArray()) {
+                out.write(segments[0].array(), segments[0].arrayOffset() + segments[0].position(), segments[0].remaining());
+            } else {
+                int len = 0;
+
+                for (ByteBuffer b : segments) {
+                    len += b.remaining();
+                }
+
+                BsonBufferPool heap = BsonBufferPool.shared(false);
+                ByteBuffer all = heap.acquire(len);
+
+                try {
+                    for (ByteBuffer b : segments) {
+                        all.put(b);
+                    }
+
+                    out.write(all.array(), all.arrayOffset(), len);
+                } finally {
+                    heap.release(all);
+                }
+            }
+
+            out.flush();
+        } finally {
+            OpMsg.release(segments, pool);
+        }
+    }
+
+    protected boolean isTransportOpen() {
+        return s != null && out != null;
+    }
+
+    /** Writes one complete message - callers hold {@code sendLock} (see sendQuery). */
+    protected void writeMessage(WireProtocolMessage msg) throws IOException {
+        byte[] bytes = msg.bytes();
+        out.write(bytes);
+        out.flush();
+        recordBytesSent(bytes.length);
+    }
+
+    /** Counts bytes written to the wire - transports call this for every message they send. */
+    protected void recordBytesSent(int bytes) {
+        HostMetrics m = hostMetrics;
+
+        if (m != null) {
+            m.recordSent(bytes);
+        }
+    }
+
+    protected void recordBytesSent(ByteBuffer[] segments) {
+        if (hostMetrics != null) {
+            int len = 0;
+
+            for (ByteBuffer b : segments) {
+                len += b.remaining();
+            }
+
+            recordBytesSent(len);
+        }
+    }
+
+    /** Counts a message read from the wire, at its size on the wire (compressed if it was). */
+    private void recordReceived(WireProtocolMessage msg) {
+        HostMetrics m = hostMetrics;
+
+        if (m != null) {
+            m.recordReceived(msg.getSize());
+        }
+    }
+
+    /** Remembers when an unmultiplexed request was sent, see {@link #recordReplyLatency}. */
+    private void recordRequestSent(int requestId, DriverMetrics.Timer timer) {
+        int idx = requestId & (LATENCY_SLOTS - 1);
+        sentNanos[idx] = System.nanoTime();
+        sentTimers[idx] = timer;
+        sentIds[idx] = requestId;
+    }
+
+    private void recordReplyLatency(int responseTo) {
+        HostMetrics m = hostMetrics;
+
+        if (m == null) {
+            return;
+        }
+
+        int idx = responseTo & (LATENCY_SLOTS - 1);
+
+        if (sentIds[idx] == responseTo) {
+            sentIds[idx] = 0;
+            m.recordLatency(sentTimers[idx], System.nanoTime() - sentNanos[idx]);
+        }
+    }
+
+    private static String commandName(OpMsg q) {
+        Map<String, Object> doc = q.getFirstDoc();
+        return doc == null || doc.isEmpty() ? null : doc.keySet().iterator().next();
+    }
+
+    protected void closeTransport() {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                //swallow
+            }
+        }
+
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                //swallow
+            }
+        }
+
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                //swallow
+            }
+        }
+
+        in = null;
+        out = null;
+        s = null;
+    }
+
     /**
      * Extracts the subject DN from the client certificate after the TLS handshake.
      * The subject DN is used as the {@code user} field in MONGODB-X509 authentication.
      * If no client certificate was presented (server-only TLS), {@link #x509SubjectDn}
      * remains {@code null} and the server will derive the identity from the handshake.
      */
-    private void extractX509SubjectDn(javax.net.ssl.SSLSocket sslSocket) {
+    protected void extractX509SubjectDn(javax.net.ssl.SSLSession session) {
         try {
-            java.security.cert.Certificate[] localCerts =
-                            sslSocket.getSession().getLocalCertificates();
+            java.security.cert.Certificate[] localCerts = session.getLocalCertificates();
             if (localCerts != null && localCerts.length > 0
                     && localCerts[0] instanceof java.security.cert.X509Certificate) {
                 java.security.cert.X509Certificate cert =
@@ -229,7 +489,7 @@ public class SingleMongoConnection implements MongoConnection {
 
         // Extract the subject DN from the client certificate (if present).
         // This is needed for MONGODB-X509 authentication – the subject DN is the MongoDB username.
-        extractX509SubjectDn(sslSocket);
+        extractX509SubjectDn(sslSocket.getSession());
 
         log.debug("SSL connection established to {}:{}", host, port);
         return sslSocket;
@@ -404,11 +664,44 @@ public class SingleMongoConnection implements MongoConnection {
         return false;
     }
 
+    /** see {@link MorphiumDriver#isLazyDocumentDecoding()} */
+    protected boolean isLazyDocumentDecoding() {
+        return driver != null && driver.isLazyDocumentDecoding();
+    }
+
+    private OpMsg toOpMsg(WireProtocolMessage incoming) throws IOException {
+        if (incoming instanceof OpCompressed opc) {
+            byte[] msgb = opc.getCompressedMessage();
+            OpMsg message = new OpMsg();
+            message.setLazyDocuments(isLazyDocumentDecoding());
+            message.setMessageId(opc.getMessageId());
+            // the outer OP_COMPRESSED header carries the real responseTo - without it,
+            // reply/request matching would flag every compressed reply as out-of-sync
+            message.setResponseTo(opc.getResponseTo());
+            message.parsePayload(msgb, 0);
+            return message;
+        }
+
+        return (OpMsg) incoming;
+    }
+
     public OpMsg readNextMessage(int timeout) throws MorphiumDriverException {
-        if (s == null) {
+        if (!isTransportOpen()) {
             throw new MorphiumDriverException("Connection closed");
         }
 
+        if (multiplexed) {
+            // the reader thread owns the stream - "next message" for a caller is the reply to
+            // the request it sent last on this connection
+            Integer requestId = lastSentRequest.get();
+
+            if (requestId == null) {
+                throw new MorphiumDriverException("multiplexed connection: no request pending for this thread");
+            }
+
+            return awaitReply(requestId, timeout);
+        }
+
         // For watch/tailable scenarios, limit consecutive socket timeouts
         // This allows calling code to check isContinued() periodically
         // The timeout parameter is the TOTAL time we wait for a reply. It must not be
@@ -426,27 +719,15 @@ public class SingleMongoConnection implements MongoConnection {
             }
 
             try {
-                var incoming = WireProtocolMessage.parseFromStream(in);
-                OpMsg msg = null;
-
-                if (incoming instanceof OpCompressed) {
-                    var opc = ((OpCompressed)incoming);
-                    byte[] msgb = opc.getCompressedMessage();
-                    OpMsg message = new OpMsg();
-                    message.setMessageId(opc.getMessageId());
-                    // the outer OP_COMPRESSED header carries the real responseTo - without it,
-                    // reply/request matching would flag every compressed reply as out-of-sync
-                    message.setResponseTo(opc.getResponseTo());
-                    message.parsePayload(msgb, 0);
-                    msg = message;
-                } else {
-                    msg = (OpMsg)incoming;
-                }
+                WireProtocolMessage raw = WireProtocolMessage.parseFromStream(in, isLazyDocumentDecoding());
+                OpMsg msg = toOpMsg(raw);
 
                 if (msg == null) {
                     return null;
                 }
 
+                recordReceived(raw);
+                recordReplyLatency(msg.getResponseTo());
                 stats.get(REPLY_RECEIVED).incrementAndGet();
                 // central un-track for every read path (readReplyFor, watch loops, ...);
                 // remember the origin for the out-of-sync diagnostics in readReplyFor
@@ -495,40 +776,184 @@ public class SingleMongoConnection implements MongoConnection {
         }
     }
 
-    @Override
-    public void close() {
-        running = false;
-        connected = false;
-        // a closed connection can no longer deliver stale replies - the poison is gone
-        pendingReplies.clear();
+    /**
+     * Starts delivering replies of a multiplexed connection: the socket transport uses a
+     * dedicated reader thread, event-loop transports are already wired up by openTransport.
+     */
+    protected void startReplyReader(String host, int port) throws MorphiumDriverException {
+        try {
+            // only bounds a stalled half-read message - idle timeouts at a message boundary are
+            // retried by the reader, callers apply their own timeouts in awaitReply
+            s.setSoTimeout(Math.max(driver.getMaxWaitTime(), 1000));
+        } catch (SocketException e) {
+            throw new MorphiumDriverException("socket error", e);
+        }
 
-        if (in != null) {
+        readerThread = new Thread(this::demultiplexReplies, "morphium-mux-" + host + ":" + port + "-" + cachedSourcePort);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /** Reader loop of a multiplexed connection: routes every reply to its waiting caller. */
+    private void demultiplexReplies() {
+        InputStream stream = in;
+
+        while (running) {
             try {
-                in.close();
-            } catch (IOException e) {
-                //swallow
+                WireProtocolMessage msg = WireProtocolMessage.parseFromStream(stream, isLazyDocumentDecoding());
+
+                if (msg == null) {
+                    if (running) {
+                        log.warn("Multiplexed connection to {} (port {}) closed by server", connectedTo, getSourcePort());
+                        failReplySlots(new MorphiumDriverNetworkException("Connection closed by server"));
+                        close();
+                    }
+
+                    return;
+                }
+
+                deliverReply(msg);
+            } catch (SocketTimeoutException ste) {
+                // idle at a message boundary - nothing consumed, the stream is still aligned
+                sweepAbandonedReplySlots();
+            } catch (Exception e) {
+                connectionLost(e);
+                return;
             }
         }
+    }
 
-        if (out != null) {
-            try {
-                out.close();
-            } catch (IOException e) {
-                //swallow
+    /**
+     * Hands a reply to the caller waiting for it (multiplexed mode). Called by the reader
+     * thread, or by the event loop of a non-blocking transport - must not block.
+     */
+    protected void deliverReply(WireProtocolMessage incoming) throws IOException {
+        OpMsg msg = toOpMsg(incoming);
+        stats.get(REPLY_RECEIVED).incrementAndGet();
+        recordReceived(incoming);
+        ReplySlot slot = replySlots.get(msg.getResponseTo());
+
+        if (slot == null) {
+            log.debug("Reply to request {} on {} has no waiter any more (timed out) - discarded", msg.getResponseTo(), connectedTo);
+        } else {
+            HostMetrics m = hostMetrics;
+
+            if (m != null && slot.timer != null) {
+                m.recordLatency(slot.timer, System.nanoTime() - slot.sentNanos);
             }
+
+            slot.reply.complete(msg);
         }
 
-        if (s != null) {
-            try {
-                s.close();
-            } catch (IOException e) {
-                //swallow
+        sweepAbandonedReplySlots();
+    }
+
+    /** The transport of a multiplexed connection failed: every waiting caller gets the error. */
+    protected void connectionLost(Throwable e) {
+        if (!running) {
+            return;
+        }
+
+        log.warn("Connection error on multiplexed connection to {} (port {}), closing connection: {}",
+                 connectedTo, getSourcePort(), e.getMessage());
+        failReplySlots(e instanceof MorphiumDriverNetworkException ne ? ne
+                       : new MorphiumDriverNetworkException("Connection error: " + e.getMessage(), e));
+        close();
+    }
+
+    /**
+     * Waits for the reply to the given request on a multiplexed connection. A timeout only
+     * drops this request's slot - other requests on the connection are unaffected, the late
+     * reply is discarded by the reader.
+     */
+    private OpMsg awaitReply(int requestId, int timeout) throws MorphiumDriverException {
+        ReplySlot slot = replySlots.get(requestId);
+
+        if (slot == null) {
+            throw new MorphiumDriverException("multiplexed connection: no reply pending for request " + requestId);
+        }
+
+        slot.awaited = true;
+
+        try {
+            return timeout > 0 ? slot.reply.get(timeout, TimeUnit.MILLISECONDS) : slot.reply.get();
+        } catch (TimeoutException e) {
+            log.debug("No reply to request {} on {} within {}ms", requestId, connectedTo, timeout);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MorphiumDriverException("Interrupted while waiting for reply to request " + requestId);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MorphiumDriverException mde) {
+                throw mde;
             }
+
+            throw new MorphiumDriverNetworkException("Connection error: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            dropReplySlot(requestId);
         }
+    }
 
-        in = null;
-        out = null;
-        s = null;
+    private void dropReplySlot(int requestId) {
+        if (replySlots.remove(requestId) != null) {
+            inFlight.decrementAndGet();
+        }
+
+        Integer last = lastSentRequest.get();
+
+        if (last != null && last == requestId) {
+            lastSentRequest.remove();
+        }
+    }
+
+    private void failReplySlots(MorphiumDriverException cause) {
+        for (ReplySlot slot : replySlots.values()) {
+            slot.reply.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Drops slots nobody is going to collect any more: answered ones nobody read, and requests
+     * sent via sendCommand whose caller never came to wait for the answer - the server may
+     * never answer those either, they would keep {@code inFlight} up forever. Slots a caller
+     * is waiting on are left to its own timeout. Runs on the reader thread at most every few
+     * seconds.
+     */
+    private void sweepAbandonedReplySlots() {
+        long now = System.currentTimeMillis();
+
+        if (now - lastSlotSweep < 5000) {
+            return;
+        }
+
+        lastSlotSweep = now;
+        long maxAge = 2L * Math.max(driver.getMaxWaitTime(), 1000);
+
+        for (var e : replySlots.entrySet()) {
+            ReplySlot slot = e.getValue();
+
+            if (now - slot.created > maxAge && (slot.reply.isDone() || !slot.awaited)
+                    && replySlots.remove(e.getKey(), slot)) {
+                inFlight.decrementAndGet();
+                // a caller arriving after all gets an error instead of waiting for a reply
+                // the reader would discard
+                slot.reply.completeExceptionally(new MorphiumDriverException("No reply to request " + e.getKey() + " within " + maxAge + "ms - dropped"));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        connected = false;
+        // a closed connection can no longer deliver stale replies - the poison is gone
+        pendingReplies.clear();
+
+        if (multiplexed) {
+            failReplySlots(new MorphiumDriverNetworkException("Connection closed"));
+        }
+
+        closeTransport();
         driver.closeConnection(this);
     }
 
@@ -578,7 +1003,17 @@ public class SingleMongoConnection implements MongoConnection {
     //     return incoming.remove(msgid);
     // }
     //
-    public synchronized void sendQuery(OpMsg q) throws MorphiumDriverException {
+    public void sendQuery(OpMsg q) throws MorphiumDriverException {
+        sendLock.lock();
+
+        try {
+            doSendQuery(q);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void doSendQuery(OpMsg q) throws MorphiumDriverException {
         if (driver.getTransactionContext() != null) {
             q.getFirstDoc().put("lsid", Doc.of("id", driver.getTransactionContext().getLsid()));
             q.getFirstDoc().put("txnNumber", driver.getTransactionContext().getTxnNumber());
@@ -594,58 +1029,103 @@ public class SingleMongoConnection implements MongoConnection {
 
         try {
             //q.setFlags(4); //slave ok
-            if (out == null) {
+            if (!isTransportOpen()) {
                 close(); //should be already
                 throw new MorphiumDriverException("closed");
             }
 
             stats.get(MSG_SENT).incrementAndGet();
+            boolean expectsReply = (q.getFlags() & OpMsg.MORE_TO_COME) == 0;
+            String command = hostMetrics != null || (!multiplexed && expectsReply) ? commandName(q) : null;
+            DriverMetrics.Timer timer = hostMetrics != null && expectsReply ? DriverMetrics.Timer.forCommand(command) : null;
 
-            if (driver.getCompression() != OpCompressed.COMPRESSOR_NOOP) {
-                var opc = new OpCompressed();
-                opc.setOriginalOpCode(OpMsg.OP_CODE);
-                opc.setCompressorId(driver.getCompression());
-                q.setFlags(0);
-                byte[] data = q.getPayload();
-                opc.setCompressedMessage(data);
-                opc.setSize(data.length + 4);
-                // per spec the OP_COMPRESSED header carries the requestID of the original
-                // message - a fresh id would make the server reply to an id nobody waits for
-                opc.setMessageId(q.getMessageId());
-                opc.setUncompressedSize(data.length);
-                // log.info(Utils.getHex(opc.bytes()));
-                out.write(opc.bytes());
-            } else {
-                out.write(q.bytes());
+            if (timer != null && !multiplexed) {
+                recordRequestSent(q.getMessageId(), timer);
             }
 
-            out.flush();
+            // handshake/auth commands are never compressed (see CompressionPolicy) - decided
+            // before encoding. Everything else is encoded once; a payload below the policy's
+            // minimum goes out as these very segments, only a larger one is copied and compressed
+            CompressionPolicy policy = driver.getCompressionPolicy();
+            boolean compressible = policy != null && policy.mayCompress(q, driver.getCompression());
+            BsonBufferPool pool = driver.getEncodingBufferPool();
+
+            if (pool == null && compressible) {
+                pool = BsonBufferPool.shared(false);
+            }
+
+            if (pool == null) {
+                registerReplySlot(q, timer);
+                writeMessage(q);
+            } else {
+                ByteBuffer[] segments = q.encode(pool);
+
+                if (compressible && OpMsg.payloadSize(segments) >= policy.getMinSize()) {
+                    byte[] payload;
+
+                    try {
+                        payload = OpMsg.payloadOf(segments);
+                    } finally {
+                        OpMsg.release(segments, pool);
+                    }
+
+                    OpCompressed opc = policy.compress(q, payload, driver.getCompression());
+                    registerReplySlot(q, timer);
+                    writeMessage(opc != null ? opc : q);
+                } else {
+                    registerReplySlot(q, timer);
+                    writeBuffers(segments, pool);
+                }
+            }
 
             // moreToCome on a REQUEST = fire-and-forget (w:0), the server sends no reply
-            if ((q.getFlags() & OpMsg.MORE_TO_COME) == 0) {
-                Map<String, Object> doc = q.getFirstDoc();
-                pendingReplies.put(q.getMessageId(),
-                                   doc == null || doc.isEmpty() ? "?" : doc.keySet().iterator().next());
+            if (!multiplexed && expectsReply) {
+                pendingReplies.put(q.getMessageId(), command == null ? "?" : command);
             }
-        } catch (MorphiumDriverException e) {
+        } catch (MorphiumDriverNetworkException e) {
             close();
             throw (e);
-        } catch (Exception e) {
+        } catch (java.io.IOException e) {
             close();
+            throw new MorphiumDriverNetworkException("Error sending Request: " + e.getMessage(), e);
+        } catch (Exception e) {
             // Preserve MorphiumDriverNetworkException so NetworkCallHelper can retry
-            if (e instanceof MorphiumDriverNetworkException) {
-                throw (MorphiumDriverNetworkException) e;
+            if (e.getCause() instanceof MorphiumDriverNetworkException ne) {
+                close();
+                throw ne;
             }
-            if (e.getCause() instanceof MorphiumDriverNetworkException) {
-                throw (MorphiumDriverNetworkException) e.getCause();
+
+            if (!isTransportOpen()) {
+                close(); //should be already
+            } else {
+                // caller side (encoding, document too large): the request never reached the
+                // wire, the stream is aligned - a multiplexed connection stays up for the
+                // other requests on it, only this one fails
+                dropReplySlot(q.getMessageId());
             }
-            if (e instanceof java.io.IOException) {
-                throw new MorphiumDriverNetworkException("Error sending Request: " + e.getMessage(), e);
+
+            if (e instanceof MorphiumDriverException mde) {
+                throw mde;
             }
+
             throw new MorphiumDriverException("Error sending Request: ", e);
         }
     }
 
+    /**
+     * Multiplexed mode: the slot has to exist before the request hits the wire, the reader
+     * thread may see the reply before write() even returns.
+     */
+    private void registerReplySlot(OpMsg q, DriverMetrics.Timer timer) {
+        if (!multiplexed || (q.getFlags() & OpMsg.MORE_TO_COME) != 0) {
+            return;
+        }
+
+        replySlots.put(q.getMessageId(), new ReplySlot(timer));
+        inFlight.incrementAndGet();
+        lastSentRequest.set(q.getMessageId());
+    }
+
     /**
      * True while a sent request's reply has not been read yet. Such a connection is
      * poisoned for reuse (the next borrower would read its predecessor's answer) -
@@ -671,13 +1151,26 @@ public class SingleMongoConnection implements MongoConnection {
         return !pendingReplies.isEmpty() && pendingReplies.values().stream().allMatch("getMore"::equals);
     }
 
-    public synchronized OpMsg sendAndWaitForReply(OpMsg q) throws MorphiumDriverException {
+    public OpMsg sendAndWaitForReply(OpMsg q) throws MorphiumDriverException {
         return sendAndWaitForReply(q, driver.getMaxWaitTime());
     }
 
-    public synchronized OpMsg sendAndWaitForReply(OpMsg q, int timeout) throws MorphiumDriverException {
-        sendQuery(q);
-        return readReplyFor(q.getMessageId(), timeout);
+    public OpMsg sendAndWaitForReply(OpMsg q, int timeout) throws MorphiumDriverException {
+        if (multiplexed) {
+            // only the write is exclusive (sendQuery) - waiting for the reply must not block
+            // the other callers sharing this connection
+            sendQuery(q);
+            return readReplyFor(q.getMessageId(), timeout);
+        }
+
+        sendLock.lock();
+
+        try {
+            sendQuery(q);
+            return readReplyFor(q.getMessageId(), timeout);
+        } finally {
+            sendLock.unlock();
+        }
     }
 
     /**
@@ -689,6 +1182,10 @@ public class SingleMongoConnection implements MongoConnection {
      * retriable network exception so callers retry on a fresh connection.
      */
     private OpMsg readReplyFor(int requestId, int timeout) throws MorphiumDriverException {
+        if (multiplexed) {
+            return awaitReply(requestId, timeout);
+        }
+
         OpMsg reply = readNextMessage(timeout);
 
         if (reply != null && reply.getResponseTo() != requestId) {
@@ -752,7 +1249,7 @@ public class SingleMongoConnection implements MongoConnection {
 
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized int sendCommand(MongoCommand cmd) throws MorphiumDriverException {
+    public int sendCommand(MongoCommand cmd) throws MorphiumDriverException {
         OpMsg q = new OpMsg();
         q.setMessageId(msgId.incrementAndGet());
         q.setFirstDoc(Doc.of(cmd.asMap()));
@@ -760,6 +1257,63 @@ public class SingleMongoConnection implements MongoConnection {
         return q.getMessageId();
     }
 
+    @Override
+    public boolean supportsAsyncReplies() {
+        return multiplexed;
+    }
+
+    /**
+     * Multiplexed mode: nobody waits for the reply, the reader completes the request's slot. The
+     * slot counts as awaited (the sweep leaves it to the timeout here) and is dropped once the
+     * future completes.
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> sendCommandAsync(MongoCommand cmd) throws MorphiumDriverException {
+        if (!multiplexed) {
+            return MongoConnection.super.sendCommandAsync(cmd);
+        }
+
+        int requestId = sendCommand(cmd);
+        ReplySlot slot = replySlots.get(requestId);
+        // this thread is not going to read "the next message" for it
+        Integer last = lastSentRequest.get();
+
+        if (last != null && last == requestId) {
+            lastSentRequest.remove();
+        }
+
+        if (slot == null) {
+            return CompletableFuture.failedFuture(new MorphiumDriverException("multiplexed connection: no reply pending for request " + requestId));
+        }
+
+        slot.awaited = true;
+        int timeout = driver.getMaxWaitTime();
+        CompletableFuture<OpMsg> reply = timeout > 0 ? slot.reply.orTimeout(timeout, TimeUnit.MILLISECONDS) : slot.reply;
+        return reply.handle((msg, err) -> {
+            if (replySlots.remove(requestId, slot)) {
+                inFlight.decrementAndGet();
+            }
+
+            if (err != null) {
+                Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+
+                if (cause instanceof TimeoutException) {
+                    cause = new MorphiumDriverException("No reply to request " + requestId + " on " + connectedTo + " within " + timeout + "ms");
+                }
+
+                throw new CompletionException(cause);
+            }
+
+            try {
+                checkForError(msg);
+            } catch (MorphiumDriverException e) {
+                throw new CompletionException(e);
+            }
+
+            return msg.getFirstDoc();
+        });
+    }
+
     @Override
     public int getSourcePort() {
         if (s != null) {
@@ -842,6 +1396,14 @@ public class SingleMongoConnection implements MongoConnection {
                     if (lastResumeToken[0] != null) {
                         command.setResumeAfter(lastResumeToken[0]);
                     }
+
+                    if (multiplexed) {
+                        // the late reply cannot desync a multiplexed connection, and closing it
+                        // would fail every other caller sharing it
+                        log.warn("watch: no reply within maxTimeMS+{}ms grace on {} - caller should resume", WATCH_READ_GRACE_MS, connectedTo);
+                        throw new MorphiumDriverNetworkException("watch: no reply within maxTimeMS + grace - resume on a fresh request");
+                    }
+
                     log.warn("watch: no reply within maxTimeMS+{}ms grace on {} - closing connection, caller should resume", WATCH_READ_GRACE_MS, connectedTo);
                     close();
                     throw new MorphiumDriverNetworkException("watch: no reply within maxTimeMS + grace - connection closed, resume on a fresh connection");
@@ -1027,7 +1589,96 @@ public class SingleMongoConnection implements MongoConnection {
         return new SingleElementCursor(reply.getFirstDoc());
     }
 
-    private void checkForError(OpMsg msg) throws MorphiumDriverException {
+    /**
+     * With {@link MorphiumDriver#isStreamingCursors()} on a plain socket connection, the reply
+     * is not read as a whole: the cursor decodes its batch document by document straight from
+     * the socket. Otherwise the same as {@link #getAnswerFor(int, int)}.
+     */
+    @Override
+    public MorphiumCursor getStreamingAnswerFor(int queryId, int batchSize) throws MorphiumDriverException {
+        if (multiplexed || in == null || !driver.isStreamingCursors()) {
+            return getAnswerFor(queryId, batchSize);
+        }
+
+        return new StreamingMongoConnectionCursor(this, queryId, batchSize).setServer(connectedTo);
+    }
+
+    /**
+     * Reads the header of the reply to requestId and leaves the stream at its payload - the
+     * caller must consume exactly the rest of the message and then call
+     * {@link #streamedReplyDone}. Until then the reply counts as pending: a connection
+     * released in between is not reused.
+     */
+    byte[] readReplyHeader(int requestId) throws MorphiumDriverException {
+        byte[] header = new byte[16];
+
+        try {
+            s.setSoTimeout(driver.getMaxWaitTime());
+            int n = 0;
+
+            while (n < header.length) {
+                int r = in.read(header, n, header.length - n);
+
+                if (r < 0) {
+                    throw new EOFException("Connection closed by server");
+                }
+
+                n += r;
+            }
+        } catch (IOException e) {
+            throw streamBroken(e);
+        }
+
+        stats.get(REPLY_RECEIVED).incrementAndGet();
+        int responseTo = WireProtocolMessage.readInt(header, 8);
+
+        if (responseTo != requestId) {
+            log.error("Connection to {} out of sync: expected reply to request {}, got reply to {} "
+                      + "(abandoned by command '{}') - closing connection",
+                      connectedTo, requestId, responseTo, pendingReplies.get(responseTo));
+            close();
+            throw new MorphiumDriverNetworkException("Connection out of sync: expected reply to request "
+                    + requestId + ", got reply to " + responseTo);
+        }
+
+        return header;
+    }
+
+    InputStream getReplyStream() {
+        return in;
+    }
+
+    /** parses the rest of a reply whose header was read by {@link #readReplyHeader} */
+    OpMsg readReplyBody(byte[] header) throws MorphiumDriverException {
+        try {
+            InputStream rest = new SequenceInputStream(new ByteArrayInputStream(header), in);
+            OpMsg msg = toOpMsg(WireProtocolMessage.parseFromStream(rest, isLazyDocumentDecoding()));
+
+            if (msg == null) {
+                throw new EOFException("Connection closed by server");
+            }
+
+            streamedReplyDone(msg.getResponseTo());
+            return msg;
+        } catch (MorphiumDriverNetworkException e) {
+            close();
+            throw e;
+        } catch (IOException e) {
+            throw streamBroken(e);
+        }
+    }
+
+    void streamedReplyDone(int responseTo) {
+        lastReadReplyOrigin = pendingReplies.remove(responseTo);
+    }
+
+    /** a streamed reply could not be read to its end - the stream is lost, so is the connection */
+    MorphiumDriverNetworkException streamBroken(Exception e) {
+        close();
+        return new MorphiumDriverNetworkException("reading streamed reply from " + connectedTo + " failed: " + e.getMessage(), e);
+    }
+
+    void checkForError(OpMsg msg) throws MorphiumDriverException {
         if (msg == null || msg.getFirstDoc() == null) {
             return;
         }
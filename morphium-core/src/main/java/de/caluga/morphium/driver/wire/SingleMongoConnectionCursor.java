@@ -1,6 +1,5 @@
 package de.caluga.morphium.driver.wire;
 
-import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.MorphiumCursor;
 import de.caluga.morphium.driver.MorphiumDriverException;
 import de.caluga.morphium.driver.commands.GetMoreMongoCommand;
@@ -31,7 +30,7 @@ public class SingleMongoConnectionCursor extends MorphiumCursor {
         this.multithreaddedAccess = multithreaddedAccess;
         Long cursorId = null;
         @SuppressWarnings("unchecked")
-        Doc cursor = (Doc) reply.getFirstDoc().get("cursor");
+        Map<String, Object> cursor = (Map<String, Object>) reply.getFirstDoc().get("cursor");
 
         if (cursor == null) {
             throw new MorphiumDriverException("No cursor returned: " + reply.getFirstDoc().get("code") + "  Message: " + reply.getFirstDoc().get("errmsg"));
@@ -0,0 +1,362 @@
+package de.caluga.morphium.driver.wire;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumCursor;
+import de.caluga.morphium.driver.MorphiumDriverException;
+import de.caluga.morphium.driver.bson.BsonStreamDecoder;
+import de.caluga.morphium.driver.commands.GetMoreMongoCommand;
+import de.caluga.morphium.driver.wireprotocol.OpMsg;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
+
+/**
+ * Cursor that reads its batches from the socket one document at a time, see
+ * {@link de.caluga.morphium.driver.MorphiumDriver#isStreamingCursors()}.
+ * <p>
+ * The reply is parsed while it arrives: the fields in front of the batch array are read, then
+ * every {@link #next()} reads and decodes exactly one document. What follows the batch (mongod
+ * sends the cursor id and namespace there) is read once the array ends, then the next batch
+ * is requested. Only the document at hand is in memory - not the raw reply plus all of its
+ * decoded documents.
+ * <p>
+ * Until the reply is read to its end the connection's stream is in the middle of a message:
+ * {@link #close()} reads the rest of it, a failure while reading closes the connection.
+ * Compressed replies can not be streamed - they are read as a whole and iterated from memory.
+ * There is no batch to move around in: {@link #back(int)} is not supported,
+ * {@link #getBatch()} only holds the document read ahead by {@link #hasNext()}.
+ */
+public class StreamingMongoConnectionCursor extends MorphiumCursor {
+    private final Logger log = LoggerFactory.getLogger(StreamingMongoConnectionCursor.class);
+    private SingleMongoConnection connection;
+
+    // reply currently being read, positioned inside its batch array - null between replies
+    private BsonStreamDecoder reply;
+    private int replyTo;
+    // a reply that could not be streamed (compressed) is iterated from here
+    private Iterator<Map<String, Object>> buffered;
+    private Doc envelope;
+    private Doc cursorInfo;
+    private boolean sawCursor;
+
+    private Map<String, Object> readAhead;
+    private int index = 0;
+
+    StreamingMongoConnectionCursor(SingleMongoConnection con, int queryId, int batchSize) throws MorphiumDriverException {
+        connection = con;
+        setBatchSize(batchSize);
+        setBatch(Collections.emptyList());
+        openReply(queryId);
+    }
+
+    private void openReply(int requestId) throws MorphiumDriverException {
+        envelope = new Doc();
+        cursorInfo = new Doc();
+        sawCursor = false;
+        replyTo = requestId;
+        byte[] header = connection.readReplyHeader(requestId);
+
+        if (WireProtocolMessage.readInt(header, 12) != OpMsg.OP_CODE) {
+            OpMsg msg = connection.readReplyBody(header);
+            connection.checkForError(msg);
+            takeBufferedReply(msg.getFirstDoc());
+            return;
+        }
+
+        BsonStreamDecoder dec = new BsonStreamDecoder(connection.getReplyStream(),
+            WireProtocolMessage.readInt(header, 0) - 16, connection.isLazyDocumentDecoding());
+
+        try {
+            dec.readInt();    // flags
+
+            if (dec.readByte() != 0) {
+                throw new IOException("reply does not start with a body section");
+            }
+
+            dec.readInt();    // document length
+
+            if (readUntilBatch(dec)) {
+                reply = dec;
+                return;
+            }
+
+            dec.skipRemaining();
+        } catch (IOException e) {
+            throw connection.streamBroken(e);
+        }
+
+        replyDone();
+    }
+
+    /** reads fields of the reply document until the batch array starts - false if it has none */
+    private boolean readUntilBatch(BsonStreamDecoder dec) throws IOException {
+        for (byte type = dec.readType(); type != 0; type = dec.readType()) {
+            String name = dec.readName();
+
+            if (type == 0x03 && "cursor".equals(name)) {
+                sawCursor = true;
+                dec.readInt();
+
+                if (readCursorUntilBatch(dec)) {
+                    return true;
+                }
+            } else {
+                envelope.put(name, dec.readValue(type));
+            }
+        }
+
+        return false;
+    }
+
+    private boolean readCursorUntilBatch(BsonStreamDecoder dec) throws IOException {
+        for (byte type = dec.readType(); type != 0; type = dec.readType()) {
+            String name = dec.readName();
+
+            if (type == 0x04 && ("firstBatch".equals(name) || "nextBatch".equals(name))) {
+                dec.readInt();
+                return true;
+            }
+
+            cursorInfo.put(name, dec.readValue(type));
+        }
+
+        return false;
+    }
+
+    /** the batch array ended - read what follows it up to the end of the message */
+    private void readAfterBatch(BsonStreamDecoder dec) throws IOException {
+        while (readCursorUntilBatch(dec)) {
+            // a second batch in one reply does not happen - skip it rather than choke on it
+            skipArray(dec);
+        }
+
+        while (readUntilBatch(dec)) {
+            skipArray(dec);
+        }
+
+        dec.skipRemaining();
+    }
+
+    private static void skipArray(BsonStreamDecoder dec) throws IOException {
+        for (byte type = dec.readType(); type != 0; type = dec.readType()) {
+            dec.skipName();
+            dec.skipValue(type);
+        }
+    }
+
+    /** the reply was read completely: check it, take cursor id and namespace */
+    private void replyDone() throws MorphiumDriverException {
+        connection.streamedReplyDone(replyTo);
+        connection.checkForError(new OpMsg().setFirstDoc(envelope));
+
+        if (!sawCursor) {
+            // not a cursor reply after all - hand out what there is, like getAnswerFor does
+            takeBufferedReply(envelope);
+            return;
+        }
+
+        takeCursorInfo(cursorInfo);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void takeBufferedReply(Map<String, Object> doc) {
+        Object cursor = doc.get("cursor");
+
+        if (cursor instanceof Map) {
+            Map<String, Object> crs = (Map<String, Object>) cursor;
+            takeCursorInfo(crs);
+            Object batch = crs.containsKey("firstBatch") ? crs.get("firstBatch") : crs.get("nextBatch");
+            buffered = batch == null ? Collections.emptyIterator() : ((List<Map<String, Object>>) batch).iterator();
+        } else if (doc.get("results") instanceof List) {
+            setCursorId(0);
+            buffered = ((List<Map<String, Object>>) doc.get("results")).iterator();
+        } else {
+            setCursorId(0);
+            buffered = List.of(doc).iterator();
+        }
+    }
+
+    private void takeCursorInfo(Map<String, Object> crs) {
+        setCursorId(crs.get("id") instanceof Number ? ((Number) crs.get("id")).longValue() : 0L);
+
+        if (crs.get("ns") instanceof String ns) {
+            int dot = ns.indexOf('.');
+            setDb(dot < 0 ? ns : ns.substring(0, dot));
+
+            if (dot >= 0) {
+                setCollection(ns.substring(dot + 1));
+            }
+        }
+    }
+
+    /** next document of the result - from the reply being read, or the next batch. null at the end */
+    private Map<String, Object> readNext() throws MorphiumDriverException {
+        while (true) {
+            if (buffered != null) {
+                if (buffered.hasNext()) {
+                    return buffered.next();
+                }
+
+                buffered = null;
+            }
+
+            if (reply != null) {
+                try {
+                    byte type = reply.readType();
+
+                    if (type == 0x03) {
+                        reply.skipName();
+                        return reply.readDocument();
+                    }
+
+                    if (type != 0) {
+                        // not a document - batches only hold documents
+                        reply.skipName();
+                        reply.skipValue(type);
+                        continue;
+                    }
+
+                    readAfterBatch(reply);
+                    reply = null;
+                } catch (IOException e) {
+                    reply = null;
+                    throw connection.streamBroken(e);
+                }
+
+                replyDone();
+                continue;
+            }
+
+            if (getCursorId() == 0 || connection == null) {
+                release();
+                return null;
+            }
+
+            GetMoreMongoCommand more = new GetMoreMongoCommand(connection).setCursorId(getCursorId())
+            .setDb(getDb()).setColl(getCollection()).setBatchSize(getBatchSize());
+            openReply(connection.sendCommand(more));
+        }
+    }
+
+    private void release() {
+        if (connection != null) {
+            connection.getDriver().releaseConnection(connection);
+            connection = null;
+        }
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+        return this;
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        if (readAhead == null) {
+            try {
+                readAhead = readNext();
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+        }
+
+        return readAhead != null;
+    }
+
+    @Override
+    public synchronized Map<String, Object> next() {
+        if (!hasNext()) {
+            return null;
+        }
+
+        Map<String, Object> ret = readAhead;
+        readAhead = null;
+        index++;
+        return ret;
+    }
+
+    /** only the document {@link #hasNext()} read ahead - the rest of the batch is still on the wire */
+    @Override
+    public synchronized List<Map<String, Object>> getBatch() {
+        return readAhead == null ? Collections.emptyList() : List.of(readAhead);
+    }
+
+    @Override
+    public synchronized int available() {
+        return readAhead == null ? 0 : 1;
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> getAll() throws MorphiumDriverException {
+        List<Map<String, Object>> ret = new ArrayList<>();
+
+        while (hasNext()) {
+            ret.add(next());
+        }
+
+        return ret;
+    }
+
+    @Override
+    public synchronized void ahead(int jump) throws MorphiumDriverException {
+        for (int i = 0; i < jump && hasNext(); i++) {
+            next();
+        }
+    }
+
+    @Override
+    public void back(int jump) throws MorphiumDriverException {
+        throw new IllegalArgumentException("cannot jump back in a streaming cursor");
+    }
+
+    @Override
+    public synchronized int getCursor() {
+        return index;
+    }
+
+    @Override
+    public MongoConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            if (reply != null) {
+                // the stream must end up at a message boundary again - read the rest of the
+                // batch without decoding it, the cursor id comes after it
+                try {
+                    skipArray(reply);
+                    readAfterBatch(reply);
+                    reply = null;
+                } catch (IOException e) {
+                    reply = null;
+                    throw connection.streamBroken(e);
+                }
+
+                replyDone();
+            }
+
+            buffered = null;
+            readAhead = null;
+            connection.closeIteration(this);
+        } catch (RuntimeException e) {
+            log.debug("closing streaming cursor failed", e);
+        } finally {
+            release();
+        }
+    }
+}
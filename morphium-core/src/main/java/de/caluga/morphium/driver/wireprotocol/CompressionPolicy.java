@@ -0,0 +1,118 @@
+package de.caluga.morphium.driver.wireprotocol;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which outgoing messages are sent as {@link OpCompressed} and at which level - shared by
+ * the client driver and PoppyDB's encoder. Compressing a {@code getMore} or {@code hello} of a
+ * few hundred bytes only costs CPU, so messages below {@link #getMinSize()} are sent as they are.
+ * Bulk writes (insert/update/delete) compress well and are worth a higher level; cursor batches
+ * and other commands are latency bound and get a fast one. A level of 0 means the compressor's
+ * default (zlib: 6, zstd: 3); snappy has no levels.
+ *
+ * <p>Commands listed by the MongoDB compression spec (hello, authentication, user management) are
+ * never compressed.
+ */
+public class CompressionPolicy {
+
+    /** What a message carries - decides its compression level. */
+    public enum MessageClass {
+        /** insert/update/delete/bulkWrite requests */
+        BULK_WRITE,
+        /** replies carrying a cursor batch (find, aggregate, getMore, ...) */
+        CURSOR_BATCH,
+        /** everything else */
+        COMMAND,
+    }
+
+    private static final Set<String> NEVER_COMPRESS = Set.of("hello", "ismaster", "saslstart", "saslcontinue", "getnonce",
+            "authenticate", "createuser", "updateuser", "copydbsaslstart", "copydbgetnonce", "copydb");
+    private static final Set<String> BULK_WRITES = Set.of("insert", "update", "delete", "bulkwrite");
+
+    private int minSize = 1024;
+    private final Map<MessageClass, Integer> levels = new EnumMap<>(MessageClass.class);
+
+    public CompressionPolicy() {
+        levels.put(MessageClass.BULK_WRITE, 0);
+        levels.put(MessageClass.CURSOR_BATCH, 1);
+        levels.put(MessageClass.COMMAND, 1);
+    }
+
+    /** Smallest payload (bytes) that is compressed, default 1024. 0 compresses everything. */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public CompressionPolicy setMinSize(int minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    public int getLevel(MessageClass messageClass) {
+        return levels.get(messageClass);
+    }
+
+    public CompressionPolicy setLevel(MessageClass messageClass, int level) {
+        levels.put(messageClass, level);
+        return this;
+    }
+
+    /** The class of a message, by its command name or - for replies - by a cursor batch in it. */
+    public static MessageClass classify(WireProtocolMessage msg) {
+        Map<String, Object> doc = msg instanceof OpMsg m ? m.getFirstDoc() : null;
+
+        if (doc == null || doc.isEmpty()) {
+            return MessageClass.COMMAND;
+        }
+
+        if (BULK_WRITES.contains(doc.keySet().iterator().next().toLowerCase(Locale.ROOT))) {
+            return MessageClass.BULK_WRITE;
+        }
+
+        if (doc.get("cursor") instanceof Map<?, ?> cursor
+                && (cursor.get("firstBatch") instanceof List || cursor.get("nextBatch") instanceof List)) {
+            return MessageClass.CURSOR_BATCH;
+        }
+
+        return MessageClass.COMMAND;
+    }
+
+    /**
+     * Whether {@code msg} may be compressed at all, decided without encoding it: false for the
+     * noop compressor and for the commands the spec excludes. {@link #compress} then still checks
+     * the size of the encoded payload.
+     */
+    public boolean mayCompress(WireProtocolMessage msg, int compressorId) {
+        if (compressorId == OpCompressed.COMPRESSOR_NOOP || msg instanceof OpCompressed) {
+            return false;
+        }
+
+        Map<String, Object> doc = msg instanceof OpMsg m ? m.getFirstDoc() : null;
+        return doc == null || doc.isEmpty() || !NEVER_COMPRESS.contains(doc.keySet().iterator().next().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param payload the encoded payload of {@code msg}
+     * @return {@code msg} wrapped into an OP_COMPRESSED with the given compressor, or null if it
+     *         is to be sent uncompressed
+     */
+    public OpCompressed compress(WireProtocolMessage msg, byte[] payload, int compressorId) {
+        if (payload.length < minSize || !mayCompress(msg, compressorId)) {
+            return null;
+        }
+
+        OpCompressed opc = new OpCompressed();
+        opc.setMessageId(msg.getMessageId());
+        opc.setResponseTo(msg.getResponseTo());
+        opc.setOriginalOpCode(msg.getOpCode());
+        opc.setCompressorId(compressorId);
+        opc.setCompressionLevel(getLevel(classify(msg)));
+        opc.setUncompressedSize(payload.length);
+        opc.setCompressedMessage(payload);
+        return opc;
+    }
+}
@@ -1,22 +1,41 @@
 package de.caluga.morphium.driver.wireprotocol;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.zip.DeflaterInputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.xerial.snappy.Snappy;
 
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+
+/**
+ * OP_COMPRESSED: a message compressed with snappy, zlib or zstd. zlib and zstd contexts are
+ * expensive to set up and are reused across messages (see {@link ContextPool}). Which messages are
+ * compressed, and at which level, is decided by {@link CompressionPolicy}.
+ */
 public class OpCompressed extends WireProtocolMessage {
     public final static int COMPRESSOR_NOOP = 0;
     public final static int COMPRESSOR_SNAPPY = 1;
     public final static int COMPRESSOR_ZLIB = 2;
     public final static int COMPRESSOR_ZSTD = 3;
+
+    private static final ContextPool<ZstdCompressCtx> zstdCompressors = new ContextPool<>(ZstdCompressCtx::new, ZstdCompressCtx::close);
+    private static final ContextPool<ZstdDecompressCtx> zstdDecompressors = new ContextPool<>(ZstdDecompressCtx::new, ZstdDecompressCtx::close);
+    private static final ContextPool<Deflater> deflaters = new ContextPool<>(Deflater::new, Deflater::end);
+    private static final ContextPool<Inflater> inflaters = new ContextPool<>(Inflater::new, Inflater::end);
+
     private int originalOpCode;
     private int uncompressedSize;
     private int compressorId;
+    private int compressionLevel;
     private byte[] compressedMessage;
 
     @Override
@@ -33,21 +52,27 @@ public class OpCompressed extends WireProtocolMessage {
 
         if (compressorId == COMPRESSOR_SNAPPY) {
             compressedMessage = Snappy.uncompress(compressedMessage);
+        } else if (compressorId == COMPRESSOR_NOOP) {
+            // stored as is
         } else if (compressorId == COMPRESSOR_ZLIB) {
-            InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressedMessage));
-            // Pre-size output buffer based on uncompressed size hint
-            ByteArrayOutputStream out = new ByteArrayOutputStream(uncompressedSize > 0 ? uncompressedSize : 8192);
-            byte[] b = new byte[8192];  // Larger buffer for better performance
-            int r;
+            compressedMessage = inflate(compressedMessage, uncompressedSize);
+        } else if (compressorId == COMPRESSOR_ZSTD) {
+            // header size 0: fall back to the frame's - -1 if the frame does not carry it, -2 if
+            // it is no valid zstd frame. Either would end up as the size of the target buffer
+            long size = uncompressedSize > 0 ? uncompressedSize : Zstd.getFrameContentSize(compressedMessage);
 
-            while ((r = in.read(b)) != -1) {
-                out.write(b, 0, r);
+            if (size < 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("OP_COMPRESSED: zstd payload without usable uncompressed size (header "
+                                      + uncompressedSize + ", frame " + size + ")");
             }
 
-            in.close();
-            compressedMessage = out.toByteArray();
-        } else if (compressorId == COMPRESSOR_ZSTD) {
-            throw new IllegalArgumentException("ZSTD compression not supported!");
+            ZstdDecompressCtx ctx = zstdDecompressors.take();
+
+            try {
+                compressedMessage = ctx.decompress(compressedMessage, (int) size);
+            } finally {
+                zstdDecompressors.release(ctx);
+            }
         } else {
             throw new IllegalArgumentException("unsupported compression id: " + compressorId);
         }
@@ -65,12 +90,16 @@ public class OpCompressed extends WireProtocolMessage {
         } else if (compressorId == COMPRESSOR_NOOP) {
             out.write(compressedMessage);
         } else if (compressorId == COMPRESSOR_ZLIB) {
-            DeflaterOutputStream zlibOut = new DeflaterOutputStream(out);
-            zlibOut.write(compressedMessage);
-            zlibOut.flush();
-            zlibOut.close();
+            deflate(compressedMessage, out);
         } else if (compressorId == COMPRESSOR_ZSTD) {
-            throw new IllegalArgumentException("ZSTD compression not supported!");
+            ZstdCompressCtx ctx = zstdCompressors.take();
+
+            try {
+                ctx.setLevel(compressionLevel != 0 ? compressionLevel : Zstd.defaultCompressionLevel());
+                out.write(ctx.compress(compressedMessage));
+            } finally {
+                zstdCompressors.release(ctx);
+            }
         } else {
             throw new IllegalArgumentException("unsupported compression id: " + compressorId);
         }
@@ -79,6 +108,52 @@ public class OpCompressed extends WireProtocolMessage {
         return out.toByteArray();
     }
 
+    private void deflate(byte[] data, ByteArrayOutputStream out) {
+        Deflater deflater = deflaters.take();
+
+        try {
+            deflater.reset();
+            deflater.setLevel(compressionLevel != 0 ? compressionLevel : Deflater.DEFAULT_COMPRESSION);
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] b = new byte[8192];
+
+            while (!deflater.finished()) {
+                out.write(b, 0, deflater.deflate(b));
+            }
+        } finally {
+            deflaters.release(deflater);
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int uncompressedSize) throws IOException {
+        Inflater inflater = inflaters.take();
+
+        try {
+            inflater.reset();
+            inflater.setInput(data);
+            // Pre-size output buffer based on uncompressed size hint
+            ByteArrayOutputStream out = new ByteArrayOutputStream(uncompressedSize > 0 ? uncompressedSize : 8192);
+            byte[] b = new byte[8192];
+
+            while (!inflater.finished()) {
+                int r = inflater.inflate(b);
+
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated zlib data");
+                }
+
+                out.write(b, 0, r);
+            }
+
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("invalid zlib data", e);
+        } finally {
+            inflaters.release(inflater);
+        }
+    }
+
     @Override
     public int getOpCode() {
         return OpCode.OP_COMPRESSED.opCode;
@@ -108,6 +183,15 @@ public class OpCompressed extends WireProtocolMessage {
         this.compressorId = compressorId;
     }
 
+    /** level used when compressing, 0 for the compressor's default; ignored by snappy */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
     public byte[] getCompressedMessage() {
         return compressedMessage;
     }
@@ -115,4 +199,42 @@ public class OpCompressed extends WireProtocolMessage {
     public void setCompressedMessage(byte[] compressedMessage) {
         this.compressedMessage = compressedMessage;
     }
+
+    /**
+     * Idle compression contexts, reused instead of set up per message. Bounded: contexts beyond
+     * the limit are freed on release. Not thread local, so virtual threads do not pile up
+     * native contexts.
+     */
+    private static final class ContextPool<T> {
+        private static final int LIMIT = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final Supplier<T> factory;
+        private final Consumer<T> disposer;
+
+        ContextPool(Supplier<T> factory, Consumer<T> disposer) {
+            this.factory = factory;
+            this.disposer = disposer;
+        }
+
+        T take() {
+            T ctx = idle.poll();
+
+            if (ctx == null) {
+                return factory.get();
+            }
+
+            idleCount.decrementAndGet();
+            return ctx;
+        }
+
+        void release(T ctx) {
+            if (idleCount.incrementAndGet() > LIMIT) {
+                idleCount.decrementAndGet();
+                disposer.accept(ctx);
+            } else {
+                idle.offer(ctx);
+            }
+        }
+    }
 }
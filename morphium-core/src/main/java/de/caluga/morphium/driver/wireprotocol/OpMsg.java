@@ -1,11 +1,13 @@
 package de.caluga.morphium.driver.wireprotocol;
 
 import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
 import de.caluga.morphium.driver.bson.BsonDecoder;
 import de.caluga.morphium.driver.bson.BsonEncoder;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.zip.CRC32C;
 
@@ -49,12 +51,14 @@ public class OpMsg extends WireProtocolMessage {
     public static final int CHECKSUM_PRESENT = 1;
     public static final int MORE_TO_COME = 2;
     public static final int EXHAUST_ALLOWED = 65536;
+    private static final int HEADER_SIZE = 16;
 
 
     private Map<String, Object> firstDoc;
     private Map<String, List<Map<String, Object>>> documents;
 
     private int flags;
+    private boolean lazyDocuments = false;
 
     public void addDoc(String seqId, Map<String, Object> o) {
         if (documents == null) documents = new LinkedHashMap<>();
@@ -83,6 +87,21 @@ public class OpMsg extends WireProtocolMessage {
         return flags;
     }
 
+    public boolean isLazyDocuments() {
+        return lazyDocuments;
+    }
+
+    /**
+     * When parsing: keep embedded documents (cursor, batches, ...) as
+     * {@link de.caluga.morphium.driver.bson.LazyBsonDocument} views on the payload array that are
+     * decoded field by field on access. The command reply itself is decoded as usual. The
+     * payload array must not be reused afterwards.
+     */
+    public OpMsg setLazyDocuments(boolean lazyDocuments) {
+        this.lazyDocuments = lazyDocuments;
+        return this;
+    }
+
     public OpMsg setFlags(int flags) {
         this.flags = flags;
         return this;
@@ -107,7 +126,7 @@ public class OpMsg extends WireProtocolMessage {
             idx++;
             if (section == 0) {
                 Doc result = new Doc();
-                int l = BsonDecoder.decodeDocumentIn(result, bytes, idx);
+                int l = BsonDecoder.decodeDocumentIn(result, bytes, idx, lazyDocuments);
                 firstDoc = result;
                 idx += l;
             } else if (section == 1) {
@@ -120,7 +139,7 @@ public class OpMsg extends WireProtocolMessage {
                 int i = 0;
                 while (4 + strLen + i < size) {
                     Doc doc = new Doc();
-                    i += BsonDecoder.decodeDocumentIn(doc, bytes, idx + 4 + strLen + i);
+                    i += BsonDecoder.decodeDocumentIn(doc, bytes, idx + 4 + strLen + i, lazyDocuments);
                     addDoc(seqId, doc);
                 }
                 idx += 4 + strLen + i;
@@ -137,33 +156,132 @@ public class OpMsg extends WireProtocolMessage {
     }
 
     public byte[] getPayload() throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        writeInt(flags, out);
-        out.write((byte) 0); //section basic
-        byte[] d = BsonEncoder.encodeDocument(firstDoc);
-        out.write(d);
-        if (documents != null) {
-            for (String seqId : documents.keySet()) {
-                ByteArrayOutputStream sectionOut = new ByteArrayOutputStream();
-                writeString(seqId, sectionOut);
-                for (var doc : documents.get(seqId)) {
-                    sectionOut.write(BsonEncoder.encodeDocument(doc));
+        BsonBufferPool pool = BsonBufferPool.shared(false);
+        ByteBuffer[] segments = encode(pool);
+
+        try {
+            return payloadOf(segments);
+        } finally {
+            release(segments, pool);
+        }
+    }
+
+    /** Size of the payload (the message without its header) in segments from {@link #encode}. */
+    public static int payloadSize(ByteBuffer[] segments) {
+        int len = -HEADER_SIZE;
+
+        for (ByteBuffer b : segments) {
+            len += b.remaining();
+        }
+
+        return len;
+    }
+
+    /** Copies the payload out of segments from {@link #encode}, consuming them. */
+    public static byte[] payloadOf(ByteBuffer[] segments) {
+        byte[] ret = new byte[payloadSize(segments)];
+        int idx = 0;
+        segments[0].position(segments[0].position() + HEADER_SIZE);
+
+        for (ByteBuffer b : segments) {
+            int n = b.remaining();
+            b.get(ret, idx, n);
+            idx += n;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Encodes the complete message, header included, into buffers from the pool - ready for a
+     * gathering write: one buffer for header and command document, one per document sequence
+     * (plus one for the checksum). Every buffer is sized with {@link BsonEncoder#documentSize}
+     * and the documents are encoded straight into it, no intermediate arrays. The buffers are
+     * flipped (position 0, limit = end of data); hand them back with {@link #release} once written.
+     */
+    public ByteBuffer[] encode(BsonBufferPool pool) {
+        int sequences = documents == null ? 0 : documents.size();
+        boolean checksum = (flags & CHECKSUM_PRESENT) != 0;
+        ByteBuffer[] segments = new ByteBuffer[1 + sequences + (checksum ? 1 : 0)];
+
+        try {
+            int firstSize = BsonEncoder.documentSize(firstDoc);
+            byte[][] seqIds = new byte[sequences][];
+            int[] sectionSizes = new int[sequences];
+            // flags + section kind 0 + command document
+            int payloadSize = 4 + 1 + firstSize;
+            int i = 0;
+
+            if (documents != null) {
+                for (var e : documents.entrySet()) {
+                    seqIds[i] = e.getKey().getBytes(StandardCharsets.UTF_8);
+                    // per spec the size includes its own 4 bytes
+                    int sectionSize = 4 + seqIds[i].length + 1;
+
+                    for (var doc : e.getValue()) {
+                        sectionSize += BsonEncoder.documentSize(doc);
+                    }
+
+                    sectionSizes[i++] = sectionSize;
+                    payloadSize += 1 + sectionSize;
+                }
+            }
+
+            if (checksum) {
+                payloadSize += 4;
+            }
+
+            ByteBuffer head = pool.acquire(HEADER_SIZE + 5 + firstSize);
+            segments[0] = head;
+            head.putInt(HEADER_SIZE + payloadSize).putInt(getMessageId()).putInt(getResponseTo()).putInt(getOpCode());
+            head.putInt(flags).put((byte) 0); //section basic
+            BsonEncoder.encodeDocument(firstDoc, head);
+            head.flip();
+            i = 0;
+
+            if (documents != null) {
+                for (var e : documents.entrySet()) {
+                    ByteBuffer section = pool.acquire(1 + sectionSizes[i]);
+                    segments[1 + i] = section;
+                    section.put((byte) 1); // section kind 1: document sequence
+                    section.putInt(sectionSizes[i]);
+                    section.put(seqIds[i]).put((byte) 0);
+
+                    for (var doc : e.getValue()) {
+                        BsonEncoder.encodeDocument(doc, section);
+                    }
+
+                    section.flip();
+                    i++;
                 }
-                byte[] section = sectionOut.toByteArray();
-                out.write((byte) 1);                 // section kind 1: document sequence
-                writeInt(section.length + 4, out);   // per spec the size includes its own 4 bytes
-                out.write(section);
             }
+
+            if (checksum) {
+                //CRC32 checksum over flags and sections
+                CRC32C crc = new CRC32C();
+                crc.update(head.duplicate().position(HEADER_SIZE));
+
+                for (int s = 1; s <= sequences; s++) {
+                    crc.update(segments[s].duplicate());
+                }
+
+                ByteBuffer sum = pool.acquire(4);
+                sum.putInt((int) crc.getValue()).flip();
+                segments[segments.length - 1] = sum;
+            }
+
+            return segments;
+        } catch (RuntimeException e) {
+            release(segments, pool);
+            throw e;
         }
-        byte[] ret = out.toByteArray();
-        if ((getFlags() & CHECKSUM_PRESENT) != 0) {
-            //CRC32 checksum
-            CRC32C crc = new CRC32C();
-            crc.update(ret);
-            writeInt((int) crc.getValue(), out);
-            ret = out.toByteArray();
+    }
+
+    /** Returns the buffers of {@link #encode} to their pool. */
+    public static void release(ByteBuffer[] segments, BsonBufferPool pool) {
+        for (ByteBuffer b : segments) {
+            pool.release(b);
         }
-        return ret;
     }
 
     @Override
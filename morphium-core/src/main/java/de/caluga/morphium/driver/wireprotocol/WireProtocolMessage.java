@@ -19,6 +19,15 @@ public abstract class WireProtocolMessage {
     private static Logger log = LoggerFactory.getLogger(WireProtocolMessage.class);
 
     public static WireProtocolMessage parseFromStream(InputStream in) throws java.net.SocketException, java.net.SocketTimeoutException {
+        return parseFromStream(in, false);
+    }
+
+    /**
+     * @param lazyDocuments parse OP_MSG replies with {@link OpMsg#setLazyDocuments lazy}
+     *                      embedded documents - every message gets its own array here, so that
+     *                      is safe
+     */
+    public static WireProtocolMessage parseFromStream(InputStream in, boolean lazyDocuments) throws java.net.SocketException, java.net.SocketTimeoutException {
         byte[] inBuffer = new byte[16];
         int numRead;
         // Bytes of the current message consumed so far. A read timeout with 0 bytes consumed
@@ -98,6 +107,10 @@ public abstract class WireProtocolMessage {
                 consumed = 16 + numRead;
             }
 
+            if (lazyDocuments && message instanceof OpMsg msg) {
+                msg.setLazyDocuments(true);
+            }
+
             try {
                 message.parsePayload(buf, 0);
                 return message;
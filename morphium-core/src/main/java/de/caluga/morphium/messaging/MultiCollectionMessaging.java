@@ -41,6 +41,7 @@ import de.caluga.morphium.async.AsyncOperationCallback;
 import de.caluga.morphium.async.AsyncOperationType;
 import de.caluga.morphium.changestream.ChangeStreamMonitor;
 import de.caluga.morphium.config.MessagingSettings;
+import de.caluga.morphium.config.ThreadPoolSettings;
 import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.MorphiumDriverException;
 import de.caluga.morphium.driver.MorphiumId;
@@ -2342,13 +2343,20 @@ public class MultiCollectionMessaging implements MorphiumMessaging {
         if (coreSize <= 0) {
             coreSize = Math.max(1, maxSize);
         }
+        ThreadPoolSettings threadPoolSettings = morphium.getConfig().threadPoolSettings();
+        if (threadPoolSettings.isVirtualThreads()) {
+            // unbounded queue: grow to max instead of queueing behind the core threads
+            coreSize = Math.max(coreSize, maxSize);
+        }
         threadPool = new ThreadPoolExecutor(
                         coreSize,
                         maxSize,
                         effectiveSettings.getThreadPoolMessagingKeepAliveTime(),
                         TimeUnit.MILLISECONDS,
                         new LinkedBlockingQueue<>(),
-                        Thread.ofPlatform().name("msg-thr-", 0).factory());
+                        threadPoolSettings.threadFactory("msg-thr-"));
+        threadPool.allowCoreThreadTimeOut(threadPoolSettings.isVirtualThreads() && effectiveSettings.getThreadPoolMessagingKeepAliveTime() > 0);
+        decouplePool.setThreadFactory(threadPoolSettings.threadFactory("decouple_thr-"));
         threadPool.setRejectedExecutionHandler(new RejectedExecutionHandler() {
 
             @Override
@@ -9,6 +9,7 @@ import de.caluga.morphium.async.AsyncOperationType;
 import de.caluga.morphium.changestream.ChangeStreamEvent;
 import de.caluga.morphium.changestream.ChangeStreamMonitor;
 import de.caluga.morphium.config.MessagingSettings;
+import de.caluga.morphium.config.ThreadPoolSettings;
 import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.MorphiumDriverException;
 import de.caluga.morphium.driver.MorphiumId;
@@ -330,7 +331,7 @@ public class SingleCollectionMessaging extends Thread implements ShutdownListene
         processedByFieldName = morphium.getARHelper().getMongoFieldName(Msg.class, Msg.Fields.processedBy.name());
         statusInfoListenerEnabled = settings.isMessagingStatusInfoListenerEnabled();
         decouplePool = new ScheduledThreadPoolExecutor(windowSize,
-            Thread.ofPlatform().name("decouple_thr-", 0).factory());
+            morphium.getConfig().threadPoolSettings().threadFactory("decouple_thr-"));
 
         if (settings.getMessagingStatusInfoListenerName() != null) {
             statusInfoListenerName = settings.getMessagingStatusInfoListenerName();
@@ -501,13 +502,19 @@ public class SingleCollectionMessaging extends Thread implements ShutdownListene
             // Interpret 0 as "auto" -> use max size for parallelism (virtual threads).
             coreSize = Math.max(1, maxSize);
         }
+        ThreadPoolSettings threadPoolSettings = morphium.getConfig().threadPoolSettings();
+        if (threadPoolSettings.isVirtualThreads()) {
+            // unbounded queue: grow to max instead of queueing behind the core threads
+            coreSize = Math.max(coreSize, maxSize);
+        }
         threadPool = new ThreadPoolExecutor(
                         coreSize,
                         maxSize,
                         settings.getThreadPoolMessagingKeepAliveTime(),
                         TimeUnit.MILLISECONDS,
                         new LinkedBlockingQueue<>(),
-                        Thread.ofPlatform().name("msg-thr-", 0).factory());
+                        threadPoolSettings.threadFactory("msg-thr-"));
+        threadPool.allowCoreThreadTimeOut(threadPoolSettings.isVirtualThreads() && settings.getThreadPoolMessagingKeepAliveTime() > 0);
         threadPool.setRejectedExecutionHandler(new RejectedExecutionHandler() {
 
             @Override
@@ -0,0 +1,33 @@
+package de.caluga.morphium.objectmapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accessors generated for entity classes, see {@link GeneratedFieldAccessor}. Looked up when
+ * an object mapper builds its field table for a class - register them before the first
+ * mapping, accessors registered later are only used by mappers created afterwards.
+ */
+public final class FieldAccessorRegistry {
+    private static final Map<Class<?>, GeneratedFieldAccessor> accessors = new ConcurrentHashMap<>();
+
+    private FieldAccessorRegistry() {
+    }
+
+    public static void register(GeneratedFieldAccessor accessor) {
+        accessors.put(accessor.getDeclaringClass(), accessor);
+    }
+
+    /** the accessor for the fields declared by the class, null if there is none */
+    public static GeneratedFieldAccessor get(Class<?> declaringClass) {
+        return accessors.get(declaringClass);
+    }
+
+    /**
+     * drops all accessors - e.g. before a hot reload registers the ones of the new classes.
+     * Classes are held strongly while registered.
+     */
+    public static void clear() {
+        accessors.clear();
+    }
+}
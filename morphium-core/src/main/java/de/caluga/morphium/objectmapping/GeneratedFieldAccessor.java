@@ -0,0 +1,24 @@
+package de.caluga.morphium.objectmapping;
+
+/**
+ * Reads and writes the declared fields of one class without reflection - implemented by
+ * classes generated at build time (e.g. by the Quarkus extension) and registered in the
+ * {@link FieldAccessorRegistry}. The object mapper uses it for every field it lists, all other
+ * fields are accessed as usual.
+ * <p>
+ * Fields are addressed by their position in {@link #getFieldNames()}. Like
+ * {@link java.lang.reflect.Field#set}, {@link #set} fails with a {@link ClassCastException} or
+ * {@link NullPointerException} for a value that does not fit the field type - the mapper
+ * handles both.
+ */
+public interface GeneratedFieldAccessor {
+    /** the class declaring the fields - fields of super classes need an accessor of their own */
+    Class<?> getDeclaringClass();
+
+    /** java names of the fields handled, an index into this array selects the field */
+    String[] getFieldNames();
+
+    Object get(Object target, int field);
+
+    void set(Object target, int field, Object value);
+}
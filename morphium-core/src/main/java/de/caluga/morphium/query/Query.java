@@ -12,6 +12,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -40,10 +43,12 @@ import de.caluga.morphium.annotations.Id;
 import de.caluga.morphium.annotations.LastAccess;
 import de.caluga.morphium.annotations.ReadPreferenceLevel;
 import de.caluga.morphium.annotations.caching.Cache;
+import de.caluga.morphium.cache.QueryCacheKey;
 import de.caluga.morphium.async.AsyncOperationCallback;
 import de.caluga.morphium.async.AsyncOperationType;
 import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.MorphiumCursor;
+import de.caluga.morphium.driver.MorphiumDriver;
 import de.caluga.morphium.driver.MorphiumDriverException;
 import de.caluga.morphium.driver.MorphiumId;
 import org.bson.types.ObjectId;
@@ -337,16 +342,17 @@ public class Query<T> implements Cloneable {
     public T findOneAndDelete() {
         Cache c = getARHelper().getAnnotationFromHierarchy(type, Cache.class); // type.getAnnotation(Cache.class);
         boolean useCache = c != null && c.readCache() && morphium.isReadCacheEnabledForThread() && !InMemoryDriver.driverName.equals(morphium.getDriver().getName());
-        String ck = null;
+        QueryCacheKey ck = null;
         if (useCache) {
-            ck = morphium.getCache().getCacheKey(this);
+            ck = morphium.getCache().getQueryCacheKey(this);
             morphium.inc(StatisticKeys.READS);
 
-            if (morphium.getCache().isCached(type, ck)) {
+            List<T> lst = morphium.getCache().getFromCache(type, ck);
+
+            if (lst != null) {
                 morphium.inc(StatisticKeys.CHITS);
-                List<T> lst = morphium.getCache().getFromCache(type, ck);
 
-                if (lst == null || lst.isEmpty()) {
+                if (lst.isEmpty()) {
                     return null;
                 } else {
                     morphium.delete(lst.get(0));
@@ -691,12 +697,14 @@ public class Query<T> implements Cloneable {
         Cache ca = getARHelper().getAnnotationFromHierarchy(type, Cache.class); // type.getAnnotation(Cache.class);
         boolean useCache = ca != null && ca.readCache() && morphium.isReadCacheEnabledForThread() && !morphium.getDriver().getName().equals(InMemoryDriver.driverName);
         Map<String, Object> lst = getFieldListForQuery();
-        String ck = null;
+        QueryCacheKey ck = null;
         if (useCache) {
-            ck = morphium.getCache().getCacheKey(type, query, sort, lst, getCollectionName(), skip, limit);
+            ck = morphium.getCache().getQueryCacheKey(type, query, sort, lst, getCollectionName(), skip, limit, getARHelper());
+
+            List<T> cached = morphium.getCache().getFromCache(type, ck);
 
-            if ( morphium.getCache().isCached(type, ck)) {
-                return morphium.getCache().getFromCache(type, ck);
+            if (cached != null) {
+                return cached;
             }
         }
         long start = System.currentTimeMillis();
@@ -1398,6 +1406,123 @@ public class Query<T> implements Cloneable {
         return this;
     }
 
+    /**
+     * {@link #asList()} as a future. The query is copied first, so it can be changed or reused
+     * right after the call.
+     *
+     * <p>Non-blocking only where the driver supports it ({@link MorphiumDriver#supportsAsyncReplies()}:
+     * PooledDriver with multiplexed connections, NettyDriver): the calling thread writes the
+     * request, the reply and the getMores of the cursor complete futures, no thread waits for the
+     * server. Deserialization and the lifecycle events run on {@link #asyncExecutor()}. Everywhere
+     * else - InMemoryDriver, classic pooled connections, map queries, and while the calling thread
+     * has a transaction - this is the blocking {@link #asList()} on {@link #asyncExecutor()},
+     * outside the caller's transaction. Network errors are not retried on the non-blocking path.
+     *
+     * @return completes with the result list, or exceptionally with the error of the read
+     */
+    public CompletableFuture<List<T>> asListAsync() {
+        Query<T> q = clone();
+        Executor executor = asyncExecutor();
+
+        if (!q.isReadNonBlocking()) {
+            return CompletableFuture.supplyAsync(q::asList, executor);
+        }
+
+        morphium.inc(StatisticKeys.READS);
+        QueryCacheKey ck = q.readCacheKey();
+        List<T> cached = q.fromReadCache(ck);
+
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        FindCommand cmd;
+
+        try {
+            cmd = q.getListFindCmd();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return cmd.executeAsync(executor).thenApply(docs -> {
+            q.srv = (String) cmd.getMetaData().get("server");
+            List<T> ret = q.deserializeAll(docs);
+
+            if (ck != null) {
+                morphium.getCache().addToCache(ck, type, ret);
+            }
+
+            morphium.firePostLoad(ret);
+            return ret;
+        });
+    }
+
+    /**
+     * {@link #countAll()} as a future, non-blocking where {@link #asListAsync()} is (not with
+     * {@code $where}, which has to iterate). Like countAll, an error is logged and counts as 0.
+     */
+    public CompletableFuture<Long> countAllAsync() {
+        Query<T> q = clone();
+        Executor executor = asyncExecutor();
+
+        if (!q.isReadNonBlocking() || where != null) {
+            return CompletableFuture.supplyAsync(q::countAll, executor);
+        }
+
+        morphium.inc(StatisticKeys.READS);
+        MongoConnection con = null;
+
+        try {
+            con = morphium.getDriver().getReadConnection(q.getRP());
+            return q.getCountCommand(con).getCountAsync(executor).handle((n, e) -> {
+                if (e != null) {
+                    log.error("Error counting", e);
+                    return 0L;
+                }
+
+                return n.longValue();
+            });
+        } catch (Exception e) {
+            log.error("Error counting", e);
+
+            if (con != null) {
+                morphium.getDriver().releaseConnection(con);
+            }
+
+            return CompletableFuture.completedFuture(0L);
+        }
+    }
+
+    /**
+     * {@link #get()} as a future, non-blocking where {@link #asListAsync()} is - completes with
+     * null if nothing matches.
+     */
+    public CompletableFuture<T> getAsync() {
+        Query<T> q = clone();
+
+        if (!q.isReadNonBlocking()) {
+            return CompletableFuture.supplyAsync(q::get, asyncExecutor());
+        }
+
+        return q.limit(1).asListAsync().thenApply(l -> l.isEmpty() ? null : l.get(0));
+    }
+
+    /** True if the {@code ...Async} reads of this query run on reply futures instead of a pool thread. */
+    private boolean isReadNonBlocking() {
+        MorphiumDriver driver = morphium.getDriver();
+        return type != null && driver.supportsAsyncReplies() && !driver.isTransactionInProgress();
+    }
+
+    /**
+     * The executor of the {@code ...Async} methods and of {@link #asPublisher()}: the one set on
+     * this query, Morphium's async operations pool otherwise. On the non-blocking path it only runs
+     * continuations; where the driver call blocks, that pool's virtual threads park instead of the
+     * caller's.
+     */
+    private Executor asyncExecutor() {
+        return getExecutor() != null ? getExecutor() : morphium.getAsyncOperationsThreadPool();
+    }
+
     public void asList(final AsyncOperationCallback<T> callback) {
         if (callback == null) {
             throw new IllegalArgumentException("callback is null");
@@ -1424,13 +1549,13 @@ public class Query<T> implements Cloneable {
             Cache c = getARHelper().getAnnotationFromHierarchy(type, Cache.class); // type.getAnnotation(Cache.class);
             boolean useCache = c != null && c.readCache() && morphium.isReadCacheEnabledForThread() && !InMemoryDriver.driverName.equals(morphium.getDriver().getName());
             Class type = Map.class;
-            String ck = null;
+            QueryCacheKey ck = null;
             if (useCache) {
-                ck = morphium.getCache().getCacheKey(this);
-                if (morphium.getCache().isCached(type, ck)) {
+                ck = morphium.getCache().getQueryCacheKey(this);
+                List<Map<String, Object>> cached = morphium.getCache().getFromCache(type, ck);
+                if (cached != null) {
                     morphium.inc(StatisticKeys.CHITS);
-                    // noinspection unchecked
-                    return morphium.getCache().getFromCache(type, ck);
+                    return cached;
                 }
                 morphium.inc(StatisticKeys.CMISS);
             }
@@ -1499,26 +1624,68 @@ public class Query<T> implements Cloneable {
         }
 
         morphium.inc(StatisticKeys.READS);
-        Cache c = getARHelper().getAnnotationFromHierarchy(type, Cache.class); // type.getAnnotation(Cache.class);
-        boolean useCache = c != null && c.readCache() && morphium.isReadCacheEnabledForThread() && !InMemoryDriver.driverName.equals(morphium.getDriver().getName());
+        QueryCacheKey ck = readCacheKey();
+        List<T> cached = fromReadCache(ck);
 
-        String ck = null;
-        if (useCache) {
-            ck = morphium.getCache().getCacheKey(this);
-            if (morphium.getCache().isCached(type, ck)) {
-                morphium.inc(StatisticKeys.CHITS);
-                return morphium.getCache().getFromCache(type, ck);
+        if (cached != null) {
+            return cached;
+        }
+
+        long start = System.currentTimeMillis();
+        List<T> ret;
+        FindCommand cmd = getListFindCmd();
+
+        try {
+            var query = cmd.execute();
+            srv = (String) cmd.getMetaData().get("server");
+            cmd.releaseConnection();
+            cmd = null;
+            ret = deserializeAll(query);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (cmd != null && cmd.getConnection() != null) {
+                cmd.releaseConnection();
             }
+        }
 
-            morphium.inc(StatisticKeys.CMISS);
-        } else {
+        // morphium.fireProfilingReadEvent(this, System.currentTimeMillis() - start,
+        // ReadAccessType.AS_LIST);
+
+        if (ck != null) {
+            morphium.getCache().addToCache(ck, type, ret);
+        }
+
+        morphium.firePostLoad(ret);
+        return ret;
+    }
+
+    /** The read cache key of this query, null if its results are not cached. */
+    private QueryCacheKey readCacheKey() {
+        Cache c = getARHelper().getAnnotationFromHierarchy(type, Cache.class); // type.getAnnotation(Cache.class);
+        boolean useCache = c != null && c.readCache() && morphium.isReadCacheEnabledForThread() && !InMemoryDriver.driverName.equals(morphium.getDriver().getName());
+
+        if (!useCache) {
             morphium.inc(StatisticKeys.NO_CACHED_READS);
+            return null;
         }
 
-        long start = System.currentTimeMillis();
-        Map<String, Object> lst = getFieldListForQuery();
-        List<T> ret = new ArrayList<>();
-        ret.clear();
+        return morphium.getCache().getQueryCacheKey(this);
+    }
+
+    /** The cached result for {@code ck}, null on a miss or if {@code ck} is null. */
+    private List<T> fromReadCache(QueryCacheKey ck) {
+        if (ck == null) {
+            return null;
+        }
+
+        List<T> cached = morphium.getCache().getFromCache(type, ck);
+        morphium.inc(cached != null ? StatisticKeys.CHITS : StatisticKeys.CMISS);
+        return cached;
+    }
+
+    /** {@link #getFindCmd()} with filter, collation and sort of {@link #asList()}. */
+    private FindCommand getListFindCmd() {
         FindCommand cmd = getFindCmd();
 
         try {
@@ -1536,36 +1703,26 @@ public class Query<T> implements Cloneable {
                 cmd.setSort(new Doc(sort));
             }
 
-            var query = cmd.execute();
-            srv = (String) cmd.getMetaData().get("server");
+            return cmd;
+        } catch (RuntimeException e) {
             cmd.releaseConnection();
-            cmd = null;
-
-            for (Map<String, Object> o : query) {
-                T unmarshall = morphium.getMapper().deserialize(type, o);
-
-                if (unmarshall != null) {
-                    ret.add(unmarshall);
-                    updateLastAccess(unmarshall);
-                    morphium.firePostLoadEvent(unmarshall);
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        } finally {
-            if (cmd != null && cmd.getConnection() != null) {
-                cmd.releaseConnection();
-            }
+            throw e;
         }
+    }
 
-        // morphium.fireProfilingReadEvent(this, System.currentTimeMillis() - start,
-        // ReadAccessType.AS_LIST);
+    private List<T> deserializeAll(List<Map<String, Object>> docs) {
+        List<T> ret = new ArrayList<>(docs.size());
 
-        if (useCache) {
-            morphium.getCache().addToCache(ck, type, ret);
+        for (Map<String, Object> o : docs) {
+            T unmarshall = morphium.getMapper().deserialize(type, o);
+
+            if (unmarshall != null) {
+                ret.add(unmarshall);
+                updateLastAccess(unmarshall);
+                morphium.firePostLoadEvent(unmarshall);
+            }
         }
 
-        morphium.firePostLoad(ret);
         return ret;
     }
 
@@ -1582,6 +1739,25 @@ public class Query<T> implements Cloneable {
         return it;
     }
 
+    /**
+     * Streams the result as a {@link Flow.Publisher} with backpressure: the cursor only fetches
+     * the next batch once the subscriber requested more than the current one holds. Every
+     * subscriber gets its own cursor over a copy of this query; see {@link QueryPublisher}.
+     * The cursor reads are blocking, on {@link #asyncExecutor()} - not non-blocking I/O.
+     */
+    public Flow.Publisher<T> asPublisher() {
+        return asPublisher(0);
+    }
+
+    /**
+     * {@link #asPublisher()} with the given cursor batch size.
+     *
+     * @param windowSize number of documents fetched per cursor round-trip, 0 for the default
+     */
+    public Flow.Publisher<T> asPublisher(int windowSize) {
+        return new QueryPublisher<>(this, windowSize, asyncExecutor());
+    }
+
     /**
      * Returns a {@link Stream} backed by a MongoDB cursor. The stream is lazy —
      * elements are fetched on demand, not loaded into memory all at once.
@@ -1782,15 +1958,16 @@ public class Query<T> implements Cloneable {
         Cache c = getARHelper().getAnnotationFromHierarchy(type, Cache.class); // type.getAnnotation(Cache.class);
         boolean useCache = c != null && c.readCache() && morphium.isReadCacheEnabledForThread() && !InMemoryDriver.driverName.equals(morphium.getDriver().getName());
 
-        String ck = null;
+        QueryCacheKey ck = null;
         if (useCache) {
-            ck = morphium.getCache().getCacheKey(this);
+            ck = morphium.getCache().getQueryCacheKey(this);
             morphium.inc(StatisticKeys.READS);
-            if (morphium.getCache().isCached(type, ck)) {
+            List<T> lst = morphium.getCache().getFromCache(type, ck);
+
+            if (lst != null) {
                 morphium.inc(StatisticKeys.CHITS);
-                List<T> lst = morphium.getCache().getFromCache(type, ck);
 
-                if (lst == null || lst.isEmpty()) {
+                if (lst.isEmpty()) {
                     return null;
                 } else {
                     return lst.get(0);
@@ -1878,15 +2055,16 @@ public class Query<T> implements Cloneable {
         Cache c = getARHelper().getAnnotationFromHierarchy(type, Cache.class);// type.getAnnotation(Cache.class);
         boolean useCache = c != null && c.readCache() && morphium.isReadCacheEnabledForThread() && !InMemoryDriver.driverName.equals(morphium.getDriver().getName());
 
-        String ck = null;
+        QueryCacheKey ck = null;
         if (useCache) {
-            ck = morphium.getCache().getCacheKey(this);
-            ck += " idlist";
+            ck = morphium.getCache().getQueryCacheKey(this).forIdList();
             morphium.inc(StatisticKeys.READS);
 
-            if (morphium.getCache().isCached(type, ck)) {
+            List<R> cached = (List<R>) morphium.getCache().getFromCache(type, ck);
+
+            if (cached != null) {
                 morphium.inc(StatisticKeys.CHITS);
-                return (List<R>) morphium.getCache().getFromCache(type, ck);
+                return cached;
             }
 
             morphium.inc(StatisticKeys.CMISS);
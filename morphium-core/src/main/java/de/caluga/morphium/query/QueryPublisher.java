@@ -0,0 +1,145 @@
+package de.caluga.morphium.query;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Publisher} over the result of a {@link Query}, the streaming counterpart of
+ * {@link Query#asIterable()}: each subscriber gets its own cursor, which is only advanced - and
+ * only fetches its next batch from the server - as far as the subscriber requested. Emission runs
+ * on the given executor (Morphium's async operations pool by default), never on the thread calling
+ * {@code request}, and signals to one subscriber are never concurrent. The batch reads of the
+ * cursor block the executor thread running them; this is not non-blocking I/O.
+ *
+ * <p>The cursor is opened on the first {@code request} and closed on completion, error or
+ * {@code cancel}.
+ *
+ * @param <T> the result type of the query
+ */
+public class QueryPublisher<T> implements Flow.Publisher<T> {
+    private final Query<T> query;
+    private final int windowSize;
+    private final Executor executor;
+
+    /**
+     * @param query      the query, copied when a subscriber subscribes
+     * @param windowSize batch size of the cursor, 0 for the driver default
+     * @param executor   runs the emission
+     */
+    public QueryPublisher(Query<T> query, int windowSize, Executor executor) {
+        this.query = Objects.requireNonNull(query);
+        this.windowSize = windowSize;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        QuerySubscription subscription = new QuerySubscription(subscriber, query.clone());
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class QuerySubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Query<T> query;
+        private final AtomicLong demand = new AtomicLong();
+        /** drain requests; only the caller taking it from 0 runs the drain loop */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private QueryIterator<T> iterator;
+
+        QuerySubscription(Flow.Subscriber<? super T> subscriber, Query<T> query) {
+            this.subscriber = subscriber;
+            this.query = query;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request must be positive, was " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+
+            do {
+                if (cancelled) {
+                    close();
+                    return;
+                }
+
+                if (invalidRequest != null) {
+                    cancelled = true;
+                    close();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+
+                try {
+                    if (iterator == null) {
+                        iterator = query.asIterable(windowSize);
+                    }
+
+                    long requested = demand.get();
+                    long emitted = 0;
+
+                    while (emitted < requested && !cancelled) {
+                        if (!iterator.hasNext()) {
+                            cancelled = true;
+                            close();
+                            subscriber.onComplete();
+                            return;
+                        }
+
+                        subscriber.onNext(iterator.next());
+                        emitted++;
+                    }
+
+                    if (emitted > 0 && requested != Long.MAX_VALUE) {
+                        demand.addAndGet(-emitted);
+                    }
+                } catch (Throwable t) {
+                    cancelled = true;
+                    close();
+                    subscriber.onError(t);
+                    return;
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void close() {
+            if (iterator != null) {
+                iterator.close();
+                iterator = null;
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
 /**
@@ -44,6 +45,9 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
     private static final Logger logger = LoggerFactory.getLogger(BufferedMorphiumWriterImpl.class);
     // needs to be securely stored
     private final Map < Class<?>, List<WriteBufferEntry>> opLog = new ConcurrentHashMap<>(); // synced
+    // guards the check-then-add of a full buffer; a lock rather than a monitor so virtual
+    // threads waiting for it unmount instead of pinning their carrier
+    private final ReentrantLock opLogLock = new ReentrantLock();
     private final Map < Class<?>, Long> lastRun = new ConcurrentHashMap<>();
     private Morphium morphium;
     private MorphiumWriter directWriter;
@@ -220,8 +224,8 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
             return;
         }
 
-        // The flush paths remove the type's entry via opLog.remove() WITHOUT holding the
-        // opLog monitor - re-reading opLog.get(type) between check and use therefore races
+        // The flush paths remove the type's entry via opLog.remove() WITHOUT holding
+        // opLogLock - re-reading opLog.get(type) between check and use therefore races
         // the flusher and NPEs under load (seen in BufferedWriterTest on the parallel-phase
         // runner). Take ONE atomic snapshot and work with that reference.
         List<WriteBufferEntry> buffer = opLog.computeIfAbsent(type, k -> Collections.synchronizedList(new ArrayList<>()));
@@ -262,14 +266,22 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
                     // Re-check size and add atomically to prevent TOCTOU race:
                     // without the lock, other threads could add entries between
                     // the size check above and the add below, exceeding the limit.
-                    synchronized (opLog) {
+                    opLogLock.lock();
+
+                    try {
                         opLog.computeIfAbsent(type, k -> Collections.synchronizedList(new ArrayList<>())).add(wb);
+                    } finally {
+                        opLogLock.unlock();
                     }
                     break;
 
                 case JUST_WARN:
-                    synchronized (opLog) {
+                    opLogLock.lock();
+
+                    try {
                         opLog.computeIfAbsent(type, k -> Collections.synchronizedList(new ArrayList<>())).add(wb);
+                    } finally {
+                        opLogLock.unlock();
                     }
                     break;
 
@@ -284,7 +296,9 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
 
                 case WRITE_OLD:
                     // could have been written in the meantime
-                    synchronized (opLog) {
+                    opLogLock.lock();
+
+                    try {
                         List<WriteBufferEntry> current = opLog.computeIfAbsent(type, k -> Collections.synchronizedList(new ArrayList<>()));
                         current.sort(Comparator.comparingLong(WriteBufferEntry::getTimestamp));
 
@@ -294,6 +308,8 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
                         }
 
                         current.add(wb);
+                    } finally {
+                        opLogLock.unlock();
                     }
 
                     break;
@@ -303,7 +319,9 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
                         logger.debug("Deleting oldest entry");
                     }
 
-                    synchronized (opLog) {
+                    opLogLock.lock();
+
+                    try {
                         List<WriteBufferEntry> current = opLog.computeIfAbsent(type, k -> Collections.synchronizedList(new ArrayList<>()));
                         current.sort(Comparator.comparingLong(WriteBufferEntry::getTimestamp));
 
@@ -312,6 +330,8 @@ public class BufferedMorphiumWriterImpl implements MorphiumWriter, ShutdownListe
                         }
 
                         current.add(wb);
+                    } finally {
+                        opLogLock.unlock();
                     }
 
                     return;
@@ -2,8 +2,10 @@ package de.caluga.morphium.writer;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,6 +36,7 @@ import de.caluga.morphium.ShutdownListener;
 import de.caluga.morphium.StatisticKeys;
 import de.caluga.morphium.Utils;
 import de.caluga.morphium.UtilsMap;
+import de.caluga.morphium.VersionConflictsException;
 import de.caluga.morphium.VersionMismatchException;
 import de.caluga.morphium.annotations.AdditionalData;
 import de.caluga.morphium.annotations.Capped;
@@ -47,6 +50,7 @@ import de.caluga.morphium.async.AsyncOperationCallback;
 import de.caluga.morphium.async.AsyncOperationType;
 import de.caluga.morphium.config.CollectionCheckSettings.CappedCheck;
 import de.caluga.morphium.config.CollectionCheckSettings.IndexCheck;
+import de.caluga.morphium.config.ThreadPoolSettings;
 import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.MorphiumDriverException;
 import de.caluga.morphium.driver.MorphiumId;
@@ -63,6 +67,7 @@ import de.caluga.morphium.driver.commands.ListCollectionsCommand;
 import de.caluga.morphium.driver.commands.StoreMongoCommand;
 import de.caluga.morphium.driver.commands.UpdateMongoCommand;
 import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.wire.SingleMongoConnection;
 import de.caluga.morphium.query.Query;
 
 /**
@@ -146,14 +151,23 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                 max = 2 * core;
             }
 
+            ThreadPoolSettings threadPoolSettings = m.getConfig().threadPoolSettings();
+
+            if (threadPoolSettings.isVirtualThreads()) {
+                // the queue is unbounded, threads beyond core are never started - let virtual
+                // threads grow to max, the connection pool limits the actual concurrency
+                core = max;
+            }
+
             executor = new ThreadPoolExecutor(
                             core,
                             max,
                             60L,
                             TimeUnit.SECONDS,
                             new LinkedBlockingQueue<>(),
-                            Thread.ofPlatform().name("writer-", 0).factory()
+                            threadPoolSettings.threadFactory("writer-")
             );
+            executor.allowCoreThreadTimeOut(threadPoolSettings.isVirtualThreads());
             // new ThreadPoolExecutor(core, max, 60L, TimeUnit.SECONDS, queue);
             // executor.setRejectedExecutionHandler((r, executor)-> {
             //     try {
@@ -336,6 +350,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                             for (Object o : entry.getValue()) {
                                 dbLst.add(morphium.getMapper().serialize(o));
                             }
+                            List<Map<String, Object>> written = dbLst;
                             // long dur = System.currentTimeMillis() - start;
                             // WriteAccessType.BULK_UPDATE);
                             // start = System.currentTimeMillis();
@@ -374,18 +389,9 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                                 }
                             }
                             // dur = System.currentTimeMillis() - start;
-                            List<Class> cleared = new ArrayList<>();
-
-                            for (Object o : entry.getValue()) {
-                                if (cleared.contains(o.getClass())) {
-                                    continue;
-                                }
-
-                                cleared.add(o.getClass());
-                                var cache = morphium.getCache();
-                                if (cache != null) {
-                                    cache.clearCacheIfNecessary(o.getClass());
-                                }
+                            var cache = morphium.getCache();
+                            if (cache != null) {
+                                cache.clearCacheIfNecessary(entry.getKey(), written);
                             }
                             if (morphium.getConfig() != null) {
                                 morphium.firePostStore(isNew);
@@ -507,6 +513,11 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
      * in-memory version fields have already been incremented. The caller is responsible for
      * handling this partial-commit state (e.g., by re-reading stale entities and retrying).</p>
      *
+     * <p>With {@code writerSettings.versionedUpdatePipelineDepth > 0} the versioned updates are
+     * pipelined on one connection instead: all of them are attempted, every non-conflicting entity
+     * is committed, and the conflicts are reported together as a {@link VersionConflictsException}
+     * (ordered by list index) before any non-versioned update or insert runs.</p>
+     *
      * @param lst      the entities to store
      * @param cln      optional collection name override (may be {@code null})
      * @param callback optional async callback (may be {@code null} for synchronous execution)
@@ -532,7 +543,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                         //
                         Map<Class, List<Map<String, Object>>> toUpdate = new HashMap<>();
                         Map<Class, List<Map<String, Object>>> newElementsToInsert = new HashMap<>();
-                        Map<Class, List<Object>> toVersionedUpdate = new HashMap<>();
+                        Map<Class, List<ClassifiedEntity>> toVersionedUpdate = new HashMap<>();
 
                         if (morphium.isAutoValuesEnabledForThread()) {
                             try {
@@ -549,14 +560,17 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                                     .add(morphium.getMapper().serialize(ce.entity()));
                             } else if (ce.isVersioned()) {
                                 toVersionedUpdate.computeIfAbsent(ce.entity().getClass(), k -> new ArrayList<>())
-                                    .add(ce.entity());
+                                    .add(ce);
                             } else {
                                 toUpdate.computeIfAbsent(ce.entity().getClass(), k -> new ArrayList<>())
                                     .add(morphium.getMapper().serialize(ce.entity()));
                             }
                         }
                         // Process versioned updates with optimistic locking — BATCHED
-                        for (Map.Entry<Class, List<Object>> es : toVersionedUpdate.entrySet()) {
+                        int pipelineDepth = morphium.getConfig().writerSettings().getVersionedUpdatePipelineDepth();
+                        List<VersionMismatchException> conflicts = new ArrayList<>();
+
+                        for (Map.Entry<Class, List<ClassifiedEntity>> es : toVersionedUpdate.entrySet()) {
                             Class c = es.getKey();
                             List<String> vFields = morphium.getARHelper().getFields(c, Version.class);
                             if (vFields.isEmpty()) {
@@ -573,9 +587,27 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                             String coll = cln != null ? cln : morphium.getMapper().getCollectionName(c);
                             checkIndexAndCaps(c, coll, callback);
 
-                            List<Object> entities = es.getValue();
+                            List<ClassifiedEntity> entities = es.getValue();
+
+                            if (pipelineDepth > 0) {
+                                PipelinedVersionedResult res = pipelinedVersionedUpdate(entities, coll, wc, javaVersionField, mongoVersionField, pipelineDepth);
+                                res.stored().forEach(ce -> morphium.firePostStore(ce.entity(), false));
+                                var cache = morphium.getCache();
+
+                                if (cache != null && !res.written().isEmpty()) {
+                                    cache.clearCacheIfNecessary(c, res.written());
+                                }
+
+                                if (res.failure() != null) {
+                                    throw res.failure();
+                                }
+
+                                conflicts.addAll(res.conflicts());
+                                continue;
+                            }
 
                             // Execute in chunks of cursorBatchSize.
+                            // (writerSettings.versionedUpdatePipelineDepth > 0 pipelines them instead, see above)
                             // Each entity's conditional update is issued individually but all
                             // share a single connection per chunk to reduce pool overhead.
                             // True batching (N updates in one wire message) is not possible because
@@ -585,6 +617,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                             // does not report it, and the aggregate 'n' cannot identify which
                             // specific entity had a version conflict).
                             int batchSize = Math.max(1, morphium.getConfig().getCursorBatchSize());
+                            List<Map<String, Object>> written = new ArrayList<>();
                             for (int offset = 0; offset < entities.size(); ) {
                                 int end = Math.min(offset + batchSize, entities.size());
 
@@ -592,7 +625,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                                 try {
                                     con = morphium.getDriver().getPrimaryConnection(wc);
                                     for (int i = offset; i < end; i++) {
-                                        Object entity = entities.get(i);
+                                        Object entity = entities.get(i).entity();
                                         Object entityId = morphium.getId(entity);
                                         Object rawVersion = morphium.getARHelper().getValue(entity, javaVersionField);
                                         long currentVersion = rawVersion instanceof Number n ? n.longValue() : 0L;
@@ -630,6 +663,9 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                                             throw new VersionMismatchException(entityId, currentVersion);
                                         }
                                         morphium.getARHelper().setValue(entity, currentVersion + 1L, javaVersionField);
+                                        serialized.put("_id", entityId);
+                                        serialized.put(mongoVersionField, currentVersion + 1L);
+                                        written.add(serialized);
                                         morphium.firePostStore(entity, false);
                                     }
                                 } finally {
@@ -642,9 +678,15 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
 
                             var cache = morphium.getCache();
                             if (cache != null) {
-                                cache.clearCacheIfNecessary(c);
+                                cache.clearCacheIfNecessary(c, written);
                             }
                         }
+                        if (!conflicts.isEmpty()) {
+                            // pipelined: every other versioned entity is stored, report all conflicts
+                            conflicts.sort(Comparator.comparingInt(VersionMismatchException::getListIndex));
+                            throw new VersionConflictsException(conflicts);
+                        }
+
                         for (Map.Entry<Class, List<Map<String, Object>>> es : toUpdate.entrySet()) {
                             Class c = es.getKey();
                             // bulk insert... check if something already exists
@@ -681,7 +723,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
 
                                 var cache = morphium.getCache();
                                 if (cache != null) {
-                                    cache.clearCacheIfNecessary(c);
+                                    cache.clearCacheIfNecessary(c, es.getValue());
                                 }
                                 long dur = System.currentTimeMillis() - start;
                                 // bulk insert
@@ -749,7 +791,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                             // coll, es.getValue(), wc);
                             var cache = morphium.getCache();
                             if (cache != null) {
-                                cache.clearCacheIfNecessary(c);
+                                cache.clearCacheIfNecessary(c, es.getValue());
                             }
                             long dur = System.currentTimeMillis() - start;
                             // bulk insert
@@ -855,6 +897,114 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
         return result;
     }
 
+    /** A conditional update sent on the pipeline whose reply has not been read yet. */
+    private record PendingVersionedUpdate(ClassifiedEntity entity, int requestId, long expectedVersion,
+                                          Map<String, Object> serialized) {
+    }
+
+    /**
+     * Outcome of {@link #pipelinedVersionedUpdate}: the stored documents (with their new version),
+     * the entities that were stored, the conflicts, and - if the pipeline broke off - the
+     * entities whose outcome is unknown together with the cause.
+     */
+    private record PipelinedVersionedResult(List<Map<String, Object>> written, List<ClassifiedEntity> stored,
+                                            List<VersionMismatchException> conflicts,
+                                            List<ClassifiedEntity> unknown, Exception failure) {
+    }
+
+    /**
+     * Optimistic-locking updates for the versioned entities of one class, pipelined: the
+     * conditional updates are sent back-to-back on one connection, at most {@code depth} of them
+     * waiting for their reply, and the replies are read in order - each still a single-statement
+     * {@code update}, so its {@code n} tells exactly whether that entity matched. The round trips
+     * overlap instead of adding up. Entities that matched get their version incremented.
+     *
+     * <p>A driver error ends the pipeline: the entities sent but not yet answered and those not
+     * sent are reported as unknown. A pooled connection then still has unread replies - the next
+     * borrower would read them - and is closed instead of being returned to the pool. A
+     * multiplexed connection is shared and stays open, its unread replies are dropped by age.
+     *
+     * <p>Unlike {@link UpdateMongoCommand#execute()} in the sequential path, the pipeline does
+     * not retry on "not primary" or network errors and never swaps the connection: such an error
+     * ends it like any other, and the failure is thrown after the entities stored so far were
+     * processed.
+     */
+    private PipelinedVersionedResult pipelinedVersionedUpdate(List<ClassifiedEntity> entities, String coll, WriteConcern wc,
+            String javaVersionField, String mongoVersionField, int depth) {
+        List<Map<String, Object>> written = new ArrayList<>();
+        List<ClassifiedEntity> stored = new ArrayList<>();
+        List<VersionMismatchException> conflicts = new ArrayList<>();
+        ArrayDeque<PendingVersionedUpdate> inFlight = new ArrayDeque<>();
+        int sent = 0;
+        MongoConnection con = null;
+
+        try {
+            con = morphium.getDriver().getPrimaryConnection(wc);
+
+            while (sent < entities.size() || !inFlight.isEmpty()) {
+                if (sent < entities.size() && inFlight.size() < depth) {
+                    ClassifiedEntity ce = entities.get(sent);
+                    Object rawVersion = morphium.getARHelper().getValue(ce.entity(), javaVersionField);
+                    long currentVersion = rawVersion instanceof Number n ? n.longValue() : 0L;
+                    Object entityId = morphium.getId(ce.entity());
+                    Map<String, Object> serialized = new LinkedHashMap<>(morphium.getMapper().serialize(ce.entity()));
+                    serialized.remove("_id");
+                    serialized.remove(mongoVersionField);
+                    UpdateMongoCommand upd = new UpdateMongoCommand(con)
+                        .setDb(morphium.getConfig().connectionSettings().getDatabase())
+                        .setColl(coll);
+
+                    if (wc != null) {
+                        upd.setWriteConcern(wc.asMap());
+                    }
+
+                    // $and for the same reason as in the sequential path (InMemoryDriver)
+                    upd.addUpdate(Doc.of("$and", List.of(Doc.of("_id", entityId), Doc.of(mongoVersionField, currentVersion))),
+                                  Doc.of("$set", serialized, "$inc", Doc.of(mongoVersionField, 1L)),
+                                  null, false, false, null, null, null);
+                    inFlight.add(new PendingVersionedUpdate(ce, con.sendCommand(upd), currentVersion, serialized));
+                    sent++;
+                    continue;
+                }
+
+                PendingVersionedUpdate p = inFlight.poll();
+                Map<String, Object> result = con.readSingleAnswer(p.requestId());
+
+                if (result == null) {
+                    inFlight.addFirst(p);
+                    throw new MorphiumDriverException("No reply to pipelined versioned update of entity id="
+                                                      + morphium.getId(p.entity().entity()));
+                }
+
+                Object entityId = morphium.getId(p.entity().entity());
+
+                if (!(result.get("n") instanceof Number n) || n.intValue() == 0) {
+                    conflicts.add(new VersionMismatchException(entityId, p.expectedVersion(), p.entity().originalIndex()));
+                    continue;
+                }
+
+                morphium.getARHelper().setValue(p.entity().entity(), p.expectedVersion() + 1L, javaVersionField);
+                p.serialized().put("_id", entityId);
+                p.serialized().put(mongoVersionField, p.expectedVersion() + 1L);
+                written.add(p.serialized());
+                stored.add(p.entity());
+            }
+        } catch (Exception e) {
+            List<ClassifiedEntity> unknown = new ArrayList<>();
+            inFlight.forEach(p -> unknown.add(p.entity()));
+            unknown.addAll(entities.subList(sent, entities.size()));
+            return new PipelinedVersionedResult(written, stored, conflicts, unknown, e);
+        } finally {
+            if (con instanceof SingleMongoConnection smc && !smc.isMultiplexed() && !inFlight.isEmpty()) {
+                smc.close();
+            } else if (con != null) {
+                morphium.getDriver().releaseConnection(con);
+            }
+        }
+
+        return new PipelinedVersionedResult(written, stored, conflicts, List.of(), null);
+    }
+
     @Override
     @SuppressWarnings({"unchecked", "rawtypes"})
     public <T> List<FailedStore<T>> storeList(List<T> lst, String cln, boolean continueOnError) {
@@ -892,6 +1042,9 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
         }
 
         // Process versioned updates with optimistic locking
+        int pipelineDepth = morphium.getConfig().writerSettings().getVersionedUpdatePipelineDepth();
+        List<VersionMismatchException> conflicts = new ArrayList<>();
+
         for (Map.Entry<Class, List<ClassifiedEntity>> es : toVersionedUpdate.entrySet()) {
             Class c = es.getKey();
             List<String> vFields = morphium.getARHelper().getFields(c, Version.class);
@@ -909,6 +1062,34 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
             String coll = cln != null ? cln : morphium.getMapper().getCollectionName(c);
             checkIndexAndCaps(c, coll, null);
 
+            if (pipelineDepth > 0) {
+                PipelinedVersionedResult res = pipelinedVersionedUpdate(es.getValue(), coll, wc, javaVersionField, mongoVersionField, pipelineDepth);
+                var cache = morphium.getCache();
+
+                if (cache != null && !res.written().isEmpty()) {
+                    cache.clearCacheIfNecessary(c, res.written());
+                }
+
+                if (res.failure() != null && !continueOnError) {
+                    if (res.failure() instanceof RuntimeException re) throw re;
+                    throw new RuntimeException(res.failure());
+                }
+
+                for (VersionMismatchException ex : res.conflicts()) {
+                    Object entity = lst.get(ex.getListIndex());
+                    failures.add(new FailedStore<>(ex.getListIndex(), (T) entity, ex));
+                    failedEntities.add(entity);
+                }
+
+                for (ClassifiedEntity ce : res.unknown()) {
+                    failures.add(new FailedStore<>(ce.originalIndex(), (T) ce.entity(), res.failure()));
+                    failedEntities.add(ce.entity());
+                }
+
+                conflicts.addAll(res.conflicts());
+                continue;
+            }
+
             for (ClassifiedEntity ce : es.getValue()) {
                 Object entity = ce.entity();
                 int listIndex = ce.originalIndex();
@@ -953,10 +1134,12 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                         continue;
                     }
                     morphium.getARHelper().setValue(entity, currentVersion + 1L, javaVersionField);
+                    serialized.put("_id", entityId);
+                    serialized.put(mongoVersionField, currentVersion + 1L);
 
                     var cache = morphium.getCache();
                     if (cache != null) {
-                        cache.clearCacheIfNecessary(c);
+                        cache.clearCacheIfNecessary(c, List.of(serialized));
                     }
                 } catch (Exception e) {
                     if (!continueOnError) {
@@ -975,6 +1158,11 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
             }
         }
 
+        if (!continueOnError && !conflicts.isEmpty()) {
+            conflicts.sort(Comparator.comparingInt(VersionMismatchException::getListIndex));
+            throw new VersionConflictsException(conflicts);
+        }
+
         // Process non-versioned updates (bulk store)
         for (Map.Entry<Class, List<Map<String, Object>>> es : toUpdate.entrySet()) {
             Class c = es.getKey();
@@ -1002,7 +1190,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                 }
                 var cache = morphium.getCache();
                 if (cache != null) {
-                    cache.clearCacheIfNecessary(c);
+                    cache.clearCacheIfNecessary(c, es.getValue());
                 }
             } finally {
                 if (settings != null) {
@@ -1044,7 +1232,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
             }
             var cache = morphium.getCache();
             if (cache != null) {
-                cache.clearCacheIfNecessary(c);
+                cache.clearCacheIfNecessary(c, es.getValue());
             }
         }
 
@@ -1804,7 +1992,7 @@ public class MorphiumWriterImpl implements MorphiumWriter, ShutdownListener {
                     settings = null;
                     con = null;
                     // long dur = System.currentTimeMillis() - start;
-                    morphium.clearCachefor(o.getClass());
+                    morphium.getCache().removeEntryFromCache(o.getClass(), id);
                     morphium.inc(StatisticKeys.WRITES);
                     morphium.firePostRemoveEvent(o);
 
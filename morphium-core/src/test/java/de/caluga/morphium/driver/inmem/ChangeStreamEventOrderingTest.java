@@ -4,9 +4,12 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.DriverTailableIterationCallback;
@@ -23,6 +26,9 @@ import static org.assertj.core.api.Assertions.assertThat;
  * back-to-back events could be delivered swapped (first seen as a spurious
  * ReplaceChangeStreamEventTest failure on the loaded test runner: the $set "update" and the
  * subsequent "replace" arrived inverted).
+ *
+ * <p>Delivery runs on a pool, ordered per subscription only, so a stalled consumer must not hold
+ * up the streams of other namespaces either.
  */
 @Tag("core")
 public class ChangeStreamEventOrderingTest {
@@ -99,4 +105,174 @@ public class ChangeStreamEventOrderingTest {
             drv.close();
         }
     }
+
+    /**
+     * Writers to different collections fan out in parallel - a database wide stream still gets
+     * the events of every collection in write order.
+     */
+    @Test
+    public void concurrentWritersKeepOrderPerNamespace() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        int collections = 4;
+        int expected = collections * EXPECTED_EVENTS;
+        List<Map<String, Object>> events = new CopyOnWriteArrayList<>();
+
+        try {
+            WatchCommand w = new WatchCommand(drv.getPrimaryConnection(null)).setDb(DB)
+                .setCb(new DriverTailableIterationCallback() {
+                    @Override
+                    public void incomingData(Map<String, Object> data, long dur) {
+                        events.add(data);
+                    }
+                    @Override
+                    public boolean isContinued() {
+                        return events.size() < expected;
+                    }
+                });
+            Thread watcher = new Thread(() -> {
+                try {
+                    drv.watch(w);
+                } catch (Exception ignored) {
+                }
+            });
+            watcher.setDaemon(true);
+            watcher.start();
+            Thread.sleep(300);
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> writers = new ArrayList<>();
+
+            for (int c = 0; c < collections; c++) {
+                String coll = "par" + c;
+                Thread t = new Thread(() -> {
+                    try {
+                        start.await();
+                        drv.store(DB, coll, new ArrayList<>(List.of(Doc.of("_id", 1, "seq", 0))), null);
+
+                        for (int i = 1; i <= WRITES; i++) {
+                            drv.update(DB, coll, Doc.of("_id", 1), null, Doc.of("$set", Doc.of("seq", i)), false, false, null, null);
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                t.start();
+                writers.add(t);
+            }
+
+            start.countDown();
+
+            for (Thread t : writers) {
+                t.join(15000);
+            }
+
+            long deadline = System.currentTimeMillis() + 15000;
+            while (events.size() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            watcher.join(5000);
+
+            assertThat(events).as("every write must be delivered").hasSize(expected);
+            Map<Object, List<Integer>> received = new HashMap<>();
+
+            for (Map<String, Object> evt : events) {
+                @SuppressWarnings("unchecked")
+                Object coll = ((Map<String, Object>) evt.get("ns")).get("coll");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> doc = (Map<String, Object>) evt.get("fullDocument");
+                int seq = doc != null ? ((Number) doc.get("seq")).intValue()
+                          : ((Number) ((Map<?, ?>) ((Map<?, ?>) evt.get("updateDescription")).get("updatedFields")).get("seq")).intValue();
+                received.computeIfAbsent(coll, k -> new ArrayList<>()).add(seq);
+            }
+
+            List<Integer> inOrder = new ArrayList<>();
+            for (int i = 0; i <= WRITES; i++) {
+                inOrder.add(i);
+            }
+
+            assertThat(received).hasSize(collections);
+            received.forEach((coll, seqs) -> assertThat(seqs).as("events of %s", coll).containsExactlyElementsOf(inOrder));
+        } finally {
+            drv.close();
+        }
+    }
+
+    @Test
+    public void slowSubscriberDoesNotDelayOtherStreams() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowGotEvent = new CountDownLatch(1);
+        List<Map<String, Object>> fastEvents = new CopyOnWriteArrayList<>();
+        List<Thread> watchers = new ArrayList<>();
+
+        try {
+            var con = drv.getPrimaryConnection(null);
+            WatchCommand slow = new WatchCommand(con).setDb(DB).setColl("slow").setMaxTimeMS(100)
+                .setCb(new DriverTailableIterationCallback() {
+                    @Override
+                    public void incomingData(Map<String, Object> data, long dur) {
+                        slowGotEvent.countDown();
+
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    @Override
+                    public boolean isContinued() {
+                        return release.getCount() > 0;
+                    }
+                });
+            WatchCommand fast = new WatchCommand(drv.getPrimaryConnection(null)).setDb(DB).setColl("fast").setMaxTimeMS(100)
+                .setCb(new DriverTailableIterationCallback() {
+                    @Override
+                    public void incomingData(Map<String, Object> data, long dur) {
+                        fastEvents.add(data);
+                    }
+                    @Override
+                    public boolean isContinued() {
+                        return fastEvents.size() < 50;
+                    }
+                });
+
+            for (WatchCommand w : List.of(slow, fast)) {
+                Thread t = new Thread(() -> {
+                    try {
+                        drv.watch(w);
+                    } catch (Exception ignored) {
+                    }
+                });
+                t.setDaemon(true);
+                t.start();
+                watchers.add(t);
+            }
+
+            Thread.sleep(300);
+            drv.store(DB, "slow", new ArrayList<>(List.of(Doc.of("_id", 1))), null);
+            assertThat(slowGotEvent.await(5, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 0; i < 50; i++) {
+                drv.store(DB, "fast", new ArrayList<>(List.of(Doc.of("_id", i))), null);
+            }
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fastEvents.size() < 50 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertThat(fastEvents).as("the fast stream must not wait for the blocked one").hasSize(50);
+            assertThat(release.getCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+
+            for (Thread t : watchers) {
+                t.join(5000);
+            }
+
+            drv.close();
+        }
+    }
 }
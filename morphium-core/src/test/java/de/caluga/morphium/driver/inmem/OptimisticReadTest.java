@@ -0,0 +1,141 @@
+package de.caluga.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Optimistic {@code _id} lookups: served without the collection's read lock while no writer is
+ * active, never returning a document a concurrent writer was halfway through changing.
+ */
+@Tag("inmemory")
+public class OptimisticReadTest {
+    private static final String DB = "optreaddb";
+    private static final String COLL = "docs";
+
+    private static long stat(InMemoryDriver drv, String name) {
+        return ((Number) drv.getStats().get(name)).longValue();
+    }
+
+    @Test
+    public void stampIsInvalidatedByTheOutermostWriter() {
+        CollectionLock lock = new CollectionLock();
+        long stamp = lock.tryOptimisticRead();
+        assertNotEquals(0, stamp);
+        assertTrue(lock.validate(stamp));
+
+        lock.readLock().lock();
+        lock.readLock().unlock();
+        assertTrue(lock.validate(stamp), "readers do not invalidate a stamp");
+
+        lock.writeLock().lock();
+        assertEquals(0, lock.tryOptimisticRead(), "no stamp while a writer holds the lock");
+        lock.writeLock().lock();
+        lock.writeLock().unlock();
+        assertEquals(0, lock.tryOptimisticRead(), "still held by the outer lock");
+        lock.writeLock().unlock();
+
+        assertFalse(lock.validate(stamp));
+        long next = lock.tryOptimisticRead();
+        assertNotEquals(0, next);
+        assertTrue(lock.validate(next));
+    }
+
+    @Test
+    public void idLookupsRunOptimistically() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+
+        try {
+            drv.store(DB, COLL, List.of(Doc.of("_id", 1, "v", "one"), Doc.of("_id", 2, "v", "two")), null);
+            // the first read builds the index store, under the lock
+            drv.find(DB, COLL, Doc.of("_id", 2), null, null, 0, 0);
+            long before = stat(drv, "optimisticReads");
+            List<Map<String, Object>> found = drv.find(DB, COLL, Doc.of("_id", 1), null, null, 0, 0);
+            assertEquals(1, found.size());
+            assertEquals("one", found.get(0).get("v"));
+            assertEquals(1, drv.count(DB, COLL, Doc.of("_id", 2, "v", "two"), null, null));
+            assertEquals(0, drv.find(DB, COLL, Doc.of("_id", 2, "v", "other"), null, null, 0, 0).size());
+            assertEquals(before + 3, stat(drv, "optimisticReads"));
+
+            // a copy, not the stored document
+            found.get(0).put("v", "changed");
+            Map<String, Object> again = drv.find(DB, COLL, Doc.of("_id", 1), null, null, 0, 0).get(0);
+            assertEquals("one", again.get("v"));
+            assertNotSame(found.get(0), again);
+
+            // other shapes and transactions take the read lock as before
+            long optimistic = stat(drv, "optimisticReads");
+            drv.find(DB, COLL, Doc.of("v", "one"), null, null, 0, 0);
+            drv.find(DB, COLL, Doc.of("_id", 1), Doc.of("v", 1), null, 0, 0);
+            drv.startTransaction(false);
+            drv.find(DB, COLL, Doc.of("_id", 1), null, null, 0, 0);
+            drv.abortTransaction();
+            assertEquals(optimistic, stat(drv, "optimisticReads"));
+
+            drv.setOptimisticReads(false);
+            drv.find(DB, COLL, Doc.of("_id", 1), null, null, 0, 0);
+            assertEquals(optimistic, stat(drv, "optimisticReads"));
+        } finally {
+            drv.close();
+        }
+    }
+
+    @Test
+    public void readsRacingAWriterNeverSeeAHalfDoneUpdate() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            drv.store(DB, COLL, List.of(Doc.of("_id", "hot", "a", 0, "b", 0)), null);
+            Thread writer = Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 1; !stop.get(); i++) {
+                        drv.update(DB, COLL, Doc.of("_id", "hot"), null, Doc.of("$set", Doc.of("a", i, "b", i)), false, false, null, null);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            Thread[] readers = new Thread[3];
+
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = Thread.ofPlatform().start(() -> {
+                    try {
+                        for (int i = 0; i < 20_000; i++) {
+                            Map<String, Object> doc = drv.find(DB, COLL, Doc.of("_id", "hot"), null, null, 0, 0).get(0);
+                            assertEquals(doc.get("a"), doc.get("b"), "torn read");
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                });
+            }
+
+            for (Thread t : readers) {
+                t.join();
+            }
+
+            stop.set(true);
+            writer.join();
+            assertNull(failure.get(), () -> String.valueOf(failure.get()));
+            assertTrue(stat(drv, "optimisticReads") > 0);
+        } finally {
+            drv.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package de.caluga.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-document updates under per-document write locks: writers of different documents of one
+ * collection run concurrently, readers and the collection's write lock still exclude them.
+ */
+@Tag("inmemory")
+public class StripedWriteTest {
+    private static final String DB = "stripeddb";
+    private static final String COLL = "docs";
+
+    private static long stat(InMemoryDriver drv, String name) {
+        return ((Number) drv.getStats().get(name)).longValue();
+    }
+
+    @Test
+    public void documentWritersExcludeReadersButNotEachOther() throws Exception {
+        CollectionLock lock = new CollectionLock();
+        assertSame(lock.documentWriteLock(0), lock.documentWriteLock(CollectionLock.STRIPES));
+        long stamp = lock.tryOptimisticRead();
+
+        Lock first = lock.documentWriteLock(0);
+        first.lock();
+
+        try {
+            assertFalse(lock.validate(stamp));
+            assertEquals(0, lock.tryOptimisticRead(), "no stamp while a document writer is active");
+            assertThrows(IllegalStateException.class, () -> lock.readLock().lock());
+
+            CompletableFuture<Boolean> other = CompletableFuture.supplyAsync(() -> {
+                Lock second = lock.documentWriteLock(1);
+                second.lock();
+                second.unlock();
+                return true;
+            });
+            assertTrue(other.get(5, TimeUnit.SECONDS), "a second document writer runs alongside");
+            assertFalse(CompletableFuture.supplyAsync(() -> lock.readLock().tryLock()).get(5, TimeUnit.SECONDS));
+            assertFalse(CompletableFuture.supplyAsync(() -> lock.writeLock().tryLock()).get(5, TimeUnit.SECONDS));
+        } finally {
+            first.unlock();
+        }
+
+        assertTrue(CompletableFuture.supplyAsync(() -> {
+            boolean locked = lock.readLock().tryLock();
+
+            if (locked) {
+                lock.readLock().unlock();
+            }
+
+            return locked;
+        }).get(5, TimeUnit.SECONDS));
+        assertTrue(lock.validate(lock.tryOptimisticRead()));
+    }
+
+    @Test
+    public void concurrentUpdatesOfDifferentDocuments() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        int threads = 8;
+        int updates = 2_000;
+
+        try {
+            List<Map<String, Object>> docs = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                docs.add(Doc.of("_id", "doc" + i, "name", "n" + i, "counter", 0));
+            }
+
+            docs.add(Doc.of("_id", "shared", "name", "shared", "counter", 0));
+            drv.store(DB, COLL, docs, null);
+            drv.createIndex(DB, COLL, Doc.of("name", 1), Doc.of());
+            long scans = stat(drv, "fullScans");
+            long striped = stat(drv, "stripedWrites");
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Void>> writers = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                String id = "doc" + t;
+                writers.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+
+                        for (int i = 0; i < updates; i++) {
+                            drv.update(DB, COLL, Doc.of("_id", id), null, Doc.of("$inc", Doc.of("counter", 1)), false, false, null, null);
+                            drv.update(DB, COLL, Doc.of("_id", "shared"), null, Doc.of("$inc", Doc.of("counter", 1)), false, false, null, null);
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }, Thread::startVirtualThread));
+            }
+
+            start.countDown();
+            CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+            for (int t = 0; t < threads; t++) {
+                assertEquals(updates, drv.find(DB, COLL, Doc.of("_id", "doc" + t), null, null, 0, 0).get(0).get("counter"));
+            }
+
+            assertEquals(threads * updates, drv.find(DB, COLL, Doc.of("_id", "shared"), null, null, 0, 0).get(0).get("counter"));
+            // not atomic, concurrent document writers may lose an increment
+            assertTrue(stat(drv, "stripedWrites") > striped);
+            assertEquals(scans, stat(drv, "fullScans"));
+            assertEquals(1, drv.find(DB, COLL, Doc.of("name", "n3"), null, null, 0, 0).size(), "index untouched");
+        } finally {
+            drv.close();
+        }
+    }
+
+    @Test
+    public void everythingElseTakesTheWriteLock() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+
+        try {
+            drv.store(DB, COLL, List.of(Doc.of("_id", 1, "name", "one", "v", 1), Doc.of("_id", 2, "name", "two", "v", 2)), null);
+            drv.createIndex(DB, COLL, Doc.of("name", 1), Doc.of());
+            long striped = stat(drv, "stripedWrites");
+
+            Map<String, Object> res = drv.update(DB, COLL, Doc.of("_id", 1, "v", 5), null, Doc.of("$set", Doc.of("v", 10)), false, false, null, null);
+            assertEquals(0, res.get("n"), "the whole query is matched, not just the _id");
+            res = drv.update(DB, COLL, Doc.of("_id", 1, "v", 1), null, Doc.of("$set", Doc.of("v", 10)), false, false, null, null);
+            assertEquals(1, res.get("n"));
+            assertEquals(1, res.get("nModified"));
+            assertEquals(striped + 1, stat(drv, "stripedWrites"));
+
+            // indexed field, replacement, multi, upsert, transaction
+            drv.update(DB, COLL, Doc.of("_id", 1), null, Doc.of("$set", Doc.of("name", "uno")), false, false, null, null);
+            drv.update(DB, COLL, Doc.of("_id", 2), null, Doc.of("name", "two", "v", 20), false, false, null, null);
+            drv.update(DB, COLL, Doc.of("_id", 2), null, Doc.of("$set", Doc.of("v", 21)), true, false, null, null);
+            drv.update(DB, COLL, Doc.of("_id", 3), null, Doc.of("$set", Doc.of("v", 3)), false, true, null, null);
+            drv.startTransaction(false);
+            drv.update(DB, COLL, Doc.of("_id", 1), null, Doc.of("$set", Doc.of("v", 11)), false, false, null, null);
+            drv.abortTransaction();
+            assertEquals(striped + 1, stat(drv, "stripedWrites"));
+
+            assertEquals(1, drv.find(DB, COLL, Doc.of("name", "uno"), null, null, 0, 0).size());
+            assertEquals(21, drv.find(DB, COLL, Doc.of("_id", 2), null, null, 0, 0).get(0).get("v"));
+            assertEquals(3, drv.find(DB, COLL, Doc.of("_id", 3), null, null, 0, 0).get(0).get("v"));
+            assertEquals(10, drv.find(DB, COLL, Doc.of("_id", 1), null, null, 0, 0).get(0).get("v"));
+
+            drv.setStripedWrites(false);
+            drv.update(DB, COLL, Doc.of("_id", 1), null, Doc.of("$set", Doc.of("v", 12)), false, false, null, null);
+            assertEquals(striped + 1, stat(drv, "stripedWrites"));
+        } finally {
+            drv.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.caluga.morphium.driver.wireprotocol;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OpMsg.encode: the gathering send path. The pooled segments, written back to back, must be
+ * byte-identical to the classic message layout - header, kind-0 body, kind-1 sequences.
+ */
+@Tag("driver")
+public class OpMsgEncodeTest {
+
+    private static OpMsg message() {
+        OpMsg msg = new OpMsg();
+        msg.setMessageId(4711);
+        msg.setResponseTo(17);
+        msg.setFirstDoc(Doc.of("insert", "kunden", "$db", "test", "ordered", true));
+
+        for (int i = 0; i < 50; i++) {
+            msg.addDoc("documents", Doc.of("_id", i, "name", "kunde-" + i, "tags", java.util.List.of("a", "b")));
+        }
+
+        return msg;
+    }
+
+    /** The message as laid out by hand from independently encoded documents. */
+    private static byte[] reference(OpMsg msg) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        msg.writeInt(msg.getFlags(), body);
+        body.write(0);
+        body.write(BsonEncoder.encodeDocument(msg.getFirstDoc()));
+
+        for (var e : msg.getDocuments().entrySet()) {
+            ByteArrayOutputStream section = new ByteArrayOutputStream();
+            msg.writeString(e.getKey(), section);
+
+            for (var d : e.getValue()) {
+                section.write(BsonEncoder.encodeDocument(d));
+            }
+
+            body.write(1);
+            msg.writeInt(section.size() + 4, body);
+            body.write(section.toByteArray());
+        }
+
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        msg.writeInt(body.size() + 16, all);
+        msg.writeInt(msg.getMessageId(), all);
+        msg.writeInt(msg.getResponseTo(), all);
+        msg.writeInt(msg.getOpCode(), all);
+        all.write(body.toByteArray());
+        return all.toByteArray();
+    }
+
+    private static byte[] gather(ByteBuffer[] segments) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (ByteBuffer b : segments) {
+            byte[] chunk = new byte[b.remaining()];
+            b.duplicate().get(chunk);
+            out.writeBytes(chunk);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Test
+    public void segmentsMatchClassicLayout() throws Exception {
+        OpMsg msg = message();
+        byte[] expected = reference(msg);
+
+        for (boolean direct : new boolean[] {false, true}) {
+            BsonBufferPool pool = new BsonBufferPool(direct, 1024 * 1024);
+            ByteBuffer[] segments = msg.encode(pool);
+            assertEquals(2, segments.length, "header+body and one document sequence");
+            assertEquals(direct, segments[0].isDirect());
+            assertArrayEquals(expected, gather(segments));
+            OpMsg.release(segments, pool);
+            assertTrue(pool.getRetainedBytes() > 0, "buffers must go back to the pool");
+        }
+
+        assertArrayEquals(expected, msg.bytes());
+    }
+
+    @Test
+    public void encodedMessageParsesBack() throws Exception {
+        OpMsg msg = message();
+        msg.setFlags(OpMsg.CHECKSUM_PRESENT);
+        BsonBufferPool pool = new BsonBufferPool(false, 1024 * 1024);
+        ByteBuffer[] segments = msg.encode(pool);
+        assertEquals(3, segments.length, "checksum gets its own segment");
+        byte[] wire = gather(segments);
+        OpMsg.release(segments, pool);
+
+        OpMsg in = new OpMsg();
+        in.setSize(wire.length);
+        in.parsePayload(wire, 16);
+        assertEquals("kunden", in.getFirstDoc().get("insert"));
+        assertEquals(50, in.getDocuments().get("documents").size());
+        assertEquals("kunde-49", in.getDocuments().get("documents").get(49).get("name"));
+    }
+}
@@ -0,0 +1,147 @@
+package de.caluga.test.mongo.suite.inmem;
+
+import de.caluga.morphium.aggregation.Aggregator;
+import de.caluga.morphium.query.Query;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("inmemory")
+public class InMemAsyncApiTest extends MorphiumInMemTestBase {
+
+    @Test
+    public void futuresCompleteWithTheSyncResult() throws Exception {
+        createUncachedObjects(20);
+        UncachedObject uc = new UncachedObject("async", 42);
+        assertSame(uc, morphium.storeAsync(uc).get(5, TimeUnit.SECONDS));
+        assertNotNull(uc.getMorphiumId());
+
+        Query<UncachedObject> q = morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).lte(10);
+        assertEquals(10, q.asListAsync().get(5, TimeUnit.SECONDS).size());
+        assertEquals(10, q.countAllAsync().get(5, TimeUnit.SECONDS));
+        assertEquals("async", morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).eq(42)
+                     .getAsync().get(5, TimeUnit.SECONDS).getStrValue());
+
+        // the query was copied, changing it afterwards does not affect a running future
+        var pending = q.asListAsync();
+        q.f(UncachedObject.Fields.counter).eq(1);
+        assertEquals(10, pending.get(5, TimeUnit.SECONDS).size());
+
+        Aggregator<UncachedObject, Map> agg = morphium.createAggregator(UncachedObject.class, Map.class);
+        agg.match(morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).gt(15));
+        agg.count("cnt");
+        List<Map<String, Object>> res = agg.aggregateMapAsync().get(5, TimeUnit.SECONDS);
+        assertEquals(1, res.size());
+        assertEquals(6, ((Number) res.get(0).get("cnt")).intValue());
+    }
+
+    @Test
+    public void failuresCompleteTheFutureExceptionally() {
+        Query<UncachedObject> q = morphium.createQueryFor(UncachedObject.class);
+        q.setRawQuery(Map.of("$unknownOperator", 1));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> q.asListAsync().get(5, TimeUnit.SECONDS));
+        assertNotNull(ex.getCause());
+    }
+
+    @Test
+    public void publisherEmitsOnlyWhatWasRequested() throws Exception {
+        createUncachedObjects(50);
+        Query<UncachedObject> q = morphium.createQueryFor(UncachedObject.class).sort(UncachedObject.Fields.counter);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        CountDownLatch firstBatch = new CountDownLatch(5);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        q.asPublisher(10).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+                s.request(5);
+            }
+
+            @Override
+            public void onNext(UncachedObject item) {
+                received.add(item.getCounter());
+                firstBatch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error.set(t);
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(List.of(1, 2, 3, 4, 5), received, "nothing beyond the requested 5");
+
+        subscription.get().request(Long.MAX_VALUE);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertEquals(50, received.size());
+        assertEquals(50, received.get(49));
+    }
+
+    @Test
+    public void publisherStopsOnCancel() throws Exception {
+        createUncachedObjects(50);
+        List<UncachedObject> received = new CopyOnWriteArrayList<>();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicReference<Boolean> terminated = new AtomicReference<>(false);
+
+        morphium.createQueryFor(UncachedObject.class).asPublisher().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(UncachedObject item) {
+                received.add(item);
+
+                if (received.size() == 3) {
+                    subscription.cancel();
+                    cancelled.countDown();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                terminated.set(true);
+            }
+
+            @Override
+            public void onComplete() {
+                terminated.set(true);
+            }
+        });
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(3, received.size());
+        assertFalse(terminated.get(), "no terminal signal after cancel");
+    }
+}
@@ -0,0 +1,79 @@
+package de.caluga.test.mongo.suite.inmem;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.async.AsyncCallbackAdapter;
+import de.caluga.morphium.async.AsyncOperationType;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import de.caluga.morphium.query.Query;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+import de.caluga.test.support.TestConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * threadPoolSettings.virtualThreads: writer and async operations run on virtual threads. The load
+ * with 10,000 concurrent callers is {@code VirtualThreadsBenchmark} in morphium-benchmarks.
+ */
+@Tag("inmemory")
+public class InMemVirtualThreadsTest {
+    private Morphium create(boolean virtualThreads) {
+        MorphiumConfig cfg = TestConfig.forDriver(InMemoryDriver.driverName);
+        cfg.clusterSettings().setHostSeed("inMem");
+        cfg.connectionSettings().setDatabase("vthreads");
+        cfg.clusterSettings().setReplicaset(false);
+        cfg.threadPoolSettings().setVirtualThreads(virtualThreads);
+        return new Morphium(cfg);
+    }
+
+    @Test
+    public void writerAndAsyncOpsRunOnVirtualThreads() throws Exception {
+        Morphium morphium = create(true);
+
+        try {
+            AtomicReference<Thread> callbackThread = new AtomicReference<>();
+            CountDownLatch stored = new CountDownLatch(1);
+            morphium.store(new UncachedObject("v", 1), new AsyncCallbackAdapter<>() {
+                @Override
+                public void onOperationSucceeded(AsyncOperationType type, Query<UncachedObject> q, long duration, List<UncachedObject> result, UncachedObject entity, Object... param) {
+                    callbackThread.set(Thread.currentThread());
+                    stored.countDown();
+                }
+            });
+            assertTrue(stored.await(5, TimeUnit.SECONDS));
+            assertTrue(callbackThread.get().isVirtual(), callbackThread.get().getName());
+            Thread asyncOpThread = morphium.getAsyncOperationsThreadPool().submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertTrue(asyncOpThread.isVirtual(), asyncOpThread.getName());
+            // the async pool grows to its max instead of running everything on its core thread
+            assertEquals(morphium.getConfig().threadPoolSettings().getThreadPoolAsyncOpMaxSize(),
+                         morphium.getAsyncOperationsThreadPool().getCorePoolSize());
+        } finally {
+            morphium.close();
+        }
+
+        Morphium platform = create(false);
+
+        try {
+            AtomicReference<Thread> callbackThread = new AtomicReference<>();
+            CountDownLatch stored = new CountDownLatch(1);
+            platform.store(new UncachedObject("p", 1), new AsyncCallbackAdapter<>() {
+                @Override
+                public void onOperationSucceeded(AsyncOperationType type, Query<UncachedObject> q, long duration, List<UncachedObject> result, UncachedObject entity, Object... param) {
+                    callbackThread.set(Thread.currentThread());
+                    stored.countDown();
+                }
+            });
+            assertTrue(stored.await(5, TimeUnit.SECONDS));
+            assertFalse(callbackThread.get().isVirtual());
+        } finally {
+            platform.close();
+        }
+    }
+}
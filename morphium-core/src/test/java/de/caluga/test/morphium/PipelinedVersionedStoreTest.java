@@ -0,0 +1,146 @@
+package de.caluga.test.morphium;
+
+import de.caluga.morphium.FailedStore;
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.VersionConflictsException;
+import de.caluga.morphium.VersionMismatchException;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.Property;
+import de.caluga.morphium.annotations.Version;
+import de.caluga.morphium.async.AsyncOperationCallback;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Versioned batch stores with {@code writerSettings.versionedUpdatePipelineDepth > 0}: every
+ * non-conflicting entity is committed and all conflicts are reported, not just the first one.
+ * All tests run with InMemoryDriver — no MongoDB required.
+ */
+@Tag("inmemory")
+public class PipelinedVersionedStoreTest {
+
+    @Entity(collectionName = "pipelined_versioned_item")
+    public static class VersionedItem {
+        @Id
+        public MorphiumId id;
+
+        @Version
+        @Property(fieldName = "version")
+        public long version;
+
+        public String name;
+
+        public VersionedItem() {}
+
+        public VersionedItem(String name) {
+            this.name = name;
+        }
+    }
+
+    private Morphium morphium;
+
+    @BeforeEach
+    public void setup() {
+        MorphiumConfig cfg = new MorphiumConfig("pipelined_version_test_db", 10, 10_000, 1_000);
+        cfg.driverSettings().setDriverName(InMemoryDriver.driverName);
+        cfg.writerSettings().setVersionedUpdatePipelineDepth(4);
+        morphium = new Morphium(cfg);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+    }
+
+    /** Stores 10 items, then makes the ones at the given indices stale behind our back. */
+    private List<VersionedItem> batchWithStale(int... staleIdx) {
+        List<VersionedItem> items = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            VersionedItem it = new VersionedItem("item-" + i);
+            morphium.store(it);
+            items.add(it);
+        }
+
+        for (int idx : staleIdx) {
+            VersionedItem concurrent = morphium.createQueryFor(VersionedItem.class).f("id").eq(items.get(idx).id).get();
+            concurrent.name = "concurrent";
+            morphium.store(concurrent);
+        }
+
+        items.forEach(it -> it.name = it.name + "-updated");
+        return items;
+    }
+
+    @Test
+    public void store_reportsAllConflictsAndCommitsTheRest() {
+        List<VersionedItem> items = batchWithStale(2, 5, 9);
+
+        assertThatThrownBy(() -> morphium.getWriterForClass(VersionedItem.class).store(items, null, (AsyncOperationCallback<VersionedItem>) null))
+            .isInstanceOf(VersionConflictsException.class)
+            .satisfies(ex -> {
+                VersionConflictsException vce = (VersionConflictsException) ex;
+                assertThat(vce.getConflicts()).extracting(VersionMismatchException::getListIndex).containsExactly(2, 5, 9);
+                assertThat(vce.getListIndex()).isEqualTo(2);
+                assertThat(vce.getExpectedVersion()).isEqualTo(1L);
+            });
+
+        for (int i = 0; i < items.size(); i++) {
+            VersionedItem inDb = morphium.createQueryFor(VersionedItem.class).f("id").eq(items.get(i).id).get();
+            assertThat(inDb.version).isEqualTo(2L);
+
+            if (i == 2 || i == 5 || i == 9) {
+                assertThat(items.get(i).version).isEqualTo(1L);
+                assertThat(inDb.name).isEqualTo("concurrent");
+            } else {
+                assertThat(items.get(i).version).isEqualTo(2L);
+                assertThat(inDb.name).isEqualTo("item-" + i + "-updated");
+            }
+        }
+    }
+
+    @Test
+    public void continueOnError_returnsOneFailurePerConflict() {
+        List<VersionedItem> items = batchWithStale(0, 7);
+        List<FailedStore<VersionedItem>> failures = morphium.storeList(items, true);
+
+        assertThat(failures).extracting(FailedStore::getIndex).containsExactly(0, 7);
+        assertThat(failures).allSatisfy(f -> assertThat(f.getCause()).isInstanceOf(VersionMismatchException.class));
+        assertThat(failures.get(1).getEntity()).isSameAs(items.get(7));
+        assertThat(items.get(3).version).isEqualTo(2L);
+        assertThat(morphium.createQueryFor(VersionedItem.class).f("name").eq("concurrent").countAll()).isEqualTo(2);
+    }
+
+    @Test
+    public void failFast_throwsAggregatedConflicts() {
+        List<VersionedItem> items = batchWithStale(4);
+
+        assertThatThrownBy(() -> morphium.storeList(items, false))
+            .isInstanceOf(VersionConflictsException.class)
+            .satisfies(ex -> assertThat(((VersionMismatchException) ex).getListIndex()).isEqualTo(4));
+        assertThat(items.get(5).version).isEqualTo(2L);
+    }
+
+    @Test
+    public void conflictFreeBatchIsStoredCompletely() {
+        List<VersionedItem> items = batchWithStale();
+        morphium.getWriterForClass(VersionedItem.class).store(items, null, (AsyncOperationCallback<VersionedItem>) null);
+
+        assertThat(items).allSatisfy(it -> assertThat(it.version).isEqualTo(2L));
+        assertThat(morphium.createQueryFor(VersionedItem.class).f("version").eq(2L).countAll()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,235 @@
+package de.caluga.test.morphium.cache;
+
+import de.caluga.morphium.AnnotationAndReflectionHelper;
+import de.caluga.morphium.Utils;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.caching.Cache;
+import de.caluga.morphium.cache.MorphiumCacheImpl;
+import de.caluga.morphium.cache.QueryCacheKey;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link MorphiumCacheImpl} and {@link QueryCacheKey} without a database: the cache is not used
+ * with the InMemoryDriver, so the cache suite tests only run against MongoDB.
+ */
+@Tag("core")
+public class MorphiumCacheImplTest {
+    private final AnnotationAndReflectionHelper anHelper = new AnnotationAndReflectionHelper(true);
+    private MorphiumCacheImpl cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new MorphiumCacheImpl();
+        cache.setAnnotationAndReflectionHelper(anHelper);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.close();
+    }
+
+    private QueryCacheKey key(Class<?> type, int value) {
+        return QueryCacheKey.of(type, Doc.of("value", value), null, null, "coll", 0, 0, anHelper);
+    }
+
+    private <T extends Cached> List<T> result(T e, int value) {
+        e.id = new MorphiumId();
+        e.value = value;
+        List<T> ret = new ArrayList<>();
+        ret.add(e);
+        return ret;
+    }
+
+    @Test
+    public void keyRendersLikeStringKey() {
+        Map<String, Object> query = Doc.of("$and", List.of(Doc.of("value", Doc.of("$in", List.of(1, 2))), Doc.of("name", Pattern.compile("^a.*"))));
+        Map<String, Integer> sort = Map.of("value", -1);
+        Map<String, Object> projection = Doc.of("value", 1);
+        QueryCacheKey k = QueryCacheKey.of(FifoEntity.class, query, sort, projection, "coll", 5, 10, anHelper);
+        assertEquals(Utils.getCacheKey(FifoEntity.class, query, sort, projection, "coll", 5, 10, anHelper), k.toString());
+        assertTrue(k.hasProjection());
+        assertTrue(k.forIdList().toString().endsWith(" idlist"));
+        assertNotEquals(k, k.forIdList());
+    }
+
+    @Test
+    public void keyComparesByValue() {
+        Map<String, Object> query = Doc.of("name", Pattern.compile("^a.*"), "value", 1);
+        QueryCacheKey k = QueryCacheKey.of(FifoEntity.class, query, null, null, "coll", 0, 0, anHelper);
+        assertEquals(k, QueryCacheKey.of(FifoEntity.class, Doc.of("name", Pattern.compile("^a.*"), "value", 1), null, null, "coll", 0, 0, anHelper));
+        assertEquals(k.hashCode(), QueryCacheKey.of(FifoEntity.class, Doc.of("name", Pattern.compile("^a.*"), "value", 1), null, null, "coll", 0, 0, anHelper).hashCode());
+        // same string representation, different value
+        assertNotEquals(k, QueryCacheKey.of(FifoEntity.class, Doc.of("name", Pattern.compile("^a.*"), "value", "1"), null, null, "coll", 0, 0, anHelper));
+        // order matters, like for the query itself
+        assertNotEquals(k, QueryCacheKey.of(FifoEntity.class, Doc.of("value", 1, "name", Pattern.compile("^a.*")), null, null, "coll", 0, 0, anHelper));
+        assertNotEquals(k, QueryCacheKey.of(FifoEntity.class, query, null, null, "coll", 0, 1, anHelper));
+        // changing the query later does not change the key
+        query.put("value", 2);
+        assertNotEquals(k, QueryCacheKey.of(FifoEntity.class, query, null, null, "coll", 0, 0, anHelper));
+    }
+
+    @Test
+    public void stringKeyFindsStructuralKey() {
+        QueryCacheKey k = key(FifoEntity.class, 1);
+        List<FifoEntity> lst = result(new FifoEntity(), 1);
+        cache.addToCache(k, FifoEntity.class, lst);
+        assertSame(lst, cache.getFromCache(FifoEntity.class, k));
+        assertTrue(cache.isCached(FifoEntity.class, k.toString()));
+        assertSame(lst, cache.getFromCache(FifoEntity.class, k.toString()));
+        assertSame(lst.get(0), cache.getFromIDCache(FifoEntity.class, lst.get(0).id));
+        assertNull(cache.getFromCache(FifoEntity.class, key(FifoEntity.class, 2)));
+    }
+
+    @Test
+    public void fifoEvictsOldestOnInsert() {
+        List<FifoEntity> first = result(new FifoEntity(), 0);
+
+        for (int i = 0; i < 4; i++) {
+            cache.addToCache(key(FifoEntity.class, i), FifoEntity.class, i == 0 ? first : result(new FifoEntity(), i));
+        }
+
+        assertEquals(3, cache.getSizes().get("resultCache|" + FifoEntity.class.getName()));
+        assertNull(cache.getFromCache(FifoEntity.class, key(FifoEntity.class, 0)));
+        assertNull(cache.getFromIDCache(FifoEntity.class, first.get(0).id), "objects of evicted results leave the id cache");
+
+        for (int i = 1; i < 4; i++) {
+            assertNotNull(cache.getFromCache(FifoEntity.class, key(FifoEntity.class, i)));
+        }
+    }
+
+    @Test
+    public void lruKeepsUsedEntries() {
+        for (int i = 0; i < 3; i++) {
+            cache.addToCache(key(LruEntity.class, i), LruEntity.class, result(new LruEntity(), i));
+        }
+
+        // first eviction clears all reference flags, the oldest one goes
+        cache.addToCache(key(LruEntity.class, 3), LruEntity.class, result(new LruEntity(), 3));
+        assertNull(cache.getFromCache(LruEntity.class, key(LruEntity.class, 0)));
+        assertNotNull(cache.getFromCache(LruEntity.class, key(LruEntity.class, 1)));
+        cache.addToCache(key(LruEntity.class, 4), LruEntity.class, result(new LruEntity(), 4));
+        assertNotNull(cache.getFromCache(LruEntity.class, key(LruEntity.class, 1)), "recently used entry must survive");
+        assertNull(cache.getFromCache(LruEntity.class, key(LruEntity.class, 2)));
+        assertEquals(3, cache.getSizes().get("resultCache|" + LruEntity.class.getName()));
+    }
+
+    @Test
+    public void randomStaysBounded() {
+        for (int i = 0; i < 100; i++) {
+            cache.addToCache(key(RandomEntity.class, i), RandomEntity.class, result(new RandomEntity(), i));
+            assertNotNull(cache.getFromCache(RandomEntity.class, key(RandomEntity.class, i)), "the entry just added is never evicted");
+        }
+
+        assertEquals(3, cache.getSizes().get("resultCache|" + RandomEntity.class.getName()));
+    }
+
+    @Test
+    public void byteBoundEvicts() {
+        for (int i = 0; i < 50; i++) {
+            ByteBoundEntity e = new ByteBoundEntity();
+            e.payload = "x".repeat(200);
+            cache.addToCache(key(ByteBoundEntity.class, i), ByteBoundEntity.class, result(e, i));
+        }
+
+        int size = cache.getSizes().get("resultCache|" + ByteBoundEntity.class.getName());
+        assertTrue(size > 0 && size < 50, "expected some results to be evicted, got " + size);
+        assertNotNull(cache.getFromCache(ByteBoundEntity.class, key(ByteBoundEntity.class, 49)));
+    }
+
+    @Test
+    public void removeEntryRemovesResultsContainingId() {
+        List<FifoEntity> lst = result(new FifoEntity(), 1);
+        QueryCacheKey k = key(FifoEntity.class, 1);
+        cache.addToCache(k, FifoEntity.class, lst);
+        cache.addToCache(k.forIdList(), FifoEntity.class, List.of(lst.get(0).id));
+        cache.addToCache(key(FifoEntity.class, 2), FifoEntity.class, result(new FifoEntity(), 2));
+        cache.removeEntryFromCache(FifoEntity.class, lst.get(0).id);
+        assertNull(cache.getFromCache(FifoEntity.class, k));
+        assertNull(cache.getFromCache(FifoEntity.class, k.forIdList()));
+        assertNotNull(cache.getFromCache(FifoEntity.class, key(FifoEntity.class, 2)));
+    }
+
+    @Test
+    public void writeOnlyRemovesAffectedResults() {
+        List<WriteEntity> one = result(new WriteEntity(), 1);
+        QueryCacheKey valueOne = key(WriteEntity.class, 1);
+        QueryCacheKey valueTwo = key(WriteEntity.class, 2);
+        QueryCacheKey greaterFive = QueryCacheKey.of(WriteEntity.class, Doc.of("value", Doc.of("$gt", 5)), null, null, "coll", 0, 0, anHelper);
+        cache.addToCache(valueOne, WriteEntity.class, one);
+        cache.addToCache(valueOne.forIdList(), WriteEntity.class, List.of(one.get(0).id));
+        cache.addToCache(valueTwo, WriteEntity.class, result(new WriteEntity(), 2));
+        cache.addToCache(greaterFive, WriteEntity.class, new ArrayList<WriteEntity>());
+        cache.addToCache("some string key", WriteEntity.class, new ArrayList<WriteEntity>());
+        // update of a cached object, as the writer passes it: the id is an ObjectId then
+        cache.clearCacheIfNecessary(WriteEntity.class, List.of(Doc.of("_id", new ObjectId(one.get(0).id.getBytes()), "value", 3)));
+        assertNull(cache.getFromCache(WriteEntity.class, valueOne));
+        assertNull(cache.getFromCache(WriteEntity.class, valueOne.forIdList()));
+        assertNull(cache.getFromIDCache(WriteEntity.class, one.get(0).id));
+        assertNull(cache.getFromCache(WriteEntity.class, "some string key"), "string keys can not be evaluated");
+        assertNotNull(cache.getFromCache(WriteEntity.class, valueTwo));
+        assertNotNull(cache.getFromCache(WriteEntity.class, greaterFive));
+        // new object, matching a cached query
+        cache.clearCacheIfNecessary(WriteEntity.class, List.of(Doc.of("_id", new ObjectId(), "value", 7)));
+        assertNull(cache.getFromCache(WriteEntity.class, greaterFive));
+        assertNotNull(cache.getFromCache(WriteEntity.class, valueTwo));
+    }
+
+    @Test
+    public void writeWithoutClearOnWriteKeepsResults() {
+        QueryCacheKey k = key(KeepOnWriteEntity.class, 1);
+        cache.addToCache(k, KeepOnWriteEntity.class, result(new KeepOnWriteEntity(), 1));
+        cache.clearCacheIfNecessary(KeepOnWriteEntity.class, List.of(Doc.of("_id", new ObjectId(), "value", 1)));
+        assertNotNull(cache.getFromCache(KeepOnWriteEntity.class, k));
+    }
+
+    public static class Cached {
+        @Id
+        public MorphiumId id;
+        public int value;
+    }
+
+    @Entity
+    @Cache(maxEntries = 3, strategy = Cache.ClearStrategy.FIFO, timeout = 60000)
+    public static class FifoEntity extends Cached {
+    }
+
+    @Entity
+    @Cache(maxEntries = 3, strategy = Cache.ClearStrategy.LRU, timeout = 60000)
+    public static class LruEntity extends Cached {
+    }
+
+    @Entity
+    @Cache(maxEntries = 3, strategy = Cache.ClearStrategy.RANDOM, timeout = 60000)
+    public static class RandomEntity extends Cached {
+    }
+
+    @Entity
+    @Cache(timeout = 60000)
+    public static class WriteEntity extends Cached {
+    }
+
+    @Entity
+    @Cache(timeout = 60000, clearOnWrite = false)
+    public static class KeepOnWriteEntity extends Cached {
+    }
+
+    @Entity
+    @Cache(maxBytes = 4096, timeout = 60000)
+    public static class ByteBoundEntity extends Cached {
+        public String payload;
+    }
+}
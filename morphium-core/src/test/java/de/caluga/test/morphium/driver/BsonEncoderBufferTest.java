@@ -0,0 +1,106 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * BsonEncoder writing straight into (pooled, direct) ByteBuffers must produce exactly the bytes
+ * of the array path, and documentSize must predict them without encoding.
+ */
+@Tag("driver")
+public class BsonEncoderBufferTest {
+
+    private static Doc sample() {
+        Doc doc = Doc.of("_id", new MorphiumId(), "str", "grüße 😀 broken \uD800 end",
+                         "int", 42, "long", 1L << 40, "dbl", 3.5);
+        doc.add("date", new Date(1_700_000_000_000L)).add("list", List.of(1, "two", Doc.of("three", 3)))
+        .add("arr", new int[] {4, 5, 6}).add("nested", Doc.of("a", Doc.of("b", List.of(List.of("deep")))))
+        .add("uuid", UUID.randomUUID()).add("nil", null).add("bin", new byte[] {1, 2, 3});
+        return doc;
+    }
+
+    @Test
+    public void bufferEncodingMatchesArrayEncoding() {
+        Doc doc = sample();
+        byte[] expected = BsonEncoder.encodeDocument(doc);
+        assertThat(BsonEncoder.documentSize(doc)).isEqualTo(expected.length);
+
+        for (boolean direct : new boolean[] {false, true}) {
+            // non-zero start position: embedded lengths are patched relative to it
+            ByteBuffer target = direct ? ByteBuffer.allocateDirect(expected.length + 7) : ByteBuffer.allocate(expected.length + 7);
+            target.position(7);
+            int written = BsonEncoder.encodeDocument(doc, target);
+            assertThat(written).isEqualTo(expected.length);
+            byte[] actual = new byte[written];
+            target.get(7, actual);
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void sameBytesAsTheMongoBsonLibrary() {
+        Doc doc = Doc.of("s", "xé中", "i", 1, "l", 2L, "d", 1.5, "nested", Doc.of("k", List.of(1, 2)));
+        RawBsonDocument raw = new RawBsonDocument(new Document(doc), new DocumentCodec());
+        byte[] reference = Arrays.copyOf(raw.getByteBuffer().array(), raw.getByteBuffer().remaining());
+        ByteBuffer target = ByteBuffer.allocate(BsonEncoder.documentSize(doc));
+        BsonEncoder.encodeDocument(doc, target);
+        assertThat(target.array()).isEqualTo(reference);
+    }
+
+    @Test
+    public void undersizedTargetOverflowsInsteadOfGrowing() {
+        Doc doc = sample();
+        ByteBuffer target = ByteBuffer.allocate(BsonEncoder.documentSize(doc) - 1);
+        assertThatThrownBy(() -> BsonEncoder.encodeDocument(doc, target)).isInstanceOf(BufferOverflowException.class);
+    }
+
+    @Test
+    public void decodesFromPooledBuffer() throws Exception {
+        BsonBufferPool pool = new BsonBufferPool(false, 1024 * 1024);
+        Doc doc = sample();
+        ByteBuffer b = pool.acquire(BsonEncoder.documentSize(doc));
+        int len = BsonEncoder.encodeDocument(doc, b);
+        Map<String, Object> decoded = BsonDecoder.decodeDocument(Arrays.copyOf(b.array(), len));
+        assertThat(decoded.get("str")).isEqualTo("grüße 😀 broken ? end");
+        assertThat(decoded.get("list")).asInstanceOf(InstanceOfAssertFactories.LIST).hasSize(3);
+        pool.release(b);
+        assertThat(pool.acquire(len)).isSameAs(b);
+    }
+
+    @Test
+    public void poolReusesBySizeClassAndRespectsRetentionLimit() {
+        BsonBufferPool pool = new BsonBufferPool(true, 4096);
+        ByteBuffer small = pool.acquire(10);
+        assertThat(small.isDirect()).isTrue();
+        assertThat(small.capacity()).isEqualTo(BsonBufferPool.MIN_POOLED_SIZE);
+        ByteBuffer mid = pool.acquire(3000);
+        assertThat(mid.capacity()).isEqualTo(4096);
+
+        pool.release(small);
+        pool.release(mid); // would exceed 4096 retained bytes - dropped
+        assertThat(pool.getRetainedBytes()).isEqualTo(BsonBufferPool.MIN_POOLED_SIZE);
+        assertThat(pool.acquire(200)).isSameAs(small);
+        assertThat(pool.acquire(3000)).isNotSameAs(mid);
+
+        // foreign buffers (heap into a direct pool, odd capacity) are ignored
+        pool.release(ByteBuffer.allocate(256));
+        pool.release(ByteBuffer.allocateDirect(300));
+        assertThat(pool.getRetainedBytes()).isZero();
+    }
+}
@@ -0,0 +1,113 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import de.caluga.morphium.driver.bson.BsonStreamDecoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Element-by-element decoding from a stream must yield the values of the array decoder and
+ * never read past the given message length.
+ */
+@Tag("driver")
+public class BsonStreamDecoderTest {
+
+    @Test
+    public void valuesMatchArrayDecoding() throws Exception {
+        Doc doc = Doc.of("_id", new MorphiumId(), "str", "grüße", "int", 42, "long", 1L << 40, "dbl", 3.5);
+        doc.add("date", new Date(1_700_000_000_000L)).add("list", List.of(1, "two", Doc.of("three", 3)))
+        .add("nested", Doc.of("a", Doc.of("b", true))).add("uuid", UUID.randomUUID()).add("nil", null)
+        .add("regex", Pattern.compile("^a.*", Pattern.CASE_INSENSITIVE)).add("bin", new byte[] {1, 2, 3});
+        byte[] bytes = BsonEncoder.encodeDocument(doc);
+        Map<String, Object> expected = BsonDecoder.decodeDocument(bytes);
+
+        BsonStreamDecoder dec = new BsonStreamDecoder(new ByteArrayInputStream(bytes), bytes.length, false);
+        assertThat(dec.readInt()).isEqualTo(bytes.length);
+        Map<String, Object> actual = new LinkedHashMap<>();
+
+        for (byte type = dec.readType(); type != 0; type = dec.readType()) {
+            actual.put(dec.readName(), dec.readValue(type));
+        }
+
+        assertThat(dec.available()).isZero();
+        assertThat(actual.keySet()).containsExactlyElementsOf(expected.keySet());
+        assertThat(actual.get("bin")).isEqualTo(expected.get("bin"));
+        assertThat(actual.get("regex").toString()).isEqualTo(expected.get("regex").toString());
+        actual.keySet().removeAll(List.of("bin", "regex"));
+        expected.keySet().removeAll(List.of("bin", "regex"));
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void documentsOfAnArrayOneByOne() throws Exception {
+        List<Map<String, Object>> docs = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            docs.add(Doc.of("i", i, "s", "x".repeat(i * 10)));
+        }
+
+        byte[] bytes = BsonEncoder.encodeDocument(Doc.of("before", "a", "batch", docs, "after", 7));
+        BsonStreamDecoder dec = new BsonStreamDecoder(new ByteArrayInputStream(bytes), bytes.length, true);
+        dec.readInt();
+        assertThat(dec.readType()).isEqualTo((byte) 0x02);
+        assertThat(dec.readName()).isEqualTo("before");
+        dec.skipValue((byte) 0x02);
+        assertThat(dec.readType()).isEqualTo((byte) 0x04);
+        assertThat(dec.readName()).isEqualTo("batch");
+        dec.readInt();
+        int i = 0;
+
+        for (byte type = dec.readType(); type != 0; type = dec.readType()) {
+            dec.skipName();
+
+            if (i % 2 == 0) {
+                assertThat(dec.readDocument().get("i")).isEqualTo(i);
+            } else {
+                dec.skipValue(type);
+            }
+
+            i++;
+        }
+
+        assertThat(i).isEqualTo(100);
+        assertThat(dec.readType()).isEqualTo((byte) 0x10);
+        assertThat(dec.readName()).isEqualTo("after");
+        assertThat(dec.readValue((byte) 0x10)).isEqualTo(7);
+    }
+
+    @Test
+    public void neverReadsBeyondTheMessage() throws Exception {
+        byte[] first = BsonEncoder.encodeDocument(Doc.of("a", "x".repeat(20_000)));
+        byte[] second = BsonEncoder.encodeDocument(Doc.of("b", 2));
+        byte[] both = new byte[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        InputStream in = new ByteArrayInputStream(both);
+
+        BsonStreamDecoder dec = new BsonStreamDecoder(in, first.length, false);
+        dec.readInt();
+        dec.readType();
+        dec.readName();
+        dec.skipRemaining();
+        // the next message is still on the stream, untouched
+        assertThat(BsonDecoder.decodeDocument(in.readAllBytes())).containsEntry("b", 2);
+
+        BsonStreamDecoder truncated = new BsonStreamDecoder(new ByteArrayInputStream(first, 0, 100), first.length, false);
+        truncated.readInt();
+        truncated.readType();
+        truncated.readName();
+        assertThatThrownBy(() -> truncated.readValue((byte) 0x02)).isInstanceOf(EOFException.class);
+    }
+}
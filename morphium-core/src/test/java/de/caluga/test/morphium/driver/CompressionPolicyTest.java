@@ -0,0 +1,197 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy.MessageClass;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
+import de.caluga.morphium.driver.wireprotocol.OpMsg;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
+import com.github.luben.zstd.ZstdCompressCtx;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OP_COMPRESSED with zstd/zlib/snappy round trips through the wire format, and the adaptive
+ * {@link CompressionPolicy}: small and handshake messages stay uncompressed, levels follow the
+ * message class. Sizes per compressor are logged as greppable {@code COMPRESSION } lines.
+ */
+@Tag("driver")
+public class CompressionPolicyTest {
+    private final Logger log = LoggerFactory.getLogger(CompressionPolicyTest.class);
+
+    private static OpMsg insert(int docs) {
+        List<Map<String, Object>> documents = new ArrayList<>();
+
+        for (int i = 0; i < docs; i++) {
+            documents.add(Doc.of("_id", i, "name", "document number " + i, "tags", List.of("a", "b", "c"), "value", i * 1.5));
+        }
+
+        OpMsg msg = new OpMsg();
+        msg.setMessageId(4711);
+        msg.setFirstDoc(Doc.of("insert", "coll", "$db", "test", "documents", documents));
+        return msg;
+    }
+
+    /** Encodes, parses back from the stream and returns the uncompressed OP_MSG. */
+    private static OpMsg roundTrip(OpCompressed opc) throws Exception {
+        WireProtocolMessage parsed = WireProtocolMessage.parseFromStream(new ByteArrayInputStream(opc.bytes()));
+        assertInstanceOf(OpCompressed.class, parsed);
+        OpCompressed in = (OpCompressed) parsed;
+        assertEquals(opc.getCompressorId(), in.getCompressorId());
+        OpMsg msg = new OpMsg();
+        msg.parsePayload(in.getCompressedMessage(), 0);
+        return msg;
+    }
+
+    @Test
+    public void allCompressorsRoundTrip() throws Exception {
+        OpMsg msg = insert(500);
+        byte[] payload = msg.getPayload();
+        CompressionPolicy policy = new CompressionPolicy();
+
+        for (int compressor : new int[] {OpCompressed.COMPRESSOR_SNAPPY, OpCompressed.COMPRESSOR_ZLIB, OpCompressed.COMPRESSOR_ZSTD}) {
+            OpCompressed opc = policy.compress(msg, payload, compressor);
+            assertNotNull(opc);
+            assertEquals(4711, opc.getMessageId(), "OP_COMPRESSED keeps the requestID");
+            int wireSize = opc.bytes().length;
+            assertTrue(wireSize < payload.length / 2, "compressor " + compressor + ": " + wireSize);
+            log.info(String.format(Locale.ROOT, "COMPRESSION compressor=%d %d -> %d bytes", compressor, payload.length, wireSize));
+
+            OpMsg back = roundTrip(opc);
+            assertEquals(msg.getFirstDoc().get("insert"), back.getFirstDoc().get("insert"));
+            assertEquals(500, ((List<?>) back.getFirstDoc().get("documents")).size());
+        }
+    }
+
+    @Test
+    public void smallAndHandshakeMessagesStayUncompressed() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        OpMsg getMore = new OpMsg();
+        getMore.setFirstDoc(Doc.of("getMore", 123L, "collection", "coll", "$db", "test"));
+        assertNull(policy.compress(getMore, getMore.getPayload(), OpCompressed.COMPRESSOR_ZSTD));
+
+        OpMsg hello = new OpMsg();
+        hello.setFirstDoc(Doc.of("hello", 1, "client", Doc.of("padding", "x".repeat(4000))));
+        assertNull(policy.compress(hello, hello.getPayload(), OpCompressed.COMPRESSOR_ZSTD));
+
+        OpMsg sasl = new OpMsg();
+        sasl.setFirstDoc(Doc.of("saslStart", 1, "payload", "x".repeat(4000)));
+        assertNull(policy.compress(sasl, sasl.getPayload(), OpCompressed.COMPRESSOR_ZLIB));
+
+        OpMsg bulk = insert(100);
+        assertNull(policy.compress(bulk, bulk.getPayload(), OpCompressed.COMPRESSOR_NOOP));
+        assertNotNull(policy.compress(bulk, bulk.getPayload(), OpCompressed.COMPRESSOR_ZSTD));
+
+        policy.setMinSize(0);
+        assertNotNull(policy.compress(getMore, getMore.getPayload(), OpCompressed.COMPRESSOR_ZSTD));
+
+        // decided by command name, before anything is encoded
+        assertFalse(policy.mayCompress(hello, OpCompressed.COMPRESSOR_ZSTD));
+        assertFalse(policy.mayCompress(sasl, OpCompressed.COMPRESSOR_ZLIB));
+        assertFalse(policy.mayCompress(bulk, OpCompressed.COMPRESSOR_NOOP));
+        assertTrue(policy.mayCompress(bulk, OpCompressed.COMPRESSOR_ZSTD));
+    }
+
+    /** Payload of an OP_COMPRESSED: original opcode, uncompressed size, compressor id, data. */
+    private static byte[] compressedPayload(int uncompressedSize, byte[] data) {
+        ByteBuffer b = ByteBuffer.allocate(9 + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(WireProtocolMessage.OpCode.OP_MSG.opCode).putInt(uncompressedSize).put((byte) OpCompressed.COMPRESSOR_ZSTD).put(data);
+        return b.array();
+    }
+
+    @Test
+    public void zstdWithoutUncompressedSizeIsRejected() throws Exception {
+        byte[] payload = insert(10).getPayload();
+        byte[] frame;
+
+        try (ZstdCompressCtx ctx = new ZstdCompressCtx()) {
+            frame = ctx.setContentSize(false).compress(payload);
+        }
+
+        // no size in the header nor in the frame
+        IOException ex = assertThrows(IOException.class, () -> new OpCompressed().parsePayload(compressedPayload(0, frame), 0));
+        assertTrue(ex.getMessage().contains("frame -1"), ex.getMessage());
+        // not a zstd frame at all
+        ex = assertThrows(IOException.class, () -> new OpCompressed().parsePayload(compressedPayload(0, new byte[] {1, 2, 3, 4, 5, 6, 7, 8}), 0));
+        assertTrue(ex.getMessage().contains("frame -2"), ex.getMessage());
+
+        // the header's size is enough
+        OpCompressed opc = new OpCompressed();
+        opc.parsePayload(compressedPayload(payload.length, frame), 0);
+        assertArrayEquals(payload, opc.getCompressedMessage());
+    }
+
+    @Test
+    public void levelFollowsMessageClass() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy().setMinSize(0)
+        .setLevel(MessageClass.BULK_WRITE, 9)
+        .setLevel(MessageClass.CURSOR_BATCH, 2)
+        .setLevel(MessageClass.COMMAND, 1);
+
+        OpMsg bulk = insert(10);
+        assertEquals(MessageClass.BULK_WRITE, CompressionPolicy.classify(bulk));
+        assertEquals(9, policy.compress(bulk, bulk.getPayload(), OpCompressed.COMPRESSOR_ZSTD).getCompressionLevel());
+
+        OpMsg reply = new OpMsg();
+        reply.setFirstDoc(Doc.of("cursor", Doc.of("id", 0L, "ns", "test.coll", "nextBatch", List.of(Doc.of("_id", 1))), "ok", 1.0));
+        assertEquals(MessageClass.CURSOR_BATCH, CompressionPolicy.classify(reply));
+        assertEquals(2, policy.compress(reply, reply.getPayload(), OpCompressed.COMPRESSOR_ZLIB).getCompressionLevel());
+
+        OpMsg find = new OpMsg();
+        find.setFirstDoc(Doc.of("find", "coll", "filter", Doc.of("_id", 1), "$db", "test"));
+        assertEquals(MessageClass.COMMAND, CompressionPolicy.classify(find));
+
+        // the level reaches the compressor
+        OpMsg big = insert(2000);
+        int fast = new CompressionPolicy().setLevel(MessageClass.BULK_WRITE, 1).compress(big, big.getPayload(), OpCompressed.COMPRESSOR_ZSTD).bytes().length;
+        int strong = new CompressionPolicy().setLevel(MessageClass.BULK_WRITE, 19).compress(big, big.getPayload(), OpCompressed.COMPRESSOR_ZSTD).bytes().length;
+        log.info(String.format(Locale.ROOT, "COMPRESSION zstd level 1: %d bytes, level 19: %d bytes", fast, strong));
+        assertNotEquals(fast, strong);
+    }
+
+    @Test
+    public void pooledContextsAreSafeUnderConcurrency() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy().setMinSize(0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                final int compressor = t % 2 == 0 ? OpCompressed.COMPRESSOR_ZSTD : OpCompressed.COMPRESSOR_ZLIB;
+                final int docs = 10 + t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        OpMsg msg = insert(docs);
+                        OpMsg back = roundTrip(policy.compress(msg, msg.getPayload(), compressor));
+                        assertEquals(docs, ((List<?>) back.getFirstDoc().get("documents")).size());
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.aggregation.Aggregator;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.ClearCollectionCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * stages run in parallel above the threshold of the driver must return the same as on one thread
+ */
+@Tag("inmemory")
+public class InMemAggregatorParallelTest {
+    private static final int DOCS = 5000;
+
+    private Morphium morphium;
+    private InMemoryDriver drv;
+    private final String db = "agg_parallel";
+    private final String coll = "agg_items";
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MorphiumConfig cfg = new MorphiumConfig(db, 10, 10000, 1000);
+        cfg.driverSettings().setDriverName(InMemoryDriver.driverName);
+        morphium = new Morphium(cfg);
+        drv = (InMemoryDriver) morphium.getDriver();
+        drv.setAggregationParallelism(4);
+        new ClearCollectionCommand(drv).setDb(db).setColl(coll).doClear();
+        List<Map<String, Object>> docs = new ArrayList<>();
+
+        for (int i = 0; i < DOCS; i++) {
+            docs.add(Doc.of("_id", i, "grp", "g" + (i % 37), "sub", i % 3, "value", (i * 7919) % 1000, "tag", "t" + (i % 5)));
+        }
+
+        new InsertMongoCommand(drv).setDb(db).setColl(coll).setDocuments(docs).execute();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+    }
+
+    private List<Map<String, Object>> aggregate(boolean parallel, Doc... stages) {
+        drv.setAggregationParallelThreshold(parallel ? 100 : 0);
+        Aggregator<Map, Map> agg = drv.createAggregator(morphium, Map.class, Map.class);
+        agg.setCollectionName(coll);
+
+        for (Doc s : stages) {
+            agg.addOperator(s);
+        }
+
+        return agg.aggregateMap();
+    }
+
+    private Map<Object, Map<String, Object>> byId(List<Map<String, Object>> res) {
+        Map<Object, Map<String, Object>> ret = new HashMap<>();
+
+        for (Map<String, Object> m : res) {
+            ret.put(m.get("_id"), m);
+        }
+
+        return ret;
+    }
+
+    @Test
+    public void groupAccumulators() {
+        Doc group = Doc.of("$group", Doc.of("_id", Doc.of("g", "$grp", "s", "$sub"),
+                    "sum", Doc.of("$sum", "$value"), "count", Doc.of("$sum", 1), "avg", Doc.of("$avg", "$value"),
+                    "min", Doc.of("$min", "$value"), "max", Doc.of("$max", "$value")).add("first", Doc.of("$first", "$value"))
+                .add("last", Doc.of("$last", "$value")).add("values", Doc.of("$push", "$value")).add("tags", Doc.of("$addToSet", "$tag")));
+        List<Map<String, Object>> sequential = aggregate(false, group);
+        List<Map<String, Object>> parallel = aggregate(true, group);
+        assertThat(sequential).hasSize(37 * 3);
+        assertThat(byId(parallel)).isEqualTo(byId(sequential));
+        // simple key
+        Doc simple = Doc.of("$group", Doc.of("_id", "$grp", "total", Doc.of("$sum", "$value")));
+        assertThat(byId(aggregate(true, simple))).isEqualTo(byId(aggregate(false, simple)));
+    }
+
+    @Test
+    public void sortIsStable() {
+        Doc sort = Doc.of("$sort", Doc.of("value", 1));
+        Doc project = Doc.of("$project", Doc.of("value", 1));
+        Function<List<Map<String, Object>>, List<Object>> ids = l -> l.stream().map(m -> m.get("_id")).toList();
+        // $project first, so that the sort is not pushed into the find
+        List<Object> sequential = ids.apply(aggregate(false, project, sort));
+        assertThat(sequential).hasSize(DOCS);
+        assertThat(ids.apply(aggregate(true, project, sort))).isEqualTo(sequential);
+    }
+
+    @Test
+    public void sortByCountAndBucket() {
+        Doc sortByCount = Doc.of("$sortByCount", "$tag");
+        assertThat(byId(aggregate(true, sortByCount))).isEqualTo(byId(aggregate(false, sortByCount)));
+        Doc bucket = Doc.of("$bucket", Doc.of("groupBy", "$value", "boundaries", List.of(0, 100, 500, 900), "default", "other",
+                    "output", Doc.of("count", Doc.of("$sum", 1), "max", Doc.of("$max", "$value"))));
+        List<Map<String, Object>> sequential = aggregate(false, bucket);
+        assertThat(sequential).hasSize(4);
+        assertThat(aggregate(true, bucket)).isEqualTo(sequential);
+    }
+}
@@ -0,0 +1,126 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.aggregation.Aggregator;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.ClearCollectionCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Leading $match/$sort/$skip/$limit/$project stages are run by the initial find of the
+ * InMemAggregator - the results must be the same as running them stage by stage.
+ */
+@Tag("inmemory")
+public class InMemAggregatorPushdownTest {
+
+    private Morphium morphium;
+    private InMemoryDriver drv;
+    private final String db = "agg_pushdown";
+    private final String coll = "agg_items";
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MorphiumConfig cfg = new MorphiumConfig(db, 10, 10000, 1000);
+        cfg.driverSettings().setDriverName(InMemoryDriver.driverName);
+        morphium = new Morphium(cfg);
+        drv = (InMemoryDriver) morphium.getDriver();
+        new ClearCollectionCommand(drv).setDb(db).setColl(coll).doClear();
+        List<Map<String, Object>> docs = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            Doc d = Doc.of("_id", i, "grp", i % 2 == 0 ? "even" : "odd", "value", i, "name", "n" + i);
+
+            if (i % 5 == 0) {
+                // documents without the sort field
+                d.remove("value");
+            }
+
+            docs.add(d);
+        }
+
+        new InsertMongoCommand(drv).setDb(db).setColl(coll).setDocuments(docs).execute();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+    }
+
+    private List<Map<String, Object>> aggregate(Doc... stages) {
+        Aggregator<Map, Map> agg = drv.createAggregator(morphium, Map.class, Map.class);
+        agg.setCollectionName(coll);
+
+        for (Map<String, Object> s : stages) {
+            agg.addOperator(s);
+        }
+
+        return agg.aggregateMap();
+    }
+
+    private List<Object> ids(List<Map<String, Object>> res) {
+        return res.stream().map(m -> m.get("_id")).collect(Collectors.toList());
+    }
+
+    @Test
+    public void matchSortSkipLimitProject() {
+        List<Map<String, Object>> res = aggregate(Doc.of("$match", Doc.of("grp", "odd")), Doc.of("$match", Doc.of("value", Doc.of("$gt", 3))),
+                Doc.of("$sort", Doc.of("value", -1)), Doc.of("$skip", 1), Doc.of("$limit", 3), Doc.of("$project", Doc.of("name", 1)));
+        // odd values > 3: 19, 17, 13, 11, 9, 7 (15 has no value)
+        assertThat(ids(res)).containsExactly(17, 13, 11);
+        assertThat(res).allSatisfy(m -> assertThat(m.keySet()).containsExactlyInAnyOrder("_id", "name"));
+    }
+
+    @Test
+    public void sortByMissingField() {
+        List<Map<String, Object>> res = aggregate(Doc.of("$sort", Doc.of("value", 1)), Doc.of("$limit", 5));
+        // missing values sort first, in no particular order
+        assertThat(ids(res).subList(0, 4)).containsExactlyInAnyOrder(0, 5, 10, 15);
+        assertThat(res.get(4).get("_id")).isEqualTo(1);
+    }
+
+    @Test
+    public void skipMoreThanHalf() {
+        List<Map<String, Object>> res = aggregate(Doc.of("$sort", Doc.of("_id", 1)), Doc.of("$skip", 15));
+        assertThat(ids(res)).containsExactly(15, 16, 17, 18, 19);
+        res = aggregate(Doc.of("$group", Doc.of("_id", "$grp")), Doc.of("$skip", 1));
+        assertThat(res).hasSize(1);
+    }
+
+    @Test
+    public void stagesOutOfFindOrder() {
+        // limit before skip: the skip applies to the limited result
+        assertThat(ids(aggregate(Doc.of("$sort", Doc.of("_id", 1)), Doc.of("$limit", 4), Doc.of("$skip", 1)))).containsExactly(1, 2, 3);
+        // match after limit: filters the limited result
+        assertThat(ids(aggregate(Doc.of("$sort", Doc.of("_id", 1)), Doc.of("$limit", 4), Doc.of("$match", Doc.of("grp", "odd")))))
+            .containsExactly(1, 3);
+        // several limits: the smallest one wins, several skips add up
+        assertThat(ids(aggregate(Doc.of("$sort", Doc.of("_id", 1)), Doc.of("$skip", 2), Doc.of("$skip", 3), Doc.of("$limit", 10),
+                    Doc.of("$limit", 2)))).containsExactly(5, 6);
+    }
+
+    @Test
+    public void projectionNotPushed() {
+        // mixed inclusion and _id exclusion is run by the stage
+        List<Map<String, Object>> res = aggregate(Doc.of("$match", Doc.of("_id", 3)), Doc.of("$project", Doc.of("name", 1, "_id", 0)));
+        assertThat(res).hasSize(1);
+        assertThat(res.get(0)).containsOnlyKeys("name");
+        // exclusion
+        res = aggregate(Doc.of("$match", Doc.of("_id", 3)), Doc.of("$project", Doc.of("name", 0, "grp", false)));
+        assertThat(res.get(0)).containsOnlyKeys("_id", "value");
+    }
+}
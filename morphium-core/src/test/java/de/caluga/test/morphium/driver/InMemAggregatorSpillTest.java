@@ -0,0 +1,117 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.aggregation.Aggregator;
+import de.caluga.morphium.aggregation.MorphiumAggregationIterator;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.ClearCollectionCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * $sort and $group with allowDiskUse spill to disk above the memory limit of the driver and
+ * return the same as in memory
+ */
+@Tag("inmemory")
+public class InMemAggregatorSpillTest {
+    private static final int DOCS = 3000;
+
+    @TempDir
+    File spillDir;
+
+    private Morphium morphium;
+    private InMemoryDriver drv;
+    private final String db = "agg_spill";
+    private final String coll = "agg_items";
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MorphiumConfig cfg = new MorphiumConfig(db, 10, 10000, 1000);
+        cfg.driverSettings().setDriverName(InMemoryDriver.driverName);
+        morphium = new Morphium(cfg);
+        drv = (InMemoryDriver) morphium.getDriver();
+        drv.setAggregationMemoryLimit(20_000);
+        drv.setAggregationSpillDirectory(spillDir);
+        new ClearCollectionCommand(drv).setDb(db).setColl(coll).doClear();
+        List<Map<String, Object>> docs = new ArrayList<>();
+
+        for (int i = 0; i < DOCS; i++) {
+            docs.add(Doc.of("_id", i, "grp", "g" + (i % 23), "value", (i * 7919) % 500, "name", "name " + i));
+        }
+
+        new InsertMongoCommand(drv).setDb(db).setColl(coll).setDocuments(docs).execute();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+    }
+
+    private Aggregator<Map, Map> aggregator(boolean useDisk, Doc... stages) {
+        Aggregator<Map, Map> agg = drv.createAggregator(morphium, Map.class, Map.class);
+        agg.setCollectionName(coll);
+        agg.setUseDisk(useDisk);
+        // not pushed into the find, the stages after it get all documents
+        agg.addOperator(Doc.of("$addFields", Doc.of("x", 1)));
+
+        for (Map<String, Object> s : stages) {
+            agg.addOperator(s);
+        }
+
+        return agg;
+    }
+
+    @Test
+    public void externalSort() {
+        Doc sort = Doc.of("$sort", Doc.of("value", -1));
+        List<Map<String, Object>> inMemory = aggregator(false, sort).aggregateMap();
+        List<Map<String, Object>> spilled = aggregator(true, sort).aggregateMap();
+        assertThat(spilled).hasSize(DOCS);
+        // stable: same order of equal values
+        assertThat(spilled).extracting(m -> m.get("_id")).containsExactlyElementsOf(inMemory.stream().map(m -> m.get("_id")).toList());
+        assertThat(spillDir.list()).isEmpty();
+    }
+
+    @Test
+    public void externalSortFilesAreRemovedOnClose() {
+        MorphiumAggregationIterator<Map, Map> it = aggregator(true, Doc.of("$sort", Doc.of("value", 1))).aggregateIterable();
+        assertThat(it.hasNext()).isTrue();
+        assertThat(it.next().get("value")).isEqualTo(0);
+        assertThat(spillDir.list()).isNotEmpty();
+        it.close();
+        assertThat(spillDir.list()).isEmpty();
+        // a limit stops reading the merged runs
+        List<Map<String, Object>> res = aggregator(true, Doc.of("$sort", Doc.of("value", 1)), Doc.of("$limit", 3)).aggregateMap();
+        assertThat(res).hasSize(3);
+        assertThat(spillDir.list()).isEmpty();
+    }
+
+    @Test
+    public void externalGroup() {
+        Doc group = Doc.of("$group", Doc.of("_id", "$grp", "count", Doc.of("$sum", 1), "max", Doc.of("$max", "$value"),
+                    "names", Doc.of("$push", "$name")));
+        Map<Object, Map<String, Object>> inMemory = new HashMap<>();
+        aggregator(false, group).aggregateMap().forEach(m -> inMemory.put(m.get("_id"), m));
+        Map<Object, Map<String, Object>> spilled = new HashMap<>();
+        aggregator(true, group).aggregateMap().forEach(m -> spilled.put(m.get("_id"), m));
+        assertThat(spilled).hasSize(23);
+        assertThat(spilled).isEqualTo(inMemory);
+        assertThat(spillDir.list()).isEmpty();
+    }
+}
@@ -0,0 +1,134 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.aggregation.Aggregator;
+import de.caluga.morphium.aggregation.Expr;
+import de.caluga.morphium.aggregation.MorphiumAggregationIterator;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.ClearCollectionCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * document by document stages of the InMemAggregator only process the documents that are
+ * requested
+ */
+@Tag("inmemory")
+public class InMemAggregatorStreamingTest {
+    private static final int DOCS = 5000;
+
+    private Morphium morphium;
+    private InMemoryDriver drv;
+    private final String db = "agg_streaming";
+    private final String coll = "agg_items";
+    private final AtomicInteger evaluated = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MorphiumConfig cfg = new MorphiumConfig(db, 10, 10000, 1000);
+        cfg.driverSettings().setDriverName(InMemoryDriver.driverName);
+        cfg.setCursorBatchSize(100);
+        morphium = new Morphium(cfg);
+        drv = (InMemoryDriver) morphium.getDriver();
+        new ClearCollectionCommand(drv).setDb(db).setColl(coll).doClear();
+        List<Map<String, Object>> docs = new ArrayList<>();
+
+        for (int i = 0; i < DOCS; i++) {
+            Doc d = Doc.of("_id", i, "value", i);
+
+            if (i % 2 == 0) {
+                d.put("parts", List.of("a", "b"));
+            }
+
+            docs.add(d);
+        }
+
+        new InsertMongoCommand(drv).setDb(db).setColl(coll).setDocuments(docs).execute();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Aggregator<Map, Map> aggregator() {
+        Aggregator<Map, Map> agg = drv.createAggregator(morphium, Map.class, Map.class);
+        agg.setCollectionName(coll);
+        agg.addOperator(Doc.of("$addFields", Doc.of("counted", new Expr() {
+            @Override
+            public Object toQueryObject() {
+                return "counted";
+            }
+
+            @Override
+            public Object evaluate(Map<String, Object> context) {
+                return evaluated.incrementAndGet();
+            }
+        })));
+        return agg;
+    }
+
+    @Test
+    public void iterableReturnsBeforeAllDocumentsAreProcessed() {
+        Aggregator<Map, Map> agg = aggregator();
+        agg.addOperator(Doc.of("$match", Doc.of("value", Doc.of("$gte", 10))));
+        MorphiumAggregationIterator<Map, Map> it = agg.aggregateIterable();
+        assertThat(it.hasNext()).isTrue();
+        assertThat(it.next().get("value")).isEqualTo(10);
+        assertThat(evaluated.get()).isLessThan(DOCS);
+        int count = 1;
+
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+
+        assertThat(count).isEqualTo(DOCS - 10);
+        assertThat(evaluated.get()).isEqualTo(DOCS);
+    }
+
+    @Test
+    public void limitStopsReading() {
+        Aggregator<Map, Map> agg = aggregator();
+        agg.addOperator(Doc.of("$skip", 5));
+        agg.addOperator(Doc.of("$limit", 10));
+        List<Map<String, Object>> res = agg.aggregateMap();
+        assertThat(res).hasSize(10);
+        assertThat(res.get(0).get("value")).isEqualTo(5);
+        assertThat(evaluated.get()).isLessThan(DOCS);
+    }
+
+    @Test
+    public void blockingStageAfterStreaming() {
+        Aggregator<Map, Map> agg = aggregator();
+        agg.addOperator(Doc.of("$sort", Doc.of("value", -1)));
+        agg.addOperator(Doc.of("$limit", 2));
+        List<Map<String, Object>> res = agg.aggregateMap();
+        assertThat(res).extracting(m -> m.get("value")).containsExactly(DOCS - 1, DOCS - 2);
+        assertThat(evaluated.get()).isEqualTo(DOCS);
+    }
+
+    @Test
+    public void unwindSkipsDocumentsWithoutArray() {
+        Aggregator<Map, Map> agg = aggregator();
+        agg.addOperator(Doc.of("$unwind", "$parts"));
+        List<Map<String, Object>> res = agg.aggregateMap();
+        assertThat(res).hasSize(DOCS);
+        assertThat(res).allSatisfy(m -> assertThat(((Integer) m.get("value")) % 2).isZero());
+    }
+}
@@ -0,0 +1,187 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.metrics.DriverMetrics.Timer;
+import de.caluga.morphium.driver.metrics.HostMetrics;
+import de.caluga.morphium.driver.metrics.LatencyHistogram;
+import de.caluga.morphium.driver.metrics.MetricsExporter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link LatencyHistogram} precision and concurrency, {@link DriverMetrics} host registry and
+ * exporter notification, and that recording does not allocate. Recording cost is logged as a
+ * greppable {@code METRICS } line.
+ */
+@Tag("driver")
+public class LatencyHistogramTest {
+    private final Logger log = LoggerFactory.getLogger(LatencyHistogramTest.class);
+
+    @Test
+    public void percentilesWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v);
+        }
+
+        assertEquals(100_000, h.getCount());
+        assertEquals(100_000, h.getMaxMicros());
+        assertEquals(50_000.5, h.getMeanMicros(), 0.001);
+
+        for (double p : new double[] {50, 90, 99, 99.9}) {
+            double expected = p * 1000;
+            long actual = h.getValueAtPercentile(p);
+            assertTrue(Math.abs(actual - expected) / expected < 1.0 / 32, "p" + p + ": " + actual);
+        }
+
+        assertEquals(100_000, h.getValueAtPercentile(100));
+        assertEquals(0.1, h.getTotal(TimeUnit.SECONDS) / 50_000.5, 0.001);
+
+        // small values are exact
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(3);
+        small.record(7);
+        assertEquals(3, small.getValueAtPercentile(50));
+        assertEquals(7, small.getValueAtPercentile(99));
+
+        // out of range is clamped, not lost
+        small.record(-5);
+        small.record(Long.MAX_VALUE);
+        assertEquals(4, small.getCount());
+        assertEquals(LatencyHistogram.getHighestTrackableMicros(), small.getMaxMicros());
+
+        small.reset();
+        assertEquals(0, small.getCount());
+        assertEquals(0, small.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                final long seed = t;
+                futures.add(pool.submit(() -> {
+                    Random rnd = new Random(seed);
+
+                    for (int i = 0; i < 100_000; i++) {
+                        h.record(rnd.nextInt(50_000));
+                    }
+                }));
+            }
+
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(800_000, h.getCount());
+        long p50 = h.getValueAtPercentile(50);
+        assertTrue(p50 > 24_000 && p50 < 26_000, "p50: " + p50);
+
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(h);
+        merged.add(h);
+        assertEquals(1_600_000, merged.getCount());
+        assertEquals(p50, merged.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        HostMetrics host = new DriverMetrics().forHost("localhost:27017");
+        int n = 1_000_000;
+
+        // warm up - JIT and the LongAdder cells
+        for (int i = 0; i < n; i++) {
+            host.recordLatency(Timer.FIND, i * 10L);
+            host.recordSent(100);
+        }
+
+        Timer[] timers = Timer.values();
+        long tid = Thread.currentThread().threadId();
+        long allocated = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < n; i++) {
+            host.recordLatency(timers[i % timers.length], i * 10L);
+            host.recordSent(100);
+            host.recordReceived(200);
+        }
+
+        long nanos = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(tid) - allocated;
+        log.info(String.format(Locale.ROOT, "METRICS %d recordings: %.1f ns each, %d bytes allocated", n, (double) nanos / n, allocated));
+        // a few hundred bytes of noise from the measurement itself - not one object per recording
+        assertTrue(allocated < 10_000, "allocated " + allocated + " bytes");
+        assertEquals(n + (n + timers.length - 1) / timers.length, host.getLatency(Timer.FIND).getCount());
+        assertEquals(200L * n, host.getBytesReceived());
+    }
+
+    @Test
+    public void exportersSeeExistingAndNewHosts() {
+        DriverMetrics metrics = new DriverMetrics();
+        metrics.forHost("a:27017").recordLatency(Timer.INSERT, 2_000_000);
+        List<String> seen = new ArrayList<>();
+        boolean[] closed = {false};
+        metrics.addExporter(new MetricsExporter() {
+            @Override
+            public void hostAdded(HostMetrics host) {
+                seen.add(host.getHost());
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        });
+        assertEquals(List.of("a:27017"), seen);
+
+        metrics.forHost("b:27017").recordLatency(Timer.INSERT, 4_000_000);
+        metrics.forHost("b:27017").recordSent(10);
+        assertEquals(List.of("a:27017", "b:27017"), seen);
+        assertSame(metrics.forHost("a:27017"), metrics.forHost("a:27017"));
+
+        LatencyHistogram inserts = metrics.getLatency(Timer.INSERT);
+        assertEquals(2, inserts.getCount());
+        assertEquals(4000, inserts.getMaxMicros());
+        assertEquals(10, metrics.getBytesSent());
+
+        metrics.close();
+        assertTrue(closed[0]);
+        assertTrue(metrics.getExporters().isEmpty());
+    }
+
+    @Test
+    public void commandsMapToTimers() {
+        assertEquals(Timer.FIND, Timer.forCommand("find"));
+        assertEquals(Timer.INSERT, Timer.forCommand("insert"));
+        assertEquals(Timer.UPDATE, Timer.forCommand("update"));
+        assertEquals(Timer.DELETE, Timer.forCommand("delete"));
+        assertEquals(Timer.AGGREGATE, Timer.forCommand("aggregate"));
+        assertEquals(Timer.GET_MORE, Timer.forCommand("getMore"));
+        assertEquals(Timer.COMMAND, Timer.forCommand("findAndModify"));
+        assertEquals(Timer.COMMAND, Timer.forCommand(null));
+    }
+}
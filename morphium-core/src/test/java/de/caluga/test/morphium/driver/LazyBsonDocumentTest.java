@@ -0,0 +1,139 @@
+package de.caluga.test.morphium.driver;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.bson.BsonDecoder;
+import de.caluga.morphium.driver.bson.BsonEncoder;
+import de.caluga.morphium.driver.bson.LazyBsonDocument;
+import de.caluga.morphium.driver.wireprotocol.OpMsg;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LazyBsonDocument must look exactly like the eagerly decoded document, while only decoding
+ * what is accessed.
+ */
+@Tag("driver")
+public class LazyBsonDocumentTest {
+
+    private static Doc sample() {
+        Doc doc = Doc.of("_id", new MorphiumId(), "str", "grüße 😀", "int", 42, "long", 1L << 40, "dbl", 3.5);
+        doc.add("date", new Date(1_700_000_000_000L)).add("list", List.of(1, "two", Doc.of("three", 3)))
+        .add("nested", Doc.of("a", Doc.of("b", List.of(List.of("deep"), Doc.of("c", true)))))
+        .add("uuid", UUID.randomUUID()).add("nil", null).add("bin", new byte[] {1, 2, 3});
+        return doc;
+    }
+
+    @Test
+    public void lazyEqualsEager() throws Exception {
+        byte[] bytes = BsonEncoder.encodeDocument(sample());
+        Map<String, Object> eager = BsonDecoder.decodeDocument(bytes);
+        Map<String, Object> lazy = BsonDecoder.decodeDocumentLazy(bytes, 0);
+
+        assertThat(lazy.size()).isEqualTo(eager.size());
+        assertThat(lazy.containsKey("nil")).isTrue();
+        assertThat(lazy.get("nil")).isNull();
+        assertThat(lazy.get("missing")).isNull();
+        assertThat(lazy.get("str")).isEqualTo(eager.get("str"));
+        assertThat(lazy.get("date")).isEqualTo(eager.get("date"));
+        assertThat(lazy.get("uuid")).isEqualTo(eager.get("uuid"));
+        assertThat(lazy.get("bin")).isEqualTo(eager.get("bin"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> nested = (Map<String, Object>) lazy.get("nested");
+        assertThat(nested).isInstanceOf(LazyBsonDocument.class);
+        assertThat(nested).isEqualTo(eager.get("nested"));
+        // array elements that are documents are lazy as well
+        assertThat(((List<?>) lazy.get("list")).get(2)).isInstanceOf(LazyBsonDocument.class);
+        assertThat(new ArrayList<>(lazy.keySet())).isEqualTo(new ArrayList<>(eager.keySet()));
+
+        // byte[] values compare by identity - check the rest as a whole
+        eager.remove("bin");
+        lazy.remove("bin");
+        assertThat(lazy).isEqualTo(eager);
+        assertThat(eager).isEqualTo(lazy);
+        assertThat(lazy.hashCode()).isEqualTo(eager.hashCode());
+    }
+
+    @Test
+    public void onlyAccessedFieldsAreDecoded() throws Exception {
+        Doc doc = Doc.of("name", "x");
+
+        for (int i = 0; i < 50; i++) {
+            doc.add("f" + i, Doc.of("v", i, "payload", "p".repeat(100)));
+        }
+
+        byte[] bytes = BsonEncoder.encodeDocument(doc);
+        LazyBsonDocument lazy = new LazyBsonDocument(bytes, 0);
+        assertThat(lazy.getBsonSize()).isEqualTo(bytes.length);
+        assertThat(lazy.get("name")).isEqualTo("x");
+        assertThat(((Map<?, ?>) lazy.get("f17")).get("v")).isEqualTo(17);
+
+        // still a view on the array: changing an untouched value there shows through
+        int pos = indexOf(bytes, "ppp".getBytes());
+        bytes[pos] = 'q';
+        assertThat(((Map<?, ?>) lazy.get("f0")).get("payload").toString()).startsWith("q");
+        assertThat(lazy.isMaterialized()).isFalse();
+    }
+
+    @Test
+    public void modificationMaterializes() throws Exception {
+        byte[] bytes = BsonEncoder.encodeDocument(Doc.of("a", 1, "b", Doc.of("c", 2)));
+        LazyBsonDocument lazy = new LazyBsonDocument(bytes, 0);
+        lazy.put("d", 4);
+        assertThat(lazy.isMaterialized()).isTrue();
+        lazy.remove("a");
+        assertThat(lazy).containsOnlyKeys("b", "d");
+        assertThat(((Map<?, ?>) lazy.get("b")).get("c")).isEqualTo(2);
+
+        // detached from the array now
+        Arrays.fill(bytes, (byte) 0);
+        assertThat(lazy.get("d")).isEqualTo(4);
+        assertThat(lazy.getBsonSize()).isGreaterThan(0);
+    }
+
+    @Test
+    public void opMsgKeepsEnvelopeEagerAndBatchLazy() throws Exception {
+        List<Map<String, Object>> batch = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            batch.add(Doc.of("_id", i, "v", "val" + i));
+        }
+
+        OpMsg reply = new OpMsg();
+        reply.setFirstDoc(Doc.of("cursor", Doc.of("id", 0L, "ns", "db.coll", "firstBatch", batch), "ok", 1.0));
+        byte[] payload = reply.getPayload();
+
+        OpMsg parsed = new OpMsg().setLazyDocuments(true);
+        parsed.parsePayload(payload, 0);
+        assertThat(parsed.getFirstDoc()).isInstanceOf(Doc.class);
+        Map<?, ?> cursor = (Map<?, ?>) parsed.getFirstDoc().get("cursor");
+        assertThat(cursor).isInstanceOf(LazyBsonDocument.class);
+        List<?> firstBatch = (List<?>) cursor.get("firstBatch");
+        assertThat(firstBatch).hasSize(3);
+        assertThat(((Map<?, ?>) firstBatch.get(2)).get("v")).isEqualTo("val2");
+
+        OpMsg eager = new OpMsg();
+        eager.parsePayload(payload, 0);
+        assertThat(eager.getFirstDoc().get("cursor")).isInstanceOf(Doc.class).isEqualTo(cursor);
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+}
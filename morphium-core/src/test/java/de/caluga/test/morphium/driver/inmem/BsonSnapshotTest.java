@@ -0,0 +1,188 @@
+package de.caluga.test.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import de.caluga.morphium.driver.inmem.WriteAheadLog;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Binary BSON snapshots: types, index definitions and capped settings survive the roundtrip, and
+ * restoring a directory handles both dump formats.
+ */
+@Tag("inmemory")
+public class BsonSnapshotTest {
+    private static final String DB = "snaptest";
+
+    @TempDir
+    File dir;
+
+    private static InMemoryDriver driver() {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        return drv;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {OpCompressed.COMPRESSOR_SNAPPY, OpCompressed.COMPRESSOR_ZLIB, OpCompressed.COMPRESSOR_NOOP})
+    public void roundtripKeepsTypesAndDocumentOrder(int compressor) throws Exception {
+        InMemoryDriver drv = driver();
+        drv.setDumpCompressor(compressor);
+        Date date = new Date(1234567890L);
+        UUID uuid = UUID.randomUUID();
+        MorphiumId id = new MorphiumId();
+        drv.store(DB, "types", List.of(Doc.of("_id", id, "int", 42, "long", 42L, "date", date, "uuid", uuid, "bin", new byte[] {1, 2, 3}),
+                                       Doc.of("_id", 2, "nested", Doc.of("list", List.of(1, "two", 3.0)), "nil", null)), null);
+        List<Map<String, Object>> many = new ArrayList<>();
+
+        // several blocks
+        for (int i = 0; i < 30_000; i++) {
+            many.add(Doc.of("_id", i, "text", "some text to fill the blocks " + i));
+        }
+
+        drv.store(DB, "many", many, null);
+        drv.store(DB, "empty", List.of(Doc.of("_id", 1)), null);
+        drv.delete(DB, "empty", Doc.of("_id", 1), null, false, null, null);
+        File f = new File(dir, DB + InMemoryDriver.BSON_DUMP_SUFFIX);
+        drv.snapshotToFile(DB, f);
+
+        InMemoryDriver restored = driver();
+        restored.restoreFromFile(f);
+        Map<String, Object> doc = restored.find(DB, "types", Doc.of("_id", id), null, null, 0, 0).get(0);
+        assertEquals(42, doc.get("int"));
+        assertEquals(42L, doc.get("long"));
+        assertEquals(date, doc.get("date"));
+        assertEquals(uuid, doc.get("uuid"));
+        assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) doc.get("bin"));
+        Map<String, Object> doc2 = restored.find(DB, "types", Doc.of("_id", 2), null, null, 0, 0).get(0);
+        assertEquals(Doc.of("list", List.of(1, "two", 3.0)), doc2.get("nested"));
+        assertTrue(doc2.containsKey("nil"));
+
+        List<Map<String, Object>> manyRestored = restored.getDatabase(DB).get("many");
+        assertEquals(30_000, manyRestored.size());
+
+        for (int i = 0; i < manyRestored.size(); i++) {
+            assertEquals(i, manyRestored.get(i).get("_id"));
+        }
+
+        assertTrue(restored.exists(DB, "empty"));
+        assertEquals(0, restored.getDatabase(DB).get("empty").size());
+    }
+
+    @Test
+    public void indexesAndCappedSettingsAreRestored() throws Exception {
+        InMemoryDriver drv = driver();
+        drv.store(DB, "users", List.of(Doc.of("_id", 1, "email", "a@b.c"), Doc.of("_id", 2, "email", "d@e.f")), null);
+        drv.createIndex(DB, "users", Doc.of("email", 1), Doc.of("unique", true, "name", "email_unique"));
+        drv.registerCappedCollection(DB, "log", 100_000, 10);
+        drv.store(DB, "log", List.of(Doc.of("_id", 1)), null);
+        File f = new File(dir, DB + InMemoryDriver.BSON_DUMP_SUFFIX);
+        drv.snapshotToFile(DB, f);
+
+        InMemoryDriver restored = driver();
+        restored.restoreFromFile(f);
+        assertTrue(restored.getIndexes(DB, "users").stream().anyMatch(i -> i.containsKey("email")
+                   && "email_unique".equals(((Map<?, ?>) i.get("$options")).get("name"))));
+        try {
+            restored.insert(DB, "users", List.of(Doc.of("_id", 3, "email", "a@b.c")), null);
+        } catch (RuntimeException e) {
+            // reported as write error or thrown, depending on the write concern
+        }
+
+        assertEquals(1, restored.find(DB, "users", Doc.of("email", "a@b.c"), null, null, 0, 0).size(),
+                     "the unique index must be enforced after the restore");
+        assertEquals(1, restored.find(DB, "users", Doc.of("email", "d@e.f"), null, null, 0, 0).size());
+        assertTrue(restored.isCapped(DB, "log"));
+    }
+
+    @Test
+    public void directoryWithBothFormats() throws Exception {
+        InMemoryDriver drv = driver();
+        drv.store("jsondb", "c", List.of(Doc.of("_id", 1, "v", "json")), null);
+        drv.dumpAllToDirectory(dir);
+        assertTrue(new File(dir, "jsondb" + InMemoryDriver.JSON_DUMP_SUFFIX).exists());
+
+        InMemoryDriver bsonDrv = driver();
+        bsonDrv.setDumpFormat(InMemoryDriver.DumpFormat.BSON);
+        bsonDrv.store("bsondb", "c", List.of(Doc.of("_id", 1, "v", "bson")), null);
+        bsonDrv.store("bsondb2", "c", List.of(Doc.of("_id", 1, "v", "bson2")), null);
+        bsonDrv.snapshotToFile("bsondb", new File(dir, "bsondb" + InMemoryDriver.BSON_DUMP_SUFFIX));
+        bsonDrv.snapshotToFile("bsondb2", new File(dir, "bsondb2" + InMemoryDriver.BSON_DUMP_SUFFIX));
+
+        InMemoryDriver restored = driver();
+        InMemoryDriver.DirectoryRestoreResult res = restored.restoreAllFromDirectoryResult(dir);
+        assertTrue(res.isComplete(), () -> "failed: " + res.getFailedFiles());
+        assertEquals("json", restored.getDatabase("jsondb").get("c").get(0).get("v"));
+        assertEquals("bson", restored.getDatabase("bsondb").get("c").get(0).get("v"));
+        assertEquals("bson2", restored.getDatabase("bsondb2").get("c").get(0).get("v"));
+
+        // switching the format replaces the dump in the old one
+        restored.setDumpFormat(InMemoryDriver.DumpFormat.BSON);
+        restored.dumpAllToDirectory(dir);
+        assertFalse(new File(dir, "jsondb" + InMemoryDriver.JSON_DUMP_SUFFIX).exists());
+        assertTrue(new File(dir, "jsondb" + InMemoryDriver.BSON_DUMP_SUFFIX).exists());
+    }
+
+    @Test
+    public void damagedSnapshotFailsOnlyItsDatabase() throws Exception {
+        InMemoryDriver drv = driver();
+        drv.setDumpFormat(InMemoryDriver.DumpFormat.BSON);
+        drv.store("good", "c", List.of(Doc.of("_id", 1)), null);
+        drv.store("bad", "c", List.of(Doc.of("_id", 1, "v", "some value")), null);
+        drv.dumpAllToDirectory(dir);
+
+        File bad = new File(dir, "bad" + InMemoryDriver.BSON_DUMP_SUFFIX);
+
+        try (RandomAccessFile raf = new RandomAccessFile(bad, "rw")) {
+            // a bit flip in the last block, the checksum catches it
+            raf.seek(raf.length() - 8);
+            int b = raf.read();
+            raf.seek(raf.length() - 8);
+            raf.write(b ^ 0xff);
+        }
+
+        InMemoryDriver restored = driver();
+        InMemoryDriver.DirectoryRestoreResult res = restored.restoreAllFromDirectoryResult(dir);
+        assertEquals(List.of(bad.getName()), res.getFailedFiles());
+        assertEquals(1, restored.getDatabase("good").get("c").size());
+    }
+
+    @Test
+    public void checkpointInBsonFormat() throws Exception {
+        File checkpoint = new File(dir, "checkpoint");
+        File walDir = new File(dir, "wal");
+        InMemoryDriver drv = driver();
+        drv.setDumpFormat(InMemoryDriver.DumpFormat.BSON);
+        drv.store(DB, "items", List.of(Doc.of("_id", 1, "v", 1)), null);
+        drv.createIndex(DB, "items", Doc.of("v", 1), Doc.of());
+        WriteAheadLog wal = new WriteAheadLog(walDir, 0);
+        drv.setWriteAheadLog(wal);
+        assertEquals(1, drv.checkpoint(checkpoint));
+        assertTrue(new File(checkpoint, DB + "/items" + InMemoryDriver.BSON_DUMP_SUFFIX).exists());
+        drv.store(DB, "items", List.of(Doc.of("_id", 2, "v", 2)), null);
+        wal.close();
+
+        InMemoryDriver restored = driver();
+        assertTrue(restored.recoverFromCheckpoint(checkpoint, walDir).isComplete());
+        assertEquals(2, restored.getDatabase(DB).get("items").size());
+        assertTrue(restored.getIndexes(DB, "items").stream().anyMatch(i -> i.containsKey("v")));
+    }
+}
@@ -0,0 +1,161 @@
+package de.caluga.test.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.DriverTailableIterationCallback;
+import de.caluga.morphium.driver.MorphiumDriverException;
+import de.caluga.morphium.driver.commands.WatchCommand;
+import de.caluga.morphium.driver.inmem.ChangeStreamLog;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import de.caluga.morphium.driver.wire.MongoConnection;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Disk-backed replay log: events evicted from the in-memory replay buffer stay resumable until
+ * the log's retention removes them.
+ */
+@Tag("inmemory")
+public class ChangeStreamLogTest {
+    private static final String DB = "cslogtest";
+    private static final String COLL = "events";
+
+    @TempDir
+    File dir;
+
+    private static InMemoryDriver driver(int historyLimit) {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        drv.setChangeStreamHistoryLimit(historyLimit);
+        return drv;
+    }
+
+    private static void insert(InMemoryDriver drv, int id) {
+        drv.store(DB, COLL, List.of(Doc.of("_id", id, "v", "value " + id)), null);
+    }
+
+    private static Map<String, Object> resumeToken(long token) {
+        return Doc.of("_data", String.format(Locale.ROOT, "%016x", token));
+    }
+
+    /** resumed watch collecting the delivered ids until {@code expected} arrived; the terminal error or null */
+    private static MorphiumDriverException watch(InMemoryDriver drv, long resumeAfter, List<Object> ids, int expected) {
+        MongoConnection con = drv.getPrimaryConnection(null);
+        long deadline = System.currentTimeMillis() + 3000;
+        WatchCommand cmd = new WatchCommand(con).setDb(DB).setColl(COLL).setMaxTimeMS(100)
+        .setResumeAfter(resumeToken(resumeAfter))
+        .setCb(new DriverTailableIterationCallback() {
+            @Override
+            public void incomingData(Map<String, Object> data, long dur) {
+                ids.add(((Map<?, ?>) data.get("documentKey")).get("_id"));
+            }
+
+            @Override
+            public boolean isContinued() {
+                return ids.size() < expected && System.currentTimeMillis() < deadline;
+            }
+        });
+
+        try {
+            cmd.watch();
+            return null;
+        } catch (MorphiumDriverException e) {
+            return e;
+        } finally {
+            cmd.releaseConnection();
+        }
+    }
+
+    @Test
+    public void resumeOlderThanTheHeapWindowIsReplayedFromDisk() throws Exception {
+        InMemoryDriver drv = driver(10);
+
+        try (ChangeStreamLog log = new ChangeStreamLog(dir, 64L * 1024 * 1024, 0)) {
+            drv.setChangeStreamLog(log);
+            insert(drv, 0);
+            long token = drv.getChangeStreamSequence();
+
+            for (int i = 1; i <= 500; i++) {
+                insert(drv, i);
+            }
+
+            assertEquals(10, drv.getChangeStreamHistorySize());
+            assertEquals(491, log.getEvents());
+            assertTrue(drv.canResumeChangeStream(token));
+
+            List<Object> ids = Collections.synchronizedList(new ArrayList<>());
+            assertNull(watch(drv, token, ids, 500));
+            List<Object> expected = new ArrayList<>();
+
+            for (int i = 1; i <= 500; i++) {
+                expected.add(i);
+            }
+
+            assertEquals(expected, ids, "disk and heap part in order, without gaps or duplicates");
+        } finally {
+            drv.close();
+        }
+    }
+
+    @Test
+    public void retentionEndsTheResumeWindow() throws Exception {
+        InMemoryDriver drv = driver(10);
+
+        // small segments and budget, the oldest segments are removed while writing
+        try (ChangeStreamLog log = new ChangeStreamLog(dir, 200_000, 0)) {
+            drv.setChangeStreamLog(log);
+            insert(drv, 0);
+            long token = drv.getChangeStreamSequence();
+
+            for (int i = 1; i <= 2000; i++) {
+                insert(drv, i);
+            }
+
+            assertTrue(log.getDiscardedUpTo() > token);
+            assertFalse(drv.canResumeChangeStream(token));
+            long recent = drv.getChangeStreamSequence() - 20;
+            assertTrue(drv.canResumeChangeStream(recent), "the recent part is still logged");
+
+            MorphiumDriverException err = watch(drv, token, Collections.synchronizedList(new ArrayList<>()), 2000);
+            assertNotNull(err, "a resume across a removed segment must fail");
+            assertTrue(err.getMessage().contains("ChangeStreamHistoryLost"), err.getMessage());
+        } finally {
+            drv.close();
+        }
+    }
+
+    @Test
+    public void segmentsAreRemovedOnCloseAndReset() throws Exception {
+        InMemoryDriver drv = driver(2);
+        ChangeStreamLog log = new ChangeStreamLog(dir, 1024 * 1024, 0);
+        drv.setChangeStreamLog(log);
+
+        for (int i = 0; i < 20; i++) {
+            insert(drv, i);
+        }
+
+        assertEquals(18, log.getEvents());
+        drv.resetData();
+        assertEquals(0, log.getEvents());
+
+        insert(drv, 1);
+        log.close();
+        File[] left = dir.listFiles();
+        assertNotNull(left);
+        assertEquals(0, left.length);
+        drv.close();
+    }
+}
@@ -0,0 +1,116 @@
+package de.caluga.test.morphium.driver.inmem;
+
+import de.caluga.morphium.aggregation.Expr;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.inmem.CompiledExpr;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Differential harness for {@link CompiledExpr} vs the interpreted {@code Expr.parse(e).evaluate(doc)}:
+ * every expression must give the same result on every document.
+ */
+@Tag("inmemory")
+public class CompiledExprTest {
+
+    private static final List<Map<String, Object>> DOCS = List.of(
+                Doc.of("a", 5, "s", "abc", "arr", List.of(1, 2, 3), "b", Doc.of("c", 7), "camel_case", "cc"),
+                Doc.of("a", 1, "s", "xyz", "arr", List.of(), "b", Doc.of("c", -1)),
+                Doc.of("a", 12.5, "s", "", "arr", List.of(4), "b", Doc.of()));
+
+    private static List<Object> expressions() {
+        return List.of(
+                   "$a", "$b.c", "$arr.1", "$arr.x", "$missing", "$camelCase", "plain", 42,
+                   Doc.of("$add", List.of("$a", 2)),
+                   Doc.of("$subtract", List.of("$a", Doc.of("$multiply", List.of(2, 3)))),
+                   Doc.of("$cond", List.of(Doc.of("$gt", List.of("$a", 3)), "big", "small")),
+                   Doc.of("$concat", List.of("$s", "-", "x")),
+                   Doc.of("$toUpper", "$s"),
+                   Doc.of("$ifNull", List.of("$missing", "dflt")),
+                   Doc.of("$size", "$arr"),
+                   Doc.of("$map", Doc.of("input", "$arr", "as", "x", "in", Doc.of("$add", List.of("$$x", 1)))),
+                   Doc.of("$and", List.of(Doc.of("$gt", List.of("$a", 1)), Doc.of("$lt", List.of("$a", 10)))),
+                   Doc.of("$eq", List.of("$s", "abc")),
+                   Doc.of("x", "$a", "y", Doc.of("$add", List.of(1, 2))),
+                   List.of("$a", 1, Doc.of("$add", List.of(1, 1))));
+    }
+
+    @TestFactory
+    List<DynamicTest> sameAsInterpreted() {
+        List<DynamicTest> tests = new ArrayList<>();
+
+        for (Object e : expressions()) {
+            tests.add(DynamicTest.dynamicTest(String.valueOf(e), () -> {
+                CompiledExpr compiled = CompiledExpr.compile(e);
+
+                for (Map<String, Object> doc : DOCS) {
+                    assertEquals(Expr.parse(e).evaluate(doc), compiled.evaluate(doc), () -> e + " on " + doc);
+                }
+
+                assertEquals(e, compiled.toQueryObject());
+            }));
+        }
+
+        return tests;
+    }
+
+    @Test
+    void constantsAreFolded() {
+        CompiledExpr sum = CompiledExpr.compile(Doc.of("$add", List.of(1, Doc.of("$multiply", List.of(2, 3)))));
+        assertTrue(sum.isConstant());
+        assertEquals(7.0, ((Number) sum.evaluate(Doc.of())).doubleValue());
+        assertFalse(CompiledExpr.compile(Doc.of("$add", List.of("$a", 1))).isConstant());
+        assertFalse(CompiledExpr.compile(Doc.of("$rand", Doc.of())).isConstant());
+        // mutable results are not shared between documents
+        CompiledExpr arr = CompiledExpr.compile(Doc.of("$concatArrays", List.of(List.of(1), List.of(2))));
+        assertFalse(arr.isConstant());
+        assertNotSame(arr.evaluate(Doc.of()), arr.evaluate(Doc.of()));
+    }
+
+    /**
+     * Perf assertion (loose bound, no JMH): evaluating a compiled expression over 20k docs must be at
+     * least 2x faster than parsing and evaluating it per document, with the identical result.
+     */
+    @Test
+    void compiledIsAtLeastTwiceAsFastAsInterpreted() {
+        final int n = 20_000;
+        List<Map<String, Object>> docs = new ArrayList<>(n);
+
+        for (int i = 0; i < n; i++) {
+            docs.add(Doc.of("a", i, "b", Doc.of("c", i % 7)));
+        }
+
+        Map<String, Object> expr = Doc.of("$cond", List.of(Doc.of("$gt", List.of("$b.c", 3)),
+                                          Doc.of("$add", List.of("$a", Doc.of("$multiply", List.of(2, 3)))), 0));
+        double interpretedSum = 0;
+        double compiledSum = 0;
+        long start = System.nanoTime();
+
+        for (Map<String, Object> d : docs) {
+            interpretedSum += ((Number) Expr.parse(expr).evaluate(d)).doubleValue();
+        }
+
+        long interpreted = System.nanoTime() - start;
+        start = System.nanoTime();
+        CompiledExpr compiled = CompiledExpr.compile(expr);
+
+        for (Map<String, Object> d : docs) {
+            compiledSum += ((Number) compiled.evaluate(d)).doubleValue();
+        }
+
+        long compiledTime = System.nanoTime() - start;
+        assertEquals(interpretedSum, compiledSum);
+        assertTrue(compiledTime * 2 < interpreted, () -> "compiled " + compiledTime / 1_000_000 + "ms, interpreted " + interpreted / 1_000_000 + "ms");
+    }
+}
@@ -0,0 +1,192 @@
+package de.caluga.test.morphium.driver.inmem;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.RenameCollectionCommand;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import de.caluga.morphium.driver.inmem.WriteAheadLog;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Write-ahead log and incremental checkpoints: after a "crash" (the driver is simply dropped) a
+ * fresh driver recovers the last checkpoint plus the log to the same state.
+ */
+@Tag("inmemory")
+public class WriteAheadLogTest {
+    private static final String DB = "waltest";
+
+    @TempDir
+    File dir;
+
+    private File checkpointDir() {
+        return new File(dir, "checkpoint");
+    }
+
+    private File walDir() {
+        return new File(dir, "wal");
+    }
+
+    private InMemoryDriver recovered() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        assertTrue(drv.recoverFromCheckpoint(checkpointDir(), walDir()).isComplete());
+        return drv;
+    }
+
+    /** collection to documents by _id - as string, the JSON checkpoint files restore ints as longs */
+    private static String content(InMemoryDriver drv) {
+        Map<String, Map<Object, Map<String, Object>>> ret = new TreeMap<>();
+        Map<String, List<Map<String, Object>>> db = drv.getDatabase(DB);
+
+        if (db != null) {
+            db.forEach((coll, docs) -> {
+                Map<Object, Map<String, Object>> byId = new TreeMap<>(Comparator.comparing(Object::toString));
+                new ArrayList<>(docs).forEach(d -> byId.put(d.get("_id"), d));
+                ret.put(coll, byId);
+            });
+        }
+
+        return ret.toString();
+    }
+
+    @Test
+    public void replaysTheLogAfterACrash() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        WriteAheadLog wal = new WriteAheadLog(walDir(), 0);
+        drv.setWriteAheadLog(wal);
+
+        for (int i = 0; i < 20; i++) {
+            drv.store(DB, "items", List.of(Doc.of("_id", i, "v", i)), null);
+        }
+
+        drv.update(DB, "items", Doc.of("v", Doc.of("$lt", 5)), null, Doc.of("$set", Doc.of("small", true)), true, false, null, null);
+        drv.delete(DB, "items", Doc.of("_id", 7), null, false, null, null);
+        drv.insert(DB, "gone", List.of(Doc.of("_id", "x")), null);
+        drv.drop(DB, "gone", null);
+        drv.insert(DB, "old", List.of(Doc.of("_id", "r", "name", "renamed")), null);
+        drv.runCommand(new RenameCollectionCommand(drv).setDb(DB).setColl("old").setTo("new"));
+        drv.startTransaction(false);
+        drv.insert(DB, "tx", List.of(Doc.of("_id", 1, "committed", true)), null);
+        drv.commitTransaction();
+        String expected = content(drv);
+        // no checkpoint, no clean shutdown
+        wal.close();
+
+        InMemoryDriver restored = recovered();
+        assertEquals(expected, content(restored));
+        assertEquals(19, restored.getDatabase(DB).get("items").size());
+        assertFalse(restored.exists(DB, "gone"));
+        assertFalse(restored.exists(DB, "old"));
+        assertEquals(1, restored.getDatabase(DB).get("tx").size());
+    }
+
+    @Test
+    public void checkpointRewritesOnlyChangedCollections() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+
+        // data from before the log was attached is in the first, full checkpoint
+        for (int i = 0; i < 10; i++) {
+            drv.store(DB, "a", List.of(Doc.of("_id", i)), null);
+            drv.store(DB, "b", List.of(Doc.of("_id", i)), null);
+        }
+
+        WriteAheadLog wal = new WriteAheadLog(walDir(), 0);
+        drv.setWriteAheadLog(wal);
+        assertEquals(2, drv.checkpoint(checkpointDir()));
+        File b = new File(checkpointDir(), DB + "/b.morphium.gz");
+        long bModified = b.lastModified();
+        assertTrue(b.setLastModified(bModified - 10_000));
+
+        drv.store(DB, "a", List.of(Doc.of("_id", 100)), null);
+        assertEquals(1, drv.checkpoint(checkpointDir()));
+        assertEquals(bModified - 10_000, b.lastModified(), "unchanged collection must not be rewritten");
+        // segments before the checkpoint are removed, the new one is empty
+        assertEquals(1, walDir().list().length);
+
+        drv.store(DB, "b", List.of(Doc.of("_id", 100)), null);
+        drv.drop(DB, "a", null);
+        String expected = content(drv);
+        wal.close();
+
+        InMemoryDriver restored = recovered();
+        assertEquals(expected, content(restored));
+
+        // the drop is checkpointed as a removed file
+        WriteAheadLog wal2 = new WriteAheadLog(walDir(), 0);
+        restored.setWriteAheadLog(wal2);
+        restored.checkpoint(checkpointDir());
+        wal2.close();
+        assertFalse(new File(checkpointDir(), DB + "/a.morphium.gz").exists());
+    }
+
+    @Test
+    public void tornTailIsIgnored() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        WriteAheadLog wal = new WriteAheadLog(walDir(), 0);
+        drv.setWriteAheadLog(wal);
+        drv.store(DB, "items", List.of(Doc.of("_id", 1, "v", "kept")), null);
+        wal.close();
+
+        File[] segments = walDir().listFiles();
+        assertEquals(1, segments.length);
+
+        // a record that was only half written when the process died
+        try (FileOutputStream out = new FileOutputStream(segments[0], true)) {
+            out.write(new byte[] {0, 0, 0, 100, 1, 2, 3});
+        }
+
+        InMemoryDriver restored = recovered();
+        assertEquals(1, restored.getDatabase(DB).get("items").size());
+
+        // writing continues in a new segment, the torn one is replayed up to the damage
+        WriteAheadLog wal2 = new WriteAheadLog(walDir(), 0);
+        restored.setWriteAheadLog(wal2);
+        restored.store(DB, "items", List.of(Doc.of("_id", 2)), null);
+        wal2.close();
+        assertEquals(2, walDir().list().length);
+        assertEquals(2, recovered().getDatabase(DB).get("items").size());
+    }
+
+    @Test
+    public void groupCommitWithInterval() throws Exception {
+        InMemoryDriver drv = new InMemoryDriver();
+        drv.connect();
+        WriteAheadLog wal = new WriteAheadLog(walDir(), 50);
+        drv.setWriteAheadLog(wal);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            final int base = t * 1000;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 250; i++) {
+                    drv.store(DB, "items", List.of(Doc.of("_id", base + i)), null);
+                }
+            }));
+        }
+
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        // close forces what the committer did not yet
+        wal.close();
+        InMemoryDriver restored = recovered();
+        assertEquals(1000, restored.getDatabase(DB).get("items").size());
+    }
+}
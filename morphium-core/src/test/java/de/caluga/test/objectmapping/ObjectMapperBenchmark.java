@@ -0,0 +1,172 @@
+package de.caluga.test.objectmapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.ObjectMapperImpl;
+import de.caluga.morphium.annotations.Embedded;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.Property;
+import de.caluga.morphium.driver.MorphiumId;
+
+/**
+ * Throughput of {@link ObjectMapperImpl} for a few entity shapes: a result set of 10.000
+ * documents is serialized and deserialized, the best of several rounds is logged as
+ * <pre>mapper shape=flat op=deserialize docs/s=...</pre>
+ * Only uses the public mapper API - checkout an older revision and run it there to compare.
+ * <p>
+ * Not part of the regular test run, start with
+ * {@code mvn test -pl morphium-core -Dtest=ObjectMapperBenchmark -Dtest.excludeTags=none}
+ */
+@Tag("benchmark")
+public class ObjectMapperBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(ObjectMapperBenchmark.class);
+    private static final int DOCS = 10_000;
+    private static final int ROUNDS = 15;
+
+    @Test
+    public void flat() {
+        run("flat", FlatEntity.class, i -> {
+            FlatEntity e = new FlatEntity();
+            e.id = new MorphiumId();
+            e.counter = i;
+            e.value = "value " + i;
+            e.longValue = i * 1000L;
+            e.doubleValue = i / 3.0;
+            e.flag = i % 2 == 0;
+            e.created = new Date();
+            return e;
+        });
+    }
+
+    @Test
+    public void wide() {
+        run("wide", WideEntity.class, i -> {
+            WideEntity e = new WideEntity();
+            e.id = new MorphiumId();
+            e.s1 = e.s2 = e.s3 = e.s4 = e.s5 = e.s6 = e.s7 = e.s8 = "str " + i;
+            e.i1 = e.i2 = e.i3 = e.i4 = e.i5 = e.i6 = e.i7 = e.i8 = i;
+            e.l1 = e.l2 = e.l3 = e.l4 = e.l5 = e.l6 = e.l7 = e.l8 = (long) i;
+            e.d1 = e.d2 = e.d3 = e.d4 = e.d5 = e.d6 = e.d7 = e.d8 = i;
+            return e;
+        });
+    }
+
+    @Test
+    public void nested() {
+        run("nested", NestedEntity.class, i -> {
+            NestedEntity e = new NestedEntity();
+            e.id = new MorphiumId();
+            e.name = "nested " + i;
+            e.main = new Part("main", i);
+            e.parts = new ArrayList<>();
+            e.byName = new HashMap<>();
+
+            for (int p = 0; p < 5; p++) {
+                e.parts.add(new Part("part" + p, p));
+                e.byName.put("k" + p, new Part("mapped" + p, p));
+            }
+
+            e.tags = List.of("a", "b", "c");
+            return e;
+        });
+    }
+
+    private <T> void run(String shape, Class<T> type, IntFunction<T> factory) {
+        ObjectMapperImpl om = new ObjectMapperImpl();
+        List<T> objects = new ArrayList<>(DOCS);
+
+        for (int i = 0; i < DOCS; i++) {
+            objects.add(factory.apply(i));
+        }
+
+        List<Map<String, Object>> docs = new ArrayList<>(DOCS);
+        long bestSerialize = Long.MAX_VALUE;
+        long bestDeserialize = Long.MAX_VALUE;
+
+        for (int r = 0; r < ROUNDS; r++) {
+            docs.clear();
+            long start = System.nanoTime();
+
+            for (T o : objects) {
+                docs.add(om.serialize(o));
+            }
+
+            bestSerialize = Math.min(bestSerialize, System.nanoTime() - start);
+            start = System.nanoTime();
+            int count = 0;
+
+            for (Map<String, Object> d : docs) {
+                if (om.deserialize(type, d) != null) {
+                    count++;
+                }
+            }
+
+            bestDeserialize = Math.min(bestDeserialize, System.nanoTime() - start);
+            assertEquals(DOCS, count);
+        }
+
+        log.info("mapper shape={} op=serialize docs/s={}", shape, DOCS * 1_000_000_000L / bestSerialize);
+        log.info("mapper shape={} op=deserialize docs/s={}", shape, DOCS * 1_000_000_000L / bestDeserialize);
+    }
+
+    @Entity
+    public static class FlatEntity {
+        @Id
+        public MorphiumId id;
+        public int counter;
+        @Property(fieldName = "str_value")
+        public String value;
+        public long longValue;
+        public double doubleValue;
+        public boolean flag;
+        public Date created;
+    }
+
+    @Entity
+    public static class WideEntity {
+        @Id
+        public MorphiumId id;
+        public String s1, s2, s3, s4, s5, s6, s7, s8;
+        public int i1, i2, i3, i4, i5, i6, i7, i8;
+        public Long l1, l2, l3, l4, l5, l6, l7, l8;
+        public double d1, d2, d3, d4, d5, d6, d7, d8;
+    }
+
+    @Entity
+    public static class NestedEntity {
+        @Id
+        public MorphiumId id;
+        public String name;
+        public Part main;
+        public List<Part> parts;
+        public Map<String, Part> byName;
+        public List<String> tags;
+    }
+
+    @Embedded
+    public static class Part {
+        public String label;
+        public int weight;
+
+        public Part() {
+        }
+
+        public Part(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+}
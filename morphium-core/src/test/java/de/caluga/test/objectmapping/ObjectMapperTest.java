@@ -1,6 +1,7 @@
 package de.caluga.test.objectmapping;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.Serializable;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
@@ -22,8 +24,11 @@ import de.caluga.morphium.AnnotationAndReflectionHelper;
 import de.caluga.morphium.Utils;
 import de.caluga.morphium.annotations.Entity;
 import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.ReadOnly;
 import de.caluga.morphium.driver.MorphiumId;
 import de.caluga.morphium.messaging.Msg;
+import de.caluga.morphium.objectmapping.FieldAccessorRegistry;
+import de.caluga.morphium.objectmapping.GeneratedFieldAccessor;
 import de.caluga.morphium.objectmapping.MorphiumObjectMapper;
 import de.caluga.morphium.ObjectMapperImpl;
 import de.caluga.test.mongo.suite.base.BasicFunctionalityTest.ListOfIdsContainer;
@@ -207,6 +212,91 @@ public class ObjectMapperTest {
         }
     }
 
+    @Test
+    public void fieldAccessTest() {
+        var om = new ObjectMapperImpl();
+        AccessTestEntity e = new AccessTestEntity("fixed");
+        e.id = new MorphiumId();
+        e.counter = 42;
+        e.readOnly = "not stored";
+        Map<String, Object> m = om.serialize(e);
+        assertEquals("fixed", m.get("final_value"));
+        assertEquals(42L, m.get("counter"));
+        assertFalse(m.containsKey("read_only"));
+        assertFalse(m.containsKey("CONSTANT"));
+        assertFalse(m.containsKey("constant"));
+
+        // values that do not fit the field type are converted, null keeps primitives untouched
+        m.put("counter", 17);
+        m.put("final_value", "changed");
+        m.put("primitive", null);
+        m.put("read_only", "from db");
+        AccessTestEntity read = om.deserialize(AccessTestEntity.class, m);
+        assertEquals(e.id, read.id);
+        assertEquals(17L, read.counter);
+        assertEquals("changed", read.finalValue);
+        assertEquals(5, read.primitive);
+        assertEquals("from db", read.readOnly);
+        assertEquals("constant", AccessTestEntity.CONSTANT);
+    }
+
+    @Test
+    public void generatedAccessorTest() {
+        AtomicInteger calls = new AtomicInteger();
+        FieldAccessorRegistry.register(new GeneratedFieldAccessor() {
+            @Override
+            public Class<?> getDeclaringClass() {
+                return AccessorEntity.class;
+            }
+
+            @Override
+            public String[] getFieldNames() {
+                return new String[] {"value", "counter"};
+            }
+
+            @Override
+            public Object get(Object target, int field) {
+                calls.incrementAndGet();
+                AccessorEntity e = (AccessorEntity) target;
+                return field == 0 ? e.value : (Object) e.counter;
+            }
+
+            @Override
+            public void set(Object target, int field, Object value) {
+                calls.incrementAndGet();
+                AccessorEntity e = (AccessorEntity) target;
+
+                if (field == 0) {
+                    e.value = (String) value;
+                } else {
+                    e.counter = (Integer) value;
+                }
+            }
+        });
+
+        try {
+            var om = new ObjectMapperImpl();
+            AccessorEntity e = new AccessorEntity();
+            e.id = new MorphiumId();
+            e.value = "generated";
+            e.counter = 3;
+            Map<String, Object> m = om.serialize(e);
+            assertEquals(2, calls.get());
+            assertEquals("generated", m.get("value"));
+            assertEquals(3, m.get("counter"));
+
+            // a long from the db does not fit - converted like with reflective access
+            m.put("counter", 7L);
+            AccessorEntity read = om.deserialize(AccessorEntity.class, m);
+            assertEquals("generated", read.value);
+            assertEquals(7, read.counter);
+            assertEquals(e.id, read.id);
+            assertTrue(calls.get() >= 4);
+        } finally {
+            FieldAccessorRegistry.clear();
+        }
+    }
+
     @Entity
     public static class TestClassContainer {
         @Id
@@ -218,6 +308,34 @@ public class ObjectMapperTest {
 
     }
 
+    @Entity
+    public static class AccessTestEntity {
+        public static String CONSTANT = "constant";
+        @Id
+        public MorphiumId id;
+        private final String finalValue;
+        public long counter;
+        public int primitive = 5;
+        @ReadOnly
+        public String readOnly;
+
+        private AccessTestEntity() {
+            finalValue = null;
+        }
+
+        public AccessTestEntity(String finalValue) {
+            this.finalValue = finalValue;
+        }
+    }
+
+    @Entity
+    public static class AccessorEntity {
+        @Id
+        public MorphiumId id;
+        public String value;
+        public int counter;
+    }
+
     @Entity(collectionName = "dot.class")
     public static class DotClass {
         @Id
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 /**
@@ -39,21 +40,11 @@ public final class QueryExecutor {
      * @param repo       the repository instance (provides Morphium + metadata)
      * @return the query result (List, single entity, long, boolean, or Stream)
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
+    @SuppressWarnings("rawtypes")
     public static Object execute(QueryDescriptor descriptor,
                                  Object[] args,
                                  AbstractMorphiumRepository<?, ?> repo) {
-        Morphium morphium = repo.getMorphium();
-        Class entityClass = repo.getMetadata().entityClass();
-        Query query = morphium.createQueryFor(entityClass);
-
-        // Apply conditions
-        applyConditions(query, descriptor, args, morphium, entityClass);
-
-        // Apply sorting
-        if (descriptor.orderBy() != null && !descriptor.orderBy().isEmpty()) {
-            applySorting(query, descriptor.orderBy(), morphium, entityClass);
-        }
+        Query query = buildQuery(descriptor, args, repo);
 
         // Execute based on prefix
         return switch (descriptor.prefix()) {
@@ -65,28 +56,88 @@ public final class QueryExecutor {
             };
             case COUNT -> query.countAll();
             case EXISTS -> query.countAll() > 0;
-            // Uses bulk deleteMany — does NOT fire @PreRemove/@PostRemove lifecycle
-            // callbacks. This is intentional for performance (avoids loading all entities
-            // into memory). Entities requiring lifecycle hooks should use Morphium.delete()
-            // directly instead of derived deleteBy* methods.
-            //
-            // The returned count is read from the "n" key of the MongoDB delete-command
-            // result map (matches wire-protocol convention; see InMemoryDriver.delete() and
-            // AliasesTest, which read the analogous store-result the same way). If for any
-            // reason the driver's result map does not contain a numeric "n" entry, we fall
-            // back to a pre-delete countAll(); in that fallback path there is a narrow
-            // concurrency window between the count and the actual delete where concurrent
-            // inserts/deletes on the same query could make the returned number slightly
-            // inaccurate.
-            case DELETE -> {
-                long preCount = query.countAll();
-                Map<String, Object> deleteResult = query.delete();
-                Object n = deleteResult == null ? null : deleteResult.get("n");
-                yield (n instanceof Number) ? ((Number) n).longValue() : preCount;
-            }
+            case DELETE -> deleteAndCount(query);
         };
     }
 
+    /**
+     * Asynchronous variant of {@link #execute}. The query is built on the calling thread, so
+     * invalid arguments fail the returned stage right away. Find, count and exists read through the
+     * {@code ...Async} methods of {@link Query}, which are non-blocking only on multiplexed
+     * connections (see {@link Query#asListAsync()}) and a blocking read on Morphium's async
+     * operations pool otherwise. The rest is not non-blocking I/O: a delete runs the blocking
+     * {@link #execute} path on the repository's async executor, and a {@code Stream} result
+     * completes immediately - its cursor is opened, and read blocking, on the thread consuming it.
+     *
+     * @param descriptor the parsed query
+     * @param args       the method arguments
+     * @param repo       the repository instance (provides Morphium + metadata)
+     * @return a future yielding the same result {@link #execute} returns
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static CompletableFuture<Object> executeAsync(QueryDescriptor descriptor,
+                                                         Object[] args,
+                                                         AbstractMorphiumRepository<?, ?> repo) {
+        Query query;
+
+        try {
+            query = buildQuery(descriptor, args, repo);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<?> result = switch (descriptor.prefix()) {
+            case FIND -> switch (descriptor.returnType()) {
+                case SINGLE -> query.limit(2).asListAsync().thenApply(l -> QueryResultHelper.requireSingle((List) l));
+                case OPTIONAL -> query.limit(2).asListAsync().thenApply(l -> QueryResultHelper.optionalSingle((List) l));
+                case STREAM -> CompletableFuture.completedFuture(query.stream());
+                default -> query.asListAsync();
+            };
+            case COUNT -> query.countAllAsync();
+            case EXISTS -> query.countAllAsync().thenApply(c -> (Long) c > 0);
+            case DELETE -> CompletableFuture.supplyAsync(() -> deleteAndCount(query), repo.getAsyncExecutor());
+        };
+        return (CompletableFuture<Object>) result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Query buildQuery(QueryDescriptor descriptor, Object[] args, AbstractMorphiumRepository<?, ?> repo) {
+        Morphium morphium = repo.getMorphium();
+        Class entityClass = repo.getMetadata().entityClass();
+        Query query = morphium.createQueryFor(entityClass);
+
+        // Apply conditions
+        applyConditions(query, descriptor, args, morphium, entityClass);
+
+        // Apply sorting
+        if (descriptor.orderBy() != null && !descriptor.orderBy().isEmpty()) {
+            applySorting(query, descriptor.orderBy(), morphium, entityClass);
+        }
+
+        return query;
+    }
+
+    // Uses bulk deleteMany — does NOT fire @PreRemove/@PostRemove lifecycle
+    // callbacks. This is intentional for performance (avoids loading all entities
+    // into memory). Entities requiring lifecycle hooks should use Morphium.delete()
+    // directly instead of derived deleteBy* methods.
+    //
+    // The returned count is read from the "n" key of the MongoDB delete-command
+    // result map (matches wire-protocol convention; see InMemoryDriver.delete() and
+    // AliasesTest, which read the analogous store-result the same way). If for any
+    // reason the driver's result map does not contain a numeric "n" entry, we fall
+    // back to a pre-delete countAll(); in that fallback path there is a narrow
+    // concurrency window between the count and the actual delete where concurrent
+    // inserts/deletes on the same query could make the returned number slightly
+    // inaccurate.
+    @SuppressWarnings("rawtypes")
+    private static long deleteAndCount(Query query) {
+        long preCount = query.countAll();
+        Map<String, Object> deleteResult = query.delete();
+        Object n = deleteResult == null ? null : deleteResult.get("n");
+        return (n instanceof Number) ? ((Number) n).longValue() : preCount;
+    }
+
     // Visible for testing — called directly by QueryExecutorAliasTest
     @SuppressWarnings({"unchecked", "rawtypes"})
     static void applyConditions(Query query,
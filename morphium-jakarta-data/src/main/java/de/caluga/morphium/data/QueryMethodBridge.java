@@ -239,51 +239,7 @@ public final class QueryMethodBridge {
                                       boolean returnsBoolean,
                                       boolean returnsStream,
                                       String orderBySpec) {
-        String cacheKey = repo.getMetadata().entityClass().getName() + "#" + methodName
-                + (orderBySpec.isEmpty() ? "" : "#" + orderBySpec);
-
-        QueryDescriptor descriptor = CACHE.computeIfAbsent(cacheKey, k -> {
-            QueryDescriptor parsed = MethodNameParser.parse(methodName, null);
-
-            // Merge method-name-derived OrderBy with @OrderBy annotation specs
-            if (!orderBySpec.isEmpty()) {
-                var mergedOrderBy = new ArrayList<>(parsed.orderBy());
-                mergedOrderBy.addAll(parseOrderBySpec(orderBySpec));
-                return new QueryDescriptor(
-                        parsed.prefix(),
-                        parsed.conditions(),
-                        parsed.combinator(),
-                        mergedOrderBy,
-                        parsed.returnType());
-            }
-            return parsed;
-        });
-
-        // Override return type if caller expects single, optional, or stream result
-        if (descriptor.prefix() == QueryDescriptor.Prefix.FIND) {
-            if (returnsOptional) {
-                descriptor = new QueryDescriptor(
-                        descriptor.prefix(),
-                        descriptor.conditions(),
-                        descriptor.combinator(),
-                        descriptor.orderBy(),
-                        QueryDescriptor.ReturnType.OPTIONAL);
-            } else if (returnsSingle) {
-                descriptor = new QueryDescriptor(
-                        descriptor.prefix(),
-                        descriptor.conditions(),
-                        descriptor.combinator(),
-                        descriptor.orderBy(),
-                        QueryDescriptor.ReturnType.SINGLE);
-            } else if (returnsStream) {
-                descriptor = new QueryDescriptor(
-                        descriptor.prefix(),
-                        descriptor.conditions(),
-                        descriptor.combinator(),
-                        descriptor.orderBy(),
-                        QueryDescriptor.ReturnType.STREAM);
-            }
-        }
+        QueryDescriptor descriptor = descriptorFor(repo, methodName, returnsSingle, returnsOptional, returnsStream, orderBySpec);
 
         Object result = QueryExecutor.execute(descriptor, args, repo);
 
@@ -320,8 +276,8 @@ public final class QueryMethodBridge {
 
     /**
      * Asynchronous variant of {@link #executeQuery(AbstractMorphiumRepository, String, Object[],
-     * boolean, boolean, boolean, boolean, String)}, running the query on the repository's async
-     * executor.
+     * boolean, boolean, boolean, boolean, String)}: the query is built on the calling thread and
+     * read via {@link QueryExecutor#executeAsync}, on the async operations pool of Morphium.
      *
      * @param repo            the repository instance (provides Morphium + metadata)
      * @param methodName      the repository method name (e.g. "findByStatus")
@@ -341,9 +297,16 @@ public final class QueryMethodBridge {
                                                              boolean returnsBoolean,
                                                              boolean returnsStream,
                                                              String orderBySpec) {
-        return CompletableFuture.supplyAsync(
-                () -> executeQuery(repo, methodName, args, returnsSingle, returnsOptional, returnsBoolean, returnsStream, orderBySpec),
-                repo.getAsyncExecutor());
+        QueryDescriptor descriptor;
+
+        try {
+            descriptor = descriptorFor(repo, methodName, returnsSingle, returnsOptional, returnsStream, orderBySpec);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return QueryExecutor.executeAsync(descriptor, args, repo)
+               .thenApply(result -> returnsBoolean && result instanceof Long count ? count > 0 : result);
     }
 
     /**
@@ -379,12 +342,75 @@ public final class QueryMethodBridge {
                                                              int orderParamIndex,
                                                              int pageRequestParamIndex,
                                                              int limitParamIndex) {
+        if (sortParamIndex < 0 && orderParamIndex < 0 && pageRequestParamIndex < 0 && limitParamIndex < 0) {
+            return executeQueryAsync(repo, methodName, args, returnsSingle, returnsOptional, returnsBoolean, returnsStream, orderBySpec);
+        }
+
         return CompletableFuture.supplyAsync(
                 () -> executeQuery(repo, methodName, args, returnsSingle, returnsOptional, returnsBoolean, returnsStream,
                         orderBySpec, sortParamIndex, orderParamIndex, pageRequestParamIndex, limitParamIndex),
                 repo.getAsyncExecutor());
     }
 
+    /**
+     * The cached descriptor of a derived query method, with the return type adjusted to the
+     * caller's declared return shape.
+     */
+    private static QueryDescriptor descriptorFor(AbstractMorphiumRepository<?, ?> repo,
+                                                 String methodName,
+                                                 boolean returnsSingle,
+                                                 boolean returnsOptional,
+                                                 boolean returnsStream,
+                                                 String orderBySpec) {
+        String cacheKey = repo.getMetadata().entityClass().getName() + "#" + methodName
+                + (orderBySpec.isEmpty() ? "" : "#" + orderBySpec);
+
+        QueryDescriptor descriptor = CACHE.computeIfAbsent(cacheKey, k -> {
+            QueryDescriptor parsed = MethodNameParser.parse(methodName, null);
+
+            // Merge method-name-derived OrderBy with @OrderBy annotation specs
+            if (!orderBySpec.isEmpty()) {
+                var mergedOrderBy = new ArrayList<>(parsed.orderBy());
+                mergedOrderBy.addAll(parseOrderBySpec(orderBySpec));
+                return new QueryDescriptor(
+                        parsed.prefix(),
+                        parsed.conditions(),
+                        parsed.combinator(),
+                        mergedOrderBy,
+                        parsed.returnType());
+            }
+            return parsed;
+        });
+
+        // Override return type if caller expects single, optional, or stream result
+        if (descriptor.prefix() == QueryDescriptor.Prefix.FIND) {
+            if (returnsOptional) {
+                descriptor = new QueryDescriptor(
+                        descriptor.prefix(),
+                        descriptor.conditions(),
+                        descriptor.combinator(),
+                        descriptor.orderBy(),
+                        QueryDescriptor.ReturnType.OPTIONAL);
+            } else if (returnsSingle) {
+                descriptor = new QueryDescriptor(
+                        descriptor.prefix(),
+                        descriptor.conditions(),
+                        descriptor.combinator(),
+                        descriptor.orderBy(),
+                        QueryDescriptor.ReturnType.SINGLE);
+            } else if (returnsStream) {
+                descriptor = new QueryDescriptor(
+                        descriptor.prefix(),
+                        descriptor.conditions(),
+                        descriptor.combinator(),
+                        descriptor.orderBy(),
+                        QueryDescriptor.ReturnType.STREAM);
+            }
+        }
+
+        return descriptor;
+    }
+
     /**
      * Parses the build-time orderBy spec string (e.g. "createdAt:DESC,name:ASC")
      * into a list of {@link QueryDescriptor.OrderSpec}.
@@ -37,7 +37,15 @@ final class QueryResultHelper {
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
     static Object requireSingle(Query query) {
-        List results = query.limit(2).asList();
+        return requireSingle(query.limit(2).asList());
+    }
+
+    /**
+     * {@link #requireSingle(Query)} for the already read result of a query limited to two
+     * results, e.g. by {@link Query#asListAsync()}.
+     */
+    @SuppressWarnings("rawtypes")
+    static Object requireSingle(List results) {
         if (results.isEmpty()) {
             throw new EmptyResultException("Query returned no result");
         }
@@ -56,7 +64,12 @@ final class QueryResultHelper {
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
     static Optional optionalSingle(Query query) {
-        List results = query.limit(2).asList();
+        return optionalSingle(query.limit(2).asList());
+    }
+
+    /** {@link #optionalSingle(Query)} for the already read result of a query limited to two results. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Optional optionalSingle(List results) {
         if (results.isEmpty()) {
             return Optional.empty();
         }
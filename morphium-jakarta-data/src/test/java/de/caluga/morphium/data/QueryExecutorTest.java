@@ -11,6 +11,7 @@ import de.caluga.morphium.data.QueryDescriptor.Prefix;
 import de.caluga.morphium.data.QueryDescriptor.ReturnType;
 import de.caluga.morphium.driver.inmem.InMemoryDriver;
 import de.caluga.morphium.query.Query;
+import jakarta.data.exceptions.NonUniqueResultException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,12 +20,17 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Verifies {@link QueryExecutor#execute} behavior that is not specific to alias handling:
- * CONTAINS substring matching and the {@code DELETE} prefix's returned count. Uses a real
+ * CONTAINS substring matching, the {@code DELETE} prefix's returned count and
+ * {@link QueryExecutor#executeAsync}. Uses a real
  * {@link Morphium} instance backed by {@link InMemoryDriver}, following the same setup pattern
  * as {@link QueryExecutorAliasTest} and {@link AbstractMorphiumRepositoryUpdateTest}.
  */
@@ -240,4 +246,50 @@ class QueryExecutorTest {
         assertThat(result).isEqualTo(0L);
         assertThat(morphium.createQueryFor(Product.class).countAll()).isEqualTo(1);
     }
+
+    // -- executeAsync: same results as execute, read via the Query async API ----------
+
+    @Test
+    @DisplayName("executeAsync yields the same results as execute for each prefix")
+    void executeAsyncMatchesExecute() throws Exception {
+        morphium.store(new Product("p1", "Widget", "INACTIVE"));
+        morphium.store(new Product("p2", "Gadget", "INACTIVE"));
+        morphium.store(new Product("p3", "Gizmo", "ACTIVE"));
+        Object[] active = {"ACTIVE"};
+
+        assertThat(QueryExecutor.executeAsync(statusDescriptor(Prefix.FIND, ReturnType.LIST), new Object[]{"INACTIVE"}, repo)
+                .get(5, TimeUnit.SECONDS)).asList().hasSize(2);
+        assertThat(QueryExecutor.executeAsync(statusDescriptor(Prefix.FIND, ReturnType.SINGLE), active, repo)
+                .get(5, TimeUnit.SECONDS)).extracting("name").isEqualTo("Gizmo");
+        assertThat(QueryExecutor.executeAsync(statusDescriptor(Prefix.FIND, ReturnType.OPTIONAL), new Object[]{"NONE"}, repo)
+                .get(5, TimeUnit.SECONDS)).isEqualTo(Optional.empty());
+        assertThat(QueryExecutor.executeAsync(statusDescriptor(Prefix.COUNT, ReturnType.COUNT), active, repo)
+                .get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(QueryExecutor.executeAsync(statusDescriptor(Prefix.EXISTS, ReturnType.BOOLEAN), active, repo)
+                .get(5, TimeUnit.SECONDS)).isEqualTo(true);
+        assertThat(QueryExecutor.executeAsync(statusDescriptor(Prefix.DELETE, ReturnType.COUNT), new Object[]{"INACTIVE"}, repo)
+                .get(5, TimeUnit.SECONDS)).isEqualTo(2L);
+        assertThat(morphium.createQueryFor(Product.class).countAll()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("executeAsync completes exceptionally when a single result is not unique")
+    void executeAsyncFailsTheStageForNonUniqueSingle() {
+        morphium.store(new Product("p1", "Widget", "INACTIVE"));
+        morphium.store(new Product("p2", "Gadget", "INACTIVE"));
+
+        assertThatThrownBy(() -> QueryExecutor.executeAsync(statusDescriptor(Prefix.FIND, ReturnType.SINGLE), new Object[]{"INACTIVE"}, repo).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(NonUniqueResultException.class);
+    }
+
+    private static QueryDescriptor statusDescriptor(Prefix prefix, ReturnType returnType) {
+        return new QueryDescriptor(
+                prefix,
+                List.of(new Condition("status", Operator.EQ, 0)),
+                Combinator.AND,
+                List.of(),
+                returnType
+        );
+    }
 }
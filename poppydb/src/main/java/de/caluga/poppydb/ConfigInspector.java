@@ -28,6 +28,8 @@ class ConfigInspector {
     // "real" levels).
     private static final Set<String> LOG_LEVELS = Set.of("ERROR", "WARN", "INFO", "DEBUG", "TRACE", "OFF", "ALL");
     private static final Set<String> COMPRESSORS = Set.of("none", "snappy", "zstd", "zlib");
+    private static final Set<String> DUMP_FORMATS = Set.of("bson", "json");
+    private static final Set<String> DUMP_COMPRESSIONS = Set.of("none", "snappy", "zlib");
 
     /** Collects ALL semantic problems instead of failing at the first one. Never throws. */
     static Result validate(ServerOptions opts) {
@@ -52,6 +54,9 @@ class ConfigInspector {
         if (opts.maxBsonSizeBytes < 0) {
             errors.add("max-bson-size must be >= 0 (0 = off), got: " + opts.maxBsonSizeBytes);
         }
+        if (opts.compressionMinSize < 0) {
+            errors.add("compression-min-size must be >= 0 (0 = compress all), got: " + opts.compressionMinSize);
+        }
         try {
             opts.replayBufferBytes();
         } catch (IllegalArgumentException e) {
@@ -62,6 +67,16 @@ class ConfigInspector {
         } catch (IllegalArgumentException e) {
             errors.add(e.getMessage());
         }
+        try {
+            if (opts.replayLogSizeBytes() <= 0) {
+                errors.add("replay-log-size must be > 0, got: " + opts.replayLogSize);
+            }
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        if (opts.replayLogRetentionSec < 0) {
+            errors.add("replay-log-retention must be >= 0, got: " + opts.replayLogRetentionSec);
+        }
         if (opts.maxConnections < 1) {
             errors.add("max-connections must be >= 1, got: " + opts.maxConnections);
         }
@@ -71,6 +86,15 @@ class ConfigInspector {
         if (opts.dumpIntervalSec < 0) {
             errors.add("dump-interval must be >= 0, got: " + opts.dumpIntervalSec);
         }
+        if (opts.walCommitIntervalMs < 0) {
+            errors.add("wal-commit-interval must be >= 0, got: " + opts.walCommitIntervalMs);
+        }
+        if (!DUMP_FORMATS.contains(opts.dumpFormat.toLowerCase(Locale.ROOT))) {
+            errors.add("Unknown dump format '" + opts.dumpFormat + "' - use bson or json");
+        }
+        if (!DUMP_COMPRESSIONS.contains(opts.dumpCompression.toLowerCase(Locale.ROOT))) {
+            errors.add("Unknown dump compression '" + opts.dumpCompression + "' - use none, snappy or zlib");
+        }
         if (!LOG_LEVELS.contains(opts.logLevel.toUpperCase(Locale.ROOT))) {
             errors.add("Unknown log level '" + opts.logLevel + "' - use ERROR, WARN, INFO, DEBUG or TRACE");
         }
@@ -103,6 +127,9 @@ class ConfigInspector {
         if (opts.dumpIntervalSec > 0 && opts.dumpDir == null) {
             warnings.add("dump-interval is set but dump-dir is not - periodic dumps are disabled");
         }
+        if (opts.wal && opts.dumpDir == null) {
+            warnings.add("wal is enabled but dump-dir is not - there is no write-ahead log");
+        }
         return new Result(errors, warnings);
     }
 
@@ -235,7 +262,11 @@ class ConfigInspector {
             // invalid value - validate() reports it, nothing to resolve here
         }
 
+        appendKey(sb, opts, "replay-log-dir", opts.replayLogDir);
+        appendKey(sb, opts, "replay-log-size", opts.replayLogSize);
+        appendKey(sb, opts, "replay-log-retention", String.valueOf(opts.replayLogRetentionSec));
         appendKey(sb, opts, "compressor", opts.compressor.toLowerCase(Locale.ROOT));
+        appendKey(sb, opts, "compression-min-size", String.valueOf(opts.compressionMinSize));
         appendKey(sb, opts, "rs-name", opts.rsName);
         appendKey(sb, opts, "rs-seed", opts.rsSeed);
         appendKey(sb, opts, "rs-priorities", opts.rsPriorities);
@@ -249,6 +280,10 @@ class ConfigInspector {
         appendKey(sb, opts, "dump-dir", opts.dumpDir);
         appendKey(sb, opts, "election-state-path", opts.electionStatePath);
         appendKey(sb, opts, "dump-interval", String.valueOf(opts.dumpIntervalSec));
+        appendKey(sb, opts, "wal", String.valueOf(opts.wal));
+        appendKey(sb, opts, "wal-commit-interval", String.valueOf(opts.walCommitIntervalMs));
+        appendKey(sb, opts, "dump-format", opts.dumpFormat.toLowerCase(Locale.ROOT));
+        appendKey(sb, opts, "dump-compression", opts.dumpCompression.toLowerCase(Locale.ROOT));
         appendKey(sb, opts, "max-connections", String.valueOf(opts.maxConnections));
         appendKey(sb, opts, "socket-timeout", String.valueOf(opts.socketTimeoutSec));
         return sb.toString();
@@ -23,6 +23,9 @@ import org.slf4j.LoggerFactory;
 import de.caluga.morphium.driver.Doc;
 import de.caluga.morphium.driver.commands.GenericCommand;
 import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import de.caluga.morphium.driver.inmem.ChangeStreamLog;
+import de.caluga.morphium.driver.inmem.WriteAheadLog;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
 import de.caluga.morphium.driver.wireprotocol.OpCompressed;
 import de.caluga.poppydb.config.ConfigException;
 import de.caluga.poppydb.config.UserSpec;
@@ -139,6 +142,13 @@ public class PoppyDB {
     // Persistence configuration
     private File dumpDirectory = null;
     private long dumpIntervalMs = 0;
+    // With the write-ahead log every write is logged to <dumpDirectory>/wal and the dumps are
+    // incremental checkpoints in <dumpDirectory>/checkpoint, see InMemoryDriver.checkpoint()
+    private boolean writeAheadLogEnabled = false;
+    private long walCommitIntervalMs = 0;
+    private volatile WriteAheadLog writeAheadLog = null;
+    // disk extension of the replay buffer, see setReplayLog
+    private volatile ChangeStreamLog replayLog = null;
     private java.util.concurrent.ScheduledExecutorService dumpScheduler = null;
     private volatile long lastDumpTime = 0;
     // ONE guard for every dump path - the periodic scheduler, the on-demand dumpNow command and
@@ -216,6 +226,7 @@ public class PoppyDB {
     private final de.caluga.poppydb.netty.OpRegistry opRegistry = new de.caluga.poppydb.netty.OpRegistry();
     private final java.util.concurrent.atomic.AtomicLong connectionsCreated = new java.util.concurrent.atomic.AtomicLong();
     private volatile Map<String, Integer> hostPriorities;
+    private volatile CompressionPolicy compressionPolicy = new CompressionPolicy();
 
     public PoppyDB(int port, String host, int maxConnections, int idleTimeoutSeconds, int compressorId) {
         this.port = port;
@@ -225,6 +236,8 @@ public class PoppyDB {
         this.compressorId = compressorId;
         this.allChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
         this.driver = new InMemoryDriver();
+        // binary snapshots restore much faster than the JSON dumps - which are still read
+        this.driver.setDumpFormat(InMemoryDriver.DumpFormat.BSON);
         this.cursorManager = new WatchCursorManager();
         this.findCursorRegistry = new FindCursorRegistry();
         this.messagingOptimizer = new MessagingOptimizer(driver);
@@ -304,6 +317,24 @@ public class PoppyDB {
         driver.setChangeStreamHistoryByteBudget(bytes);
     }
 
+    /**
+     * Extends the replay buffer to disk: events it evicts are written to segment files in
+     * {@code directory} instead of being dropped, so a secondary that was down longer than the
+     * heap window still resumes incrementally. {@code maxBytes} bounds the files, {@code maxAgeMs}
+     * (0 = off) their age; events beyond either are lost for resuming as without the log. The
+     * files only live as long as this server - they are removed on startup and shutdown. Null
+     * detaches and removes the log.
+     */
+    public void setReplayLog(File directory, long maxBytes, long maxAgeMs) throws IOException {
+        ChangeStreamLog old = replayLog;
+        replayLog = directory == null ? null : new ChangeStreamLog(directory, maxBytes, maxAgeMs);
+        driver.setChangeStreamLog(replayLog);
+
+        if (old != null) {
+            old.close();
+        }
+    }
+
     /**
      * Warn/reject memory watermarks in percent of max heap (100 disables a stage) - see
      * InMemoryDriver.setMemoryWatermarks. Above the reject watermark, document-creating
@@ -324,6 +355,19 @@ public class PoppyDB {
         driver.setMaxBsonObjectSize(maxBsonObjectSize);
     }
 
+    /**
+     * Which replies are sent compressed with the configured compressor, and at which level:
+     * replies below the policy's minimum size go out uncompressed, cursor batches and other
+     * replies get their own level. Applies to connections accepted after the call.
+     */
+    public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy != null ? compressionPolicy : new CompressionPolicy();
+    }
+
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
     public PoppyDB(int port, String host, int maxConnections, int idleTimeoutSeconds) {
         this(port, host, maxConnections, idleTimeoutSeconds, OpCompressed.COMPRESSOR_NOOP);
     }
@@ -344,6 +388,16 @@ public class PoppyDB {
         log.info("Starting PoppyDB on {}:{} (maxConnections={}, idleTimeout={}s)",
                 host, port, maxConnections, idleTimeoutSeconds);
 
+        // Not restored by the embedder: the checkpoint and the log ARE the data now, logging on
+        // top of an empty driver would make the next checkpoint drop everything else.
+        if (isWriteAheadLogActive() && writeAheadLog == null) {
+            log.info("Write-ahead log enabled but restoreFromDump() was not called - recovering now");
+
+            if (!restoreFromDump().isComplete()) {
+                setLocalDataComplete(false);
+            }
+        }
+
         // Configure event loop groups
         // Boss group handles incoming connections (can be tuned via system property)
         // Worker group handles I/O for established connections
@@ -400,7 +454,7 @@ public class PoppyDB {
 
                         // Wire protocol handlers
                         pipeline.addLast("decoder", new MongoWireProtocolDecoder());
-                        pipeline.addLast("encoder", new MongoWireProtocolEncoder(compressorId));
+                        pipeline.addLast("encoder", new MongoWireProtocolEncoder(compressorId, compressionPolicy));
 
                         // Command handler - capture current primary state for this connection.
                         // Note: primary/primaryHost are volatile and may change during election;
@@ -574,6 +628,18 @@ public class PoppyDB {
             }
         }
 
+        if (writeAheadLog != null) {
+            driver.setWriteAheadLog(null);
+            writeAheadLog.close();
+            writeAheadLog = null;
+        }
+
+        if (replayLog != null) {
+            driver.setChangeStreamLog(null);
+            replayLog.close();
+            replayLog = null;
+        }
+
         // Shutdown cursor manager
         cursorManager.shutdown();
 
@@ -1599,6 +1665,56 @@ public class PoppyDB {
         this.dumpIntervalMs = intervalMs;
     }
 
+    /**
+     * Logs every write to {@code <dump-dir>/wal} before it is acknowledged, so a crash loses no
+     * acknowledged write (or at most {@link #setWalCommitIntervalMs(long)} of them). The periodic,
+     * on-demand and final dumps then only rewrite the collections changed since the previous one
+     * into {@code <dump-dir>/checkpoint}, startup loads that checkpoint and replays the log. Dumps
+     * of the old format in the dump directory are restored once, when there is no checkpoint yet.
+     * Needs a dump directory, set it before {@link #restoreFromDump()}.
+     */
+    public void setWriteAheadLogEnabled(boolean enabled) {
+        this.writeAheadLogEnabled = enabled;
+    }
+
+    public boolean isWriteAheadLogEnabled() {
+        return writeAheadLogEnabled;
+    }
+
+    /** 0 (default): every write waits for the fsync of its log record, concurrent writes share one */
+    public void setWalCommitIntervalMs(long ms) {
+        this.walCommitIntervalMs = ms;
+    }
+
+    /**
+     * Format of the dump and checkpoint files, {@link InMemoryDriver.DumpFormat#BSON} by default.
+     * Restoring reads both formats, so switching needs no migration.
+     */
+    public void setDumpFormat(InMemoryDriver.DumpFormat format) {
+        driver.setDumpFormat(format);
+    }
+
+    public InMemoryDriver.DumpFormat getDumpFormat() {
+        return driver.getDumpFormat();
+    }
+
+    /** compression of BSON dumps, one of the {@code OpCompressed.COMPRESSOR_*} ids except zstd */
+    public void setDumpCompressor(int compressor) {
+        driver.setDumpCompressor(compressor);
+    }
+
+    private boolean isWriteAheadLogActive() {
+        return writeAheadLogEnabled && dumpDirectory != null;
+    }
+
+    private File checkpointDirectory() {
+        return new File(dumpDirectory, "checkpoint");
+    }
+
+    private File walDirectory() {
+        return new File(dumpDirectory, "wal");
+    }
+
     // Persistence methods
 
     private void startDumpScheduler() {
@@ -1811,11 +1927,14 @@ public class PoppyDB {
             return de.caluga.morphium.driver.Doc.of("enabled", (Object) false);
         }
 
-        return de.caluga.morphium.driver.Doc.of("enabled", true,
+        Map<String, Object> status = de.caluga.morphium.driver.Doc.of("enabled", true,
                 "dir", dumpDirectory.getAbsolutePath(),
                 "intervalMs", dumpIntervalMs,
                 "schedulerRunning", dumpScheduler != null && !dumpScheduler.isShutdown(),
-                "lastDumpMs", lastDumpTime);
+                "lastDumpMs", lastDumpTime,
+                "writeAheadLog", writeAheadLog != null);
+        status.put("format", driver.getDumpFormat().name().toLowerCase(java.util.Locale.ROOT));
+        return status;
     }
 
     /**
@@ -1834,7 +1953,8 @@ public class PoppyDB {
     private static final long SEQUENCE_RESTORE_HEADROOM = 10_000_000L;
 
     int writeDumpFiles() throws IOException {
-        int count = driver.dumpAllToDirectory(dumpDirectory);
+        // with the write-ahead log: the number of collections rewritten, not databases
+        int count = writeAheadLog != null ? driver.checkpoint(checkpointDirectory()) : driver.dumpAllToDirectory(dumpDirectory);
         persistSequenceState();
         return count;
     }
@@ -1994,7 +2114,13 @@ public class PoppyDB {
             throw new IOException("Dump directory not configured");
         }
 
-        InMemoryDriver.DirectoryRestoreResult result = driver.restoreAllFromDirectoryResult(dumpDirectory);
+        InMemoryDriver.DirectoryRestoreResult result;
+
+        if (isWriteAheadLogActive()) {
+            result = recoverFromWriteAheadLog();
+        } else {
+            result = driver.restoreAllFromDirectoryResult(dumpDirectory);
+        }
 
         // Even a partial database restore must restore the sequence floor: it is about token
         // issuance and peer comparison, not about which databases made it back (#329).
@@ -2017,6 +2143,36 @@ public class PoppyDB {
         return result;
     }
 
+    /**
+     * Loads the checkpoint and replays the write-ahead log, then attaches a new log to the
+     * driver. Without a checkpoint the old-format dumps are restored first - the first
+     * checkpoint then writes all of them.
+     */
+    private InMemoryDriver.DirectoryRestoreResult recoverFromWriteAheadLog() throws IOException {
+        if (writeAheadLog != null) {
+            throw new IllegalStateException("write-ahead log already attached - restore only once, before start()");
+        }
+
+        List<String> failed = new ArrayList<>();
+        int total = 0;
+        int restored = 0;
+
+        if (!new File(checkpointDirectory(), InMemoryDriver.CHECKPOINT_MANIFEST).exists()) {
+            InMemoryDriver.DirectoryRestoreResult dumps = driver.restoreAllFromDirectoryResult(dumpDirectory);
+            total += dumps.getTotal();
+            restored += dumps.getRestored();
+            failed.addAll(dumps.getFailedFiles());
+        }
+
+        InMemoryDriver.DirectoryRestoreResult checkpoint = driver.recoverFromCheckpoint(checkpointDirectory(), walDirectory());
+        total += checkpoint.getTotal();
+        restored += checkpoint.getRestored();
+        failed.addAll(checkpoint.getFailedFiles());
+        writeAheadLog = new WriteAheadLog(walDirectory(), walCommitIntervalMs);
+        driver.setWriteAheadLog(writeAheadLog);
+        return new InMemoryDriver.DirectoryRestoreResult(total, restored, failed);
+    }
+
     // Status methods
 
     public boolean isRunning() {
@@ -1,6 +1,8 @@
 package de.caluga.poppydb;
 
 import de.caluga.morphium.driver.wire.SslHelper;
+import de.caluga.morphium.driver.inmem.InMemoryDriver;
+import de.caluga.morphium.driver.wireprotocol.CompressionPolicy;
 import de.caluga.morphium.driver.wireprotocol.OpCompressed;
 import de.caluga.poppydb.config.ConfigException;
 import de.caluga.poppydb.config.ConfigLoader;
@@ -306,6 +308,24 @@ public class PoppyDBCLI {
                     idx += 2;
                     break;
 
+                case "--replay-log-dir":
+                    opts.replayLogDir = value(effectiveArgs, idx);
+                    opts.sources.put("replay-log-dir", src);
+                    idx += 2;
+                    break;
+
+                case "--replay-log-size":
+                    opts.replayLogSize = value(effectiveArgs, idx);
+                    opts.sources.put("replay-log-size", src);
+                    idx += 2;
+                    break;
+
+                case "--replay-log-retention":
+                    opts.replayLogRetentionSec = longValue(effectiveArgs, idx);
+                    opts.sources.put("replay-log-retention", src);
+                    idx += 2;
+                    break;
+
                 case "--event-queue-budget":
                     opts.eventQueueBudget = value(effectiveArgs, idx);
                     opts.sources.put("event-queue-budget", src);
@@ -349,6 +369,12 @@ public class PoppyDBCLI {
                     idx += 2;
                     break;
 
+                case "--compression-min-size":
+                    opts.compressionMinSize = intValue(effectiveArgs, idx);
+                    opts.sources.put("compression-min-size", src);
+                    idx += 2;
+                    break;
+
                 case "--ssl":
                 case "--tls":
                     opts.ssl = true;
@@ -419,6 +445,30 @@ public class PoppyDBCLI {
                     idx += 2;
                     break;
 
+                case "--wal":
+                    opts.wal = true;
+                    opts.sources.put("wal", src);
+                    idx += 1;
+                    break;
+
+                case "--wal-commit-interval":
+                    opts.walCommitIntervalMs = longValue(effectiveArgs, idx);
+                    opts.sources.put("wal-commit-interval", src);
+                    idx += 2;
+                    break;
+
+                case "--dump-format":
+                    opts.dumpFormat = value(effectiveArgs, idx);
+                    opts.sources.put("dump-format", src);
+                    idx += 2;
+                    break;
+
+                case "--dump-compression":
+                    opts.dumpCompression = value(effectiveArgs, idx);
+                    opts.sources.put("dump-compression", src);
+                    idx += 2;
+                    break;
+
                 case "--election-state-path":
                     opts.electionStatePath = value(effectiveArgs, idx);
                     opts.sources.put("election-state-path", src);
@@ -507,6 +557,7 @@ public class PoppyDBCLI {
         var srv = new PoppyDB(opts.port, opts.bind, opts.maxConnections, opts.socketTimeoutSec, compressorId);
         srv.setMemoryWatermarks(opts.memoryWarnPct, opts.memoryRejectPct);
         srv.setMaxBsonObjectSize(opts.maxBsonSizeBytes);
+        srv.setCompressionPolicy(new CompressionPolicy().setMinSize(opts.compressionMinSize));
 
         long replayBufferBytes;
 
@@ -520,6 +571,25 @@ public class PoppyDBCLI {
         log.info("Replay buffer byte budget: {} ({} bytes{})", opts.replayBuffer, replayBufferBytes,
             replayBufferBytes == 0 ? ", byte cap off" : "");
 
+        if (opts.replayLogDir != null) {
+            long replayLogBytes;
+
+            try {
+                replayLogBytes = opts.replayLogSizeBytes();
+            } catch (IllegalArgumentException e) {
+                throw new ConfigException(e.getMessage(), e);
+            }
+
+            try {
+                srv.setReplayLog(new java.io.File(opts.replayLogDir), replayLogBytes, opts.replayLogRetentionSec * 1000);
+            } catch (java.io.IOException | IllegalArgumentException e) {
+                throw new ConfigException("Cannot open replay log in " + opts.replayLogDir + ": " + e.getMessage(), e);
+            }
+
+            log.info("Replay log: {} (max {} bytes{})", opts.replayLogDir, replayLogBytes,
+                opts.replayLogRetentionSec > 0 ? ", retention " + opts.replayLogRetentionSec + "s" : "");
+        }
+
         long eventQueueBudgetBytes;
 
         try {
@@ -617,6 +687,38 @@ public class PoppyDBCLI {
                 log.info("Periodic dumps every {} seconds", opts.dumpIntervalSec);
             }
 
+            switch (opts.dumpFormat.toLowerCase(java.util.Locale.ROOT)) {
+                case "bson":
+                    srv.setDumpFormat(InMemoryDriver.DumpFormat.BSON);
+                    break;
+                case "json":
+                    srv.setDumpFormat(InMemoryDriver.DumpFormat.JSON);
+                    break;
+                default:
+                    throw new ConfigException("Unknown dump format " + opts.dumpFormat);
+            }
+
+            switch (opts.dumpCompression.toLowerCase(java.util.Locale.ROOT)) {
+                case "snappy":
+                    srv.setDumpCompressor(OpCompressed.COMPRESSOR_SNAPPY);
+                    break;
+                case "zlib":
+                    srv.setDumpCompressor(OpCompressed.COMPRESSOR_ZLIB);
+                    break;
+                case "none":
+                    srv.setDumpCompressor(OpCompressed.COMPRESSOR_NOOP);
+                    break;
+                default:
+                    throw new ConfigException("Unknown dump compression " + opts.dumpCompression);
+            }
+
+            if (opts.wal) {
+                srv.setWriteAheadLogEnabled(true);
+                srv.setWalCommitIntervalMs(opts.walCommitIntervalMs);
+                log.info("Write-ahead log enabled (commit interval {}ms) - dumps are incremental checkpoints",
+                         opts.walCommitIntervalMs);
+            }
+
             // Restore runs synchronously here, BEFORE srv.start() wires up replication and
             // election - the node never joins the replica set with its restore still pending.
             // A partial restore (#306: broken dump file) must be unmissable in the startup log,
@@ -688,6 +790,10 @@ public class PoppyDBCLI {
         System.out.println("  --replay-buffer <size>     : Byte budget for the change-stream replay buffer backing replication resume.");
         System.out.println("                               Fixed size with k/m/g suffix (e.g. 512m, 1g) or percent of max heap (e.g. 5%),");
         System.out.println("                               0 = byte cap off (default: 256m; the 100000-event count limit always applies)");
+        System.out.println("  --replay-log-dir <path>    : Write events evicted from the replay buffer to segment files here instead of");
+        System.out.println("                               dropping them, so secondaries resume after longer outages (default: off)");
+        System.out.println("  --replay-log-size <size>   : Max. size of the replay log files (same size syntax as --replay-buffer, default: 1g)");
+        System.out.println("  --replay-log-retention <s> : Max. age of the replay log in seconds (default: 0 = bounded by size only)");
         System.out.println("  --cursor-queue-budget <size>: Per-cursor byte budget for a watch cursor's buffered events (same size syntax");
         System.out.println("                               as --replay-buffer, default 64m, 0 = byte cap off). A slow consumer whose");
         System.out.println("                               buffered events exceed the budget is killed, same policy as the count cap.");
@@ -700,6 +806,7 @@ public class PoppyDBCLI {
         System.out.println("  --max-bson-size <bytes>    : BSON document size limit, enforced like mongod (code 10334 BSONObjectTooLarge,");
         System.out.println("                               update results get mongod's 16KB margin; default: 16777216 = 16MB, 0 = off)");
         System.out.println("  -c, --compressor <type>    : Compressor to use (none, snappy, zstd, zlib; default: none)");
+        System.out.println("  --compression-min-size <n> : Replies smaller than n bytes are sent uncompressed (default: 1024, 0 = all)");
         System.out.println("  --rs-name <name>           : Name of the replica set");
         System.out.println("  --rs-seed <hosts>          : Comma-separated list of hosts in the replica set");
         System.out.println("                               Example: localhost:27017,localhost:27018,localhost:27019");
@@ -730,6 +837,13 @@ public class PoppyDBCLI {
         System.out.println("  -d, --dump-dir <path>      : Directory for periodic database dumps");
         System.out.println("                               Enables persistence: restores on startup, dumps on shutdown");
         System.out.println("  --dump-interval <seconds>  : Interval between periodic dumps (default: 0 = only on shutdown)");
+        System.out.println("  --wal                      : Log every write to <dump-dir>/wal and replay it on startup;");
+        System.out.println("                               dumps become incremental checkpoints in <dump-dir>/checkpoint");
+        System.out.println("  --wal-commit-interval <ms> : Max. time between two fsyncs of the log (default: 0 = every");
+        System.out.println("                               write waits for its fsync, concurrent writes share one)");
+        System.out.println("  --dump-format <bson|json>  : File format of dumps and checkpoints (default: bson = binary");
+        System.out.println("                               snapshots with indexes; json = gzipped JSON, zcat | jq readable)");
+        System.out.println("  --dump-compression <type>  : Compression of bson dumps (none, snappy, zlib; default: snappy)");
         System.out.println();
         System.out.println("Connection Management Options:");
         System.out.println("  --max-connections <num>    : Maximum concurrent connections (default: 500)");
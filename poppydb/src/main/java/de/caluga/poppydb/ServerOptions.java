@@ -24,6 +24,7 @@ class ServerOptions {
     int memoryRejectPct = 90;
     int maxBsonSizeBytes = 16 * 1024 * 1024;
     String compressor = "none";
+    int compressionMinSize = 1024;
     String rsName = "";
     String rsSeed = "";
     String rsPriorities = "";
@@ -36,6 +37,12 @@ class ServerOptions {
     String usersFile = null;
     String dumpDir = null;
     long dumpIntervalSec = 0;
+    // write-ahead log in <dump-dir>/wal, the dump interval then writes incremental checkpoints
+    boolean wal = false;
+    long walCommitIntervalMs = 0;
+    // binary BSON snapshots (default) or the gzipped JSON dumps of older versions
+    String dumpFormat = "bson";
+    String dumpCompression = "snappy";
     int maxConnections = 500;
 
     /**
@@ -61,6 +68,12 @@ class ServerOptions {
     // frees nothing while a stalled cursor still references it). Overflow kills the cursor,
     // same policy as the count cap; 0 = byte cap off.
     String cursorQueueBudget = "64m";
+    // Disk extension of the replay buffer: evicted events go to segment files here instead of
+    // being dropped (null = off). Size uses the replay-buffer syntax, retention is in seconds
+    // (0 = bounded by size only).
+    String replayLogDir = null;
+    String replayLogSize = "1g";
+    long replayLogRetentionSec = 0;
 
     /** canonical config key (see ConfigLoader) -> origin of the effective value. */
     final Map<String, Source> sources = new LinkedHashMap<>();
@@ -154,6 +167,14 @@ class ServerOptions {
         return parseByteSize("cursor-queue-budget", cursorQueueBudget, Runtime.getRuntime().maxMemory());
     }
 
+    /**
+     * replay-log-size resolved to bytes against the current JVM's max heap. Same contract as
+     * {@link #replayBufferBytes()}.
+     */
+    long replayLogSizeBytes() {
+        return parseByteSize("replay-log-size", replayLogSize, Runtime.getRuntime().maxMemory());
+    }
+
     /** Kept as a named entry point for the replay-buffer key (and its existing tests). */
     static long parseReplayBufferBytes(String input, long maxHeap) {
         return parseByteSize("replay-buffer", input, maxHeap);
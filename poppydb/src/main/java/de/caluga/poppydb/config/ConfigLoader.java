@@ -46,7 +46,7 @@ public class ConfigLoader {
     public static final String POPPYDB_CONF_ENV_VAR = "POPPYDB_CONF";
     private static final String PREFIX = "poppydb.";
 
-    private enum Type { INT, LONG, BOOL, LOG_LEVEL, COMPRESSOR, STRING, PATH, SECRET }
+    private enum Type { INT, LONG, BOOL, LOG_LEVEL, COMPRESSOR, DUMP_FORMAT, DUMP_COMPRESSION, STRING, PATH, SECRET }
 
     /** Canonical (kebab-case) key -> type. Also the whitelist for unknown-key detection. */
     private static final LinkedHashMap<String, Type> KNOWN_KEYS = new LinkedHashMap<>();
@@ -82,7 +82,11 @@ public class ConfigLoader {
         define("replay-buffer", Type.STRING, "--replay-buffer");
         define("event-queue-budget", Type.STRING, "--event-queue-budget");
         define("cursor-queue-budget", Type.STRING, "--cursor-queue-budget");
+        define("replay-log-dir", Type.PATH, "--replay-log-dir");
+        define("replay-log-size", Type.STRING, "--replay-log-size");
+        define("replay-log-retention", Type.LONG, "--replay-log-retention");
         define("compressor", Type.COMPRESSOR, "--compressor");
+        define("compression-min-size", Type.INT, "--compression-min-size");
         define("rs-name", Type.STRING, "--rs-name");
         define("rs-seed", Type.STRING, "--rs-seed");
         define("rs-priorities", Type.STRING, "--rs-priorities");
@@ -100,11 +104,16 @@ public class ConfigLoader {
         // durable currentTerm/votedFor.
         define("election-state-path", Type.PATH, "--election-state-path");
         define("dump-interval", Type.LONG, "--dump-interval");
+        define("wal", Type.BOOL, null);
+        define("wal-commit-interval", Type.LONG, "--wal-commit-interval");
+        define("dump-format", Type.DUMP_FORMAT, "--dump-format");
+        define("dump-compression", Type.DUMP_COMPRESSION, "--dump-compression");
         define("max-connections", Type.INT, "--max-connections");
         define("socket-timeout", Type.INT, "--socket-timeout");
 
         BOOLEAN_FLAGS.put("ssl", "--ssl");
         BOOLEAN_FLAGS.put("auth", "--auth");
+        BOOLEAN_FLAGS.put("wal", "--wal");
     }
 
     /** file-ref key -> the direct value key it resolves into. */
@@ -327,6 +336,22 @@ public class ConfigLoader {
                 }
                 return v;
             }
+            case DUMP_FORMAT: {
+                String v = value.trim().toLowerCase(Locale.ROOT);
+                if (!Set.of("bson", "json").contains(v)) {
+                    throw new ConfigException(String.format(
+                            "Invalid value for '%s' in %s: '%s' - use bson or json", canonicalKey, path, value));
+                }
+                return v;
+            }
+            case DUMP_COMPRESSION: {
+                String v = value.trim().toLowerCase(Locale.ROOT);
+                if (!Set.of("none", "snappy", "zlib").contains(v)) {
+                    throw new ConfigException(String.format(
+                            "Invalid value for '%s' in %s: '%s' - use none, snappy or zlib", canonicalKey, path, value));
+                }
+                return v;
+            }
             case STRING:
             case PATH:
             case SECRET:
@@ -1700,6 +1700,8 @@ public class MongoCommandHandler extends ChannelInboundHandlerAdapter {
             compressionAlgorithms.add("snappy");
         } else if (compressorId == OpCompressed.COMPRESSOR_ZLIB) {
             compressionAlgorithms.add("zlib");
+        } else if (compressorId == OpCompressed.COMPRESSOR_ZSTD) {
+            compressionAlgorithms.add("zstd");
         }
         if (!compressionAlgorithms.isEmpty()) {
             res.setCompression(compressionAlgorithms);
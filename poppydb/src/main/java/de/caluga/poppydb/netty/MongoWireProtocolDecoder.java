@@ -1,119 +1,34 @@
 package de.caluga.poppydb.netty;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ByteToMessageDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.caluga.morphium.driver.netty.WireProtocolDecoder;
 import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
 import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage.OpCode;
 
-import java.util.List;
-
 /**
- * Netty decoder for MongoDB wire protocol messages.
- * Converts ByteBuf to WireProtocolMessage objects.
- *
- * Wire protocol format:
- * - 4 bytes: message length (including header)
- * - 4 bytes: request ID
- * - 4 bytes: response to
- * - 4 bytes: opcode
- * - N bytes: payload (length - 16)
+ * Server side decoder for MongoDB wire protocol messages. Framing and parsing are shared with
+ * the client ({@link WireProtocolDecoder}), this adds the server's answers to broken input.
  */
-public class MongoWireProtocolDecoder extends ByteToMessageDecoder {
+public class MongoWireProtocolDecoder extends WireProtocolDecoder {
 
     private static final Logger log = LoggerFactory.getLogger(MongoWireProtocolDecoder.class);
-    private static final int HEADER_SIZE = 16;
-    private static final int MAX_MESSAGE_SIZE = 48 * 1024 * 1024; // 48MB max message
 
     @Override
-    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        // Need at least the header to determine message size
-        if (in.readableBytes() < HEADER_SIZE) {
-            return;
-        }
-
-        // Mark the current position in case we need to reset
-        in.markReaderIndex();
-
-        // Read message size (first 4 bytes, little-endian)
-        int messageSize = in.readIntLE();
-
-        // Validate message size
-        if (messageSize < HEADER_SIZE || messageSize > MAX_MESSAGE_SIZE) {
-            log.error("Invalid message size: {} — closing connection (stream is corrupted)", messageSize);
-            // Stream is corrupted beyond recovery — we don't know where the next message starts
-            ctx.close();
-            return;
-        }
-
-        // Check if we have the full message
-        // We already read 4 bytes (size), so we need messageSize - 4 more bytes
-        if (in.readableBytes() < messageSize - 4) {
-            // Reset to beginning and wait for more data
-            in.resetReaderIndex();
-            return;
-        }
-
-        // Read header fields
-        int requestId = in.readIntLE();
-        int responseTo = in.readIntLE();
-        int opCode = in.readIntLE();
-
-        // Read payload (always consume the bytes to keep the stream in sync)
-        int payloadSize = messageSize - HEADER_SIZE;
-
-        // Zero-copy fast-path: if the ByteBuf is backed by a heap array, we can pass
-        // the backing array + offset directly to parsePayload() and avoid allocating
-        // a temporary byte[]. For direct/pooled buffers we fall back to the copy path.
-        byte[] payload;
-        int payloadOffset;
-        if (in.hasArray()) {
-            payload = in.array();
-            payloadOffset = in.arrayOffset() + in.readerIndex();
-            in.skipBytes(payloadSize);
-        } else {
-            payload = new byte[payloadSize];
-            in.readBytes(payload);
-            payloadOffset = 0;
-        }
-
-        // Find the opcode handler
-        OpCode code = OpCode.findByCode(opCode);
-        if (code == null) {
-            log.error("Unknown opcode: {} (requestId={}, size={}) — skipping message", opCode, requestId, messageSize);
-            // Bytes already consumed above, stream stays in sync — don't close the connection
-            return;
-        }
-
-        // Create message instance
-        try {
-            WireProtocolMessage message = code.handler.getDeclaredConstructor().newInstance();
-            message.setSize(messageSize);
-            message.setMessageId(requestId);
-            message.setResponseTo(responseTo);
-            message.parsePayload(payload, payloadOffset);
-
-            log.debug("Decoded {} message, id={}, size={}", code.name(), requestId, messageSize);
-            out.add(message);
-        } catch (Exception e) {
-            log.error("Failed to parse {} message (requestId={}, size={}): {} — rejecting",
-                    code.name(), requestId, messageSize, e.getMessage());
-            // Bytes already consumed, stream stays in sync — don't close the connection.
-            // But DO answer: silently skipping leaves the client waiting for a reply that
-            // never comes (observed as mongosh/mongorestore hanging forever on a document
-            // the BSON decoder could not parse).
-            if (code == WireProtocolMessage.OpCode.OP_MSG) {
-                de.caluga.morphium.driver.wireprotocol.OpMsg err = new de.caluga.morphium.driver.wireprotocol.OpMsg();
-                err.setMessageId(requestId + 1_000_000);
-                err.setResponseTo(requestId);
-                err.setFirstDoc(de.caluga.morphium.driver.Doc.of(
-                        "ok", 0.0, "errmsg", "message could not be parsed: " + e.getMessage(),
-                        "code", 22, "codeName", "InvalidBSON"));
-                ctx.writeAndFlush(err);
-            }
+    protected void onUnparseableMessage(ChannelHandlerContext ctx, OpCode code, int requestId, int responseTo, Exception e) {
+        // DO answer: silently skipping leaves the client waiting for a reply that
+        // never comes (observed as mongosh/mongorestore hanging forever on a document
+        // the BSON decoder could not parse).
+        if (code == WireProtocolMessage.OpCode.OP_MSG) {
+            de.caluga.morphium.driver.wireprotocol.OpMsg err = new de.caluga.morphium.driver.wireprotocol.OpMsg();
+            err.setMessageId(requestId + 1_000_000);
+            err.setResponseTo(requestId);
+            err.setFirstDoc(de.caluga.morphium.driver.Doc.of(
+                    "ok", 0.0, "errmsg", "message could not be parsed: " + e.getMessage(),
+                    "code", 22, "codeName", "InvalidBSON"));
+            ctx.writeAndFlush(err);
         }
     }
 
@@ -0,0 +1,154 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.driver.netty.NettyDriver;
+import de.caluga.morphium.driver.wire.PooledDriver;
+import de.caluga.morphium.query.Query;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+
+/**
+ * The {@code ...Async} reads over the wire: on multiplexed and netty connections the find and the
+ * getMores of its cursor are chained on reply futures - the executor only runs one continuation
+ * per batch - while classic pooled connections fall back to one blocking task.
+ */
+public class AsyncReadTest {
+
+    private PoppyDB server;
+    private Morphium morphium;
+    private ThreadPoolExecutor executor;
+    private final AtomicInteger tasks = new AtomicInteger();
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        if (morphium != null) {
+            morphium.close();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private void start(String driverName, int multiplexed) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.clusterSettings().setHostSeed("127.0.0.1:" + port);
+        cfg.connectionSettings().setDatabase("async_read_test");
+        cfg.connectionSettings().setMaxConnections(10);
+        cfg.cacheSettings().setBufferedWritesEnabled(false);
+        cfg.driverSettings().setDriverName(driverName);
+        cfg.driverSettings().setMultiplexedConnectionsPerHost(multiplexed);
+        morphium = new Morphium(cfg);
+        morphium.getDriver().setDefaultBatchSize(10);
+
+        executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                tasks.incrementAndGet();
+                super.execute(command);
+            }
+        };
+
+        List<UncachedObject> objects = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            objects.add(new UncachedObject("async", i));
+        }
+
+        morphium.storeList(objects);
+    }
+
+    private Query<UncachedObject> query() {
+        Query<UncachedObject> q = morphium.createQueryFor(UncachedObject.class);
+        q.setExecutor(executor);
+        return q;
+    }
+
+    private void reads() throws Exception {
+        List<UncachedObject> all = query().setBatchSize(10).sort(UncachedObject.Fields.counter).asListAsync().get(10, TimeUnit.SECONDS);
+        assertEquals(100, all.size());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, all.get(i).getCounter());
+        }
+
+        assertEquals(50L, query().f(UncachedObject.Fields.counter).lt(50).countAllAsync().get(10, TimeUnit.SECONDS));
+        UncachedObject one = query().f(UncachedObject.Fields.counter).eq(42).getAsync().get(10, TimeUnit.SECONDS);
+        assertNotNull(one);
+        assertEquals(42, one.getCounter());
+        assertNull(query().f(UncachedObject.Fields.counter).eq(4711).getAsync().get(10, TimeUnit.SECONDS));
+
+        List<Map<String, Object>> agg = morphium.createAggregator(UncachedObject.class, Map.class)
+                                        .match(morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).gte(75))
+                                        .aggregateMapAsync().get(10, TimeUnit.SECONDS);
+        assertEquals(25, agg.size());
+        List<UncachedObject> aggObjects = morphium.createAggregator(UncachedObject.class, UncachedObject.class)
+                                          .match(morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).lt(15))
+                                          .aggregateAsync().get(10, TimeUnit.SECONDS);
+        assertEquals(15, aggObjects.size());
+    }
+
+    private int listTasks() throws Exception {
+        tasks.set(0);
+        assertEquals(100, query().setBatchSize(10).asListAsync().get(10, TimeUnit.SECONDS).size());
+        return tasks.get();
+    }
+
+    @Test
+    void multiplexedConnections() throws Exception {
+        start(PooledDriver.driverName, 2);
+        assertTrue(morphium.getDriver().supportsAsyncReplies());
+        reads();
+        // one continuation per batch, no task blocking through the whole read
+        assertTrue(listTasks() >= 10, "tasks " + tasks.get());
+    }
+
+    @Test
+    void nettyConnections() throws Exception {
+        start(NettyDriver.driverName, 0);
+        assertTrue(morphium.getDriver().supportsAsyncReplies());
+        reads();
+        assertTrue(listTasks() >= 10, "tasks " + tasks.get());
+    }
+
+    @Test
+    void pooledConnectionsFallBackToBlockingTask() throws Exception {
+        start(PooledDriver.driverName, 0);
+        assertFalse(morphium.getDriver().supportsAsyncReplies());
+        reads();
+        assertEquals(1, listTasks());
+    }
+}
@@ -0,0 +1,154 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.metrics.DriverMetrics.Timer;
+import de.caluga.morphium.driver.metrics.HostMetrics;
+import de.caluga.morphium.driver.netty.NettyDriver;
+import de.caluga.morphium.driver.wire.PooledDriver;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+
+/**
+ * Driver metrics over the wire: every command type lands in its host's histogram, bytes are
+ * counted in both directions - for pooled, multiplexed and netty connections. The recorded
+ * latencies are logged as greppable {@code METRICS } lines.
+ */
+public class DriverMetricsTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DriverMetricsTest.class);
+
+    private PoppyDB server;
+    private Morphium morphium;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private void start(String driverName, int multiplexed, boolean metricsEnabled) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.clusterSettings().setHostSeed("127.0.0.1:" + port);
+        cfg.connectionSettings().setDatabase("metrics_test");
+        cfg.connectionSettings().setMaxConnections(10);
+        cfg.cacheSettings().setBufferedWritesEnabled(false);
+        cfg.driverSettings().setDriverName(driverName);
+        cfg.driverSettings().setMultiplexedConnectionsPerHost(multiplexed);
+        cfg.driverSettings().setMetricsEnabled(metricsEnabled);
+        morphium = new Morphium(cfg);
+    }
+
+    /** insert, update, find, getMore (batch size 10 over 100 docs) and aggregate */
+    private void workload() {
+        List<UncachedObject> objects = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            objects.add(new UncachedObject("metrics", i));
+        }
+
+        morphium.storeList(objects);
+        morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).lt(50).set(UncachedObject.Fields.strValue, "updated", false, true);
+        int read = 0;
+
+        for (UncachedObject o : morphium.createQueryFor(UncachedObject.class).setBatchSize(10).asIterable()) {
+            read++;
+        }
+
+        assertEquals(100, read);
+        assertEquals(50, morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.strValue).eq("updated").asList().size());
+        List<Map<String, Object>> agg = morphium.createAggregator(UncachedObject.class, Map.class)
+                                        .match(morphium.createQueryFor(UncachedObject.class).f(UncachedObject.Fields.counter).gte(90))
+                                        .aggregateMap();
+        assertEquals(10, agg.size());
+    }
+
+    private void verify(String mode, boolean connectionWait) {
+        DriverMetrics metrics = morphium.getDriver().getMetrics();
+        assertNotNull(metrics);
+        HostMetrics host = metrics.forHost("127.0.0.1:" + server.getPort());
+
+        for (Timer t : new Timer[] {Timer.INSERT, Timer.UPDATE, Timer.FIND, Timer.GET_MORE, Timer.AGGREGATE}) {
+            assertTrue(host.getLatency(t).getCount() > 0, mode + ": no " + t + " recorded");
+            log.info(String.format(Locale.ROOT, "METRICS %-12s %-10s %s", mode, t.getMetricName(), host.getLatency(t)));
+        }
+
+        assertTrue(host.getLatency(Timer.GET_MORE).getCount() >= 9, mode + ": getMores " + host.getLatency(Timer.GET_MORE).getCount());
+
+        if (connectionWait) {
+            assertTrue(host.getLatency(Timer.CONNECTION_WAIT).getCount() > 0, mode + ": no connection wait recorded");
+        }
+
+        // the documents went out and came back
+        assertTrue(host.getBytesSent() > 100 * 30, mode + ": sent " + host.getBytesSent());
+        assertTrue(host.getBytesReceived() > 100 * 30, mode + ": received " + host.getBytesReceived());
+        assertTrue(host.getMessagesReceived() > 0);
+        log.info(String.format(Locale.ROOT, "METRICS %-12s sent %d bytes / %d msgs, received %d bytes / %d msgs", mode,
+                               host.getBytesSent(), host.getMessagesSent(), host.getBytesReceived(), host.getMessagesReceived()));
+    }
+
+    @Test
+    void pooledConnections() throws Exception {
+        start(PooledDriver.driverName, 0, true);
+        workload();
+        verify("pooled", true);
+
+        Map<String, Double> stats = morphium.getStatistics();
+        assertTrue(stats.get("X-Latency p99 (us) for: find") > 0);
+        assertTrue(stats.get("X-Bytes sent") > 0);
+    }
+
+    @Test
+    void multiplexedConnections() throws Exception {
+        start(PooledDriver.driverName, 2, true);
+        workload();
+        verify("multiplexed", false);
+    }
+
+    @Test
+    void nettyConnections() throws Exception {
+        start(NettyDriver.driverName, 0, true);
+        workload();
+        verify("netty", false);
+    }
+
+    @Test
+    void disabled() throws Exception {
+        start(PooledDriver.driverName, 0, false);
+        workload();
+        assertNull(morphium.getDriver().getMetrics());
+        assertNull(morphium.getStatistics().get("X-Bytes sent"));
+    }
+}
@@ -23,7 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 /**
  * #317: exactly one dump at a time, whoever triggers it. The on-demand {@code dumpNow} trigger,
  * the periodic scheduler and the final dump on shutdown share one guard - two of them writing
- * the same {@code <db>.morphium.gz.tmp} files concurrently would rename an interleaved result
+ * the same {@code <db>.morphium.bson.tmp} files concurrently would rename an interleaved result
  * into place. The trigger itself must not wait for the dump it starts.
  *
  * <p>The dump write is blocked from inside via the {@code writeDumpFiles()} seam, so "a dump is
@@ -146,12 +146,12 @@ public class DumpGuardTest {
         assertTrue(server.triggerDumpNow(), "the first trigger must start a dump");
         assertTrue(server.awaitDumpEntered(), "the dump must have started on its own thread");
         // the trigger returned while the dump is still inside writeDumpFiles() - that is the point
-        assertFalse(new File(dumpDir.toFile(), "guarded.morphium.gz").exists(),
+        assertFalse(new File(dumpDir.toFile(), "guarded.morphium.bson").exists(),
                 "nothing may be written yet while the dump is held");
 
         server.releaseDump();
 
-        File dumpFile = new File(dumpDir.toFile(), "guarded.morphium.gz");
+        File dumpFile = new File(dumpDir.toFile(), "guarded.morphium.bson");
 
         for (int i = 0; i < 100 && !dumpFile.exists(); i++) {
             Thread.sleep(50);
@@ -192,7 +192,7 @@ public class DumpGuardTest {
         assertTrue(server.awaitDumpEntered());
         server.releaseDump();
 
-        File dumpFile = new File(dumpDir.toFile(), "guarded.morphium.gz");
+        File dumpFile = new File(dumpDir.toFile(), "guarded.morphium.bson");
 
         for (int i = 0; i < 100 && !dumpFile.exists(); i++) {
             Thread.sleep(50);
@@ -267,11 +267,11 @@ public class DumpGuardTest {
         server.start();
         // a first, complete dump - this is the "last good dump" that must survive
         assertTrue(server.dumpNow() > 0, "the initial dump must write something");
-        File dumpFile = new File(dumpDir.toFile(), "guarded.morphium.gz");
+        File dumpFile = new File(dumpDir.toFile(), "guarded.morphium.bson");
         assertTrue(dumpFile.exists(), "precondition: a good dump exists");
         byte[] good = java.nio.file.Files.readAllBytes(dumpFile.toPath());
 
-        server.tempFileWhileBlocked = new File(dumpDir.toFile(), "guarded.morphium.gz.tmp");
+        server.tempFileWhileBlocked = new File(dumpDir.toFile(), "guarded.morphium.bson.tmp");
         server.blockNextDump();
         assertTrue(server.triggerDumpNow(), "a dump must be running when shutdown starts");
         assertTrue(server.awaitDumpEntered());
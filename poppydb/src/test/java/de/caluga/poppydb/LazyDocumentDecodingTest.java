@@ -0,0 +1,116 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.MorphiumCursor;
+import de.caluga.morphium.driver.bson.LazyBsonDocument;
+import de.caluga.morphium.driver.commands.FindCommand;
+import de.caluga.morphium.driver.netty.NettyDriver;
+import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.wire.PooledDriver;
+import de.caluga.morphium.query.QueryIterator;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+
+/**
+ * lazyDocumentDecoding: cursor batches arrive as LazyBsonDocument views and must map to
+ * entities just like decoded documents - on the socket pool, multiplexed sockets and netty.
+ */
+public class LazyDocumentDecodingTest {
+
+    private PoppyDB server;
+    private Morphium morphium;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"classic", "multiplexed", "netty"})
+    void cursorBatchesMapToEntities(String transport) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.clusterSettings().setHostSeed("127.0.0.1:" + port);
+        cfg.connectionSettings().setDatabase("lazy_test");
+        cfg.connectionSettings().setMaxConnections(10);
+        cfg.cacheSettings().setBufferedWritesEnabled(false);
+        cfg.driverSettings().setLazyDocumentDecoding(true);
+        cfg.driverSettings().setCursorBatchSize(7);
+
+        if ("netty".equals(transport)) {
+            cfg.driverSettings().setDriverName(NettyDriver.driverName);
+        } else {
+            cfg.driverSettings().setDriverName(PooledDriver.driverName);
+            cfg.driverSettings().setMultiplexedConnectionsPerHost("multiplexed".equals(transport) ? 1 : 0);
+        }
+
+        morphium = new Morphium(cfg);
+        assertTrue(morphium.getDriver().isLazyDocumentDecoding());
+        List<UncachedObject> objects = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            objects.add(new UncachedObject("value " + i, i));
+        }
+
+        morphium.storeList(objects);
+
+        MongoConnection con = morphium.getDriver().getReadConnection(null);
+
+        try {
+            MorphiumCursor crs = new FindCommand(con).setDb("lazy_test").setColl(morphium.getMapper().getCollectionName(UncachedObject.class))
+            .setFilter(Doc.of("counter", 3)).executeIterable(10);
+            assertInstanceOf(LazyBsonDocument.class, crs.next());
+            crs.close();
+        } finally {
+            morphium.getDriver().releaseConnection(con);
+        }
+
+        List<UncachedObject> all = morphium.createQueryFor(UncachedObject.class).sort("counter").asList();
+        assertEquals(50, all.size());
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, all.get(i).getCounter());
+            assertEquals("value " + i, all.get(i).getStrValue());
+        }
+
+        // several getMore round trips with a batch size of 7
+        int count = 0;
+        QueryIterator<UncachedObject> it = morphium.createQueryFor(UncachedObject.class).sort("counter").asIterable();
+
+        for (UncachedObject o : it) {
+            assertEquals(count, o.getCounter());
+            count++;
+        }
+
+        assertEquals(50, count);
+    }
+}
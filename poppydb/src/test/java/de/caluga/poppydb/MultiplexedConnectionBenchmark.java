@@ -0,0 +1,213 @@
+package de.caluga.poppydb;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.FindCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.wire.PooledDriver;
+
+/**
+ * Pool size vs. throughput: classic pool (one in-flight request per socket) against multiplexed
+ * connections (requests pipelined over a few shared sockets, replies matched by responseTo),
+ * both under {@value #CALLERS} concurrent callers doing find-by-id against PoppyDB.
+ *
+ * <p>Reference run (loopback, single vCPU, JDK 21 - client, server and 200 callers share it):
+ * <pre>
+ * MUXBENCH classic  maxConnectionsPerHost=2       145 ops/s  (122 of 200 callers starved)
+ * MUXBENCH classic  maxConnectionsPerHost=8       433 ops/s
+ * MUXBENCH classic  maxConnectionsPerHost=32      829 ops/s
+ * MUXBENCH mux      multiplexedPerHost=1         3084 ops/s
+ * MUXBENCH mux      multiplexedPerHost=2         5632 ops/s
+ * MUXBENCH mux      multiplexedPerHost=4         6615 ops/s
+ * </pre>
+ * With a classic pool most callers spend their time waiting for a free socket (with 2
+ * connections, most of them never get one within serverSelectionTimeout). A single multiplexed
+ * socket already beats a 32-connection pool - nobody waits for a socket, only for its reply.
+ *
+ * <p>Manual: {@code mvn -pl poppydb test -Dtest=MultiplexedConnectionBenchmark -Dtest.excludeTags=}
+ * Results are printed as greppable {@code MUXBENCH } lines.
+ */
+@Tag("manual")
+public class MultiplexedConnectionBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiplexedConnectionBenchmark.class);
+    private static final int CALLERS = 200;
+    private static final int DOCS = 1000;
+    private static final long WARMUP_MS = 2000;
+    private static final long MEASURE_MS = 5000;
+
+    private PoppyDB server;
+    private int port;
+
+    @AfterEach
+    public void tearDown() {
+        if (server != null) {
+            server.shutdown();
+            server = null;
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    private void startServer() throws Exception {
+        port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 1000, 60);
+        server.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (true) {
+            try (Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress("127.0.0.1", port), 250);
+                break;
+            } catch (Exception e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private PooledDriver driver(int classicPerHost, int multiplexedPerHost) throws Exception {
+        PooledDriver drv = new PooledDriver();
+        drv.setHostSeed("127.0.0.1:" + port);
+        drv.setMaxConnections(Math.max(classicPerHost, 2));
+        drv.setMaxConnectionsPerHost(Math.max(classicPerHost, 2));
+        drv.setMinConnectionsPerHost(Math.max(classicPerHost, 1));
+        drv.setConnectionTimeout(2000);
+        drv.setMaxWaitTime(30000);
+        drv.setServerSelectionTimeout(30000);
+        drv.setMultiplexedConnectionsPerHost(multiplexedPerHost);
+        drv.connect();
+        long deadline = System.currentTimeMillis() + 5_000;
+
+        while (!drv.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        return drv;
+    }
+
+    private record Result(double opsPerSecond, long failedCallers) {}
+
+    /** Runs CALLERS threads doing find-by-id until the measuring window closes. */
+    private Result measure(PooledDriver drv) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        AtomicLong ops = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long warmupEnd = System.currentTimeMillis() + WARMUP_MS;
+        long end = warmupEnd + MEASURE_MS;
+        CountDownLatch done = new CountDownLatch(CALLERS);
+
+        for (int t = 0; t < CALLERS; t++) {
+            final int seed = t;
+            pool.submit(() -> {
+                int i = seed;
+
+                try {
+                    while (true) {
+                        long now = System.currentTimeMillis();
+
+                        if (now >= end) {
+                            break;
+                        }
+
+                        MongoConnection con = drv.getReadConnection(null);
+
+                        try {
+                            new FindCommand(con).setDb("muxbench").setColl("docs")
+                            .setFilter(Doc.of("_id", i++ % DOCS)).execute();
+                        } finally {
+                            drv.releaseConnection(con);
+                        }
+
+                        if (now >= warmupEnd) {
+                            ops.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    // typically "Could not get connection in time" - a starved caller
+                    log.debug("caller failed", e);
+                    failed.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        pool.shutdown();
+        return new Result(ops.get() * 1000.0 / MEASURE_MS, failed.get());
+    }
+
+    private static void report(String what, Result r) {
+        log.info(String.format(Locale.ROOT, "MUXBENCH %-40s %10.0f ops/s  (%d of %d callers starved)",
+                               what, r.opsPerSecond(), r.failedCallers(), CALLERS));
+    }
+
+    @Test
+    public void poolSizeVsThroughput() throws Exception {
+        startServer();
+        PooledDriver setup = driver(2, 0);
+
+        try {
+            MongoConnection con = setup.getPrimaryConnection(null);
+
+            try {
+                List<java.util.Map<String, Object>> docs = new ArrayList<>();
+
+                for (int i = 0; i < DOCS; i++) {
+                    docs.add(Doc.of("_id", i, "v", "payload-" + i));
+                }
+
+                new InsertMongoCommand(con).setDb("muxbench").setColl("docs").setDocuments(docs).execute();
+            } finally {
+                setup.releaseConnection(con);
+            }
+        } finally {
+            setup.close();
+        }
+
+        for (int classic : new int[] {2, 8, 32}) {
+            PooledDriver drv = driver(classic, 0);
+
+            try {
+                report("classic  maxConnectionsPerHost=" + classic, measure(drv));
+            } finally {
+                drv.close();
+            }
+        }
+
+        for (int mux : new int[] {1, 2, 4}) {
+            PooledDriver drv = driver(1, mux);
+
+            try {
+                report("mux      multiplexedPerHost=" + mux, measure(drv));
+            } finally {
+                drv.close();
+            }
+        }
+    }
+}
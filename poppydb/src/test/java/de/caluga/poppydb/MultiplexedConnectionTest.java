@@ -0,0 +1,190 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.commands.FindCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.wire.PooledDriver;
+import de.caluga.morphium.driver.wire.SingleMongoConnection;
+
+/**
+ * Multiplexed connections: many threads share one socket, requests are written back-to-back and
+ * every caller must get exactly the reply to ITS request - demultiplexed by responseTo. A mixup
+ * shows as a thread reading another thread's document.
+ */
+public class MultiplexedConnectionTest {
+
+    private PoppyDB server;
+    private PooledDriver drv;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (drv != null) {
+            try {
+                drv.close();
+            } catch (Exception ignored) {
+            }
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private void start(int multiplexed) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+
+        drv = new PooledDriver();
+        drv.setHostSeed("127.0.0.1:" + port);
+        drv.setMaxConnections(100);
+        drv.setMinConnectionsPerHost(1);
+        drv.setConnectionTimeout(2000);
+        drv.setMaxWaitTime(5000);
+        drv.setMultiplexedConnectionsPerHost(multiplexed);
+        drv.connect();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+
+        while (!drv.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    void concurrentCallersGetTheirOwnReplies() throws Exception {
+        start(1);
+        int threads = 32;
+        int opsPerThread = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                results.add(pool.submit(() -> {
+                    int ok = 0;
+
+                    for (int i = 0; i < opsPerThread; i++) {
+                        String id = thread + "-" + i;
+                        MongoConnection con = drv.getPrimaryConnection(null);
+
+                        try {
+                            new InsertMongoCommand(con).setDb("mux").setColl("docs")
+                            .setDocuments(List.of(Doc.of("_id", id, "thread", thread, "i", i)))
+                            .execute();
+                            List<Map<String, Object>> found = new FindCommand(con).setDb("mux").setColl("docs")
+                            .setFilter(Doc.of("_id", id)).execute();
+
+                            if (found.size() == 1 && id.equals(found.get(0).get("_id"))) {
+                                ok++;
+                            }
+                        } finally {
+                            drv.releaseConnection(con);
+                        }
+                    }
+
+                    return ok;
+                }));
+            }
+
+            for (Future<Integer> f : results) {
+                assertEquals(opsPerThread, f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // all of that went over the single shared connection
+        assertEquals(1, drv.getConnectionPoolDetails().get("127.0.0.1:" + server.getPort() + ".multiplexed"));
+    }
+
+    @Test
+    void multiplexedConnectionsAreSharedNotBorrowed() throws Exception {
+        start(2);
+        List<MongoConnection> held = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            held.add(drv.getPrimaryConnection(null));
+        }
+
+        // ten concurrent "borrowers", two sockets
+        assertTrue(held.stream().distinct().count() <= 2, "borrowers must share the multiplexed connections");
+
+        for (MongoConnection c : held) {
+            drv.releaseConnection(c);
+        }
+
+        MongoConnection again = drv.getPrimaryConnection(null);
+        assertTrue(again.isConnected(), "released multiplexed connections must stay open");
+        assertSame(again, held.stream().filter(c -> c == again).findFirst().orElse(null));
+    }
+
+    @Test
+    void encodingErrorFailsOnlyItsOwnRequest() throws Exception {
+        start(1);
+        SingleMongoConnection con = (SingleMongoConnection) drv.getPrimaryConnection(null);
+
+        try {
+            new InsertMongoCommand(con).setDb("mux").setColl("docs").setDocuments(List.of(Doc.of("_id", "ok"))).execute();
+            // not encodable - fails before anything is written
+            assertThrows(Exception.class, () -> new InsertMongoCommand(con).setDb("mux").setColl("docs")
+                         .setDocuments(List.of(Doc.of("_id", "bad", "value", new Object()))).execute());
+
+            assertTrue(con.isConnected(), "an encoding error must not close the shared connection");
+            assertEquals(0, con.getInFlight());
+            List<Map<String, Object>> found = new FindCommand(con).setDb("mux").setColl("docs").setFilter(Doc.of("_id", "ok")).execute();
+            assertEquals(1, found.size());
+        } finally {
+            drv.releaseConnection(con);
+        }
+    }
+
+    @Test
+    void unreadRepliesAreSweptByAge() throws Exception {
+        start(1);
+        drv.setMaxWaitTime(1000);
+        SingleMongoConnection con = (SingleMongoConnection) drv.getPrimaryConnection(null);
+
+        try {
+            // sent, never read
+            con.sendCommand(new FindCommand(con).setDb("mux").setColl("docs").setFilter(Doc.of("_id", "x")));
+            assertEquals(1, con.getInFlight());
+            long deadline = System.currentTimeMillis() + 20_000;
+
+            while (con.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(200);
+            }
+
+            assertEquals(0, con.getInFlight(), "abandoned slot was not swept");
+            assertTrue(con.isConnected());
+        } finally {
+            drv.releaseConnection(con);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.MorphiumConfig.CompressionType;
+import de.caluga.morphium.driver.metrics.HostMetrics;
+import de.caluga.morphium.driver.netty.NettyDriver;
+import de.caluga.morphium.driver.netty.NettyMongoConnection;
+import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+
+/**
+ * NettyDriver against PoppyDB: selected by name via DriverSettings, all requests go over the
+ * few netty channels per host, concurrent callers get their own replies, OP_COMPRESSED goes both
+ * ways.
+ */
+public class NettyDriverTest {
+
+    private PoppyDB server;
+    private Morphium morphium;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private void start() throws Exception {
+        start(OpCompressed.COMPRESSOR_NOOP, null);
+    }
+
+    private void start(int serverCompressor, CompressionType clientCompression) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60, serverCompressor);
+        server.start();
+        Thread.sleep(500);
+
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.clusterSettings().setHostSeed("127.0.0.1:" + port);
+        cfg.connectionSettings().setDatabase("netty_test");
+        cfg.connectionSettings().setMaxConnections(10);
+        cfg.cacheSettings().setBufferedWritesEnabled(false);
+        cfg.driverSettings().setDriverName(NettyDriver.driverName);
+
+        if (clientCompression != null) {
+            cfg.driverSettings().setCompressionType(clientCompression);
+            cfg.driverSettings().setMetricsEnabled(true);
+        }
+
+        morphium = new Morphium(cfg);
+    }
+
+    @Test
+    void selectableViaDriverSettings() throws Exception {
+        start();
+        assertInstanceOf(NettyDriver.class, morphium.getDriver());
+        assertEquals(NettyDriver.driverName, morphium.getDriver().getName());
+
+        MongoConnection con = morphium.getDriver().getPrimaryConnection(null);
+
+        try {
+            assertInstanceOf(NettyMongoConnection.class, con);
+            assertTrue(con.isConnected());
+        } finally {
+            morphium.getDriver().releaseConnection(con);
+        }
+
+        morphium.store(new UncachedObject("netty", 42));
+        UncachedObject read = morphium.createQueryFor(UncachedObject.class).f("counter").eq(42).get();
+        assertNotNull(read);
+        assertEquals("netty", read.getStrValue());
+    }
+
+    @Test
+    void concurrentCallersOverSharedChannels() throws Exception {
+        start();
+        int threads = 64;
+        int opsPerThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                results.add(pool.submit(() -> {
+                    int ok = 0;
+
+                    for (int i = 0; i < opsPerThread; i++) {
+                        int counter = thread * 1000 + i;
+                        morphium.store(new UncachedObject("t" + thread, counter));
+                        UncachedObject read = morphium.createQueryFor(UncachedObject.class)
+                                              .f("counter").eq(counter).get();
+
+                        if (read != null && read.getCounter() == counter && ("t" + thread).equals(read.getStrValue())) {
+                            ok++;
+                        }
+                    }
+
+                    return ok;
+                }));
+            }
+
+            for (Future<Integer> f : results) {
+                assertEquals(opsPerThread, f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(threads * opsPerThread, morphium.createQueryFor(UncachedObject.class).countAll());
+        Object channels = morphium.getDriver().getConnectionPoolDetails().get("127.0.0.1:" + server.getPort() + ".multiplexed");
+        assertTrue(((Number) channels).intValue() <= NettyDriver.DEFAULT_CONNECTIONS_PER_HOST,
+                   "all requests must share the netty channels, got " + channels);
+    }
+
+    @Test
+    void zstdRoundTrip() throws Exception {
+        start(OpCompressed.COMPRESSOR_ZSTD, CompressionType.ZSTD);
+        List<UncachedObject> objects = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            objects.add(new UncachedObject("zstd-" + i + "-" + "payload".repeat(20), i));
+        }
+
+        morphium.storeList(objects);
+        List<UncachedObject> read = morphium.createQueryFor(UncachedObject.class).sort("counter").asList();
+        assertEquals(500, read.size());
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals("zstd-" + i + "-" + "payload".repeat(20), read.get(i).getStrValue());
+        }
+
+        // 500 documents of ~170 bytes went out and came back - compressed in both directions
+        HostMetrics host = morphium.getDriver().getMetrics().forHost("127.0.0.1:" + server.getPort());
+        assertTrue(host.getBytesSent() < 40_000, "sent " + host.getBytesSent());
+        assertTrue(host.getBytesReceived() < 40_000, "received " + host.getBytesReceived());
+    }
+}
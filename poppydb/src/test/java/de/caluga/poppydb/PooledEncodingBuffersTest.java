@@ -0,0 +1,100 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.caluga.morphium.driver.Doc;
+import de.caluga.morphium.driver.bson.BsonBufferPool;
+import de.caluga.morphium.driver.commands.CountMongoCommand;
+import de.caluga.morphium.driver.commands.FindCommand;
+import de.caluga.morphium.driver.commands.InsertMongoCommand;
+import de.caluga.morphium.driver.netty.NettyDriver;
+import de.caluga.morphium.driver.wire.MongoConnection;
+import de.caluga.morphium.driver.wire.PooledDriver;
+
+/**
+ * Requests encoded into pooled (heap or direct) buffers and gathered onto the wire: classic
+ * socket pool, multiplexed sockets and netty channels must all deliver them intact.
+ */
+public class PooledEncodingBuffersTest {
+
+    private PoppyDB server;
+    private PooledDriver drv;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (drv != null) {
+            try {
+                drv.close();
+            } catch (Exception ignored) {
+            }
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"classic,false", "classic,true", "multiplexed,false", "netty,true"})
+    void bulkInsertAndReadBack(String transport, boolean direct) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+
+        drv = "netty".equals(transport) ? new NettyDriver() : new PooledDriver();
+        drv.setHostSeed("127.0.0.1:" + port);
+        drv.setMaxConnections(10);
+        drv.setConnectionTimeout(2000);
+        drv.setMaxWaitTime(10000);
+        drv.setMultiplexedConnectionsPerHost("multiplexed".equals(transport) ? 1 : 0);
+        BsonBufferPool pool = new BsonBufferPool(direct, 16 * 1024 * 1024);
+        drv.setEncodingBufferPool(pool);
+        drv.connect();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+
+        while (!drv.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        String payload = "x".repeat(10_000);
+        List<Map<String, Object>> docs = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            docs.add(Doc.of("_id", i, "payload", payload, "nested", Doc.of("i", i, "tags", List.of("a", "ü", "😀"))));
+        }
+
+        MongoConnection con = drv.getPrimaryConnection(null);
+
+        try {
+            new InsertMongoCommand(con).setDb("pooled").setColl("docs").setDocuments(docs).execute();
+            assertEquals(200, new CountMongoCommand(con).setDb("pooled").setColl("docs").setQuery(Doc.of()).getCount());
+            List<Map<String, Object>> found = new FindCommand(con).setDb("pooled").setColl("docs")
+            .setFilter(Doc.of("_id", 123)).execute();
+            assertEquals(1, found.size());
+            assertEquals(payload, found.get(0).get("payload"));
+            assertEquals(List.of("a", "ü", "😀"), ((Map<?, ?>) found.get(0).get("nested")).get("tags"));
+        } finally {
+            drv.releaseConnection(con);
+        }
+
+        assertTrue(pool.getRetainedBytes() > 0, "written buffers must have been returned to the pool");
+    }
+}
@@ -0,0 +1,122 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.driver.MorphiumCursor;
+import de.caluga.morphium.driver.wire.StreamingMongoConnectionCursor;
+import de.caluga.morphium.driver.wireprotocol.OpCompressed;
+import de.caluga.morphium.query.QueryIterator;
+import de.caluga.test.mongo.suite.data.UncachedObject;
+
+/**
+ * streamingCursors: query iteration decodes batches document by document from the socket.
+ * Results, getMore round trips and early close (the rest of the reply must still be read off
+ * the connection) must behave like the buffered cursor - also when the server compresses its
+ * replies, which are then read as a whole.
+ */
+public class StreamingCursorTest {
+
+    private PoppyDB server;
+    private Morphium morphium;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private void start(boolean lazy, boolean compressedReplies) throws Exception {
+        int port = freePort();
+        server = compressedReplies ? new PoppyDB(port, "127.0.0.1", 100, 60, OpCompressed.COMPRESSOR_SNAPPY)
+                 : new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.clusterSettings().setHostSeed("127.0.0.1:" + port);
+        cfg.connectionSettings().setDatabase("streaming_test");
+        cfg.connectionSettings().setMaxConnections(2);
+        cfg.cacheSettings().setBufferedWritesEnabled(false);
+        cfg.driverSettings().setStreamingCursors(true);
+        cfg.driverSettings().setLazyDocumentDecoding(lazy);
+        morphium = new Morphium(cfg);
+
+        List<UncachedObject> objects = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            objects.add(new UncachedObject("value " + i + " " + "x".repeat(1000), i));
+        }
+
+        morphium.storeList(objects);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false,false", "true,false", "false,true"})
+    void iterateInBatches(boolean lazy, boolean compressedReplies) throws Exception {
+        start(lazy, compressedReplies);
+        int count = 0;
+
+        for (UncachedObject o : morphium.createQueryFor(UncachedObject.class).sort("counter").asIterable(40)) {
+            assertEquals(count, o.getCounter());
+            assertTrue(o.getStrValue().startsWith("value " + count + " "));
+            count++;
+        }
+
+        assertEquals(300, count);
+
+        try (Stream<UncachedObject> s = morphium.createQueryFor(UncachedObject.class).f("counter").gte(100).stream()) {
+            assertEquals(200, s.count());
+        }
+
+        MorphiumCursor crs = morphium.createQueryFor(UncachedObject.class).f("counter").lt(5).getCursor();
+        assertInstanceOf(StreamingMongoConnectionCursor.class, crs);
+        assertEquals(5, crs.getAll().size());
+        assertNull(crs.getConnection(), "exhausted cursor must give its connection back");
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false,false", "false,true"})
+    void closeInTheMiddleOfABatch(boolean lazy, boolean compressedReplies) throws Exception {
+        start(lazy, compressedReplies);
+
+        // more rounds than connections: a connection left in the middle of a reply would
+        // hand the next query garbage
+        for (int round = 0; round < 5; round++) {
+            Iterator<UncachedObject> it = morphium.createQueryFor(UncachedObject.class).sort("counter").asIterable(100);
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, it.next().getCounter());
+            }
+
+            ((QueryIterator<UncachedObject>) it).close();
+            assertEquals(300, morphium.createQueryFor(UncachedObject.class).asList().size());
+            assertEquals(42, morphium.createQueryFor(UncachedObject.class).f("counter").eq(42).get().getCounter());
+        }
+    }
+}
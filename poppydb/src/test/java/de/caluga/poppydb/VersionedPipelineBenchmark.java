@@ -0,0 +1,165 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.VersionConflictsException;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.Property;
+import de.caluga.morphium.annotations.Version;
+import de.caluga.morphium.async.AsyncOperationCallback;
+import de.caluga.morphium.driver.MorphiumId;
+
+/**
+ * Versioned {@code store(List)} over the wire: one conditional update round trip per entity
+ * (sequential) against all updates pipelined on one connection
+ * ({@code writerSettings.versionedUpdatePipelineDepth}), {@value #ENTITIES} entities per batch.
+ * The pipelined run also makes a few entities stale and checks that exactly those are reported.
+ *
+ * <p>Reference run (loopback, single vCPU, JDK 21 - client and server share it):
+ * <pre>
+ * VPIPEBENCH sequential                     344 updates/s
+ * VPIPEBENCH pipelined depth=16             563 updates/s  (x1.6)
+ * VPIPEBENCH pipelined depth=128            626 updates/s  (x1.8)
+ * VPIPEBENCH pipelined depth=1024           585 updates/s  (x1.7)
+ * </pre>
+ * On loopback the server's per-update work dominates; the saved time is the network round trip,
+ * so the gain grows with the RTT to the server.
+ *
+ * <p>Manual: {@code mvn -pl poppydb test -Dtest=VersionedPipelineBenchmark -Dtest.excludeTags=}
+ * Results are printed as greppable {@code VPIPEBENCH } lines.
+ */
+@Tag("manual")
+public class VersionedPipelineBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(VersionedPipelineBenchmark.class);
+    private static final int ENTITIES = 5000;
+
+    @Entity(collectionName = "vpipe_item")
+    public static class Item {
+        @Id
+        public MorphiumId id;
+
+        @Version
+        @Property(fieldName = "version")
+        public long version;
+
+        public String name;
+    }
+
+    private PoppyDB server;
+    private int port;
+
+    @AfterEach
+    public void tearDown() {
+        if (server != null) {
+            server.shutdown();
+            server = null;
+        }
+    }
+
+    private void startServer() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            port = s.getLocalPort();
+        }
+
+        server = new PoppyDB(port, "127.0.0.1", 1000, 60);
+        server.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (true) {
+            try (Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress("127.0.0.1", port), 250);
+                break;
+            } catch (Exception e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private Morphium morphium(String db, int pipelineDepth) {
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.connectionSettings().setDatabase(db);
+        cfg.clusterSettings().getHostSeed().clear();
+        cfg.clusterSettings().addHostToSeed("127.0.0.1:" + port);
+        cfg.driverSettings().setDriverName("PooledDriver");
+        cfg.connectionSettings().setMaxConnections(10).setMinConnections(2);
+        cfg.writerSettings().setVersionedUpdatePipelineDepth(pipelineDepth);
+        return new Morphium(cfg);
+    }
+
+    private List<Item> prepare(Morphium morphium) {
+        List<Item> items = new ArrayList<>();
+
+        for (int i = 0; i < ENTITIES; i++) {
+            Item it = new Item();
+            it.name = "item-" + i;
+            items.add(it);
+        }
+
+        morphium.getWriterForClass(Item.class).store(items, null, (AsyncOperationCallback<Item>) null);
+        items.forEach(it -> it.name = it.name + "-updated");
+        return items;
+    }
+
+    private double run(String db, int pipelineDepth, int... staleIdx) {
+        try (Morphium morphium = morphium(db, pipelineDepth)) {
+            List<Item> items = prepare(morphium);
+
+            for (int idx : staleIdx) {
+                Item concurrent = morphium.createQueryFor(Item.class).f("id").eq(items.get(idx).id).get();
+                concurrent.name = "concurrent";
+                morphium.store(concurrent);
+            }
+
+            long start = System.nanoTime();
+
+            if (staleIdx.length == 0) {
+                morphium.getWriterForClass(Item.class).store(items, null, (AsyncOperationCallback<Item>) null);
+            } else {
+                VersionConflictsException ex = assertThrows(VersionConflictsException.class,
+                    () -> morphium.getWriterForClass(Item.class).store(items, null, (AsyncOperationCallback<Item>) null));
+                assertEquals(staleIdx.length, ex.getConflicts().size());
+                assertEquals(staleIdx[0], ex.getListIndex());
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertEquals(ENTITIES, morphium.createQueryFor(Item.class).f("version").eq(2L).countAll());
+            return ENTITIES / seconds;
+        }
+    }
+
+    @Test
+    public void sequentialVsPipelined() throws Exception {
+        startServer();
+        double sequential = run("vpipe_seq", 0);
+        log.info(String.format(Locale.ROOT, "VPIPEBENCH sequential              %10.0f updates/s", sequential));
+
+        for (int depth : new int[] {16, 128, 1024}) {
+            double pipelined = run("vpipe_" + depth, depth);
+            log.info(String.format(Locale.ROOT, "VPIPEBENCH pipelined depth=%-5d    %10.0f updates/s  (x%.1f)", depth, pipelined, pipelined / sequential));
+        }
+
+        run("vpipe_conflicts", 128, 10, 2500, 4999);
+    }
+}
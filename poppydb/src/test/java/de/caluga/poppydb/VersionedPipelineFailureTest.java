@@ -0,0 +1,189 @@
+package de.caluga.poppydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.MorphiumConfig;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.annotations.Property;
+import de.caluga.morphium.annotations.Version;
+import de.caluga.morphium.async.AsyncOperationCallback;
+import de.caluga.morphium.driver.MorphiumDriver.DriverStatsKey;
+import de.caluga.morphium.driver.MorphiumId;
+import de.caluga.morphium.driver.wire.PooledDriver;
+import de.caluga.morphium.driver.wireprotocol.OpMsg;
+import de.caluga.morphium.driver.wireprotocol.WireProtocolMessage;
+import de.caluga.test.morphium.testutil.proxy.WireProxy;
+
+/**
+ * Versioned {@code store(List)} with a pipeline that breaks off: a proxy turns the reply to one
+ * conditional update into {@code ok:0} while the later updates still await theirs. The replies
+ * left unread must never reach another caller - the following reads and writes work.
+ */
+public class VersionedPipelineFailureTest {
+
+    private static final int ENTITIES = 20;
+    private static final int FAILING_REPLY = 5;
+
+    @Entity(collectionName = "vpipe_fail_item")
+    public static class Item {
+        @Id
+        public MorphiumId id;
+
+        @Version
+        @Property(fieldName = "version")
+        public long version;
+
+        public String name;
+    }
+
+    private PoppyDB server;
+    private WireProxy proxy;
+    private Morphium morphium;
+    private final AtomicInteger updateReplies = new AtomicInteger();
+    private volatile boolean failing;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (morphium != null) {
+            morphium.close();
+        }
+
+        if (proxy != null) {
+            proxy.stop();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private void start(int multiplexed) throws Exception {
+        int port = freePort();
+        server = new PoppyDB(port, "127.0.0.1", 100, 60);
+        server.start();
+        Thread.sleep(500);
+        proxy = new WireProxy("127.0.0.1", port);
+        proxy.setRewriter(this::rewrite);
+        proxy.start();
+
+        MorphiumConfig cfg = new MorphiumConfig();
+        cfg.clusterSettings().setHostSeed("localhost:" + proxy.getListenPort());
+        cfg.connectionSettings().setDatabase("vpipe_fail_test");
+        cfg.connectionSettings().setMaxConnections(10);
+        cfg.driverSettings().setDriverName("PooledDriver");
+        cfg.driverSettings().setMultiplexedConnectionsPerHost(multiplexed);
+        cfg.connectionSettings().setMaxWaitTime(2000);
+        cfg.writerSettings().setVersionedUpdatePipelineDepth(8);
+        morphium = new Morphium(cfg);
+    }
+
+    /**
+     * Keeps the driver on the proxy (the standalone hello lists the server's own address) and,
+     * while {@code failing}, turns the {@value #FAILING_REPLY}th update reply into {@code ok:0}.
+     */
+    private WireProtocolMessage rewrite(WireProtocolMessage reply) {
+        if (!(reply instanceof OpMsg msg) || msg.getFirstDoc() == null) {
+            return reply;
+        }
+
+        Map<String, Object> doc = msg.getFirstDoc();
+
+        if (doc.get("hosts") instanceof List) {
+            doc.put("hosts", List.of("localhost:" + proxy.getListenPort()));
+        } else if (failing && doc.containsKey("nModified") && updateReplies.incrementAndGet() == FAILING_REPLY) {
+            failing = false;
+            doc.clear();
+            doc.put("ok", 0.0);
+            doc.put("code", 2);
+            doc.put("errmsg", "injected failure");
+        }
+
+        return msg;
+    }
+
+    private void brokenPipeline(int multiplexed) throws Exception {
+        start(multiplexed);
+        List<Item> items = new ArrayList<>();
+
+        for (int i = 0; i < ENTITIES; i++) {
+            Item it = new Item();
+            it.name = "item-" + i;
+            items.add(it);
+        }
+
+        morphium.getWriterForClass(Item.class).store(items, null, (AsyncOperationCallback<Item>) null);
+        items.forEach(it -> it.name = it.name + "-updated");
+        double closedBefore = morphium.getDriver().getDriverStats().get(DriverStatsKey.CONNECTIONS_CLOSED);
+        // the pool's backstop for connections released with unread replies must not be needed
+        ch.qos.logback.classic.Logger poolLog = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PooledDriver.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        poolLog.addAppender(appender);
+        failing = true;
+
+        try {
+            assertThrows(RuntimeException.class, () -> morphium.getWriterForClass(Item.class).store(items, null, (AsyncOperationCallback<Item>) null));
+        } finally {
+            poolLog.detachAppender(appender);
+        }
+
+        assertTrue(appender.list.stream().noneMatch(e -> e.getFormattedMessage().contains("still awaits replies")),
+                   "connection with unread replies was released to the pool");
+
+        // the updates answered before the failure got their new version
+        for (int i = 0; i < FAILING_REPLY - 1; i++) {
+            assertEquals(2L, items.get(i).version);
+        }
+
+        // no caller reads a reply meant for the broken pipeline
+        for (int round = 0; round < 3; round++) {
+            for (Item it : items) {
+                Item read = morphium.createQueryFor(Item.class).f("id").eq(it.id).get();
+                assertEquals(it.id, read.id);
+            }
+        }
+
+        Item fresh = new Item();
+        fresh.name = "after";
+        morphium.store(fresh);
+        assertEquals(ENTITIES + 1, morphium.createQueryFor(Item.class).countAll());
+
+        if (multiplexed == 0) {
+            assertTrue(morphium.getDriver().getDriverStats().get(DriverStatsKey.CONNECTIONS_CLOSED) > closedBefore,
+                       "connection with unread replies was not closed");
+        }
+    }
+
+    @Test
+    void pooledConnectionIsClosed() throws Exception {
+        brokenPipeline(0);
+    }
+
+    @Test
+    void multiplexedConnectionStaysUsable() throws Exception {
+        brokenPipeline(1);
+    }
+}
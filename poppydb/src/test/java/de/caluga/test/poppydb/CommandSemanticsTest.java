@@ -169,14 +169,14 @@ public class CommandSemanticsTest {
 
             assertEquals(1.0, ok(reply), "dumpNow must succeed: " + reply);
             assertEquals("started", reply.get("status"), "the trigger must report a started dump: " + reply);
-            java.io.File dumpFile = new java.io.File(dumpDir, "dumptest.morphium.gz");
+            java.io.File dumpFile = new java.io.File(dumpDir, "dumptest.morphium.bson");
 
             for (int i = 0; i < 100 && !dumpFile.exists(); i++) {
                 Thread.sleep(50);
             }
 
             assertEquals(true, dumpFile.exists(), "dump file must exist: " + dumpFile);
-            assertEquals(false, new java.io.File(dumpDir, "dumptest.morphium.gz.tmp").exists(),
+            assertEquals(false, new java.io.File(dumpDir, "dumptest.morphium.bson.tmp").exists(),
                     "the temp file must be gone once the dump completed");
 
             Map<String, Object> statusAfter = null;
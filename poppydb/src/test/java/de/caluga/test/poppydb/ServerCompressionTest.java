@@ -251,6 +251,54 @@ public class ServerCompressionTest {
         }
     }
 
+    /**
+     * Test: Both client and server use ZSTD. Small commands stay below the compression threshold,
+     * the bulk insert and the large cursor batch go out compressed.
+     */
+    @Test
+    public void testBothZstd() throws Exception {
+        int port = nextPort();
+        var srv = new PoppyDB(port, "localhost", 20, 60, OpCompressed.COMPRESSOR_ZSTD);
+        startServer(srv, port);
+
+        try {
+            MorphiumConfig cfg = new MorphiumConfig();
+            cfg.clusterSettings().setHostSeed("localhost:" + port);
+            cfg.connectionSettings().setDatabase("compression_test");
+            cfg.connectionSettings().setMaxConnections(5);
+            cfg.driverSettings().setCompressionType(CompressionType.ZSTD);
+
+            Morphium morphium = new Morphium(cfg);
+
+            try (morphium) {
+                UncachedObject single = new UncachedObject();
+                single.setCounter(-1);
+                single.setStrValue("zstd-single");
+                morphium.store(single);
+
+                List<UncachedObject> bulk = new java.util.ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    UncachedObject uc = new UncachedObject();
+                    uc.setCounter(i);
+                    uc.setStrValue("zstd-" + i + "-" + "payload".repeat(20));
+                    bulk.add(uc);
+                }
+                morphium.storeList(bulk);
+
+                var results = morphium.createQueryFor(UncachedObject.class).f("counter").gte(0).sort("counter").asList();
+                assertEquals(500, results.size());
+                for (int i = 0; i < 500; i++) {
+                    assertEquals(i, results.get(i).getCounter());
+                    assertEquals("zstd-" + i + "-" + "payload".repeat(20), results.get(i).getStrValue());
+                }
+                assertEquals("zstd-single", morphium.createQueryFor(UncachedObject.class).f("counter").eq(-1).get().getStrValue());
+                log.info("All 501 documents verified with bidirectional ZSTD compression");
+            }
+        } finally {
+            srv.shutdown();
+        }
+    }
+
     /**
      * Test: Client SNAPPY, server ZLIB (mixed compression).
      * Client sends SNAPPY-compressed, server sends ZLIB-compressed.
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2025 The Quarkiverse Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.caluga.morphium.quarkus.deployment;
+
+import de.caluga.morphium.annotations.Embedded;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.objectmapping.GeneratedFieldAccessor;
+import de.caluga.morphium.quarkus.MorphiumRecorder;
+import io.quarkus.deployment.GeneratedClassGizmoAdaptor;
+import io.quarkus.deployment.annotations.BuildProducer;
+import io.quarkus.deployment.annotations.BuildStep;
+import io.quarkus.deployment.annotations.ExecutionTime;
+import io.quarkus.deployment.annotations.Record;
+import io.quarkus.deployment.builditem.ApplicationArchivesBuildItem;
+import io.quarkus.deployment.builditem.BytecodeTransformerBuildItem;
+import io.quarkus.deployment.builditem.CombinedIndexBuildItem;
+import io.quarkus.deployment.builditem.GeneratedClassBuildItem;
+import io.quarkus.deployment.builditem.nativeimage.ReflectiveClassBuildItem;
+import io.quarkus.gizmo.BytecodeCreator;
+import io.quarkus.gizmo.ClassCreator;
+import io.quarkus.gizmo.ClassOutput;
+import io.quarkus.gizmo.FieldDescriptor;
+import io.quarkus.gizmo.Gizmo;
+import io.quarkus.gizmo.MethodCreator;
+import io.quarkus.gizmo.MethodDescriptor;
+import io.quarkus.gizmo.ResultHandle;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.PrimitiveType;
+import org.jboss.jandex.Type;
+import org.jboss.logging.Logger;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@link GeneratedFieldAccessor} per entity class at build time, so that
+ * Morphium's object mapper reads and writes entity fields with plain field instructions
+ * instead of reflection - in JVM mode and in native images.
+ *
+ * <p>For every {@code @Entity}/{@code @Embedded} class of the application (plus the super
+ * and subclasses Morphium maps along with them) a class {@code <Entity>$$MorphiumAccessor}
+ * is generated in the entity's package. It handles the non-static, non-final instance fields
+ * the class declares. Private fields are made package-private by a bytecode transformation,
+ * the same way ArC opens private injection points. The generated class names are passed to
+ * {@link MorphiumRecorder#registerFieldAccessors}, which registers instances at runtime init.
+ *
+ * <p>Only classes of the application archive are handled: a generated class must end up in
+ * the same runtime package as its entity, which is only guaranteed for application classes.
+ * Entities from dependencies, final fields and fields whose type the accessor could not
+ * reference keep the reflective access.
+ */
+public class MorphiumAccessorProcessor {
+
+    private static final Logger log = Logger.getLogger(MorphiumAccessorProcessor.class);
+
+    static final String ACCESSOR_SUFFIX = "$$MorphiumAccessor";
+
+    private static final DotName ENTITY = DotName.createSimple(Entity.class.getName());
+    private static final DotName EMBEDDED = DotName.createSimple(Embedded.class.getName());
+
+    @BuildStep
+    @Record(ExecutionTime.RUNTIME_INIT)
+    MorphiumAccessorsRegisteredBuildItem generateFieldAccessors(MorphiumAccessorsBuildTimeConfig config,
+                                                                CombinedIndexBuildItem combinedIndex,
+                                                                ApplicationArchivesBuildItem applicationArchives,
+                                                                BuildProducer<GeneratedClassBuildItem> generatedClasses,
+                                                                BuildProducer<BytecodeTransformerBuildItem> transformers,
+                                                                BuildProducer<ReflectiveClassBuildItem> reflectiveClasses,
+                                                                MorphiumRecorder recorder) {
+        List<String> accessorClassNames = new ArrayList<>();
+
+        if (config.enabled()) {
+            IndexView index = combinedIndex.getIndex();
+            IndexView applicationIndex = applicationArchives.getRootArchive().getIndex();
+            ClassOutput classOutput = new GeneratedClassGizmoAdaptor(generatedClasses, true);
+
+            for (ClassInfo mapped : mappedClasses(index)) {
+                if (applicationIndex.getClassByName(mapped.name()) == null) {
+                    continue;
+                }
+
+                List<FieldInfo> fields = accessibleFields(mapped, index);
+
+                if (fields.isEmpty()) {
+                    continue;
+                }
+
+                String accessorClassName = generateAccessor(mapped, fields, classOutput);
+                openPrivateFields(mapped, fields, transformers);
+                // instantiated by name in the recorder
+                reflectiveClasses.produce(ReflectiveClassBuildItem.builder(accessorClassName)
+                    .constructors(true)
+                    .build());
+                accessorClassNames.add(accessorClassName);
+            }
+
+            if (!accessorClassNames.isEmpty()) {
+                log.infof("Morphium: generated %d entity field accessors", accessorClassNames.size());
+            }
+        }
+
+        // Always call registerFieldAccessors (even when empty) to reset state on hot reload.
+        recorder.registerFieldAccessors(accessorClassNames);
+        return new MorphiumAccessorsRegisteredBuildItem();
+    }
+
+    /**
+     * Classes annotated {@code @Entity}/{@code @Embedded}, their indexed superclasses (which
+     * may declare mapped fields, typically the {@code @Id}) and all known subclasses.
+     */
+    static List<ClassInfo> mappedClasses(IndexView index) {
+        Map<DotName, ClassInfo> ret = new LinkedHashMap<>();
+
+        for (DotName annotation : List.of(ENTITY, EMBEDDED)) {
+            for (AnnotationInstance ai : index.getAnnotations(annotation)) {
+                if (ai.target().kind() != AnnotationTarget.Kind.CLASS) {
+                    continue;
+                }
+
+                ClassInfo ci = ai.target().asClass();
+
+                for (ClassInfo c = ci; c != null && !ret.containsKey(c.name()); ) {
+                    ret.put(c.name(), c);
+                    c = c.superName() == null ? null : index.getClassByName(c.superName());
+                }
+
+                for (ClassInfo sub : index.getAllKnownSubclasses(ci.name())) {
+                    ret.putIfAbsent(sub.name(), sub);
+                }
+            }
+        }
+
+        return ret.values().stream()
+            .filter(c -> !Modifier.isInterface(c.flags()) && !c.name().toString().equals("java.lang.Object"))
+            .collect(Collectors.toList());
+    }
+
+    /** declared fields a generated accessor can read and write */
+    static List<FieldInfo> accessibleFields(ClassInfo ci, IndexView index) {
+        List<FieldInfo> ret = new ArrayList<>();
+
+        for (FieldInfo f : ci.fields()) {
+            int flags = f.flags();
+
+            if (Modifier.isStatic(flags) || Modifier.isFinal(flags) || (flags & Opcodes.ACC_SYNTHETIC) != 0
+                    || f.name().startsWith("$jacoco")) {
+                continue;
+            }
+
+            Type type = f.type();
+
+            if (type.kind() == Type.Kind.PRIMITIVE) {
+                ret.add(f);
+            } else if ((type.kind() == Type.Kind.CLASS || type.kind() == Type.Kind.PARAMETERIZED_TYPE)
+                    && isAccessibleFrom(type.name(), ci.name(), index)) {
+                // arrays and type variables stay reflective - the cast would need their erasure
+                ret.add(f);
+            }
+        }
+
+        return ret;
+    }
+
+    /** the accessor casts to the field type: it must be public or in the accessor's package */
+    private static boolean isAccessibleFrom(DotName type, DotName accessor, IndexView index) {
+        ClassInfo typeInfo = index.getClassByName(type);
+
+        if (typeInfo == null || Modifier.isPublic(typeInfo.flags())) {
+            // not indexed: JDK and library types that can be used as field types are public
+            return true;
+        }
+
+        return packageOf(type).equals(packageOf(accessor));
+    }
+
+    private static String packageOf(DotName name) {
+        String n = name.toString();
+        int dot = n.lastIndexOf('.');
+        return dot < 0 ? "" : n.substring(0, dot);
+    }
+
+    static String generateAccessor(ClassInfo ci, List<FieldInfo> fields, ClassOutput classOutput) {
+        String className = ci.name().toString();
+        String accessorClassName = className + ACCESSOR_SUFFIX;
+
+        try (ClassCreator cc = ClassCreator.builder()
+                .classOutput(classOutput)
+                .className(accessorClassName)
+                .interfaces(GeneratedFieldAccessor.class)
+                .build()) {
+
+            MethodCreator declaring = cc.getMethodCreator("getDeclaringClass", Class.class);
+            declaring.returnValue(declaring.loadClass(className));
+
+            MethodCreator names = cc.getMethodCreator("getFieldNames", String[].class);
+            ResultHandle array = names.newArray(String.class, fields.size());
+
+            for (int i = 0; i < fields.size(); i++) {
+                names.writeArrayValue(array, i, names.load(fields.get(i).name()));
+            }
+
+            names.returnValue(array);
+
+            MethodCreator get = cc.getMethodCreator("get", Object.class, Object.class, int.class);
+            ResultHandle getTarget = get.checkCast(get.getMethodParam(0), className);
+
+            for (int i = 0; i < fields.size(); i++) {
+                FieldInfo f = fields.get(i);
+                BytecodeCreator match = get.ifIntegerEqual(get.getMethodParam(1), get.load(i)).trueBranch();
+                ResultHandle value = match.readInstanceField(FieldDescriptor.of(f), getTarget);
+
+                if (f.type().kind() == Type.Kind.PRIMITIVE) {
+                    value = box(match, value, f.type().asPrimitiveType().primitive());
+                }
+
+                match.returnValue(value);
+            }
+
+            get.throwException(IllegalArgumentException.class, "no such field index");
+
+            MethodCreator set = cc.getMethodCreator("set", void.class, Object.class, int.class, Object.class);
+            ResultHandle setTarget = set.checkCast(set.getMethodParam(0), className);
+
+            for (int i = 0; i < fields.size(); i++) {
+                FieldInfo f = fields.get(i);
+                BytecodeCreator match = set.ifIntegerEqual(set.getMethodParam(1), set.load(i)).trueBranch();
+                ResultHandle value;
+
+                if (f.type().kind() == Type.Kind.PRIMITIVE) {
+                    value = unbox(match, set.getMethodParam(2), f.type().asPrimitiveType().primitive());
+                } else {
+                    value = match.checkCast(set.getMethodParam(2), f.type().name().toString());
+                }
+
+                match.writeInstanceField(FieldDescriptor.of(f), setTarget, value);
+                match.returnVoid();
+            }
+
+            set.throwException(IllegalArgumentException.class, "no such field index");
+        }
+
+        log.debugf("Morphium: generated field accessor %s for %d fields", accessorClassName, fields.size());
+        return accessorClassName;
+    }
+
+    /**
+     * Makes the private fields the accessor handles package-private, the accessor lives in the
+     * same package.
+     */
+    private static void openPrivateFields(ClassInfo ci, List<FieldInfo> fields,
+                                          BuildProducer<BytecodeTransformerBuildItem> transformers) {
+        Set<String> privateFields = fields.stream()
+            .filter(f -> Modifier.isPrivate(f.flags()))
+            .map(FieldInfo::name)
+            .collect(Collectors.toSet());
+
+        if (privateFields.isEmpty()) {
+            return;
+        }
+
+        transformers.produce(new BytecodeTransformerBuildItem(ci.name().toString(),
+            (className, visitor) -> new ClassVisitor(Gizmo.ASM_API_VERSION, visitor) {
+                @Override
+                public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                    if (privateFields.contains(name)) {
+                        access &= ~Opcodes.ACC_PRIVATE;
+                    }
+
+                    return super.visitField(access, name, descriptor, signature, value);
+                }
+            }));
+    }
+
+    private static Class<?> wrapperOf(PrimitiveType.Primitive primitive) {
+        return switch (primitive) {
+            case BOOLEAN -> Boolean.class;
+            case BYTE -> Byte.class;
+            case SHORT -> Short.class;
+            case INT -> Integer.class;
+            case LONG -> Long.class;
+            case FLOAT -> Float.class;
+            case DOUBLE -> Double.class;
+            case CHAR -> Character.class;
+        };
+    }
+
+    private static Class<?> primitiveOf(PrimitiveType.Primitive primitive) {
+        return switch (primitive) {
+            case BOOLEAN -> boolean.class;
+            case BYTE -> byte.class;
+            case SHORT -> short.class;
+            case INT -> int.class;
+            case LONG -> long.class;
+            case FLOAT -> float.class;
+            case DOUBLE -> double.class;
+            case CHAR -> char.class;
+        };
+    }
+
+    private static ResultHandle box(BytecodeCreator bc, ResultHandle value, PrimitiveType.Primitive primitive) {
+        Class<?> wrapper = wrapperOf(primitive);
+        return bc.invokeStaticMethod(MethodDescriptor.ofMethod(wrapper, "valueOf", wrapper, primitiveOf(primitive)), value);
+    }
+
+    /** a null value or the wrong wrapper type fails, like setting it via reflection */
+    private static ResultHandle unbox(BytecodeCreator bc, ResultHandle value, PrimitiveType.Primitive primitive) {
+        Class<?> wrapper = wrapperOf(primitive);
+        Class<?> type = primitiveOf(primitive);
+        return bc.invokeVirtualMethod(MethodDescriptor.ofMethod(wrapper, type.getName() + "Value", type),
+            bc.checkCast(value, wrapper));
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025 The Quarkiverse Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.caluga.morphium.quarkus.deployment;
+
+import io.quarkus.runtime.annotations.ConfigPhase;
+import io.quarkus.runtime.annotations.ConfigRoot;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Build-time configuration for the generated entity field accessors.
+ *
+ * <p>When enabled (the default), a field accessor class is generated for every
+ * {@code @Entity}/{@code @Embedded} class of the application, so the object mapper reads and
+ * writes entity fields without reflection. Private instance fields of these classes are made
+ * package-private for that. Set to {@code false} to keep the classes untouched:
+ * <pre>{@code
+ * quarkus.morphium.accessors.enabled=false
+ * }</pre>
+ */
+@ConfigMapping(prefix = "quarkus.morphium.accessors")
+@ConfigRoot(phase = ConfigPhase.BUILD_TIME)
+public interface MorphiumAccessorsBuildTimeConfig {
+
+    /**
+     * Whether field accessors are generated for the application's entity classes.
+     */
+    @WithDefault("true")
+    boolean enabled();
+}
@@ -0,0 +1,13 @@
+package de.caluga.morphium.quarkus.deployment;
+
+import io.quarkus.builder.item.SimpleBuildItem;
+
+/**
+ * Marker build item indicating that the generated field accessors have been passed to the
+ * {@link de.caluga.morphium.quarkus.MorphiumRecorder} via {@code registerFieldAccessors()}.
+ *
+ * <p>Build steps that may create the {@code Morphium} bean at runtime init (e.g. migration
+ * execution) consume it, so the object mapper finds the accessors when it maps the first entity.
+ */
+public final class MorphiumAccessorsRegisteredBuildItem extends SimpleBuildItem {
+}
@@ -89,7 +89,8 @@ public class MorphiumMigrationProcessor {
      * Consumes {@link MorphiumEntitiesRegisteredBuildItem} to guarantee that
      * {@code setMappedClassNames()} has been replayed before this step runs —
      * otherwise the Morphium bean creation triggered here would see an empty
-     * entity list and skip index creation.
+     * entity list and skip index creation. {@link MorphiumAccessorsRegisteredBuildItem} likewise
+     * makes sure the generated field accessors are registered before the first mapping.
      * Produces a {@link ServiceStartBuildItem} to ensure migrations complete before
      * the application starts serving requests.
      */
@@ -97,7 +98,8 @@ public class MorphiumMigrationProcessor {
     @Record(ExecutionTime.RUNTIME_INIT)
     @Consume(SyntheticBeansRuntimeInitBuildItem.class)
     ServiceStartBuildItem executeMigrations(MorphiumRecorder recorder,
-                                            MorphiumEntitiesRegisteredBuildItem entitiesRegistered) {
+                                            MorphiumEntitiesRegisteredBuildItem entitiesRegistered,
+                                            MorphiumAccessorsRegisteredBuildItem accessorsRegistered) {
         recorder.runMigrations();
         return new ServiceStartBuildItem("morphium-migration");
     }
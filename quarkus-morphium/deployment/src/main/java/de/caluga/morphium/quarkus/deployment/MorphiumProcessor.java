@@ -163,6 +163,22 @@ public class MorphiumProcessor {
         }
     }
 
+    /**
+     * Registers {@code MorphiumMetricsBinder} when {@code quarkus-micrometer} is on the
+     * application classpath - same capability gating as the JSON customizers above, the
+     * binder references Micrometer types.
+     */
+    @BuildStep
+    void registerMetricsBinder(Capabilities capabilities,
+                               BuildProducer<AdditionalBeanBuildItem> additionalBeans) {
+        if (capabilities.isPresent(Capability.MICROMETER)) {
+            additionalBeans.produce(AdditionalBeanBuildItem.builder()
+                .addBeanClass("de.caluga.morphium.quarkus.metrics.MorphiumMetricsBinder")
+                .setUnremovable()
+                .build());
+        }
+    }
+
     // ------------------------------------------------------------------
     // Health check registration
     // ------------------------------------------------------------------
@@ -0,0 +1,170 @@
+package de.caluga.morphium.quarkus.deployment;
+
+import de.caluga.morphium.ObjectMapperImpl;
+import de.caluga.morphium.annotations.Embedded;
+import de.caluga.morphium.annotations.Entity;
+import de.caluga.morphium.annotations.Id;
+import de.caluga.morphium.objectmapping.FieldAccessorRegistry;
+import de.caluga.morphium.objectmapping.GeneratedFieldAccessor;
+import io.quarkus.gizmo.ClassOutput;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.Indexer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MorphiumAccessorProcessor}: which classes and fields get an accessor, and
+ * that the generated bytecode reads and writes the fields - loaded next to the fixture like
+ * Quarkus does for application classes.
+ */
+@DisplayName("MorphiumAccessorProcessor — generated entity field accessors")
+class MorphiumAccessorProcessorTest {
+
+    public static class BaseFixture {
+        @Id
+        public String id;
+    }
+
+    @Entity
+    public static class AccessorFixture extends BaseFixture {
+        public static String CONSTANT = "x";
+        public final String finalValue = "final";
+        String name;
+        int counter;
+        long timestamp;
+        boolean flag;
+        Map<String, Integer> map;
+        EmbeddedFixture embedded;
+        String[] array;
+    }
+
+    public static class SubFixture extends AccessorFixture {
+        double ratio;
+    }
+
+    @Embedded
+    public static class EmbeddedFixture {
+        public String value;
+    }
+
+    @AfterEach
+    void clearRegistry() {
+        FieldAccessorRegistry.clear();
+    }
+
+    private static IndexView buildIndex(Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> c : classes) {
+            String resource = c.getName().replace('.', '/') + ".class";
+            try (InputStream in = c.getClassLoader().getResourceAsStream(resource)) {
+                indexer.index(in);
+            }
+        }
+        return indexer.complete();
+    }
+
+    private static ClassInfo info(IndexView index, Class<?> c) {
+        return index.getClassByName(DotName.createSimple(c.getName()));
+    }
+
+    /** generates the accessor and defines it in the fixture's package and class loader */
+    private static GeneratedFieldAccessor generate(IndexView index, Class<?> c) throws Exception {
+        Map<String, byte[]> classes = new HashMap<>();
+        ClassOutput out = (name, data) -> classes.put(name, data);
+        ClassInfo ci = info(index, c);
+        MorphiumAccessorProcessor.generateAccessor(ci, MorphiumAccessorProcessor.accessibleFields(ci, index), out);
+        assertThat(classes).hasSize(1);
+        byte[] bytes = classes.values().iterator().next();
+        Class<?> cls = MethodHandles.privateLookupIn(c, MethodHandles.lookup()).defineClass(bytes);
+        return (GeneratedFieldAccessor) cls.getDeclaredConstructor().newInstance();
+    }
+
+    @Test
+    @DisplayName("mappedClasses: annotated classes, their superclasses and subclasses")
+    void mappedClasses_includesHierarchy() throws IOException {
+        IndexView index = buildIndex(BaseFixture.class, AccessorFixture.class, SubFixture.class, EmbeddedFixture.class);
+
+        assertThat(MorphiumAccessorProcessor.mappedClasses(index))
+                .extracting(ci -> ci.name().toString())
+                .containsExactlyInAnyOrder(BaseFixture.class.getName(), AccessorFixture.class.getName(),
+                        SubFixture.class.getName(), EmbeddedFixture.class.getName());
+    }
+
+    @Test
+    @DisplayName("accessibleFields: skips static, final and array fields")
+    void accessibleFields_skipsUnsupported() throws IOException {
+        IndexView index = buildIndex(AccessorFixture.class, EmbeddedFixture.class);
+
+        List<FieldInfo> fields = MorphiumAccessorProcessor.accessibleFields(info(index, AccessorFixture.class), index);
+
+        assertThat(fields).extracting(FieldInfo::name)
+                .containsExactly("name", "counter", "timestamp", "flag", "map", "embedded");
+    }
+
+    @Test
+    @DisplayName("generated accessor reads and writes fields, failing like reflection on wrong values")
+    void generatedAccessor_readsAndWrites() throws Exception {
+        IndexView index = buildIndex(AccessorFixture.class, EmbeddedFixture.class);
+        GeneratedFieldAccessor accessor = generate(index, AccessorFixture.class);
+        List<String> names = List.of(accessor.getFieldNames());
+        AccessorFixture f = new AccessorFixture();
+
+        assertThat(accessor.getDeclaringClass()).isEqualTo(AccessorFixture.class);
+        accessor.set(f, names.indexOf("name"), "test");
+        accessor.set(f, names.indexOf("counter"), 42);
+        accessor.set(f, names.indexOf("timestamp"), 17L);
+        accessor.set(f, names.indexOf("flag"), true);
+        accessor.set(f, names.indexOf("map"), Map.of("a", 1));
+
+        assertThat(f.name).isEqualTo("test");
+        assertThat(f.counter).isEqualTo(42);
+        assertThat(f.timestamp).isEqualTo(17L);
+        assertThat(f.flag).isTrue();
+        assertThat(accessor.get(f, names.indexOf("counter"))).isEqualTo(42);
+        assertThat(accessor.get(f, names.indexOf("map"))).isEqualTo(Map.of("a", 1));
+
+        assertThatThrownBy(() -> accessor.set(f, names.indexOf("counter"), 1L)).isInstanceOf(ClassCastException.class);
+        assertThatThrownBy(() -> accessor.set(f, names.indexOf("counter"), null)).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> accessor.get(f, 99)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("registered accessors are used by the object mapper")
+    void registeredAccessor_usedByObjectMapper() throws Exception {
+        IndexView index = buildIndex(BaseFixture.class, AccessorFixture.class, EmbeddedFixture.class);
+        FieldAccessorRegistry.register(generate(index, BaseFixture.class));
+        FieldAccessorRegistry.register(generate(index, AccessorFixture.class));
+        FieldAccessorRegistry.register(generate(index, EmbeddedFixture.class));
+
+        AccessorFixture f = new AccessorFixture();
+        f.id = "fixture";
+        f.name = "mapped";
+        f.counter = 3;
+        f.embedded = new EmbeddedFixture();
+        f.embedded.value = "inner";
+
+        ObjectMapperImpl mapper = new ObjectMapperImpl();
+        Map<String, Object> doc = mapper.serialize(f);
+        doc.put("counter", 4L);
+        AccessorFixture read = mapper.deserialize(AccessorFixture.class, doc);
+
+        assertThat(read.id).isEqualTo("fixture");
+        assertThat(read.name).isEqualTo("mapped");
+        assertThat(read.counter).as("long from the db converted to the int field").isEqualTo(4);
+        assertThat(read.embedded.value).isEqualTo("inner");
+    }
+}
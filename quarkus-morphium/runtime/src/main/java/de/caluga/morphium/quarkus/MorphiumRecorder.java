@@ -16,6 +16,8 @@
 package de.caluga.morphium.quarkus;
 
 import de.caluga.morphium.Morphium;
+import de.caluga.morphium.objectmapping.FieldAccessorRegistry;
+import de.caluga.morphium.objectmapping.GeneratedFieldAccessor;
 import de.caluga.morphium.quarkus.migration.MorphiumMigrationRunner;
 import io.quarkus.arc.Arc;
 import io.quarkus.arc.InstanceHandle;
@@ -37,6 +39,9 @@ import java.util.List;
  *
  * <p>Also stores {@code @MorphiumChangeUnit} class names and triggers migration
  * execution at runtime when {@code quarkus.morphium.migration.migrate-at-start=true}.
+ *
+ * <p>Field accessors generated at build time are instantiated and put into the
+ * {@link FieldAccessorRegistry} before the first {@code Morphium} is created.
  */
 @Recorder
 public class MorphiumRecorder {
@@ -91,6 +96,30 @@ public class MorphiumRecorder {
         }
     }
 
+    /**
+     * Registers the {@link GeneratedFieldAccessor}s generated for the application's entities.
+     * Replaces all accessors registered before, so a dev-mode reload does not keep the ones of
+     * the previous classes. An accessor that cannot be loaded is skipped - its fields are then
+     * accessed reflectively.
+     */
+    public void registerFieldAccessors(List<String> accessorClassNames) {
+        FieldAccessorRegistry.clear();
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        int registered = 0;
+
+        for (String name : accessorClassNames) {
+            try {
+                Class<?> cls = Class.forName(name, true, cl);
+                FieldAccessorRegistry.register((GeneratedFieldAccessor) cls.getDeclaredConstructor().newInstance());
+                registered++;
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                log.warn("Could not register generated field accessor {} - using reflection for its fields", name, e);
+            }
+        }
+
+        log.debug("Registered {} generated field accessors", registered);
+    }
+
     /**
      * Called at RUNTIME_INIT after the BeanContainer is available.
      * Triggers migration execution if configured.
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 The Quarkiverse Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.caluga.morphium.quarkus.metrics;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.metrics.DriverMetrics.Timer;
+import de.caluga.morphium.driver.metrics.HostMetrics;
+import de.caluga.morphium.driver.metrics.LatencyHistogram;
+import de.caluga.morphium.driver.metrics.MetricsExporter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the Morphium driver metrics ({@code morphium.getDriver().getMetrics()}) to the
+ * Micrometer registry. Registered by the deployment processor only when the
+ * {@code quarkus-micrometer} capability is present.
+ *
+ * <p>Meters, all tagged with {@code host}:
+ * <ul>
+ *   <li>{@code morphium.command} - timer per {@code command} (find, insert, update, delete,
+ *       aggregate, getMore, command), request to reply;</li>
+ *   <li>{@code morphium.connection.wait} - timer, time spent waiting for a pooled connection;</li>
+ *   <li>{@code morphium.command.latency} / {@code morphium.connection.wait.latency} - gauges
+ *       with the p50/p95/p99/max latency in seconds, tag {@code percentile};</li>
+ *   <li>{@code morphium.bytes.sent} / {@code morphium.bytes.received} - byte counters.</li>
+ * </ul>
+ * Hosts the driver connects to later are added as they appear.
+ */
+@ApplicationScoped
+public class MorphiumMetricsBinder implements MetricsExporter {
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private MeterRegistry registry;
+
+    void onStart(@Observes StartupEvent event, Morphium morphium, MeterRegistry registry) {
+        DriverMetrics metrics = morphium.getDriver().getMetrics();
+
+        if (metrics == null) {
+            // InMemoryDriver or driverSettings.metricsEnabled=false
+            return;
+        }
+
+        this.registry = registry;
+        metrics.addExporter(this);
+    }
+
+    @Override
+    public void hostAdded(HostMetrics host) {
+        for (Timer t : Timer.values()) {
+            boolean wait = t == Timer.CONNECTION_WAIT;
+            String name = wait ? "morphium.connection.wait" : "morphium.command";
+            LatencyHistogram h = host.getLatency(t);
+            String[] tags = wait ? new String[] {"host", host.getHost()} : new String[] {"host", host.getHost(), "command", t.getMetricName()};
+
+            FunctionTimer.builder(name, h, LatencyHistogram::getCount, LatencyHistogram::getTotalMicros, TimeUnit.MICROSECONDS)
+                .tags(tags)
+                .register(registry);
+
+            for (double p : PERCENTILES) {
+                Gauge.builder(name + ".latency", h, x -> x.getValueAtPercentile(p) / 1e6)
+                    .tags(tags)
+                    .tag("percentile", String.valueOf(p / 100))
+                    .baseUnit("seconds")
+                    .register(registry);
+            }
+
+            Gauge.builder(name + ".latency", h, x -> x.getMaxMicros() / 1e6)
+                .tags(tags)
+                .tag("percentile", "max")
+                .baseUnit("seconds")
+                .register(registry);
+        }
+
+        FunctionCounter.builder("morphium.bytes.sent", host, HostMetrics::getBytesSent)
+            .tag("host", host.getHost())
+            .baseUnit("bytes")
+            .register(registry);
+        FunctionCounter.builder("morphium.bytes.received", host, HostMetrics::getBytesReceived)
+            .tag("host", host.getHost())
+            .baseUnit("bytes")
+            .register(registry);
+    }
+}
@@ -0,0 +1,108 @@
+package de.caluga.morphium.spring.autoconfigure;
+
+import de.caluga.morphium.Morphium;
+import de.caluga.morphium.driver.metrics.DriverMetrics;
+import de.caluga.morphium.driver.metrics.DriverMetrics.Timer;
+import de.caluga.morphium.driver.metrics.HostMetrics;
+import de.caluga.morphium.driver.metrics.LatencyHistogram;
+import de.caluga.morphium.driver.metrics.MetricsExporter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auto-configuration that publishes the driver metrics of the application's {@link Morphium}
+ * bean ({@code morphium.getDriver().getMetrics()}) to Micrometer. It runs after
+ * {@link MorphiumAutoConfiguration} and applies only when Micrometer is on the classpath and a
+ * {@link Morphium} bean exists. Spring Boot binds the {@link MeterBinder} to every
+ * {@link MeterRegistry}, so with actuator the meters show up under {@code /actuator/metrics}
+ * and in the Prometheus scrape.
+ *
+ * <p>Meters, all tagged with {@code host}:
+ * <ul>
+ *   <li>{@code morphium.command} - timer per {@code command} (find, insert, update, delete,
+ *       aggregate, getMore, command), request to reply;</li>
+ *   <li>{@code morphium.connection.wait} - timer, time spent waiting for a pooled connection;</li>
+ *   <li>{@code morphium.command.latency} / {@code morphium.connection.wait.latency} - gauges
+ *       with the p50/p95/p99/max latency in seconds, tag {@code percentile};</li>
+ *   <li>{@code morphium.bytes.sent} / {@code morphium.bytes.received} - counters of the
+ *       bytes on the wire.</li>
+ * </ul>
+ *
+ * <p>Drivers without metrics (InMemoryDriver, or {@code driverSettings.metricsEnabled=false})
+ * register nothing. Define a bean named {@code morphiumMeterBinder} to replace this one.
+ */
+@AutoConfiguration(after = MorphiumAutoConfiguration.class)
+@ConditionalOnClass(MeterBinder.class)
+@ConditionalOnBean(Morphium.class)
+public class MorphiumMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(name = "morphiumMeterBinder")
+    public MeterBinder morphiumMeterBinder(Morphium morphium) {
+        return registry -> {
+            DriverMetrics metrics = morphium.getDriver().getMetrics();
+
+            if (metrics != null) {
+                metrics.addExporter(new MicrometerExporter(registry));
+            }
+        };
+    }
+
+    /** Registers the meters of every host with one registry. */
+    static class MicrometerExporter implements MetricsExporter {
+        private static final double[] PERCENTILES = {50, 95, 99};
+
+        private final MeterRegistry registry;
+
+        MicrometerExporter(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void hostAdded(HostMetrics host) {
+            for (Timer t : Timer.values()) {
+                boolean wait = t == Timer.CONNECTION_WAIT;
+                String name = wait ? "morphium.connection.wait" : "morphium.command";
+                LatencyHistogram h = host.getLatency(t);
+                String[] tags = wait ? new String[] {"host", host.getHost()} : new String[] {"host", host.getHost(), "command", t.getMetricName()};
+
+                FunctionTimer.builder(name, h, LatencyHistogram::getCount, LatencyHistogram::getTotalMicros, TimeUnit.MICROSECONDS)
+                    .tags(tags)
+                    .register(registry);
+
+                for (double p : PERCENTILES) {
+                    Gauge.builder(name + ".latency", h, x -> x.getValueAtPercentile(p) / 1e6)
+                        .tags(tags)
+                        .tag("percentile", String.valueOf(p / 100))
+                        .baseUnit("seconds")
+                        .register(registry);
+                }
+
+                Gauge.builder(name + ".latency", h, x -> x.getMaxMicros() / 1e6)
+                    .tags(tags)
+                    .tag("percentile", "max")
+                    .baseUnit("seconds")
+                    .register(registry);
+            }
+
+            FunctionCounter.builder("morphium.bytes.sent", host, HostMetrics::getBytesSent)
+                .tag("host", host.getHost())
+                .baseUnit("bytes")
+                .register(registry);
+            FunctionCounter.builder("morphium.bytes.received", host, HostMetrics::getBytesReceived)
+                .tag("host", host.getHost())
+                .baseUnit("bytes")
+                .register(registry);
+        }
+    }
+}